@@ -0,0 +1,119 @@
+package dev.kons.kuenyawz.benchmarks;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Seeded generator of synthetic purchase baskets, so every benchmark run mines the same history.
+ * <br>
+ * <br>
+ * Products are ranked by popularity and drawn with a Zipfian distribution, the product of rank
+ * {@code k} is drawn with a probability proportional to {@code 1 / k^exponent}. Basket sizes follow a
+ * geometric distribution with the given mean, capped at {@code maxBasketSize}. Product ids start at
+ * {@link #FIRST_PRODUCT_ID} and are spread out like snowflake ids would be.
+ */
+public final class BasketGenerator {
+
+	public static final long FIRST_PRODUCT_ID = 1_000_000L;
+	private static final long ID_STRIDE = 7919L;
+
+	private final int catalogSize;
+	private final double meanBasketSize;
+	private final int maxBasketSize;
+	private final double[] cumulative;
+	private final SplittableRandom random;
+
+	/**
+	 * @param seed           {@code long} seed of the generator
+	 * @param catalogSize    {@code int} number of distinct products
+	 * @param meanBasketSize {@code double} mean number of distinct products per basket, at least 1
+	 * @param maxBasketSize  {@code int} largest basket
+	 * @param zipfExponent   {@code double} skew of the popularity, 0 is uniform and 1 is classic Zipf
+	 */
+	public BasketGenerator(long seed, int catalogSize, double meanBasketSize, int maxBasketSize, double zipfExponent) {
+		if (catalogSize < 1 || maxBasketSize < 1 || meanBasketSize < 1)
+			throw new IllegalArgumentException("Catalog and basket sizes must be positive");
+		this.catalogSize = catalogSize;
+		this.meanBasketSize = meanBasketSize;
+		this.maxBasketSize = Math.min(maxBasketSize, catalogSize);
+		this.random = new SplittableRandom(seed);
+
+		this.cumulative = new double[catalogSize];
+		double total = 0;
+		for (int rank = 0; rank < catalogSize; rank++) {
+			total += 1 / Math.pow(rank + 1, zipfExponent);
+			cumulative[rank] = total;
+		}
+		for (int rank = 0; rank < catalogSize; rank++) {
+			cumulative[rank] /= total;
+		}
+	}
+
+	/**
+	 * Generates the next baskets.
+	 *
+	 * @param count {@code int} number of baskets
+	 * @return {@code long[][]} product ids of each basket, distinct within a basket
+	 */
+	public long[][] baskets(int count) {
+		long[][] baskets = new long[count][];
+		for (int i = 0; i < count; i++) {
+			baskets[i] = basket();
+		}
+		return baskets;
+	}
+
+	/**
+	 * Generates the next basket.
+	 *
+	 * @return {@code long[]} distinct product ids
+	 */
+	public long[] basket() {
+		int size = basketSize();
+		long[] basket = new long[size];
+		int filled = 0;
+		while (filled < size) {
+			long productId = productId(nextRank());
+			boolean duplicate = false;
+			for (int i = 0; i < filled && !duplicate; i++) {
+				duplicate = basket[i] == productId;
+			}
+			if (!duplicate) {
+				basket[filled++] = productId;
+			}
+		}
+		return basket;
+	}
+
+	/**
+	 * Draws a product by popularity.
+	 *
+	 * @return {@code long} product id
+	 */
+	public long nextProductId() {
+		return productId(nextRank());
+	}
+
+	/**
+	 * Id of the product of a popularity rank, the most popular product has rank 0.
+	 */
+	public long productId(int rank) {
+		return FIRST_PRODUCT_ID + rank * ID_STRIDE;
+	}
+
+	public int catalogSize() {
+		return catalogSize;
+	}
+
+	private int nextRank() {
+		int position = Arrays.binarySearch(cumulative, random.nextDouble());
+		return Math.min(catalogSize - 1, (position >= 0) ? position : -position - 1);
+	}
+
+	private int basketSize() {
+		// Geometric number of extra products on top of the first one
+		double p = 1 / meanBasketSize;
+		int extra = (p >= 1) ? 0 : (int) (Math.log(1 - random.nextDouble()) / Math.log(1 - p));
+		return Math.min(maxBasketSize, 1 + extra);
+	}
+}
@@ -0,0 +1,121 @@
+package dev.kons.kuenyawz.benchmarks;
+
+import dev.kons.kuenyawz.services.logic.AprioriServiceImpl;
+import dev.kons.kuenyawz.utils.mining.AssociationRule;
+import dev.kons.kuenyawz.utils.mining.AssociationRules;
+import dev.kons.kuenyawz.utils.mining.CartRuleIndex;
+import dev.kons.kuenyawz.utils.mining.DecayedCoOccurrence;
+import dev.kons.kuenyawz.utils.mining.RecommendationSnapshot;
+import dev.kons.kuenyawz.utils.mining.SlidingWindowCounts;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per request cost of the in-memory models: product recommendations from the snapshot, cart
+ * recommendations from the rule index and the decayed model, and the top sellers of a window.
+ * Requests are drawn with the same popularity as the purchases.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LookupBenchmark {
+
+	private static final int REQUESTS = 4096;
+	private static final long DAY_MILLIS = Duration.ofDays(1).toMillis();
+
+	@Param({"200", "2000"})
+	public int catalogSize;
+
+	@Param({"50000"})
+	public int basketCount;
+
+	@Param({"1.0"})
+	public double zipfExponent;
+
+	private RecommendationSnapshot snapshot;
+	private CartRuleIndex cartRules;
+	private DecayedCoOccurrence decayed;
+	private SlidingWindowCounts topSellers;
+	private long[] requestedIds;
+	private long[][] carts;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BasketGenerator generator = new BasketGenerator(42L, catalogSize, 3, 12, zipfExponent);
+		long[][] baskets = generator.baskets(basketCount);
+
+		List<AssociationRule> rules = new AprioriServiceImpl(null, null)
+			.findAssociationRules(MiningBenchmark.toMatrix(baskets));
+		snapshot = RecommendationSnapshot.of(1L, topThreeOf(rules));
+		cartRules = CartRuleIndex.of(rules);
+
+		// Spread the baskets over the last 90 days, oldest first
+		long now = System.currentTimeMillis();
+		long today = now / DAY_MILLIS;
+		decayed = new DecayedCoOccurrence(Duration.ofDays(90), now);
+		topSellers = new SlidingWindowCounts(today, 7, 30, 90);
+		for (int i = 0; i < baskets.length; i++) {
+			long daysAgo = 89L - (89L * i / baskets.length);
+			decayed.add(baskets[i], now - daysAgo * DAY_MILLIS);
+			topSellers.add(baskets[i], today - daysAgo, 1);
+		}
+
+		BasketGenerator requests = new BasketGenerator(7L, catalogSize, 3, 12, zipfExponent);
+		requestedIds = new long[REQUESTS];
+		carts = new long[REQUESTS][];
+		for (int i = 0; i < REQUESTS; i++) {
+			requestedIds[i] = requests.nextProductId();
+			carts[i] = requests.basket();
+		}
+	}
+
+	@Benchmark
+	public long[] productFromSnapshot() {
+		return snapshot.recommendationsOf(requestedIds[next++ & (REQUESTS - 1)]);
+	}
+
+	@Benchmark
+	public long[] cartFromRules() {
+		return cartRules.recommend(carts[next++ & (REQUESTS - 1)], 6);
+	}
+
+	@Benchmark
+	public long[] productFromDecayedModel() {
+		return decayed.recommend(requestedIds[next++ & (REQUESTS - 1)], 6);
+	}
+
+	@Benchmark
+	public long[] cartFromDecayedModel() {
+		return decayed.recommend(carts[next++ & (REQUESTS - 1)], 6);
+	}
+
+	@Benchmark
+	public long[] topSellersOfWeek() {
+		return topSellers.top(7, 8, productId -> true);
+	}
+
+	private static Map<Long, long[]> topThreeOf(List<AssociationRule> rules) {
+		Map<Long, List<AssociationRule>> rulesOfProduct = new HashMap<>();
+		for (AssociationRule rule : rules) {
+			if (rule.antecedent().length == 1) {
+				rulesOfProduct.computeIfAbsent(rule.antecedent()[0], id -> new ArrayList<>()).add(rule);
+			}
+		}
+
+		Map<Long, long[]> recommendations = new HashMap<>();
+		rulesOfProduct.forEach((productId, productRules) -> recommendations.put(productId, productRules.stream()
+			.sorted(AssociationRules.strongestFirst())
+			.mapToLong(AssociationRule::consequent)
+			.distinct()
+			.limit(3)
+			.toArray()));
+		return recommendations;
+	}
+}
@@ -0,0 +1,116 @@
+package dev.kons.kuenyawz.benchmarks;
+
+import dev.kons.kuenyawz.entities.Product;
+import dev.kons.kuenyawz.entities.Purchase;
+import dev.kons.kuenyawz.entities.PurchaseItem;
+import dev.kons.kuenyawz.entities.Variant;
+import dev.kons.kuenyawz.services.logic.AprioriServiceImpl;
+import dev.kons.kuenyawz.services.logic.RecommenderServiceImpl;
+import dev.kons.kuenyawz.utils.mining.AssociationRule;
+import dev.kons.kuenyawz.utils.mining.TransactionMatrix;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of turning the purchase history into association rules: building the transaction matrix,
+ * converting purchase entities and mining on the calling thread or on a pool.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MiningBenchmark {
+
+	@Param({"200", "2000"})
+	public int catalogSize;
+
+	@Param({"10000", "100000"})
+	public int basketCount;
+
+	@Param({"3"})
+	public double meanBasketSize;
+
+	@Param({"1.0"})
+	public double zipfExponent;
+
+	private long[][] baskets;
+	private List<Purchase> purchases;
+	private TransactionMatrix matrix;
+	private AprioriServiceImpl sequentialService;
+	private AprioriServiceImpl parallelService;
+	private RecommenderServiceImpl recommenderService;
+	private ForkJoinPool pool;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BasketGenerator generator = new BasketGenerator(42L, catalogSize, meanBasketSize, 12, zipfExponent);
+		baskets = generator.baskets(basketCount);
+		purchases = toPurchases(baskets);
+		matrix = toMatrix(baskets);
+
+		pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+		sequentialService = new AprioriServiceImpl(null, null);
+		parallelService = new AprioriServiceImpl(null, pool);
+
+		// Only the conversion is measured, it touches none of the collaborators
+		recommenderService = new RecommenderServiceImpl(null, null, null, null, null, null, null, null, null, null);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		pool.shutdown();
+	}
+
+	@Benchmark
+	public TransactionMatrix buildMatrix() {
+		return toMatrix(baskets);
+	}
+
+	@Benchmark
+	public TransactionMatrix convertToAprioriSource() {
+		return recommenderService.convertToAprioriSource(purchases);
+	}
+
+	@Benchmark
+	public List<AssociationRule> mineRules() {
+		return sequentialService.findAssociationRules(matrix);
+	}
+
+	@Benchmark
+	public List<AssociationRule> mineRulesOnPool() {
+		return parallelService.findAssociationRules(matrix);
+	}
+
+	static TransactionMatrix toMatrix(long[][] baskets) {
+		TransactionMatrix.Builder builder = TransactionMatrix.builder();
+		for (long[] basket : baskets) {
+			builder.addTransaction(basket);
+		}
+		return builder.build();
+	}
+
+	private static List<Purchase> toPurchases(long[][] baskets) {
+		Map<Long, Variant> variants = new HashMap<>();
+		List<Purchase> purchases = new ArrayList<>(baskets.length);
+		for (long[] basket : baskets) {
+			List<PurchaseItem> items = new ArrayList<>(basket.length);
+			for (long productId : basket) {
+				Variant variant = variants.computeIfAbsent(productId, id -> Variant.builder()
+					.variantId(id)
+					.product(Product.builder().productId(id).build())
+					.build());
+				items.add(PurchaseItem.builder().variant(variant).build());
+			}
+			purchases.add(Purchase.builder().purchaseItems(items).build());
+		}
+		return purchases;
+	}
+}
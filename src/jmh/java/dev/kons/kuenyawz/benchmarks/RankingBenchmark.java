@@ -0,0 +1,77 @@
+package dev.kons.kuenyawz.benchmarks;
+
+import dev.kons.kuenyawz.repositories.ProductRepository;
+import dev.kons.kuenyawz.services.logic.AprioriServiceImpl;
+import dev.kons.kuenyawz.utils.mining.AssociationRule;
+import dev.kons.kuenyawz.utils.mining.CartRuleIndex;
+import dev.kons.kuenyawz.utils.mining.CoOccurrenceCounts;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Cost of turning mined rules into what is served: the top three of every product, the cart rule
+ * index, and re-ranking one product from the incremental counts after a purchase.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RankingBenchmark {
+
+	@Param({"200", "2000"})
+	public int catalogSize;
+
+	@Param({"50000"})
+	public int basketCount;
+
+	@Param({"0.8", "1.2"})
+	public double zipfExponent;
+
+	private AprioriServiceImpl aprioriService;
+	private List<AssociationRule> rules;
+	private CoOccurrenceCounts counts;
+	private long[] productIds;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		BasketGenerator generator = new BasketGenerator(42L, catalogSize, 3, 12, zipfExponent);
+		long[][] baskets = generator.baskets(basketCount);
+
+		productIds = LongStream.range(0, catalogSize).map(rank -> generator.productId((int) rank)).toArray();
+		ProductRepository productRepository = mock(ProductRepository.class);
+		when(productRepository.findAllAvailableIds()).thenReturn(LongStream.of(productIds).boxed().toList());
+
+		aprioriService = new AprioriServiceImpl(productRepository, null);
+		rules = aprioriService.findAssociationRules(MiningBenchmark.toMatrix(baskets));
+		counts = CoOccurrenceCounts.of(MiningBenchmark.toMatrix(baskets));
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public Map<Long, Set<Long>> rankAllProducts() {
+		return aprioriService.findAllFrequentSetOfItems(rules);
+	}
+
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public CartRuleIndex indexCartRules() {
+		return CartRuleIndex.of(rules);
+	}
+
+	@Benchmark
+	public Set<Long> rerankOneProduct() {
+		long productId = productIds[next++ % productIds.length];
+		return aprioriService.findFrequentSetItemWith(counts, productId, 3);
+	}
+}
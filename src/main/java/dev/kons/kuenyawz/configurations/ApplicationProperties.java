@@ -11,7 +11,9 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.cloud.context.config.annotation.RefreshScope;
 import org.springframework.stereotype.Component;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * This is not an explicit configuration class, but a necessary component to read
@@ -55,6 +57,8 @@ public class ApplicationProperties {
 	private Database database = new Database();
 	private Security security = new Security();
 	private Midtrans midtrans = new Midtrans();
+	private Recommender recommender = new Recommender();
+	private Caches caches = new Caches();
 
 	// Initializing through dotenv
 	@Autowired
@@ -108,6 +112,28 @@ public class ApplicationProperties {
 		this.midtrans.unfinishUrl = getEnv("MIDTRANS_UNFINISH_URL", "http://localhost:8081/api", dotenv);
 		this.midtrans.errorUrl = getEnv("MIDTRANS_ERROR_URL", "http://localhost:8081/api", dotenv);
 
+		this.recommender.miningParallelism = Integer.parseInt(getEnv("RECOMMENDER_MINING_PARALLELISM",
+			String.valueOf(Runtime.getRuntime().availableProcessors()), dotenv));
+		this.recommender.rebuildCron = getEnv("RECOMMENDER_REBUILD_CRON", "0 0 3 * * *", dotenv);
+		this.recommender.rebuildMinIntervalMinutes = Long.parseLong(
+			getEnv("RECOMMENDER_REBUILD_MIN_INTERVAL_MINUTES", "60", dotenv));
+		this.recommender.decayHalfLifeDays = Long.parseLong(
+			getEnv("RECOMMENDER_DECAY_HALF_LIFE_DAYS", "90", dotenv));
+		this.recommender.modelFile = getEnv("RECOMMENDER_MODEL_FILE", "recommender/model.bin", dotenv);
+
+		this.caches.defaultSpec = getEnv("CACHE_DEFAULT_SPEC", Caches.DEFAULT_SPEC, dotenv);
+		this.caches.specs.put("productCache",
+			getEnv("CACHE_PRODUCT_SPEC", "maximumSize=1000,expireAfterWrite=3m,refreshAfterWrite=1m,recordStats", dotenv));
+		this.caches.specs.put("productsCache",
+			getEnv("CACHE_PRODUCTS_SPEC", "maximumWeight=5000,expireAfterWrite=3m,refreshAfterWrite=1m,recordStats", dotenv));
+		this.caches.specs.put("purchaseCache",
+			getEnv("CACHE_PURCHASE_SPEC", "maximumSize=500,expireAfterWrite=3m,recordStats", dotenv));
+		this.caches.specs.put("purchasesCache",
+			getEnv("CACHE_PURCHASES_SPEC", "maximumWeight=5000,expireAfterWrite=3m,recordStats", dotenv));
+		this.caches.specs.put("productResponseCache",
+			getEnv("CACHE_PRODUCT_RESPONSE_SPEC", "maximumWeight=16777216,expireAfterWrite=10m,recordStats", dotenv));
+		this.caches.catalogMaxProducts = Integer.parseInt(getEnv("CATALOG_MAX_PRODUCTS", "5000", dotenv));
+
 		// Print all properties
 		printAllProperties();
 	}
@@ -172,6 +198,14 @@ public class ApplicationProperties {
 		return midtrans;
 	}
 
+	public Recommender recommender() {
+		return recommender;
+	}
+
+	public Caches caches() {
+		return caches;
+	}
+
 	@Getter
 	@Setter
 	public static class Frontend {
@@ -233,6 +267,52 @@ public class ApplicationProperties {
 		private String errorUrl;
 	}
 
+	@Getter
+	@Setter
+	public static class Recommender {
+		public static final String ENGINE_APRIORI = "apriori";
+		public static final String ENGINE_DECAYED = "decayed";
+
+		// Engine behind the recommender service, "apriori" or "decayed", bound from application.yaml
+		private String engine = ENGINE_APRIORI;
+		// Worker threads used to mine recommendations, 1 mines on the calling thread
+		private int miningParallelism;
+		// Spring cron of the background rebuild, "-" disables it
+		private String rebuildCron = "0 0 3 * * *";
+		// Scheduled rebuilds are skipped when the last one completed within this interval
+		private long rebuildMinIntervalMinutes = 60;
+		// Half-life of a purchase in the decayed engine
+		private long decayHalfLifeDays = 90;
+		// File the mined model is saved to for warm starts, blank disables it
+		private String modelFile = "recommender/model.bin";
+
+		/**
+		 * Fails the startup on an unknown engine, no recommender service would be created for it.
+		 */
+		public void setEngine(String engine) {
+			if (!ENGINE_APRIORI.equals(engine) && !ENGINE_DECAYED.equals(engine)) {
+				throw new IllegalArgumentException("Unknown recommender engine '" + engine
+					+ "', set RECOMMENDER_ENGINE to '" + ENGINE_APRIORI + "' or '" + ENGINE_DECAYED + "'");
+			}
+			this.engine = engine;
+		}
+	}
+
+	@Getter
+	@Setter
+	public static class Caches {
+		public static final String DEFAULT_SPEC = "maximumSize=300,expireAfterWrite=3m,recordStats";
+
+		// Caffeine spec of the caches without their own spec
+		private String defaultSpec = DEFAULT_SPEC;
+		// Caffeine spec of each cache by name, maximumWeight weighs a cached listing by its number of rows
+		// and a serialized response by its bytes, refreshAfterWrite is only supported by the caches that have
+		// a CacheValueLoader
+		private Map<String, String> specs = new LinkedHashMap<>();
+		// Products the in-memory catalog snapshot holds at most, larger catalogs are read through the caches
+		private int catalogMaxProducts = 5000;
+	}
+
 	private void printAllProperties() {
 		System.out.println("Properties:");
 		System.out.println(" - version: " + version);
@@ -285,5 +365,18 @@ public class ApplicationProperties {
 		System.out.println(" - baseUrlApi: " + midtrans.baseUrlApi);
 		System.out.println(" - notificationUrl: " + midtrans.notificationUrl);
 		System.out.println(" - finishUrl: " + midtrans.finishUrl);
+
+		System.out.println("Recommender:");
+		System.out.println(" - engine: " + recommender.engine);
+		System.out.println(" - miningParallelism: " + recommender.miningParallelism);
+		System.out.println(" - rebuildCron: " + recommender.rebuildCron);
+		System.out.println(" - rebuildMinIntervalMinutes: " + recommender.rebuildMinIntervalMinutes);
+		System.out.println(" - decayHalfLifeDays: " + recommender.decayHalfLifeDays);
+		System.out.println(" - modelFile: " + recommender.modelFile);
+
+		System.out.println("Caches:");
+		System.out.println(" - defaultSpec: " + caches.defaultSpec);
+		caches.specs.forEach((name, spec) -> System.out.println(" - " + name + ": " + spec));
+		System.out.println(" - catalogMaxProducts: " + caches.catalogMaxProducts);
 	}
 }
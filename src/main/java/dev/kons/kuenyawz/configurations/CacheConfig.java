@@ -1,22 +1,145 @@
 package dev.kons.kuenyawz.configurations;
 
+import com.github.benmanes.caffeine.cache.AsyncCacheLoader;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.CaffeineSpec;
+import dev.kons.kuenyawz.dtos.CursorPage;
+import dev.kons.kuenyawz.utils.CacheValueLoader;
+import dev.kons.kuenyawz.utils.ProductResponseCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.Slice;
 
-import java.util.concurrent.TimeUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
+/**
+ * Builds every cache from its own Caffeine spec in {@link ApplicationProperties.Caches}, e.g.
+ * {@code maximumWeight=5000,expireAfterWrite=3m,recordStats}.
+ * <br>
+ * <br>
+ * Caches with a {@code maximumWeight} weigh each entry by its number of rows, so a page of 100
+ * products takes the room of 100 single products, and serialized responses by their size in bytes.
+ * Caches with {@code recordStats} are bound to Micrometer by Spring Boot at startup, their hits, misses,
+ * puts and evictions are exported as the {@code cache.*} metrics of the actuator endpoint.
+ * <br>
+ * <br>
+ * Caches with a {@code refreshAfterWrite} are built as async loading caches whose values come from the
+ * {@link CacheValueLoader} bean that {@link CacheValueLoader#loads(String) loads} them. Loaders are looked
+ * up on the first load, the services behind them depend on this cache manager themselves.
+ */
 @Configuration
+@RequiredArgsConstructor
+@Slf4j
 public class CacheConfig {
 
+	private final ApplicationProperties properties;
+
 	@Bean
-	public CacheManager cacheManager() {
+	public CacheManager cacheManager(ObjectProvider<CacheValueLoader> loaders) {
+		ApplicationProperties.Caches caches = properties.caches();
+
 		CaffeineCacheManager cacheManager = new CaffeineCacheManager();
-		cacheManager.setCaffeine(Caffeine.newBuilder()
-			.expireAfterWrite(3, TimeUnit.MINUTES)
-			.maximumSize(300));
+		if (hasOption(caches.getDefaultSpec(), "refreshAfterWrite")) {
+			throw new IllegalStateException("The default cache spec cannot refresh without a loader: " + caches.getDefaultSpec());
+		}
+		cacheManager.setCaffeine(caffeineOf("default", caches.getDefaultSpec()));
+		caches.getSpecs().forEach((name, spec) -> {
+			log.info("Configuring cache '{}' with spec '{}'", name, spec);
+			if (hasOption(spec, "refreshAfterWrite")) {
+				cacheManager.registerCustomCache(name, caffeineOf(name, spec).buildAsync(new DelegatingLoader(name, loaders)));
+			} else {
+				cacheManager.registerCustomCache(name, caffeineOf(name, spec).build());
+			}
+		});
 		return cacheManager;
 	}
+
+	/**
+	 * Parses a Caffeine spec, adding the row weigher when the spec limits the weight.
+	 */
+	static Caffeine<Object, Object> caffeineOf(String name, String spec) {
+		CaffeineSpec caffeineSpec;
+		try {
+			caffeineSpec = CaffeineSpec.parse(spec);
+		} catch (IllegalArgumentException e) {
+			throw new IllegalStateException("Invalid Caffeine spec of cache '" + name + "': " + spec, e);
+		}
+
+		Caffeine<Object, Object> caffeine = Caffeine.from(caffeineSpec);
+		if (hasOption(spec, "maximumWeight")) {
+			return caffeine.weigher((key, value) -> weightOf(value));
+		}
+		return caffeine;
+	}
+
+	/**
+	 * Number of rows of a cached value, or number of bytes of a serialized response, at least 1.
+	 */
+	static int weightOf(Object value) {
+		int rows = switch (value) {
+			case ProductResponseCache.SerializedResponse response -> response.body().length;
+			case Slice<?> slice -> slice.getNumberOfElements();
+			case CursorPage<?> page -> page.content().size();
+			case Collection<?> collection -> collection.size();
+			case Map<?, ?> map -> map.size();
+			case null, default -> 1;
+		};
+		return Math.max(1, rows);
+	}
+
+	/**
+	 * Loads the values of one cache through the first {@link CacheValueLoader} that loads it.
+	 */
+	private static final class DelegatingLoader implements AsyncCacheLoader<Object, Object> {
+
+		private final String cacheName;
+		private final ObjectProvider<CacheValueLoader> loaders;
+		private volatile CacheValueLoader loader;
+
+		private DelegatingLoader(String cacheName, ObjectProvider<CacheValueLoader> loaders) {
+			this.cacheName = cacheName;
+			this.loaders = loaders;
+		}
+
+		@Override
+		public CompletableFuture<Object> asyncLoad(Object key, Executor executor) {
+			return CompletableFuture.supplyAsync(() -> loader().load(cacheName, key), executor);
+		}
+
+		@Override
+		public CompletableFuture<Map<Object, Object>> asyncLoadAll(Set<?> keys, Executor executor) {
+			return CompletableFuture.supplyAsync(() -> loader().loadAll(cacheName, keys), executor);
+		}
+
+		private CacheValueLoader loader() {
+			CacheValueLoader current = loader;
+			if (current == null) {
+				current = loaders.orderedStream()
+					.filter(candidate -> candidate.loads(cacheName))
+					.findFirst()
+					.orElseThrow(() -> new IllegalStateException("No loader for refresh-ahead cache '" + cacheName + "'"));
+				loader = current;
+			}
+			return current;
+		}
+	}
+
+	/**
+	 * Checks if a spec sets an option, whatever its value.
+	 */
+	static boolean hasOption(String spec, String option) {
+		return Arrays.stream(spec.split(","))
+			.map(entry -> entry.split("=", 2)[0].trim())
+			.anyMatch(option::equals);
+	}
 }
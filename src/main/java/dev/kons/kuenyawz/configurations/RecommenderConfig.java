@@ -0,0 +1,26 @@
+package dev.kons.kuenyawz.configurations;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+@Configuration
+@Slf4j
+public class RecommenderConfig {
+
+	/**
+	 * Dedicated pool for mining recommendations, kept apart from the common pool so a rebuild
+	 * can never starve parallel streams or request threads of the application.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	public ForkJoinPool miningPool(ApplicationProperties properties) {
+		int parallelism = Math.max(1, Math.min(
+			properties.recommender().getMiningParallelism(),
+			Runtime.getRuntime().availableProcessors()
+		));
+		log.info("Mining recommendations with a parallelism of {}", parallelism);
+		return new ForkJoinPool(parallelism);
+	}
+}
@@ -80,6 +80,10 @@ public class SecurityConfig {
 					// Allow preflight requests
 					.requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+					// Recommender jobs and cart, before the public recommender endpoints
+					.requestMatchers(HttpMethod.GET, "/api/recommender/jobs/**").hasRole("ADMIN")
+					.requestMatchers(HttpMethod.GET, "/api/recommender/cart").hasAnyRole("ADMIN", "USER")
+
 					// Public endpoints
 					.requestMatchers(HttpMethod.GET,
 						"/static/**",
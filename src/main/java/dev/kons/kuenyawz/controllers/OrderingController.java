@@ -1,5 +1,6 @@
 package dev.kons.kuenyawz.controllers;
 
+import dev.kons.kuenyawz.dtos.CursorPage;
 import dev.kons.kuenyawz.dtos.purchase.PurchaseDto;
 import dev.kons.kuenyawz.dtos.purchase.PurchasePostDto;
 import dev.kons.kuenyawz.dtos.purchase.TransactionDto;
@@ -20,6 +21,7 @@ import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.time.LocalDate;
 import java.util.Map;
@@ -50,7 +52,8 @@ public class OrderingController {
 		@RequestParam(required = false) Long accountId,
 		@RequestParam(required = false) String orderBy,
 		@RequestParam(required = false) Integer page,
-		@RequestParam(required = false) Integer pageSize
+		@RequestParam(required = false) Integer pageSize,
+		@RequestParam(required = false) @Schema(description = "opt-in keyset pagination, empty for the first page then the previous nextCursor") String cursor
 	) {
 		PurchaseService.PurchaseSearchCriteria criteria = PurchaseService.PurchaseSearchCriteria.of(
 			isAscending,
@@ -63,6 +66,13 @@ public class OrderingController {
 			page,
 			pageSize
 		);
+		if (cursor != null) {
+			criteria.setCursor(cursor);
+			CursorPage<PurchaseDto> result = AuthService.isAuthenticatedAdmin()
+				? purchaseService.findAllByCursor(criteria)
+				: purchaseService.findAllByCursor(AuthService.getAuthenticatedAccount().getAccountId(), criteria);
+			return ResponseEntity.ok(result);
+		}
 		Page<PurchaseDto> result;
 		if (AuthService.isAuthenticatedAdmin()) {
 			result = purchaseService.findAll(criteria);
@@ -76,15 +86,21 @@ public class OrderingController {
 	@Operation(summary = "Get a purchase/order")
 	@ApiResponses({
 		@ApiResponse(responseCode = "200", description = "Order fetched successfully"),
+		@ApiResponse(responseCode = "304", description = "Order not modified since the If-None-Match ETag"),
 		@ApiResponse(responseCode = "400", description = "Bad request")
 	})
 	@SecurityRequirement(name = "cookieAuth")
 	@GetMapping("/{purchaseId}")
 	public ResponseEntity<?> getOrder(
-		@PathVariable Long purchaseId
+		@PathVariable Long purchaseId,
+		WebRequest request
 	) {
+		String eTag = orderingService.findPurchaseETag(purchaseId);
+		if (request.checkNotModified(eTag)) {
+			return null;
+		}
 		PurchaseDto purchaseDto = orderingService.findPurchase(purchaseId);
-		return ResponseEntity.ok(purchaseDto);
+		return ResponseEntity.ok().eTag(eTag).body(purchaseDto);
 	}
 
 	@Operation(summary = "Process an order")
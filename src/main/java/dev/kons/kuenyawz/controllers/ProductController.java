@@ -5,6 +5,7 @@ import dev.kons.kuenyawz.dtos.product.*;
 import dev.kons.kuenyawz.services.logic.ProductCsvService;
 import dev.kons.kuenyawz.services.entity.ProductService;
 import dev.kons.kuenyawz.services.entity.VariantService;
+import dev.kons.kuenyawz.utils.ProductResponseCache;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -13,8 +14,8 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -33,6 +34,7 @@ public class ProductController extends BaseController {
 	private final ProductService productService;
 	private final VariantService variantService;
 	private final ProductCsvService productCsvService;
+	private final ProductResponseCache productResponseCache;
 
 	// PRODUCT ENDPOINTS
 
@@ -43,6 +45,7 @@ public class ProductController extends BaseController {
 				schema = @Schema(implementation = ListOfProductDto.class)
 			)
 		),
+		@ApiResponse(responseCode = "304", description = "Products not modified since the If-None-Match ETag"),
 		@ApiResponse(responseCode = "403", description = "Forbidden")
 	})
 	@GetMapping
@@ -51,10 +54,19 @@ public class ProductController extends BaseController {
 		@RequestParam(required = false) String keyword,
 		@RequestParam(required = false) Boolean available,
 		@RequestParam(required = false) Integer page,
-		@RequestParam(required = false) Integer pageSize
+		@RequestParam(required = false) Integer pageSize,
+		@RequestParam(required = false) @Schema(description = "opt-in keyset pagination, empty for the first page then the previous nextCursor") String cursor
 	) {
-		Page<ProductDto> productDtos = productService.getAllProductsPaginated(category, keyword, available, page, pageSize);
-		return ResponseEntity.status(HttpStatus.OK).body(productDtos);
+		if (cursor != null) {
+			return productResponseCache.respond(
+				() -> productService.getAllProductsByCursor(category, keyword, available, cursor, pageSize),
+				"cursor", category, keyword, available, cursor, pageSize
+			);
+		}
+		return productResponseCache.respond(
+			() -> productService.getAllProductsPaginated(category, keyword, available, page, pageSize),
+			"page", category, keyword, available, page, pageSize
+		);
 	}
 
 	@Operation(summary = "Creates a new product with variant")
@@ -82,14 +94,35 @@ public class ProductController extends BaseController {
 				schema = @Schema(implementation = ProductDto.class)
 			)
 		),
+		@ApiResponse(responseCode = "304", description = "Product not modified since the If-None-Match ETag"),
 		@ApiResponse(responseCode = "404", description = "Product not found")
 	})
 	@GetMapping("{productId}")
 	public ResponseEntity<Object> getProduct(
 		@PathVariable Long productId
 	) {
-		ProductDto productDto = productService.getProduct(productId);
-		return ResponseEntity.status(HttpStatus.OK).body(productDto);
+		return productResponseCache.respond(() -> productService.getProduct(productId), "product", productId);
+	}
+
+	@Operation(summary = "Get many products by their IDs",
+		description = "Resolves up to 100 IDs at once, products are returned in the requested order and IDs "
+			+ "that are not found are marked instead of failing the request")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "Products retrieved successfully",
+			content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+				schema = @Schema(implementation = ProductBatchDto.class)
+			)
+		),
+		@ApiResponse(responseCode = "400", description = "No IDs or more than 100 IDs")
+	})
+	@GetMapping("/batch")
+	public ResponseEntity<Object> getProducts(
+		@RequestParam @Size(min = 1, max = 100) List<Long> ids
+	) {
+		return productResponseCache.respond(
+			() -> productService.getProductBatch(ids),
+			"batch", ids
+		);
 	}
 
 	@Operation(summary = "Search products by keyword (simple)")
@@ -102,8 +135,10 @@ public class ProductController extends BaseController {
 	public ResponseEntity<Object> searchProducts(
 		@PathVariable String keyword
 	) {
-		Page<ProductDto> productDtos = productService.getAllProductsPaginated(null, keyword, null, null, null);
-		return ResponseEntity.status(HttpStatus.OK).body(productDtos);
+		return productResponseCache.respond(
+			() -> productService.getAllProductsPaginated(null, keyword, null, null, null),
+			"page", null, keyword, null, null, null
+		);
 	}
 
 	@Operation(summary = "Get products by category")
@@ -119,8 +154,10 @@ public class ProductController extends BaseController {
 	public ResponseEntity<Object> getProductsByCategory(
 		@PathVariable String category
 	) {
-		Page<ProductDto> productDtos = productService.getAllProductsPaginated(category, null, null, null, null);
-		return ResponseEntity.status(HttpStatus.OK).body(productDtos);
+		return productResponseCache.respond(
+			() -> productService.getAllProductsPaginated(category, null, null, null, null),
+			"page", category, null, null, null, null
+		);
 	}
 
 	@Operation(summary = "Deletes a product by ID")
@@ -188,6 +225,29 @@ public class ProductController extends BaseController {
 		return ResponseEntity.status(HttpStatus.OK).body(productDto);
 	}
 
+	@Operation(summary = "Patch the availability of many products at once",
+		description = "Patches up to 1000 products in one update, either every product is patched or none is")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "Products availability patched successfully",
+			content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+				schema = @Schema(implementation = ListOfProductDto.class)
+			)
+		),
+		@ApiResponse(responseCode = "404", description = "One of the products not found"),
+		@ApiResponse(responseCode = "400", description = "Invalid request body")
+	})
+	@SecurityRequirement(name = "cookieAuth")
+	@PatchMapping("/availability")
+	public ResponseEntity<Object> patchProductsAvailability(
+		@Valid @RequestBody ProductBatchAvailabilityDto productBatchAvailabilityDto
+	) {
+		List<ProductDto> productDtos = productService.patchAvailability(
+			productBatchAvailabilityDto.getProductIds(),
+			productBatchAvailabilityDto.isAvailable()
+		);
+		return ResponseEntity.status(HttpStatus.OK).body(productDtos);
+	}
+
 	// VARIANT ENDPOINTS
 
 	@Operation(summary = "(Master) Get all variants")
@@ -2,8 +2,13 @@ package dev.kons.kuenyawz.controllers;
 
 import dev.kons.kuenyawz.dtos.product.ListOfProductDto;
 import dev.kons.kuenyawz.dtos.product.ProductDto;
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto;
+import dev.kons.kuenyawz.entities.Account;
+import dev.kons.kuenyawz.exceptions.UnauthorizedException;
 import dev.kons.kuenyawz.services.logic.AuthService;
+import dev.kons.kuenyawz.services.logic.RecommenderJobService;
 import dev.kons.kuenyawz.services.logic.RecommenderService;
+import dev.kons.kuenyawz.services.logic.TopSellerService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
@@ -23,6 +28,8 @@ import java.util.List;
 public class RecommenderController {
 
 	private final RecommenderService recommenderService;
+	private final RecommenderJobService recommenderJobService;
+	private final TopSellerService topSellerService;
 
 	@Operation(summary = "Get recommended products of a product by transaction history")
 	@ApiResponses({
@@ -40,15 +47,62 @@ public class RecommenderController {
 		return ResponseEntity.status(HttpStatus.OK).body(new ListOfProductDto(productDtos));
 	}
 
-	@Operation(summary = "Trigger the Apriori algorithm to generate the frequent item sets")
+	@Operation(summary = "Get products frequently bought together with the current cart")
 	@ApiResponses({
-		@ApiResponse(responseCode = "200", description = "Successfully generated frequent item sets"),
+		@ApiResponse(responseCode = "200", description = "Successfully retrieved recommended products"),
+		@ApiResponse(responseCode = "401", description = "Not authenticated"),
+	})
+	@SecurityRequirement(name = "cookieAuth")
+	@GetMapping("/cart")
+	public ResponseEntity<Object> getRecommendsOfCart(
+		@RequestParam(required = false) Integer limit
+	) {
+		Account account = AuthService.getAuthenticatedAccount();
+		List<ProductDto> productDtos = recommenderService.getRecommendsOfCart(account.getAccountId(), limit);
+		return ResponseEntity.status(HttpStatus.OK).body(new ListOfProductDto(productDtos));
+	}
+
+	@Operation(summary = "Get the best selling products of the last days",
+		description = "Counted per day as purchases are confirmed, days can be 7, 30 or 90")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "Successfully retrieved the best selling products"),
+		@ApiResponse(responseCode = "400", description = "Invalid days or category"),
+	})
+	@GetMapping("/top-sellers")
+	public ResponseEntity<Object> getTopSellers(
+		@RequestParam(required = false) Integer days,
+		@RequestParam(required = false) String category,
+		@RequestParam(required = false) Integer limit
+	) {
+		List<ProductDto> productDtos = topSellerService.getTopSellers(days, category, limit);
+		return ResponseEntity.status(HttpStatus.OK).body(new ListOfProductDto(productDtos));
+	}
+
+	@Operation(summary = "Trigger a background rebuild of the recommendations",
+		description = "Returns immediately, a rebuild that is already running is returned instead of starting another")
+	@ApiResponses({
+		@ApiResponse(responseCode = "202", description = "Rebuild started or already running"),
+		@ApiResponse(responseCode = "401", description = "Requires admin privileges"),
 	})
 	@SecurityRequirement(name = "cookieAuth")
 	@PostMapping("/generate")
 	public ResponseEntity<Object> generateApriori() {
-		AuthService.isAuthenticatedAdmin();
-		recommenderService.generateApriori();
-		return ResponseEntity.status(HttpStatus.OK).build();
+		if (!AuthService.isAuthenticatedAdmin()) {
+			throw new UnauthorizedException("This action requires admin privileges");
+		}
+		RecommenderJobDto job = recommenderJobService.triggerRebuild(RecommenderJobDto.JobTrigger.MANUAL);
+		return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+	}
+
+	@Operation(summary = "Get the status of a recommendations rebuild")
+	@ApiResponses({
+		@ApiResponse(responseCode = "200", description = "Successfully retrieved the rebuild"),
+		@ApiResponse(responseCode = "404", description = "Rebuild not found"),
+	})
+	@SecurityRequirement(name = "cookieAuth")
+	@GetMapping("/jobs/{jobId}")
+	public ResponseEntity<Object> getRebuildJob(@PathVariable Long jobId) {
+		RecommenderJobDto job = recommenderJobService.getJob(jobId);
+		return ResponseEntity.status(HttpStatus.OK).body(job);
 	}
 }
@@ -1,5 +1,6 @@
 package dev.kons.kuenyawz.controllers;
 
+import dev.kons.kuenyawz.dtos.CursorPage;
 import dev.kons.kuenyawz.dtos.purchase.TransactionDto;
 import dev.kons.kuenyawz.entities.Account;
 import dev.kons.kuenyawz.services.entity.TransactionService;
@@ -42,11 +43,19 @@ public class TransactionController {
 		@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
 		@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
 		@RequestParam(required = false) Integer page,
-		@RequestParam(required = false) Integer pageSize
+		@RequestParam(required = false) Integer pageSize,
+		@RequestParam(required = false) @Schema(description = "opt-in keyset pagination, empty for the first page then the previous nextCursor") String cursor
 	) {
 		var criteria = TransactionService.TransactionSearchCriteria.of(
 			asc, statuses, paymentType, purchaseId, from, to, page, pageSize
 		);
+		if (cursor != null) {
+			criteria.setCursor(cursor);
+			CursorPage<TransactionDto> result = AuthService.isAuthenticatedUser()
+				? transactionService.findAllByCursor(AuthService.getAuthenticatedAccount().getAccountId(), criteria)
+				: transactionService.findAllByCursor(criteria);
+			return ResponseEntity.ok(result);
+		}
 		Page<TransactionDto> result;
 		if (AuthService.isAuthenticatedUser()) {
 			Account account = AuthService.getAuthenticatedAccount();
@@ -60,6 +69,7 @@ public class TransactionController {
 	@Operation(summary = "Fetch transaction status")
 	@ApiResponses({
 		@ApiResponse(responseCode = "200", description = "Transaction status fetched successfully"),
+		@ApiResponse(responseCode = "304", description = "Transaction not modified since the If-None-Match ETag"),
 		@ApiResponse(responseCode = "400", description = "Bad request")
 	})
 	@SecurityRequirement(name = "cookieAuth")
@@ -67,8 +77,11 @@ public class TransactionController {
 	public ResponseEntity<?> fetchTransactionStatus(
 		@PathVariable Long transactionId
 	) {
+		// The status is synced with Midtrans first, so the version is only known afterwards
 		TransactionDto transactionDto = transactionService.fetchTransaction(transactionId);
-		return ResponseEntity.ok(transactionDto);
+		return ResponseEntity.ok()
+			.eTag(transactionService.findETag(transactionId))
+			.body(transactionDto);
 	}
 
 //	@Operation(summary = "Cancel a transaction")
@@ -0,0 +1,90 @@
+package dev.kons.kuenyawz.dtos;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a keyset (seek) paginated listing. Unlike {@link org.springframework.data.domain.Page}
+ * there is no total count, the next page is requested with the {@link #nextCursor()} of this one.
+ * <br>
+ * <br>
+ * A cursor is the id of the last row of the page encoded as url-safe base64, clients are expected to
+ * pass it back as is. Ids are time ordered snowflakes, so seeking past an id also seeks past a point
+ * in time, and rows inserted meanwhile never shift the following pages.
+ *
+ * @param content    rows of the page
+ * @param size       requested page size
+ * @param nextCursor cursor of the next page, null when this is the last page
+ */
+@Schema(description = "Page of a cursor paginated listing")
+public record CursorPage<T>(
+
+	@Schema(description = "Rows of the page")
+	List<T> content,
+
+	@Schema(description = "Requested page size", example = "10")
+	int size,
+
+	@Schema(description = "Cursor of the next page, null when this is the last page", example = "AAXb3rdDIAA")
+	String nextCursor
+) {
+
+	public boolean hasNext() {
+		return nextCursor != null;
+	}
+
+	/**
+	 * Builds a page from rows fetched with a limit of {@code size + 1}, the extra row only tells whether
+	 * there is a next page and is dropped.
+	 *
+	 * @param rows   {@link List} rows in cursor order, at most {@code size + 1}
+	 * @param size   {@code int} page size
+	 * @param idOf   {@link ToLongFunction} id of a row
+	 * @param mapper {@link Function} converting a row to its dto
+	 * @return {@link CursorPage}
+	 */
+	public static <E, T> CursorPage<T> of(List<E> rows, int size, ToLongFunction<E> idOf, Function<E, T> mapper) {
+		boolean hasNext = rows.size() > size;
+		List<E> page = hasNext ? rows.subList(0, size) : rows;
+		String nextCursor = hasNext ? encodeCursor(idOf.applyAsLong(page.get(size - 1))) : null;
+		return new CursorPage<>(page.stream().map(mapper).toList(), size, nextCursor);
+	}
+
+	/**
+	 * Encodes the id of the last row of a page.
+	 *
+	 * @param lastId {@code long} id of the last row
+	 * @return {@link String} opaque cursor
+	 */
+	public static String encodeCursor(long lastId) {
+		byte[] bytes = ByteBuffer.allocate(Long.BYTES).putLong(lastId).array();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	/**
+	 * Decodes a cursor given by a client.
+	 *
+	 * @param cursor {@link String} the cursor, blank for the first page
+	 * @return {@link Long} id of the last row of the previous page, null for the first page
+	 * @throws IllegalArgumentException if the cursor was not made by {@link #encodeCursor(long)}
+	 */
+	public static Long decodeCursor(String cursor) {
+		if (cursor == null || cursor.isBlank()) {
+			return null;
+		}
+		try {
+			byte[] bytes = Base64.getUrlDecoder().decode(cursor.trim());
+			if (bytes.length != Long.BYTES) {
+				throw new IllegalArgumentException("Invalid cursor");
+			}
+			return ByteBuffer.wrap(bytes).getLong();
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Invalid cursor: " + cursor);
+		}
+	}
+}
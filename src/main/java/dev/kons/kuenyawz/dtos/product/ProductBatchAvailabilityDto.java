@@ -0,0 +1,27 @@
+package dev.kons.kuenyawz.dtos.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Schema(description = "Request body to patch the availability of many products at once")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ProductBatchAvailabilityDto {
+
+	@Schema(description = "IDs of the products to patch", example = "[1234, 5678]")
+	@NotNull(message = "Product IDs are required")
+	@Size(min = 1, max = 1000, message = "Between 1 and 1000 product IDs are required")
+	private List<@NotNull Long> productIds;
+
+	@Schema(description = "Product availability", example = "true")
+	private boolean available;
+}
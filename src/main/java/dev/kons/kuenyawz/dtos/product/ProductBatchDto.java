@@ -0,0 +1,42 @@
+package dev.kons.kuenyawz.dtos.product;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Response object for products looked up by their IDs, in the requested order")
+public record ProductBatchDto(
+
+	@Schema(description = "One entry per requested ID, including the ones not found")
+	List<Entry> products
+) {
+
+	@Schema(description = "Lookup result of one product ID")
+	public record Entry(
+
+		@Schema(description = "Requested product ID", example = "1234")
+		Long productId,
+
+		@Schema(description = "Whether the product exists and is not deleted", example = "true")
+		boolean found,
+
+		@Schema(description = "The product, null when not found")
+		ProductDto product
+	) {
+	}
+
+	/**
+	 * @param productIds {@link List} of requested IDs, a repeated ID gets an entry each time
+	 * @param products   {@link Map} of the products found by their ID
+	 * @return {@link ProductBatchDto} with an entry for every requested ID
+	 */
+	public static ProductBatchDto of(List<Long> productIds, Map<Long, ProductDto> products) {
+		return new ProductBatchDto(productIds.stream()
+			.map(productId -> {
+				ProductDto product = (productId != null) ? products.get(productId) : null;
+				return new Entry(productId, product != null, product);
+			})
+			.toList());
+	}
+}
@@ -0,0 +1,33 @@
+package dev.kons.kuenyawz.dtos.product;
+
+import dev.kons.kuenyawz.entities.Product;
+
+/**
+ * Projection of a product reduced to what the keyword search indexes and filters on.
+ *
+ * @param productId   {@link Long} id of the product
+ * @param name        {@link String} name of the product
+ * @param tagline     {@link String} tagline, may be null
+ * @param description {@link String} description, may be null
+ * @param category    {@link Product.Category} category of the product
+ * @param available   {@link Boolean} availability of the product
+ */
+public record ProductSearchDocument(
+	Long productId,
+	String name,
+	String tagline,
+	String description,
+	Product.Category category,
+	Boolean available
+) {
+	public static ProductSearchDocument of(Product product) {
+		return new ProductSearchDocument(
+			product.getProductId(),
+			product.getName(),
+			product.getTagline(),
+			product.getDescription(),
+			product.getCategory(),
+			product.getAvailable()
+		);
+	}
+}
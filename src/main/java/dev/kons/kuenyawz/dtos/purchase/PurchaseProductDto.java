@@ -0,0 +1,13 @@
+package dev.kons.kuenyawz.dtos.purchase;
+
+import java.time.LocalDateTime;
+
+/**
+ * Projection of a purchase item reduced to the ids the recommender trains on.
+ *
+ * @param purchaseId  {@link Long} id of the purchase
+ * @param productId   {@link Long} id of the product bought through the item's variant
+ * @param purchasedAt {@link LocalDateTime} creation time of the purchase
+ */
+public record PurchaseProductDto(Long purchaseId, Long productId, LocalDateTime purchasedAt) {
+}
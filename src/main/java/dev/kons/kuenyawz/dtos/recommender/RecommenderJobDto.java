@@ -0,0 +1,65 @@
+package dev.kons.kuenyawz.dtos.recommender;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Schema(name = "RecommenderJob", description = "Background rebuild of the recommendations")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class RecommenderJobDto {
+
+	@Schema(description = "Job id", example = "12345678")
+	private Long jobId;
+
+	@Schema(description = "Status of the job", example = "RUNNING")
+	private JobStatus status;
+
+	@Schema(description = "What started the job", example = "MANUAL")
+	private JobTrigger trigger;
+
+	@Schema(description = "Generation activated by the job, only when completed", example = "12345678")
+	private Long generation;
+
+	@Schema(description = "Number of purchases mined", example = "1200")
+	private Integer basketCount;
+
+	@Schema(description = "Number of association rules mined", example = "340")
+	private Integer ruleCount;
+
+	@Schema(description = "Number of products with recommendations", example = "56")
+	private Integer productCount;
+
+	@Schema(description = "Duration of the job in milliseconds", example = "850")
+	private Long durationMillis;
+
+	@Schema(description = "Failure message, only when failed")
+	private String error;
+
+	@Schema(description = "Start time of the job")
+	private LocalDateTime startedAt;
+
+	@Schema(description = "Finish time of the job")
+	private LocalDateTime finishedAt;
+
+	public boolean isRunning() {
+		return status == JobStatus.RUNNING;
+	}
+
+	public enum JobStatus {
+		RUNNING,
+		COMPLETED,
+		FAILED
+	}
+
+	public enum JobTrigger {
+		MANUAL,
+		SCHEDULED
+	}
+}
@@ -10,6 +10,9 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
+@Table(indexes = {
+    @Index(name = "idx_apriori_generation_product", columnList = "generation, product_id"),
+})
 public class Apriori {
 
     @Id
@@ -17,6 +20,10 @@ public class Apriori {
     @Column
     private Long aprioriId;
 
+    /// The {@link AprioriGeneration} this row was written in, only the latest one is served
+    @Column
+    private Long generation;
+
     @Column
     private Long productId;
 
@@ -0,0 +1,35 @@
+package dev.kons.kuenyawz.entities;
+
+import jakarta.persistence.*;
+import lombok.*;
+import lombok.experimental.SuperBuilder;
+
+/**
+ * Marks a fully written generation of {@link Apriori} rows. The marker is saved only after every row
+ * of the generation has been inserted, so the latest marker always points to a complete model.
+ */
+@Entity
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@SuperBuilder
+public class AprioriGeneration extends Auditables {
+
+	@Id
+	@Column(name = "generation", columnDefinition = "BIGINT", updatable = false, nullable = false)
+	private Long generation;
+
+	@Column(nullable = false)
+	private Integer productCount;
+
+	@Column(nullable = false)
+	private Long durationMillis;
+
+	// Mining statistics, absent on generations written before they were recorded
+	private Integer basketCount;
+
+	private Integer ruleCount;
+
+	private Long modelBytes;
+}
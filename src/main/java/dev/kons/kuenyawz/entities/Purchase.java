@@ -188,6 +188,9 @@ public class Purchase extends Auditables {
 		@JsonProperty("REFUNDED")
 		REFUNDED("Purchase has been refunded");
 
+		/// Statuses of purchases counted into the recommender purchase history
+		public static final List<PurchaseStatus> RECOMMENDABLE = List.of(CONFIRMED, PROCESSING, DELIVERED);
+
 		private final String description;
 
 		PurchaseStatus(String description) {
@@ -209,6 +212,13 @@ public class Purchase extends Auditables {
 			throw new IllegalArgumentException("Invalid status: " + value);
 		}
 
+		/**
+		 * Checks if purchases of this status are part of the recommender purchase history.
+		 */
+		public boolean isRecommendable() {
+			return RECOMMENDABLE.contains(this);
+		}
+
 		/**
 		 * Returns the next status of the current ordinal.
 		 *
@@ -0,0 +1,43 @@
+package dev.kons.kuenyawz.events;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Purchases a model built from the recommender purchase history currently counts. Filled while the
+ * history is read, it tells which {@link PurchaseStatusChangedEvent}s the read already covered, so an
+ * event racing with the read is applied exactly once, whichever side of the read it committed on.
+ * <p>
+ * Not thread-safe, guarded by the lock of the model it belongs to.
+ */
+public class PurchaseHistoryMembers {
+
+	private final Set<Long> purchaseIds = new HashSet<>();
+
+	/**
+	 * Marks a purchase read from the history as counted.
+	 */
+	public void add(long purchaseId) {
+		purchaseIds.add(purchaseId);
+	}
+
+	/**
+	 * Moves the purchase of the event in or out of the counted purchases.
+	 *
+	 * @param event {@link PurchaseStatusChangedEvent} status change to apply
+	 * @return {@code true} if the model still has to apply the event
+	 */
+	public boolean accept(PurchaseStatusChangedEvent event) {
+		if (event.isRecommendableAdded()) {
+			return purchaseIds.add(event.purchaseId());
+		}
+		if (event.isRecommendableRemoved()) {
+			return purchaseIds.remove(event.purchaseId());
+		}
+		return false;
+	}
+
+	public int size() {
+		return purchaseIds.size();
+	}
+}
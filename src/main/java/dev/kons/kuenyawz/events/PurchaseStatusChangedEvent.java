@@ -0,0 +1,51 @@
+package dev.kons.kuenyawz.events;
+
+import dev.kons.kuenyawz.entities.Purchase;
+import dev.kons.kuenyawz.entities.PurchaseItem;
+
+import java.time.LocalDateTime;
+
+/**
+ * Published after the status of a purchase has been saved. Carries the basket as product ids so
+ * listeners do not need to touch the (possibly detached) purchase entity.
+ *
+ * @param purchaseId     {@link Long} id of the purchase
+ * @param productIds     {@code long[]} products of the purchase items
+ * @param previousStatus {@link Purchase.PurchaseStatus} status before the change
+ * @param currentStatus  {@link Purchase.PurchaseStatus} status after the change
+ * @param purchasedAt    {@link LocalDateTime} creation time of the purchase
+ */
+public record PurchaseStatusChangedEvent(
+	Long purchaseId,
+	long[] productIds,
+	Purchase.PurchaseStatus previousStatus,
+	Purchase.PurchaseStatus currentStatus,
+	LocalDateTime purchasedAt
+) {
+	public static PurchaseStatusChangedEvent of(Purchase purchase, Purchase.PurchaseStatus previousStatus) {
+		long[] productIds = purchase.getPurchaseItems().stream()
+			.map(PurchaseItem::getVariant)
+			.mapToLong(variant -> variant.getProduct().getProductId())
+			.toArray();
+		return new PurchaseStatusChangedEvent(
+			purchase.getPurchaseId(), productIds, previousStatus, purchase.getStatus(), purchase.getCreatedAt());
+	}
+
+	/**
+	 * Checks if the purchase just became part of the recommender purchase history.
+	 */
+	public boolean isRecommendableAdded() {
+		return !isRecommendable(previousStatus) && isRecommendable(currentStatus);
+	}
+
+	/**
+	 * Checks if the purchase just left the recommender purchase history, e.g. refunded.
+	 */
+	public boolean isRecommendableRemoved() {
+		return isRecommendable(previousStatus) && !isRecommendable(currentStatus);
+	}
+
+	private static boolean isRecommendable(Purchase.PurchaseStatus status) {
+		return status != null && status.isRecommendable();
+	}
+}
@@ -0,0 +1,32 @@
+package dev.kons.kuenyawz.events;
+
+import dev.kons.kuenyawz.entities.Purchase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+/**
+ * Changes the status of purchases. Every status transition goes through here, so every one of them
+ * publishes a {@link PurchaseStatusChangedEvent}, whatever the service or webhook that makes it.
+ */
+@Component
+@RequiredArgsConstructor
+public class PurchaseStatusPublisher {
+
+	private final ApplicationEventPublisher eventPublisher;
+
+	/**
+	 * Sets the status of a purchase and publishes the change when the status actually changed. The
+	 * caller still saves the purchase, listeners receive the event once the transaction commits.
+	 *
+	 * @param purchase {@link Purchase} the purchase to change
+	 * @param status   {@link Purchase.PurchaseStatus} the new status
+	 */
+	public void changeStatus(Purchase purchase, Purchase.PurchaseStatus status) {
+		final Purchase.PurchaseStatus previousStatus = purchase.getStatus();
+		purchase.setStatus(status);
+		if (previousStatus != status) {
+			eventPublisher.publishEvent(PurchaseStatusChangedEvent.of(purchase, previousStatus));
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package dev.kons.kuenyawz.repositories;
+
+import dev.kons.kuenyawz.entities.AprioriGeneration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface AprioriGenerationRepository extends JpaRepository<AprioriGeneration, Long> {
+
+	Optional<AprioriGeneration> findTopByOrderByGenerationDesc();
+
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM AprioriGeneration g WHERE g.generation < :generation")
+	int deleteAllBefore(@Param("generation") Long generation);
+}
@@ -2,10 +2,26 @@ package dev.kons.kuenyawz.repositories;
 
 import dev.kons.kuenyawz.entities.Apriori;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
-public interface AprioriRepository extends JpaRepository<Apriori, Long> {
+public interface AprioriRepository extends JpaRepository<Apriori, Long>, AprioriRepositoryCustom {
 
-	Optional<Apriori> findByProductId(Long productId);
+	Optional<Apriori> findByGenerationAndProductId(Long generation, Long productId);
+
+	List<Apriori> findAllByGeneration(Long generation);
+
+	/**
+	 * Garbage-collects the rows of every generation older than the given one, including rows written
+	 * before generations existed.
+	 */
+	@Transactional
+	@Modifying
+	@Query("DELETE FROM Apriori a WHERE a.generation IS NULL OR a.generation < :generation")
+	int deleteAllBeforeGeneration(@Param("generation") Long generation);
 }
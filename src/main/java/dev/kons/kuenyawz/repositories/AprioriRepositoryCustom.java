@@ -0,0 +1,17 @@
+package dev.kons.kuenyawz.repositories;
+
+import dev.kons.kuenyawz.entities.Apriori;
+
+import java.util.List;
+
+public interface AprioriRepositoryCustom {
+
+	/**
+	 * Inserts the rows with batched JDBC statements instead of one persist per row. Missing ids are
+	 * generated.
+	 *
+	 * @param aprioris {@link List} of {@link Apriori} new rows
+	 * @return {@code int} number of inserted rows
+	 */
+	int insertAll(List<Apriori> aprioris);
+}
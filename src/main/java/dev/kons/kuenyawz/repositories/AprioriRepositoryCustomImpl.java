@@ -0,0 +1,45 @@
+package dev.kons.kuenyawz.repositories;
+
+import dev.kons.kuenyawz.entities.Apriori;
+import dev.kons.kuenyawz.utils.idgenerator.SnowFlakeIdGenerator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Types;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class AprioriRepositoryCustomImpl implements AprioriRepositoryCustom {
+
+	private static final int BATCH_SIZE = 500;
+	private static final String INSERT_SQL = """
+		INSERT INTO apriori (apriori_id, generation, product_id, recommended1, recommended2, recommended3)
+		VALUES (?, ?, ?, ?, ?, ?)
+		""";
+
+	private final JdbcTemplate jdbcTemplate;
+	/// Own generator like the ones Hibernate creates per entity, so the repository does not depend on a
+	/// component outside the persistence layer, e.g. in data JPA tests
+	private final SnowFlakeIdGenerator idGenerator = new SnowFlakeIdGenerator();
+
+	@Override
+	@Transactional
+	public int insertAll(List<Apriori> aprioris) {
+		for (Apriori apriori : aprioris) {
+			if (apriori.getAprioriId() == null) {
+				apriori.setAprioriId(idGenerator.generateId());
+			}
+		}
+
+		jdbcTemplate.batchUpdate(INSERT_SQL, aprioris, BATCH_SIZE, (statement, apriori) -> {
+			statement.setLong(1, apriori.getAprioriId());
+			statement.setObject(2, apriori.getGeneration(), Types.BIGINT);
+			statement.setObject(3, apriori.getProductId(), Types.BIGINT);
+			statement.setObject(4, apriori.getRecommended1(), Types.BIGINT);
+			statement.setObject(5, apriori.getRecommended2(), Types.BIGINT);
+			statement.setObject(6, apriori.getRecommended3(), Types.BIGINT);
+		});
+		return aprioris.size();
+	}
+}
@@ -6,6 +6,7 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,6 +20,8 @@ public interface ClosedDateRepository extends JpaRepository<ClosedDate, Long> {
 
 	Optional<ClosedDate> findByDate(LocalDate date);
 
+	List<ClosedDate> findAllByDateIn(Collection<LocalDate> dates);
+
 	int deleteAllByDateBetween(LocalDate from, LocalDate to);
 
 	boolean existsByDate(LocalDate date);
@@ -1,10 +1,15 @@
 package dev.kons.kuenyawz.repositories;
 
+import dev.kons.kuenyawz.dtos.product.ProductSearchDocument;
 import dev.kons.kuenyawz.entities.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpecificationExecutor<Product> {
@@ -17,4 +22,38 @@ public interface ProductRepository extends JpaRepository<Product, Long>, JpaSpec
 
 	@Query("SELECT p.productId FROM Product p WHERE p.available=TRUE AND p.deleted=FALSE")
 	List<Long> findAllAvailableIds();
-}
\ No newline at end of file
+
+	@Query("SELECT new dev.kons.kuenyawz.dtos.product.ProductSearchDocument(" +
+		"p.productId, p.name, p.tagline, p.description, p.category, p.available) " +
+		"FROM Product p WHERE p.deleted=FALSE")
+	List<ProductSearchDocument> findAllSearchDocuments();
+
+	/**
+	 * Soft deletes every product that is not deleted in one statement. Bulk updates skip the entity
+	 * lifecycle, so the version and the update time are set here.
+	 *
+	 * @param updatedAt {@link LocalDateTime} update time of the products
+	 * @return {@code int} number of products deleted
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Product p SET p.deleted=TRUE, p.available=FALSE, p.version=p.version + 1, p.updatedAt=:updatedAt " +
+		"WHERE p.deleted=FALSE")
+	int softDeleteAll(@Param("updatedAt") LocalDateTime updatedAt);
+
+	/**
+	 * Sets the availability of the products that are not deleted in one statement.
+	 *
+	 * @param productIds {@link Collection} of {@link Long} products to update
+	 * @param available  {@code boolean} the availability
+	 * @param updatedAt  {@link LocalDateTime} update time of the products
+	 * @return {@code int} number of products updated
+	 */
+	@Modifying(flushAutomatically = true, clearAutomatically = true)
+	@Query("UPDATE Product p SET p.available=:available, p.version=p.version + 1, p.updatedAt=:updatedAt " +
+		"WHERE p.productId IN :productIds AND p.deleted=FALSE")
+	int updateAvailability(
+		@Param("productIds") Collection<Long> productIds,
+		@Param("available") boolean available,
+		@Param("updatedAt") LocalDateTime updatedAt
+	);
+}
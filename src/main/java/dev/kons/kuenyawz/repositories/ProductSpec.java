@@ -8,6 +8,8 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 
+import java.util.Collection;
+
 /**
  * This class stores specifications for product entity queries. It is better to implement this kind
  * of specifications rather than manually writing queries in the repository.
@@ -146,6 +148,18 @@ public class ProductSpec {
 		});
 	}
 
+	/**
+	 * Filter by a collection of product IDs.
+	 */
+	public static Specification<Product> withProductIds(Collection<Long> productIds) {
+		return ((root, query, criteriaBuilder) -> {
+			if (productIds == null) {
+				return null;
+			}
+			return root.get("productId").in(productIds);
+		});
+	}
+
 	/**
 	 * Filter by excluding a specific product ID.
 	 */
@@ -158,6 +172,20 @@ public class ProductSpec {
 		});
 	}
 
+	/**
+	 * Filter products past the last product of a previous page, for keyset pagination ordered by id.
+	 */
+	public static Specification<Product> withProductIdBeyond(Long lastProductId, boolean ascending) {
+		return ((root, query, criteriaBuilder) -> {
+			if (lastProductId == null) {
+				return null;
+			}
+			return ascending
+				? criteriaBuilder.greaterThan(root.get("productId"), lastProductId)
+				: criteriaBuilder.lessThan(root.get("productId"), lastProductId);
+		});
+	}
+
 	/**
 	 * Filter {@link Product} availability with boolean value.
 	 */
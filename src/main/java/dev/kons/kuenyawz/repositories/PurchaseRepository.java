@@ -1,8 +1,51 @@
 package dev.kons.kuenyawz.repositories;
 
+import dev.kons.kuenyawz.dtos.purchase.PurchaseProductDto;
 import dev.kons.kuenyawz.entities.Purchase;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface PurchaseRepository extends JpaRepository<Purchase, Long>, JpaSpecificationExecutor<Purchase> {
+
+	/**
+	 * Streams {@code (purchaseId, productId)} of every item of purchases in the given statuses, ordered by
+	 * purchase so rows of one purchase are adjacent. Rows are fetched in chunks from a forward-only cursor
+	 * and no entity is loaded, the stream has to be consumed inside a transaction and closed afterwards.
+	 */
+	@QueryHints({
+		@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+		@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+	})
+	@Query("SELECT new dev.kons.kuenyawz.dtos.purchase.PurchaseProductDto(p.purchaseId, v.product.productId, p.createdAt) " +
+		"FROM PurchaseItem pi JOIN pi.purchase p JOIN pi.variant v " +
+		"WHERE p.status IN :statuses " +
+		"ORDER BY p.purchaseId")
+	Stream<PurchaseProductDto> streamPurchaseProducts(@Param("statuses") List<Purchase.PurchaseStatus> statuses);
+
+	/**
+	 * Versions a purchase detail is built from, without loading the purchase. Transactions are only added
+	 * and their versions only grow, so their count and summed versions change whenever one of them does.
+	 */
+	@Query("SELECT p.version AS version, COUNT(t) AS transactionCount, COALESCE(SUM(t.version), 0) AS transactionVersions " +
+		"FROM Purchase p LEFT JOIN p.transactions t " +
+		"WHERE p.purchaseId = :purchaseId " +
+		"GROUP BY p.purchaseId, p.version")
+	Optional<PurchaseVersion> findVersionById(@Param("purchaseId") Long purchaseId);
+
+	interface PurchaseVersion {
+		Long getVersion();
+
+		Long getTransactionCount();
+
+		Long getTransactionVersions();
+	}
 }
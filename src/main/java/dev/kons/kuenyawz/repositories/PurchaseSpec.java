@@ -36,7 +36,8 @@ public class PurchaseSpec {
 	}
 
 	/**
-	 * Uses subquery to get the related account id from the Transaction table.
+	 * Uses subquery to get the related account id from the Transaction table. Unlike
+	 * {@link #withAccountId1(Long)} a purchase is never repeated for each of its transactions.
 	 *
 	 * @param accountId {@link Long} Account id to be queried.
 	 * @return Specification of Purchase.
@@ -51,12 +52,33 @@ public class PurchaseSpec {
 			Subquery<Long> subquery = query.subquery(Long.class);
 			Root<Transaction> transactionRoot = subquery.from(Transaction.class);
 			subquery.select(transactionRoot.get("purchase").get("purchaseId"))
-				.where(cb.equal(transactionRoot.get("account").get("accountId"), accountId));
+				.where(
+					cb.equal(transactionRoot.get("purchase"), root),
+					cb.equal(transactionRoot.get("account").get("accountId"), accountId)
+				);
 
 			return cb.exists(subquery);
 		};
 	}
 
+	/**
+	 * Filters purchases past the last purchase of a previous page, for keyset pagination ordered by id.
+	 *
+	 * @param lastPurchaseId {@link Long} id of the last purchase of the previous page, null for the first page.
+	 * @param ascending      {@code boolean} whether the pages are ordered by ascending id.
+	 * @return Specification of Purchase.
+	 */
+	public static Specification<Purchase> withPurchaseIdBeyond(Long lastPurchaseId, boolean ascending) {
+		return (root, query, cb) -> {
+			if (lastPurchaseId == null)
+				return null;
+
+			return ascending
+				? cb.greaterThan(root.get("purchaseId"), lastPurchaseId)
+				: cb.lessThan(root.get("purchaseId"), lastPurchaseId);
+		};
+	}
+
 	public static Specification<Purchase> withStatus(Purchase.PurchaseStatus status) {
 		return (root, query, cb) -> {
 			if (status == null)
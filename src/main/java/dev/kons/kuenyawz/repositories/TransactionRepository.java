@@ -5,6 +5,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
@@ -18,4 +20,13 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>,
 	List<Transaction> findByPurchase_PurchaseIdAndAccount_AccountId(Long purchaseId, Long accountId);
 
 	Optional<Transaction> findFirstByPurchase_PurchaseIdOrderByCreatedAtDesc(Long purchaseId);
+
+	/**
+	 * Accounts that made a transaction for the purchase, used to evict only their cached listings.
+	 */
+	@Query("SELECT DISTINCT t.account.accountId FROM Transaction t WHERE t.purchase.purchaseId = :purchaseId")
+	List<Long> findAccountIdsByPurchaseId(@Param("purchaseId") Long purchaseId);
+
+	@Query("SELECT t.version FROM Transaction t WHERE t.transactionId = :transactionId")
+	Optional<Long> findVersionById(@Param("transactionId") Long transactionId);
 }
@@ -47,6 +47,20 @@ public class TransactionSpec {
 		};
 	}
 
+	/**
+	 * Filters transactions past the last transaction of a previous page, for keyset pagination ordered by id.
+	 */
+	public static Specification<Transaction> withTransactionIdBeyond(Long lastTransactionId, boolean ascending) {
+		return (root, query, cb) -> {
+			if (lastTransactionId == null)
+				return null;
+
+			return ascending
+				? cb.greaterThan(root.get("transactionId"), lastTransactionId)
+				: cb.lessThan(root.get("transactionId"), lastTransactionId);
+		};
+	}
+
 	public static Specification<Transaction> withInvoiceId(String referenceId) {
 		return (root, query, cb) -> {
 			if (referenceId == null)
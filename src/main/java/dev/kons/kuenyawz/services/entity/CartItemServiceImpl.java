@@ -18,11 +18,15 @@ import dev.kons.kuenyawz.services.logic.ImageStorageService;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -32,20 +36,19 @@ public class CartItemServiceImpl implements CartItemService {
 	private final CartItemMapper cartItemMapper;
 	private final ProductMapper productMapper;
 	private final ImageStorageService imageStorageService;
+	private final ProductService productService;
 
 	@Override
 	public List<CartItemDto> getAllCartItems() {
 		List<CartItem> cartItems = cartItemRepository.findAll();
-		return cartItems.stream()
-			.map(this::convertToDto)
-			.toList();
+		return convertToDtos(cartItems);
 	}
 
 	@Override
 	public Page<CartItemDto> getAllCartItems(PageRequest pageRequest) {
 		Page<CartItem> cartItems = cartItemRepository.findAll(pageRequest);
 
-		return cartItems.map(this::convertToDto);
+		return new PageImpl<>(convertToDtos(cartItems.getContent()), cartItems.getPageable(), cartItems.getTotalElements());
 	}
 
 	@Override
@@ -60,16 +63,14 @@ public class CartItemServiceImpl implements CartItemService {
 	public List<CartItemDto> getCartItemsOfAccount(Long accountId) {
 		List<CartItem> cartItems = cartItemRepository.findAllByAccount_AccountId(accountId);
 
-		return cartItems.stream()
-			.map(this::convertToDto)
-			.toList();
+		return convertToDtos(cartItems);
 	}
 
 	@Override
 	public Page<CartItemDto> getCartItemsOfAccount(Long accountId, PageRequest pageRequest) {
 		Page<CartItem> cartItems = cartItemRepository.findAllByAccount_AccountId(accountId, pageRequest);
 
-		return cartItems.map(this::convertToDto);
+		return new PageImpl<>(convertToDtos(cartItems.getContent()), cartItems.getPageable(), cartItems.getTotalElements());
 	}
 
 	@Override
@@ -137,8 +138,35 @@ public class CartItemServiceImpl implements CartItemService {
 	}
 
 	public CartItemDto convertToDto(CartItem cartItem) {
-		ProductDto productDto = productMapper.fromEntity(cartItem.getVariant().getProduct());
-		productDto.setImages(imageStorageService.getImageUrls(cartItem.getVariant().getProduct()));
+		return convertToDto(cartItem, null);
+	}
+
+	/**
+	 * Converts many cart items, resolving all of their products with one
+	 * {@link ProductService#getProducts(java.util.Collection)} call instead of one by one.
+	 */
+	private List<CartItemDto> convertToDtos(List<CartItem> cartItems) {
+		List<Long> productIds = cartItems.stream()
+			.map(cartItem -> cartItem.getVariant().getProduct().getProductId())
+			.distinct()
+			.toList();
+		Map<Long, ProductDto> products = productService.getProducts(productIds).stream()
+			.collect(Collectors.toMap(ProductDto::getProductId, Function.identity(), (first, second) -> first));
+
+		return cartItems.stream()
+			.map(cartItem -> convertToDto(cartItem, products.get(cartItem.getVariant().getProduct().getProductId())))
+			.toList();
+	}
+
+	/**
+	 * @param productDto {@link ProductDto} of the item, null to map it from the entity, e.g. when the
+	 *                   product has been deleted since it was added to the cart
+	 */
+	private CartItemDto convertToDto(CartItem cartItem, ProductDto productDto) {
+		if (productDto == null) {
+			productDto = productMapper.fromEntity(cartItem.getVariant().getProduct());
+			productDto.setImages(imageStorageService.getImageUrls(cartItem.getVariant().getProduct()));
+		}
 
 		CartItemDto cartItemDto = cartItemMapper.fromEntity(cartItem, productDto, cartItem.getVariant().getVariantId());
 		return cartItemDto;
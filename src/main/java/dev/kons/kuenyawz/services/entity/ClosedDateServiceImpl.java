@@ -21,6 +21,7 @@ import org.springframework.stereotype.Service;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -142,25 +143,21 @@ public class ClosedDateServiceImpl implements ClosedDateService {
 	public Iterable<ClosedDateDto> create(Iterable<ClosedDatePostDto> closedDatePostDto) {
 		validateIsAdmin();
 
-		for (ClosedDatePostDto dto : closedDatePostDto) {
-			validateNoDuplicateDate(LocalDate.from(dateTimeFormatter.parse(dto.getDate())));
-		}
 		List<ClosedDate> closedDates = new ArrayList<>();
 		for (ClosedDatePostDto dto : closedDatePostDto) {
-			ClosedDate closedDate = closedDateMapper.toEntity(dto);
-			ClosedDate savedClosedDate = closedDateRepository.save(closedDate);
-			closedDates.add(savedClosedDate);
+			closedDates.add(closedDateMapper.toEntity(dto));
 		}
-		return closedDates.stream()
+		validateNoDuplicateDates(closedDates.stream().map(ClosedDate::getDate).toList());
+
+		// Inserted in JDBC batches, see hibernate.jdbc.batch_size
+		return closedDateRepository.saveAll(closedDates).stream()
 			.map(this::toDto)
 			.toList();
 	}
 
 	@Override
 	public Iterable<ClosedDate> save(Set<ClosedDate> closedDatePostDto) {
-		for (ClosedDate dto : closedDatePostDto) {
-			validateNoDuplicateDate(dto.getDate());
-		}
+		validateNoDuplicateDates(closedDatePostDto.stream().map(ClosedDate::getDate).toList());
 		return closedDateRepository.saveAll(closedDatePostDto);
 	}
 
@@ -220,6 +217,28 @@ public class ClosedDateServiceImpl implements ClosedDateService {
 		}
 	}
 
+	/**
+	 * Validates that none of the dates exists or is given twice, with a single query.
+	 */
+	private void validateNoDuplicateDates(List<LocalDate> dates) {
+		Set<LocalDate> distinctDates = new HashSet<>();
+		for (LocalDate date : dates) {
+			if (!distinctDates.add(date)) {
+				throw new InvalidRequestBodyValue("Date is given more than once at " + date.format(dateTimeFormatter));
+			}
+		}
+		if (distinctDates.isEmpty()) {
+			return;
+		}
+		closedDateRepository.findAllByDateIn(distinctDates).stream()
+			.map(ClosedDate::getDate)
+			.sorted()
+			.findFirst()
+			.ifPresent(date -> {
+				throw new InvalidRequestBodyValue("Date already exists at " + date.format(dateTimeFormatter));
+			});
+	}
+
 	private void validateNoDuplicateDate(LocalDate date) {
 		if (closedDateRepository.existsByDate(date)) {
 			throw new InvalidRequestBodyValue("Date already exists at " + date.format(dateTimeFormatter));
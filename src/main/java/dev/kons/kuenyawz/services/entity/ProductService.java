@@ -1,5 +1,7 @@
 package dev.kons.kuenyawz.services.entity;
 
+import dev.kons.kuenyawz.dtos.CursorPage;
+import dev.kons.kuenyawz.dtos.product.ProductBatchDto;
 import dev.kons.kuenyawz.dtos.product.ProductDto;
 import dev.kons.kuenyawz.dtos.product.ProductPatchDto;
 import dev.kons.kuenyawz.dtos.product.ProductPostDto;
@@ -8,6 +10,7 @@ import dev.kons.kuenyawz.exceptions.ResourceNotFoundException;
 import org.springframework.data.domain.Page;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ProductService {
@@ -35,6 +38,20 @@ public interface ProductService {
 	@Transactional(readOnly = true)
 	Page<ProductDto> getAllProductsPaginated(String category, String keyword, Boolean available, Integer page, Integer pageSize);
 
+	/**
+	 * Keyset paginated alternative of {@link #getAllProductsPaginated}, products are ordered by id and
+	 * the total is never counted.
+	 *
+	 * @param category  {@link String} optional category filter
+	 * @param keyword   {@link String} optional keyword filter
+	 * @param available {@link Boolean} optional availability filter
+	 * @param cursor    {@link String} cursor of the previous page, blank for the first page
+	 * @param pageSize  {@link Integer} optional page size
+	 * @return {@link CursorPage} of {@link ProductDto}
+	 */
+	@Transactional(readOnly = true)
+	CursorPage<ProductDto> getAllProductsByCursor(String category, String keyword, Boolean available, String cursor, Integer pageSize);
+
 	/**
 	 * Creates a new product from the DTO with the provided variants' DTOs.
 	 *
@@ -54,6 +71,28 @@ public interface ProductService {
 	@Transactional(readOnly = true)
 	ProductDto getProduct(long productId);
 
+	/**
+	 * Retrieves products by their IDs in one pass over the product cache, loading the missing ones with
+	 * a single query.
+	 *
+	 * @param productIds {@link Collection} of {@link Long}
+	 * @return {@link List} of {@link ProductDto} in the requested order, products not found are left out
+	 * and a repeated ID is returned each time
+	 */
+	@Transactional(readOnly = true)
+	List<ProductDto> getProducts(Collection<Long> productIds);
+
+	/**
+	 * Looks up products by their IDs with one entry per requested ID, in the requested order and
+	 * repeated for a repeated ID, so the IDs not found are marked instead of left out. Each distinct ID
+	 * is resolved once, like {@link #getProducts(Collection)} does.
+	 *
+	 * @param productIds {@link List} of {@link Long}
+	 * @return {@link ProductBatchDto} with an entry for every requested ID
+	 */
+	@Transactional(readOnly = true)
+	ProductBatchDto getProductBatch(List<Long> productIds);
+
 
 	/**
 	 * Deletes a product by its ID.
@@ -105,6 +144,17 @@ public interface ProductService {
 	@Transactional
 	ProductDto patchAvailability(Long productId, boolean available);
 
+	/**
+	 * Patches the availability of many products at once, in one update statement.
+	 *
+	 * @param productIds {@link Collection} of {@link Long}
+	 * @param available  {@link Boolean}
+	 * @return {@link List} of {@link ProductDto} the patched products
+	 * @throws ResourceNotFoundException if one of the products is not found, none is patched then
+	 */
+	@Transactional
+	List<ProductDto> patchAvailability(Collection<Long> productIds, boolean available);
+
 	/**
 	 * Checks if a product exists by its ID.
 	 *
@@ -1,5 +1,8 @@
 package dev.kons.kuenyawz.services.entity;
 
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import dev.kons.kuenyawz.dtos.CursorPage;
+import dev.kons.kuenyawz.dtos.product.ProductBatchDto;
 import dev.kons.kuenyawz.dtos.product.ProductDto;
 import dev.kons.kuenyawz.dtos.product.ProductPatchDto;
 import dev.kons.kuenyawz.dtos.product.ProductPostDto;
@@ -13,23 +16,30 @@ import dev.kons.kuenyawz.mapper.ProductMapper;
 import dev.kons.kuenyawz.repositories.ProductRepository;
 import dev.kons.kuenyawz.repositories.ProductSpec;
 import dev.kons.kuenyawz.services.logic.ImageStorageService;
+import dev.kons.kuenyawz.utils.AfterCommit;
+import dev.kons.kuenyawz.utils.AvailableProductPool;
+import dev.kons.kuenyawz.utils.CacheTags;
+import dev.kons.kuenyawz.utils.CacheValueLoader;
+import dev.kons.kuenyawz.utils.CatalogSnapshot;
+import dev.kons.kuenyawz.utils.ProductSearchIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
-import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.context.annotation.Primary;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
-import java.util.Set;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static dev.kons.kuenyawz.repositories.ProductSpec.*;
@@ -38,14 +48,35 @@ import static dev.kons.kuenyawz.repositories.ProductSpec.*;
 @Primary
 @RequiredArgsConstructor
 @Slf4j
-public class ProductServiceImpl implements ProductService {
+public class ProductServiceImpl implements ProductService, CacheValueLoader {
 
 	private final ProductRepository productRepository;
 	private final ProductMapper productMapper;
 	private final ImageStorageService imageStorageService;
+	private final CacheManager cacheManager;
+	private final AvailableProductPool availableProductPool;
+	private final ProductSearchIndex productSearchIndex;
+	private final CacheTags cacheTags;
+	private final CatalogSnapshot catalogSnapshot;
 
 	private final static int DEFAULT_PAGE = 0;
 	private final static int DEFAULT_PAGE_SIZE = 10;
+	private final static String PRODUCT_CACHE = "productCache";
+	private final static String PRODUCTS_CACHE = CacheTags.PRODUCTS_CACHE;
+
+	/**
+	 * Key of a cached page of products, the tag key holds the generation of the category it was cached
+	 * under, see {@link CacheTags}.
+	 */
+	record ProductsPageKey(
+		String tagKey,
+		String category,
+		String keyword,
+		Boolean available,
+		Integer page,
+		Integer pageSize
+	) implements CacheTags.Tagged {
+	}
 
 	@Override
 	public List<ProductDto> getAllProducts(String category, String keyword) {
@@ -56,23 +87,33 @@ public class ProductServiceImpl implements ProductService {
 	}
 
 	@Override
-	@Cacheable(
-		value = "productsCache",
-		key = "#root.methodName + '_' + " +
-			"T(java.util.Objects).hash(" +
-			"    #category, " +
-			"    #keyword, " +
-			"    #available, " +
-			"    #page, " +
-			"    #pageSize" +
-			")",
-		condition = "#page != null && #pageSize != null"
-	)
 	public Page<ProductDto> getAllProductsPaginated(String category, String keyword, Boolean available, Integer page, Integer pageSize) {
+		final String searchedKeyword = searchableOrNull(keyword);
+		CatalogSnapshot.Catalog catalog = catalog();
+		if (catalog != null) {
+			PageRequest pageRequest = buildPageRequest(page, pageSize);
+			return (searchedKeyword != null)
+				? searchProducts(category, searchedKeyword, available, pageRequest)
+				: catalog.page(categoryOrNull(category), available, pageRequest);
+		}
+
+		// Only explicitly requested pages are cached
+		if (page == null || pageSize == null) {
+			return loadProductsPage(category, searchedKeyword, available, page, pageSize);
+		}
+		ProductsPageKey key = new ProductsPageKey(cacheTags.categoryKey(category), category, searchedKeyword, available, page, pageSize);
+		return cached(PRODUCTS_CACHE, key, () -> loadProductsPage(category, searchedKeyword, available, page, pageSize));
+	}
+
+	private Page<ProductDto> loadProductsPage(String category, String keyword, Boolean available, Integer page, Integer pageSize) {
 		log.info("Fetching products with category: {}, keyword: {}, available: {}, page: {}, pageSize: {}",
 			category, keyword, available, page, pageSize);
 
 		PageRequest pageRequest = buildPageRequest(page, pageSize);
+		if (StringUtils.hasText(keyword)) {
+			return searchProducts(category, keyword, available, pageRequest);
+		}
+
 		Specification<Product> specification = withFilters(category, keyword, available).and(isNotDeleted());
 		Page<Product> products = productRepository.findAll(specification, pageRequest);
 
@@ -80,6 +121,80 @@ public class ProductServiceImpl implements ProductService {
 		return productDtos;
 	}
 
+	@Override
+	public CursorPage<ProductDto> getAllProductsByCursor(String category, String keyword, Boolean available, String cursor, Integer pageSize) {
+		log.info("Fetching products by cursor with category: {}, keyword: {}, available: {}, cursor: {}, pageSize: {}",
+			category, keyword, available, cursor, pageSize);
+		keyword = searchableOrNull(keyword);
+
+		Long lastProductId = CursorPage.decodeCursor(cursor);
+		int size = buildPageRequest(null, pageSize).getPageSize();
+		CatalogSnapshot.Catalog catalog = catalog();
+		if (catalog != null && !StringUtils.hasText(keyword)) {
+			List<ProductDto> productDtos = catalog.after(categoryOrNull(category), available, lastProductId, size + 1);
+			return CursorPage.of(productDtos, size, ProductDto::getProductId, productDto -> productDto);
+		}
+		if (StringUtils.hasText(keyword)) {
+			// Pages have to be stable, so matches are walked in id order instead of by relevance
+			List<Long> matchingIds = productSearchIndex.search(keyword, categoryOrNull(category), available).stream()
+				.filter(productId -> lastProductId == null || productId > lastProductId)
+				.sorted()
+				.limit(size + 1L)
+				.toList();
+			CursorPage<Long> ids = CursorPage.of(matchingIds, size, Long::longValue, productId -> productId);
+			return new CursorPage<>(getProducts(ids.content()), size, ids.nextCursor());
+		}
+
+		Specification<Product> specification = withFilters(category, null, available)
+			.and(isNotDeleted())
+			.and(withProductIdBeyond(lastProductId, true));
+		List<Product> products = productRepository.findBy(specification, query -> query
+			.sortBy(Sort.by(Sort.Order.asc("productId")))
+			.limit(size + 1)
+			.all()
+		);
+		return CursorPage.of(products, size, Product::getProductId, this::convertToDto);
+	}
+
+	/**
+	 * Matches the keyword against the in-memory search index, only the products of the requested page
+	 * are loaded. Results are ranked by relevance instead of by id.
+	 */
+	private Page<ProductDto> searchProducts(String category, String keyword, Boolean available, PageRequest pageRequest) {
+		List<Long> matchingIds = productSearchIndex.search(keyword, categoryOrNull(category), available);
+
+		int from = (int) Math.min(pageRequest.getOffset(), matchingIds.size());
+		int to = Math.min(from + pageRequest.getPageSize(), matchingIds.size());
+		List<ProductDto> productDtos = getProducts(matchingIds.subList(from, to));
+		return new PageImpl<>(
+			productDtos,
+			PageRequest.of(pageRequest.getPageNumber(), pageRequest.getPageSize()),
+			matchingIds.size()
+		);
+	}
+
+	/**
+	 * A keyword without any searchable term, e.g. only stop words, lists the products unfiltered
+	 * instead of matching nothing.
+	 */
+	private static String searchableOrNull(String keyword) {
+		return ProductSearchIndex.isSearchable(keyword) ? keyword : null;
+	}
+
+	/**
+	 * Same leniency as {@link ProductSpec#withCategory(String)}, an unknown category does not filter.
+	 */
+	private static Product.Category categoryOrNull(String category) {
+		if (!StringUtils.hasText(category)) {
+			return null;
+		}
+		try {
+			return Product.Category.valueOf(category.trim().toUpperCase());
+		} catch (IllegalArgumentException e) {
+			return null;
+		}
+	}
+
 	private PageRequest buildPageRequest(Integer page, Integer pageSize) {
 		if (page != null && page > 0) {
 			page = page - 1;
@@ -124,7 +239,6 @@ public class ProductServiceImpl implements ProductService {
 	}
 
 	@Override
-	@CacheEvict(value = "productsCache", allEntries = true)
 	public ProductDto createProduct(ProductPostDto productPostDto) {
 		validateProductPostDto(productPostDto);
 
@@ -132,13 +246,25 @@ public class ProductServiceImpl implements ProductService {
 
 		// Convert and return
 		Product savedProduct = productRepository.save(product);
+		availableProductPool.update(savedProduct.getProductId(), Boolean.TRUE.equals(savedProduct.getAvailable()));
+		productSearchIndex.put(savedProduct);
+		cacheTags.invalidateProducts(savedProduct.getCategory());
+		catalogSnapshot.invalidate(savedProduct.getProductId());
 		ProductDto productDto = productMapper.fromEntity(savedProduct);
 		return productDto;
 	}
 
 	@Override
-	@Cacheable(value = "productCache", key = "#productId")
 	public ProductDto getProduct(long productId) {
+		CatalogSnapshot.Catalog catalog = catalog();
+		if (catalog != null) {
+			return catalog.get(productId)
+				.orElseThrow(() -> new ResourceNotFoundException("Product with ID '" + productId + "' not found"));
+		}
+		return cached(PRODUCT_CACHE, productId, () -> loadProduct(productId));
+	}
+
+	private ProductDto loadProduct(long productId) {
 		log.info("Fetching product with ID: {}", productId);
 
 		Product product = productRepository.findOne(withProductId(productId).and(isNotDeleted()))
@@ -149,16 +275,161 @@ public class ProductServiceImpl implements ProductService {
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "productCache", key = "#productId"),
-		@CacheEvict(value = "productsCache", allEntries = true)
-	})
+	public List<ProductDto> getProducts(Collection<Long> productIds) {
+		CatalogSnapshot.Catalog catalog = catalog();
+		if (catalog != null) {
+			return catalog.getAll(productIds);
+		}
+
+		Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+		if (cache != null && cache.getNativeCache() instanceof LoadingCache<?, ?> loadingCache) {
+			// Loads every uncached product with a single query, see loadAll
+			List<Long> distinctIds = productIds.stream().filter(Objects::nonNull).distinct().toList();
+			Map<Object, Object> found = asLoadingCache(loadingCache).getAll(distinctIds);
+			return productIds.stream()
+				.map(found::get)
+				.filter(Objects::nonNull)
+				.map(ProductDto.class::cast)
+				.toList();
+		}
+
+		Map<Long, ProductDto> found = new HashMap<>();
+		List<Long> missingIds = new ArrayList<>();
+
+		for (Long productId : productIds) {
+			ProductDto cached = (cache != null) ? cache.get(productId, ProductDto.class) : null;
+			if (cached != null) {
+				found.put(productId, cached);
+			} else if (productId != null) {
+				missingIds.add(productId);
+			}
+		}
+
+		if (!missingIds.isEmpty()) {
+			loadProducts(missingIds).forEach((productId, productDto) -> {
+				found.put(productId, productDto);
+				if (cache != null) {
+					cache.put(productId, productDto);
+				}
+			});
+		}
+
+		return productIds.stream()
+			.map(found::get)
+			.filter(Objects::nonNull)
+			.toList();
+	}
+
+	@Override
+	public ProductBatchDto getProductBatch(List<Long> productIds) {
+		List<Long> distinctIds = productIds.stream().filter(Objects::nonNull).distinct().toList();
+		Map<Long, ProductDto> found = getProducts(distinctIds).stream()
+			.collect(Collectors.toMap(ProductDto::getProductId, productDto -> productDto));
+		return ProductBatchDto.of(productIds, found);
+	}
+
+	private Map<Long, ProductDto> loadProducts(Collection<Long> productIds) {
+		log.info("Fetching {} uncached products by IDs", productIds.size());
+		Map<Long, ProductDto> productDtos = new HashMap<>();
+		for (Product product : productRepository.findAll(withProductIds(productIds).and(isNotDeleted()))) {
+			productDtos.put(product.getProductId(), this.convertToDto(product));
+		}
+		return productDtos;
+	}
+
+	/**
+	 * Catalog snapshot serving the public reads, null when the catalog is too large to hold in memory.
+	 */
+	private CatalogSnapshot.Catalog catalog() {
+		return catalogSnapshot.current(() -> {
+			log.info("Fetching all products for the catalog snapshot");
+			return productRepository.findAll(isNotDeleted()).stream()
+				.map(this::convertToDto)
+				.toList();
+		}, this::loadProducts);
+	}
+
+	@Override
+	public boolean loads(String cacheName) {
+		return PRODUCT_CACHE.equals(cacheName) || PRODUCTS_CACHE.equals(cacheName);
+	}
+
+	@Override
+	public Object load(String cacheName, Object key) {
+		if (PRODUCTS_CACHE.equals(cacheName)) {
+			ProductsPageKey pageKey = (ProductsPageKey) key;
+			return loadProductsPage(pageKey.category(), pageKey.keyword(), pageKey.available(), pageKey.page(), pageKey.pageSize());
+		}
+		return loadProduct((Long) key);
+	}
+
+	@Override
+	public Map<Object, Object> loadAll(String cacheName, Set<?> keys) {
+		if (PRODUCTS_CACHE.equals(cacheName)) {
+			Map<Object, Object> pages = new HashMap<>();
+			keys.forEach(key -> pages.put(key, load(cacheName, key)));
+			return pages;
+		}
+		List<Long> productIds = keys.stream().map(Long.class::cast).toList();
+		return new HashMap<>(loadProducts(productIds));
+	}
+
+	/**
+	 * Reads through a product cache. A refresh-ahead cache loads a missing key once for all concurrent
+	 * callers and keeps serving the old value while it is reloaded, other caches still load a missing
+	 * key once.
+	 */
+	@SuppressWarnings("unchecked")
+	private <T> T cached(String cacheName, Object key, Supplier<T> loader) {
+		Cache cache = cacheManager.getCache(cacheName);
+		if (cache == null) {
+			return loader.get();
+		}
+		if (cache.getNativeCache() instanceof LoadingCache<?, ?> loadingCache) {
+			return (T) asLoadingCache(loadingCache).get(key);
+		}
+		try {
+			return cache.get(key, loader::get);
+		} catch (Cache.ValueRetrievalException e) {
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	/**
+	 * Evicts many products from the product cache at once.
+	 */
+	private void evictProducts(Collection<Long> productIds) {
+		Cache cache = cacheManager.getCache(PRODUCT_CACHE);
+		if (cache == null) {
+			return;
+		}
+		if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+			nativeCache.asMap().keySet().removeAll(productIds);
+		} else {
+			productIds.forEach(cache::evict);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private static LoadingCache<Object, Object> asLoadingCache(LoadingCache<?, ?> loadingCache) {
+		return (LoadingCache<Object, Object>) loadingCache;
+	}
+
+	@Override
+	@CacheEvict(value = "productCache", key = "#productId")
 	public void hardDeleteProduct(Long productId) {
 		Product product = productRepository.findOne(withProductId(productId))
 			.orElseThrow(() -> new ResourceNotFoundException("Product with ID '" + productId + "' not found"));
 
 		imageStorageService.deleteAllOfProductId(product.getProductId());
 		productRepository.deleteById(productId);
+		availableProductPool.remove(productId);
+		productSearchIndex.remove(productId);
+		cacheTags.invalidateProducts(product.getCategory());
+		catalogSnapshot.invalidate(productId);
 	}
 
 	@Override
@@ -169,13 +440,13 @@ public class ProductServiceImpl implements ProductService {
 	public void hardDeleteAllProducts() {
 		imageStorageService.deleteAll();
 		productRepository.deleteAll();
+		availableProductPool.invalidate();
+		productSearchIndex.invalidate();
+		catalogSnapshot.invalidate();
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "productCache", key = "#productId"),
-		@CacheEvict(value = "productsCache", allEntries = true)
-	})
+	@CacheEvict(value = "productCache", key = "#productId")
 	public void softDeleteProduct(Long productId) {
 		Product product = productRepository.findOne(withProductId(productId).and(isNotDeleted()))
 			.orElseThrow(() -> new ResourceNotFoundException("Product with ID '" + productId + "' not found"));
@@ -183,6 +454,10 @@ public class ProductServiceImpl implements ProductService {
 		product.setDeleted(true);
 		product.setAvailable(false);
 		productRepository.save(product);
+		availableProductPool.remove(productId);
+		productSearchIndex.remove(productId);
+		cacheTags.invalidateProducts(product.getCategory());
+		catalogSnapshot.invalidate(productId);
 	}
 
 	@Override
@@ -191,19 +466,15 @@ public class ProductServiceImpl implements ProductService {
 		@CacheEvict(value = "productsCache", allEntries = true)
 	})
 	public void softDeleteAllProducts() {
-		List<Product> products = productRepository.findAll();
-		products.forEach(product -> {
-			product.setDeleted(true);
-			product.setAvailable(false);
-			productRepository.save(product);
-		});
+		int deleted = productRepository.softDeleteAll(LocalDateTime.now());
+		log.info("Soft deleted {} products", deleted);
+		availableProductPool.invalidate();
+		productSearchIndex.invalidate();
+		catalogSnapshot.invalidate();
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "productCache", key = "#productId"),
-		@CacheEvict(value = "productsCache", allEntries = true)
-	})
+	@CacheEvict(value = "productCache", key = "#productId")
 	public ProductDto patchProduct(Long productId, ProductPatchDto productPatchDto) {
 		Product product = productRepository.findOne(withProductId(productId).and(isNotDeleted()))
 			.orElseThrow(() -> new ResourceNotFoundException("Product with ID '" + productId + "' not found"));
@@ -219,8 +490,14 @@ public class ProductServiceImpl implements ProductService {
 			productPatchDto.setCategory(productPatchDto.getCategory().toUpperCase());
 		}
 
+		// The mapper updates the entity in place, the listings of the previous category change too
+		Product.Category previousCategory = product.getCategory();
 		Product updatedProduct = productMapper.updateProductFromPatch(productPatchDto, product);
 		Product savedProduct = productRepository.save(updatedProduct);
+		availableProductPool.update(productId, Boolean.TRUE.equals(savedProduct.getAvailable()));
+		productSearchIndex.put(savedProduct);
+		cacheTags.invalidateProducts(previousCategory, savedProduct.getCategory());
+		catalogSnapshot.invalidate(productId);
 
 		// Convert and return
 		ProductDto productDto = productMapper.fromEntity(savedProduct);
@@ -228,22 +505,62 @@ public class ProductServiceImpl implements ProductService {
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "productCache", key = "#productId"),
-		@CacheEvict(value = "productsCache", allEntries = true)
-	})
+	@CacheEvict(value = "productCache", key = "#productId")
 	public ProductDto patchAvailability(Long productId, boolean available) {
 		Product product = productRepository.findById(productId)
 			.orElseThrow(() -> new ResourceNotFoundException("Product with ID '" + productId + "' not found"));
 
 		product.setAvailable(available);
 		Product savedProduct = productRepository.save(product);
+		availableProductPool.update(productId, available && !Boolean.TRUE.equals(savedProduct.getDeleted()));
+		productSearchIndex.put(savedProduct);
+		cacheTags.invalidateProducts(savedProduct.getCategory());
+		catalogSnapshot.invalidate(productId);
 
 		// Convert and return
 		ProductDto productDto = productMapper.fromEntity(savedProduct);
 		return productDto;
 	}
 
+	@Override
+	public List<ProductDto> patchAvailability(Collection<Long> productIds, boolean available) {
+		Set<Long> distinctIds = productIds.stream()
+			.filter(Objects::nonNull)
+			.collect(Collectors.toCollection(LinkedHashSet::new));
+		if (distinctIds.isEmpty()) {
+			return List.of();
+		}
+
+		// One update statement, then one select of the patched products, whatever the number of products
+		productRepository.updateAvailability(distinctIds, available, LocalDateTime.now());
+		List<Product> products = productRepository.findAll(
+			withProductIds(distinctIds).and(isNotDeleted()),
+			Sort.by(Sort.Order.asc("productId"))
+		);
+		if (products.size() != distinctIds.size()) {
+			Set<Long> missingIds = new LinkedHashSet<>(distinctIds);
+			products.forEach(product -> missingIds.remove(product.getProductId()));
+			throw new ResourceNotFoundException("Products with IDs " + missingIds + " not found");
+		}
+
+		// Applied once the update commits, so a read running meanwhile cannot cache the old rows again. The
+		// search index, the tags and the catalog defer their own changes the same way
+		AfterCommit.run(() -> {
+			evictProducts(distinctIds);
+			distinctIds.forEach(productId -> availableProductPool.update(productId, available));
+		});
+		products.forEach(productSearchIndex::put);
+		cacheTags.invalidateProducts(products.stream()
+			.map(Product::getCategory)
+			.toArray(Product.Category[]::new));
+		catalogSnapshot.invalidate(distinctIds);
+
+		// Convert and return
+		return products.stream()
+			.map(productMapper::fromEntity)
+			.toList();
+	}
+
 	@Override
 	public boolean existsById(Long productId) {
 		return productRepository.existsById(productId);
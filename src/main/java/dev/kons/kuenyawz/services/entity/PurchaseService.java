@@ -1,6 +1,7 @@
 package dev.kons.kuenyawz.services.entity;
 
 import dev.kons.kuenyawz.constants.PaymentType;
+import dev.kons.kuenyawz.dtos.CursorPage;
 import dev.kons.kuenyawz.dtos.purchase.PurchaseDto;
 import dev.kons.kuenyawz.dtos.purchase.PurchasePatchDto;
 import dev.kons.kuenyawz.dtos.purchase.PurchasePostDto;
@@ -16,6 +17,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 
@@ -40,10 +42,38 @@ public interface PurchaseService {
 	Page<PurchaseDto> findAll(Long accountId, PurchaseSearchCriteria criteria);
 
 	/**
-	 * Gets all purchases without pagination.
+	 * Finds purchases one keyset page at a time with admin view, ordered by purchase id and without
+	 * counting the total. Filters are the same as {@link #findAll(PurchaseSearchCriteria)}, the page
+	 * starts after {@link PurchaseSearchCriteria#getCursor()}.
+	 *
+	 * @param criteria {@link PurchaseSearchCriteria} search criteria
+	 * @return {@link CursorPage} of {@link PurchaseDto}
+	 */
+	@Transactional(readOnly = true)
+	CursorPage<PurchaseDto> findAllByCursor(PurchaseSearchCriteria criteria);
+
+	/**
+	 * Finds purchases one keyset page at a time with user view.
+	 *
+	 * @param accountId {@link Long} account id
+	 * @param criteria  {@link PurchaseSearchCriteria} search criteria
+	 * @return {@link CursorPage} of {@link PurchaseDto}
+	 * @see #findAllByCursor(PurchaseSearchCriteria)
 	 */
 	@Transactional(readOnly = true)
-	List<Purchase> getAprioriNeeds();
+	CursorPage<PurchaseDto> findAllByCursor(Long accountId, PurchaseSearchCriteria criteria);
+
+	/**
+	 * Streams the id, product ids and creation time of every purchase in the recommender purchase history,
+	 * one basket at a time, without loading the purchase entities. Memory use does not grow with the number
+	 * of purchases, and the ids let a model built from the history tell which status change events its read
+	 * already covered.
+	 *
+	 * @param basketConsumer {@link AprioriBasketConsumer} receiving one purchase
+	 * @return {@code int} number of baskets streamed
+	 */
+	@Transactional(readOnly = true)
+	int forEachIdentifiedAprioriBasket(AprioriBasketConsumer basketConsumer);
 
 	/**
 	 * Finds a purchase by its purchase id.
@@ -183,6 +213,8 @@ public interface PurchaseService {
 		private String orderBy;
 		private Integer page;
 		private Integer pageSize;
+		/// Opaque cursor of keyset pagination, blank for the first page
+		private String cursor;
 
 		public static PurchaseSearchCriteria of(Boolean isAscending, String rawStatuses, String paymentType, LocalDate from, LocalDate to, Long accountId, String sortBy, Integer page, Integer pageSize) {
 			isAscending = (isAscending != null && isAscending);
@@ -242,4 +274,12 @@ public interface PurchaseService {
 			);
 		}
 	}
+
+	/**
+	 * Receives one purchase of the recommender purchase history.
+	 */
+	@FunctionalInterface
+	interface AprioriBasketConsumer {
+		void accept(long purchaseId, long[] productIds, LocalDateTime purchasedAt);
+	}
 }
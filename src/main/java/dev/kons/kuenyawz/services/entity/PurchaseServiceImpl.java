@@ -2,13 +2,16 @@ package dev.kons.kuenyawz.services.entity;
 
 import dev.kons.kuenyawz.configurations.ApplicationProperties;
 import dev.kons.kuenyawz.constants.PaymentType;
+import dev.kons.kuenyawz.dtos.CursorPage;
 import dev.kons.kuenyawz.dtos.purchase.PurchaseDto;
 import dev.kons.kuenyawz.dtos.purchase.PurchasePatchDto;
 import dev.kons.kuenyawz.dtos.purchase.PurchasePostDto;
+import dev.kons.kuenyawz.dtos.purchase.PurchaseProductDto;
 import dev.kons.kuenyawz.entities.Coordinate;
 import dev.kons.kuenyawz.entities.Purchase;
 import dev.kons.kuenyawz.entities.PurchaseItem;
 import dev.kons.kuenyawz.entities.Variant;
+import dev.kons.kuenyawz.events.PurchaseStatusPublisher;
 import dev.kons.kuenyawz.exceptions.IllegalOperationException;
 import dev.kons.kuenyawz.exceptions.UnauthorizedException;
 import dev.kons.kuenyawz.mapper.PurchaseMapper;
@@ -27,10 +30,10 @@ import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -43,12 +46,13 @@ public class PurchaseServiceImpl implements PurchaseService {
 	private final ApplicationProperties properties;
 	private final DateTimeFormatter dateTimeFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
 	private final VariantService variantService;
+	private final PurchaseStatusPublisher purchaseStatusPublisher;
 
 	/// The caching is specifically targeted for admin
 	@Override
 	@Cacheable(
 		value = "purchasesCache",
-		key = "'admin_' + T(java.util.Objects).hash(" +
+		key = "@cacheTags.accountKey(null) + T(java.util.Objects).hash(" +
 			"    #criteria.statuses, " +
 			"    #criteria.paymentType, " +
 			"    #criteria.from, " +
@@ -71,7 +75,7 @@ public class PurchaseServiceImpl implements PurchaseService {
 	@Override
 	@Cacheable(
 		value = "purchasesCache",
-		key = "'user_' + #accountId + '_' + T(java.util.Objects).hash(" +
+		key = "@cacheTags.accountKey(#accountId) + T(java.util.Objects).hash(" +
 			"    #criteria.statuses, " +
 			"    #criteria.paymentType, " +
 			"    #criteria.from, " +
@@ -91,9 +95,57 @@ public class PurchaseServiceImpl implements PurchaseService {
 		return findAllHelper(criteria);
 	}
 
+	@Override
+	public CursorPage<PurchaseDto> findAllByCursor(PurchaseSearchCriteria criteria) {
+		log.info("Fetching purchases for admin by cursor: {}, pageSize: {}", criteria.getCursor(), criteria.getPageSize());
+
+		AuthService.validateIsAdmin();
+		return findAllByCursorHelper(criteria);
+	}
+
+	@Override
+	public CursorPage<PurchaseDto> findAllByCursor(Long accountId, PurchaseSearchCriteria criteria) {
+		log.info("Fetching purchases for account by cursor: {}, pageSize: {}", criteria.getCursor(), criteria.getPageSize());
+
+		AuthService.validateMatchesId(accountId);
+		criteria.setAccountId(accountId);
+		return findAllByCursorHelper(criteria);
+	}
+
 	private Page<PurchaseDto> findAllHelper(PurchaseSearchCriteria criteria) {
 		Specification<Purchase> spec = PurchaseSpec.withAccountId1(criteria.getAccountId())
-			.and(PurchaseSpec.withStatuses(criteria.getStatuses()))
+			.and(withFilters(criteria));
+
+		Sort sorter = Sort.by(criteria.getIsAscending()
+			? Sort.Order.asc(criteria.getOrderBy())
+			: Sort.Order.desc(criteria.getOrderBy())
+		);
+		Pageable pageable = criteria.getPageable(sorter);
+		return purchaseRepository.findAll(spec, pageable).map(this::convertToDto);
+	}
+
+	/**
+	 * Seeks past the purchase id of the cursor instead of skipping rows, which keeps deep pages as fast
+	 * as the first one. The account is matched with a subquery, joining the transactions could repeat a
+	 * purchase and break the page limit.
+	 */
+	private CursorPage<PurchaseDto> findAllByCursorHelper(PurchaseSearchCriteria criteria) {
+		boolean ascending = criteria.getIsAscending() != null && criteria.getIsAscending();
+		Specification<Purchase> spec = PurchaseSpec.withAccountId2(criteria.getAccountId())
+			.and(withFilters(criteria))
+			.and(PurchaseSpec.withPurchaseIdBeyond(CursorPage.decodeCursor(criteria.getCursor()), ascending));
+
+		int size = criteria.getPageSize();
+		List<Purchase> purchases = purchaseRepository.findBy(spec, query -> query
+			.sortBy(Sort.by(ascending ? Sort.Order.asc("purchaseId") : Sort.Order.desc("purchaseId")))
+			.limit(size + 1)
+			.all()
+		);
+		return CursorPage.of(purchases, size, Purchase::getPurchaseId, this::convertToDto);
+	}
+
+	private static Specification<Purchase> withFilters(PurchaseSearchCriteria criteria) {
+		Specification<Purchase> spec = PurchaseSpec.withStatuses(criteria.getStatuses())
 			.and(PurchaseSpec.withPaymentType(criteria.getPaymentType()));
 
 		if (criteria.getFrom() != null && criteria.getTo() != null) {
@@ -103,22 +155,42 @@ public class PurchaseServiceImpl implements PurchaseService {
 		} else if (criteria.getTo() != null) {
 			spec = spec.and(PurchaseSpec.withDateBefore(criteria.getTo()));
 		}
-
-		Sort sorter = Sort.by(criteria.getIsAscending()
-			? Sort.Order.asc(criteria.getOrderBy())
-			: Sort.Order.desc(criteria.getOrderBy())
-		);
-		Pageable pageable = criteria.getPageable(sorter);
-		return purchaseRepository.findAll(spec, pageable).map(this::convertToDto);
+		return spec;
 	}
 
 	@Override
-	public List<Purchase> getAprioriNeeds() {
-		Specification<Purchase> spec = PurchaseSpec
-			.withStatus(Purchase.PurchaseStatus.CONFIRMED)
-			.or(PurchaseSpec.withStatus(Purchase.PurchaseStatus.DELIVERED));
+	public int forEachIdentifiedAprioriBasket(AprioriBasketConsumer basketConsumer) {
+		long[] basket = new long[16];
+		int size = 0;
+		Long currentPurchaseId = null;
+		LocalDateTime currentPurchasedAt = null;
+		int baskets = 0;
+
+		// Rows are ordered by purchase, a basket is complete once the purchase id changes
+		try (Stream<PurchaseProductDto> rows =
+				 purchaseRepository.streamPurchaseProducts(Purchase.PurchaseStatus.RECOMMENDABLE)) {
+			Iterator<PurchaseProductDto> iterator = rows.iterator();
+			while (iterator.hasNext()) {
+				PurchaseProductDto row = iterator.next();
+				if (currentPurchaseId != null && !currentPurchaseId.equals(row.purchaseId())) {
+					basketConsumer.accept(currentPurchaseId, Arrays.copyOf(basket, size), currentPurchasedAt);
+					baskets++;
+					size = 0;
+				}
+				currentPurchaseId = row.purchaseId();
+				currentPurchasedAt = row.purchasedAt();
+				if (size == basket.length) {
+					basket = Arrays.copyOf(basket, size * 2);
+				}
+				basket[size++] = row.productId();
+			}
+		}
 
-		return purchaseRepository.findAll(spec);
+		if (currentPurchaseId != null) {
+			basketConsumer.accept(currentPurchaseId, Arrays.copyOf(basket, size), currentPurchasedAt);
+			baskets++;
+		}
+		return baskets;
 	}
 
 	@Override
@@ -244,7 +316,7 @@ public class PurchaseServiceImpl implements PurchaseService {
 		// Cancels transactions of the purchase
 		transactionService.cancelAllOf(purchaseId);
 
-		purchase.setStatus(Purchase.PurchaseStatus.CANCELLED);
+		purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CANCELLED);
 		Purchase saved = purchaseRepository.save(purchase);
 		return convertToDto(saved);
 	}
@@ -255,7 +327,7 @@ public class PurchaseServiceImpl implements PurchaseService {
 			.orElseThrow(() -> new EntityNotFoundException("Purchase not found"));
 		if (purchase.isConfirmed())
 			throw new IllegalOperationException("Purchase has already been confirmed");
-		purchase.setStatus(Purchase.PurchaseStatus.CONFIRMED);
+		purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CONFIRMED);
 		Purchase saved = purchaseRepository.save(purchase);
 		return convertToDto(saved);
 	}
@@ -290,7 +362,7 @@ public class PurchaseServiceImpl implements PurchaseService {
 		if (purchase.isFinished())
 			throw new IllegalOperationException("Cannot progress beyond finished status: " + purchase.getStatus());
 
-		purchase.setStatus(purchase.getStatus().next());
+		purchaseStatusPublisher.changeStatus(purchase, purchase.getStatus().next());
 		Purchase saved = purchaseRepository.save(purchase);
 		return convertToDto(saved);
 	}
@@ -1,6 +1,7 @@
 package dev.kons.kuenyawz.services.entity;
 
 import dev.kons.kuenyawz.constants.PaymentType;
+import dev.kons.kuenyawz.dtos.CursorPage;
 import dev.kons.kuenyawz.dtos.purchase.TransactionDto;
 import dev.kons.kuenyawz.dtos.purchase.TransactionPatchDto;
 import dev.kons.kuenyawz.entities.Account;
@@ -39,6 +40,28 @@ public interface TransactionService {
 	@Transactional(readOnly = true)
 	Page<TransactionDto> findAll(Long accountId, TransactionSearchCriteria criteria);
 
+	/**
+	 * Finds transactions one keyset page at a time, ordered by transaction id and without counting the
+	 * total. Filters are the same as {@link #findAll(TransactionSearchCriteria)}, the page starts after
+	 * {@link TransactionSearchCriteria#getCursor()}.
+	 *
+	 * @param criteria {@link TransactionSearchCriteria} search criteria
+	 * @return {@link CursorPage} of {@link TransactionDto}
+	 */
+	@Transactional(readOnly = true)
+	CursorPage<TransactionDto> findAllByCursor(TransactionSearchCriteria criteria);
+
+	/**
+	 * Finds transactions of an account one keyset page at a time.
+	 *
+	 * @param accountId {@link Long} account id
+	 * @param criteria {@link TransactionSearchCriteria} search criteria
+	 * @return {@link CursorPage} of {@link TransactionDto}
+	 * @see #findAllByCursor(TransactionSearchCriteria)
+	 */
+	@Transactional(readOnly = true)
+	CursorPage<TransactionDto> findAllByCursor(Long accountId, TransactionSearchCriteria criteria);
+
 	/**
 	 * Finds a transaction by its id.
 	 *
@@ -101,6 +124,15 @@ public interface TransactionService {
 	 */
 	TransactionDto fetchTransaction(Long transactionId);
 
+	/**
+	 * Strong ETag of a transaction derived from its version.
+	 *
+	 * @param transactionId {@link Long}
+	 * @return {@link String} quoted ETag
+	 */
+	@Transactional(readOnly = true)
+	String findETag(Long transactionId);
+
 	/**
 	 * Fetches a transaction by entity for direct search.
 	 *
@@ -198,6 +230,8 @@ public interface TransactionService {
 		private LocalDate to;
 		private Integer page;
 		private Integer pageSize;
+		/// Opaque cursor of keyset pagination, blank for the first page
+		private String cursor;
 
 		public static TransactionSearchCriteria of(Boolean isAscending, String rawStatuses, String paymentType, Long purchaseId, LocalDate from, LocalDate to, Integer page, Integer pageSize) {
 			List<String> statuses = (rawStatuses == null) ? null : List.of(rawStatuses.trim().split(","));
@@ -224,7 +258,7 @@ public interface TransactionService {
 			return (page == null || page < 0) ? 0 : page;
 		}
 
-		private Integer getPageSize() {
+		public Integer getPageSize() {
 			return (pageSize == null || pageSize < 1 || pageSize > 1000) ? 10 : pageSize;
 		}
 
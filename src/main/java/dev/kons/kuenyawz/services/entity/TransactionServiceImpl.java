@@ -1,12 +1,14 @@
 package dev.kons.kuenyawz.services.entity;
 
 import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.CursorPage;
 import dev.kons.kuenyawz.dtos.midtrans.MidtransResponse;
 import dev.kons.kuenyawz.dtos.purchase.TransactionDto;
 import dev.kons.kuenyawz.dtos.purchase.TransactionPatchDto;
 import dev.kons.kuenyawz.entities.Account;
 import dev.kons.kuenyawz.entities.Purchase;
 import dev.kons.kuenyawz.entities.Transaction;
+import dev.kons.kuenyawz.events.PurchaseStatusPublisher;
 import dev.kons.kuenyawz.exceptions.IllegalOperationException;
 import dev.kons.kuenyawz.exceptions.UnauthorizedException;
 import dev.kons.kuenyawz.repositories.PurchaseRepository;
@@ -20,6 +22,8 @@ import jakarta.persistence.EntityNotFoundException;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -42,6 +46,8 @@ public class TransactionServiceImpl implements TransactionService {
 	private final PurchaseRepository purchaseRepository;
 	private final WhatsappApiService whatsappApiService;
 	private final ApplicationProperties properties;
+	private final CacheManager cacheManager;
+	private final PurchaseStatusPublisher purchaseStatusPublisher;
 
 	@Override
 	public Page<TransactionDto> findAll(TransactionSearchCriteria criteria) {
@@ -56,7 +62,49 @@ public class TransactionServiceImpl implements TransactionService {
 		return findAllHelper(criteria);
 	}
 
+	@Override
+	public CursorPage<TransactionDto> findAllByCursor(TransactionSearchCriteria criteria) {
+		AuthService.validateIsAdmin();
+		return findAllByCursorHelper(criteria);
+	}
+
+	@Override
+	public CursorPage<TransactionDto> findAllByCursor(Long accountId, TransactionSearchCriteria criteria) {
+		AuthService.validateMatchesId(accountId);
+		criteria.setAccountId(accountId);
+		return findAllByCursorHelper(criteria);
+	}
+
 	private Page<TransactionDto> findAllHelper(TransactionSearchCriteria criteria) {
+		Specification<Transaction> spec = withFilters(criteria);
+
+		Sort sorter = Sort.by(criteria.getIsAscending() != null && criteria.getIsAscending()
+			? Sort.Order.asc("createdAt")
+			: Sort.Order.desc("createdAt")
+		);
+		Pageable pageable = criteria.getPageable(sorter);
+		return transactionRepository.findAll(spec, pageable).map(this::convertToDto);
+	}
+
+	/**
+	 * Seeks past the transaction id of the cursor instead of skipping rows, ids are snowflakes so the
+	 * order is the same as by creation time.
+	 */
+	private CursorPage<TransactionDto> findAllByCursorHelper(TransactionSearchCriteria criteria) {
+		boolean ascending = criteria.getIsAscending() != null && criteria.getIsAscending();
+		Specification<Transaction> spec = withFilters(criteria)
+			.and(TransactionSpec.withTransactionIdBeyond(CursorPage.decodeCursor(criteria.getCursor()), ascending));
+
+		int size = criteria.getPageSize();
+		List<Transaction> transactions = transactionRepository.findBy(spec, query -> query
+			.sortBy(Sort.by(ascending ? Sort.Order.asc("transactionId") : Sort.Order.desc("transactionId")))
+			.limit(size + 1)
+			.all()
+		);
+		return CursorPage.of(transactions, size, Transaction::getTransactionId, this::convertToDto);
+	}
+
+	private static Specification<Transaction> withFilters(TransactionSearchCriteria criteria) {
 		Specification<Transaction> spec = TransactionSpec.withAccountId(criteria.getAccountId())
 			.and(TransactionSpec.withStatuses(criteria.getStatuses()))
 			.and(TransactionSpec.withPaymentType(criteria.getPaymentType()))
@@ -70,13 +118,7 @@ public class TransactionServiceImpl implements TransactionService {
 		} else if (criteria.getTo() != null) {
 			spec = spec.and(TransactionSpec.withDateBefore(criteria.getTo()));
 		}
-
-		Sort sorter = Sort.by(criteria.getIsAscending() != null && criteria.getIsAscending()
-			? Sort.Order.asc("createdAt")
-			: Sort.Order.desc("createdAt")
-		);
-		Pageable pageable = criteria.getPageable(sorter);
-		return transactionRepository.findAll(spec, pageable).map(this::convertToDto);
+		return spec;
 	}
 
 	@Override
@@ -132,6 +174,13 @@ public class TransactionServiceImpl implements TransactionService {
 		return fetchTransactionHelper(transaction, res);
 	}
 
+	@Override
+	public String findETag(Long transactionId) {
+		Long version = transactionRepository.findVersionById(transactionId)
+			.orElseThrow(() -> new EntityNotFoundException("Transaction not found"));
+		return "\"transaction-" + transactionId + "-" + version + "\"";
+	}
+
 	@Override
 	public TransactionDto fetchTransaction(Transaction transaction) {
 		MidtransResponse res = midtransApiService.fetchTransactionStatus(String.valueOf(transaction.getTransactionId()));
@@ -146,9 +195,10 @@ public class TransactionServiceImpl implements TransactionService {
 		// Check for fraud status of the transaction, this is for card payments
 		if (res.getFraudStatus() != null && !res.getFraudStatus().equalsIgnoreCase("accept")) {
 			transaction.setStatus(Transaction.TransactionStatus.CANCEL);
-			purchase.setStatus(Purchase.PurchaseStatus.CANCELLED);
+			purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CANCELLED);
 			transactionRepository.save(transaction);
 			purchaseRepository.save(purchase);
+			evictPurchase(purchase);
 			return convertToDto(transaction);
 		}
 
@@ -161,17 +211,28 @@ public class TransactionServiceImpl implements TransactionService {
 					purchase.getPurchaseId(), properties.frontend().getBaseUrl()
 				);
 				whatsappApiService.send(properties.vendor().getPhone(), message, "62");
-				purchase.setStatus(Purchase.PurchaseStatus.CONFIRMING);
+				purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CONFIRMING);
 			} else if (status == Transaction.TransactionStatus.CANCEL || status == Transaction.TransactionStatus.EXPIRE) {
-				purchase.setStatus(Purchase.PurchaseStatus.CANCELLED);
+				purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CANCELLED);
 			}
 			purchaseRepository.save(purchase);
 		}
 
 		transactionRepository.save(transaction);
+		evictPurchase(purchase);
 		return convertToDto(transaction);
 	}
 
+	/**
+	 * The cached purchase detail embeds its transactions, so it is stale once one of them changes.
+	 */
+	private void evictPurchase(Purchase purchase) {
+		Cache purchaseCache = cacheManager.getCache("purchaseCache");
+		if (purchaseCache != null) {
+			purchaseCache.evict(purchase.getPurchaseId());
+		}
+	}
+
 	@Override
 	public Transaction build(Purchase purchase, Account account) {
 		AuthService.validateMatchesId(account.getAccountId());
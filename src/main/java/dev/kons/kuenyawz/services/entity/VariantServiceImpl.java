@@ -11,6 +11,7 @@ import dev.kons.kuenyawz.exceptions.ResourceNotFoundException;
 import dev.kons.kuenyawz.mapper.VariantMapper;
 import dev.kons.kuenyawz.repositories.ProductRepository;
 import dev.kons.kuenyawz.repositories.VariantRepository;
+import dev.kons.kuenyawz.utils.CatalogSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Primary;
@@ -29,6 +30,7 @@ public class VariantServiceImpl implements VariantService {
 	private final ProductRepository productRepository;
 	private final VariantRepository variantRepository;
 	private final VariantMapper variantMapper;
+	private final CatalogSnapshot catalogSnapshot;
 
 	@Override
 	public List<VariantDto> getAllVariants() {
@@ -59,6 +61,7 @@ public class VariantServiceImpl implements VariantService {
 		product.getVariants().add(variant);
 
 		Variant savedVariant = variantRepository.save(variant);
+		catalogSnapshot.invalidate(productId);
 
 		// Convert and return
 		VariantDto variantDto = variantMapper.fromEntity(savedVariant);
@@ -91,6 +94,7 @@ public class VariantServiceImpl implements VariantService {
 
 		List<Variant> savedVariants = variantRepository.saveAll(variants);
 		log.info("CREATED MULTIPLE: {}", savedVariants);
+		catalogSnapshot.invalidate(productId);
 
 		// Convert and return
 		List<VariantDto> variantDtos = savedVariants.stream().map(variantMapper::fromEntity).toList();
@@ -134,6 +138,7 @@ public class VariantServiceImpl implements VariantService {
 		Variant updatedVariant = variantMapper.updateVariantFromPatch(variantPatchDto, variant);
 		Variant savedVariant = variantRepository.save(updatedVariant);
 		log.info("UPDATED: {}", savedVariant);
+		catalogSnapshot.invalidate(productId);
 
 		// Convert and return
 		VariantDto variantDto = variantMapper.fromEntity(savedVariant);
@@ -152,6 +157,7 @@ public class VariantServiceImpl implements VariantService {
 			throw new ResourceNotFoundException("Variant with ID '" + variantId + "' not found in Product with ID '" + productId + "'");
 		}
 		log.info("DELETED: {}", variantId);
+		catalogSnapshot.invalidate(productId);
 	}
 
 	private void checkQuantityConsistency(Variant variant, VariantPatchDto variantPatchDto) {
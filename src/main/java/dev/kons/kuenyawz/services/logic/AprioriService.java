@@ -1,10 +1,32 @@
 package dev.kons.kuenyawz.services.logic;
 
+import dev.kons.kuenyawz.utils.mining.AssociationRule;
+import dev.kons.kuenyawz.utils.mining.CoOccurrenceCounts;
+import dev.kons.kuenyawz.utils.mining.TransactionMatrix;
+
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 public interface AprioriService {
 
+    /**
+     * Mine every association rule of the orders with support, confidence and lift. The history is
+     * scanned once into an FP-tree, rules are then derived from the mined frequent itemsets.
+     *
+     * @param orders Set<Map < Long ( OrderId ), Set < Long ( ProductId )>>>
+     * @return {@link List} of {@link AssociationRule}
+     */
+    List<AssociationRule> findAssociationRules(Map<Long, Set<Long>> orders);
+
+    /**
+     * Mine every association rule of the purchase history with support, confidence and lift.
+     *
+     * @param matrix {@link TransactionMatrix} purchase history in columnar form
+     * @return {@link List} of {@link AssociationRule}
+     */
+    List<AssociationRule> findAssociationRules(TransactionMatrix matrix);
+
     /**
      * Find frequent of each item(Product)
      *
@@ -13,6 +35,22 @@ public interface AprioriService {
      */
     Map<Long, Set<Long>> findAllFrequentSetOfItems(Map<Long, Set<Long>> orders);
 
+    /**
+     * Find frequent of each item(Product) from the columnar purchase history.
+     *
+     * @param matrix {@link TransactionMatrix} purchase history in columnar form
+     * @return Set<Map < Long ( ProductId ), Set < Long ( ProductId )>>>
+     */
+    Map<Long, Set<Long>> findAllFrequentSetOfItems(TransactionMatrix matrix);
+
+    /**
+     * Find frequent of each item(Product) from rules that were already mined.
+     *
+     * @param rules {@link List} of {@link AssociationRule} mined from the purchase history
+     * @return Set<Map < Long ( ProductId ), Set < Long ( ProductId )>>>
+     */
+    Map<Long, Set<Long>> findAllFrequentSetOfItems(List<AssociationRule> rules);
+
     /**
      * Find frequent of one item(Product), to find the match frequent item with the selected item
      *
@@ -32,6 +70,25 @@ public interface AprioriService {
      */
     Set<Long> findFrequentSetItemWith(Map<Long, Set<Long>> orders, Long productId, int topN);
 
+    /**
+     * Find frequent of one item(Product) from the incrementally maintained counts, ranked the same way
+     * as the mined single antecedent rules.
+     *
+     * @param counts {@link CoOccurrenceCounts} item and pair counts of the purchase history
+     * @param productId The selected product
+     * @param topN Number of frequent item that going to be show
+     * @return
+     */
+    Set<Long> findFrequentSetItemWith(CoOccurrenceCounts counts, Long productId, int topN);
+
+    /**
+     * Minimum number of purchases an itemset has to appear in to be frequent.
+     *
+     * @param transactionCount Number of purchases in the history
+     * @return
+     */
+    int minSupportCount(int transactionCount);
+
     /**
      * Find the most buy frequent item
      *
@@ -40,4 +97,13 @@ public interface AprioriService {
      * @return
      */
     Set<Long> getTopN(Map<Long, Set<Long>> orders, int topN);
+
+    /**
+     * Find the most buy frequent item from the columnar purchase history.
+     *
+     * @param matrix {@link TransactionMatrix} purchase history in columnar form
+     * @param topN Number of frequent item that going to be show
+     * @return
+     */
+    Set<Long> getTopN(TransactionMatrix matrix, int topN);
 }
@@ -1,28 +1,88 @@
 package dev.kons.kuenyawz.services.logic;
 
 import dev.kons.kuenyawz.repositories.ProductRepository;
+import dev.kons.kuenyawz.utils.mining.AssociationRule;
+import dev.kons.kuenyawz.utils.mining.AssociationRules;
+import dev.kons.kuenyawz.utils.mining.CoOccurrenceCounts;
+import dev.kons.kuenyawz.utils.mining.FPGrowth;
+import dev.kons.kuenyawz.utils.mining.FrequentItemset;
+import dev.kons.kuenyawz.utils.mining.ProductIndex;
+import dev.kons.kuenyawz.utils.mining.TransactionMatrix;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class AprioriServiceImpl implements AprioriService {
 
     private final double MIN_SUPPORT = 0.05;
     private final double MIN_CONFIDENCE = 0.6;
+    /// Rules are mined up to two antecedents and one consequent
+    private final int MAX_ITEMSET_SIZE = 3;
     private final ProductRepository productRepository;
+    /// Bounded pool shared by every rebuild, null mines on the calling thread
+    private final ForkJoinPool miningPool;
+
+    @Override
+    public List<AssociationRule> findAssociationRules(Map<Long, Set<Long>> orders) {
+        return findAssociationRules(TransactionMatrix.of(orders));
+    }
+
+    @Override
+    public List<AssociationRule> findAssociationRules(TransactionMatrix matrix) {
+        if (matrix.transactionCount() == 0) {
+            return new ArrayList<>();
+        }
+        long startTime = System.currentTimeMillis();
+
+        int minSupportCount = minSupportCount(matrix.transactionCount());
+        int[][] transactions = matrix.toTransactions();
+        int longest = 0;
+        for (int[] transaction : transactions) {
+            longest = Math.max(longest, transaction.length);
+        }
+
+        List<FrequentItemset> itemsets = new FPGrowth(minSupportCount, MAX_ITEMSET_SIZE)
+                .mine(transactions, matrix.itemSupports(), longest, miningPool);
+        List<AssociationRule> rules = AssociationRules.derive(itemsets, matrix, MIN_CONFIDENCE, miningPool);
+
+        log.info("Mined {} frequent itemsets and {} rules from {} orders ({} KB) in {} ms",
+                itemsets.size(), rules.size(), matrix.transactionCount(), matrix.estimatedBytes() / 1024,
+                System.currentTimeMillis() - startTime);
+        return rules;
+    }
 
     @Override
     public Map<Long, Set<Long>> findAllFrequentSetOfItems(Map<Long, Set<Long>> orders) {
+        return findAllFrequentSetOfItems(TransactionMatrix.of(orders));
+    }
+
+    @Override
+    public Map<Long, Set<Long>> findAllFrequentSetOfItems(TransactionMatrix matrix) {
+        return findAllFrequentSetOfItems(findAssociationRules(matrix));
+    }
+
+    @Override
+    public Map<Long, Set<Long>> findAllFrequentSetOfItems(List<AssociationRule> rules) {
         int targetSetSize = 3;
         Map<Long, Set<Long>> result = new HashMap<>();
         List<Long> productIds = productRepository.findAllAvailableIds();
 
+        // Group single antecedent rules by their antecedent, mined once for all products
+        Map<Long, List<AssociationRule>> rulesOfProduct = rules.stream()
+                .filter(rule -> rule.antecedent().length == 1)
+                .collect(Collectors.groupingBy(rule -> rule.antecedent()[0]));
+
         for (Long productId : productIds) {
-            Set<Long> currentFrequentSets = findFrequentSetItemWith(orders, productId, targetSetSize);
+            Set<Long> currentFrequentSets = topConsequents(
+                    rulesOfProduct.getOrDefault(productId, List.of()), targetSetSize);
             result.put(productId, currentFrequentSets);
         }
 
@@ -36,62 +96,77 @@ public class AprioriServiceImpl implements AprioriService {
 
     @Override
     public Set<Long> findFrequentSetItemWith(Map<Long, Set<Long>> orders, Long productId, int topN) {
-        Map<Set<Long>, Integer> itemCountMap = new HashMap<>();
-        int totalOrders = orders.size();
-        int productIdCount = 0;
-
-        for (Map.Entry<Long, Set<Long>> entry : orders.entrySet()) {
-            Set<Long> productSet = entry.getValue();
-
-            if (productSet.contains(productId)) {
-                productIdCount++;
-
-                Set<Long> filteredSet = new HashSet<>(productSet);
-                filteredSet.remove(productId);
+        List<AssociationRule> rules = findAssociationRules(orders).stream()
+                .filter(rule -> rule.hasSingleAntecedent(productId))
+                .toList();
+        return topConsequents(rules, topN);
+    }
 
-                if (!filteredSet.isEmpty()) {
-                    itemCountMap.merge(filteredSet, 1, Integer::sum);
-                }
-            }
+    @Override
+    public Set<Long> findFrequentSetItemWith(CoOccurrenceCounts counts, Long productId, int topN) {
+        final int item = counts.index().indexOf(productId);
+        if (item < 0 || counts.support(item) == 0) {
+            return new LinkedHashSet<>();
         }
 
-        Map<Long, Double> confidenceMap = new HashMap<>();
-        for (Map.Entry<Set<Long>, Integer> entry : itemCountMap.entrySet()) {
-            double support = (double) entry.getValue() / totalOrders;
-
-            if (support >= MIN_SUPPORT) {
-                for (Long item : entry.getKey()) {
-                    double confidence = productIdCount > 0 ?
-                            (double) entry.getValue() / productIdCount : 0;
-
-                    if (confidence >= MIN_CONFIDENCE) {
-                        confidenceMap.merge(item, confidence, Math::max);
-                    }
-                }
+        final int transactionCount = counts.transactionCount();
+        final int minSupportCount = minSupportCount(transactionCount);
+        final double antecedentSupport = counts.support(item);
+        final long[] antecedent = {productId};
+
+        // Same thresholds and measures as AssociationRules.derive, restricted to rules from this product
+        List<AssociationRule> rules = new ArrayList<>();
+        counts.neighbours(item).forEach(neighbour -> {
+            int pairSupport = counts.support(item, neighbour);
+            double confidence = pairSupport / antecedentSupport;
+            if (pairSupport < minSupportCount || confidence < MIN_CONFIDENCE) {
+                return;
             }
-        }
+            double consequentSupport = (double) counts.support(neighbour) / transactionCount;
+            rules.add(new AssociationRule(
+                    antecedent,
+                    counts.index().idOf(neighbour),
+                    pairSupport,
+                    (double) pairSupport / transactionCount,
+                    confidence,
+                    confidence / consequentSupport
+            ));
+        });
+        return topConsequents(rules, topN);
+    }
 
-        return confidenceMap.entrySet().stream()
-                .sorted((e1, e2) -> Double.compare(e2.getValue(), e1.getValue()))
-                .map(Map.Entry::getKey)
-                .limit(topN)
-                .collect(Collectors.toCollection(LinkedHashSet::new));
+    @Override
+    public int minSupportCount(int transactionCount) {
+        return Math.max(1, (int) Math.ceil(MIN_SUPPORT * transactionCount));
     }
 
     @Override
     public Set<Long> getTopN(Map<Long, Set<Long>> orders, int topN) {
-        Map<Long, Integer> itemFrequencyMap = new HashMap<>();
+        return getTopN(TransactionMatrix.of(orders), topN);
+    }
 
-        for (Set<Long> products : orders.values()) {
-            for (Long product : products) {
-                itemFrequencyMap.merge(product, 1, Integer::sum);
-            }
-        }
+    @Override
+    public Set<Long> getTopN(TransactionMatrix matrix, int topN) {
+        int[] supports = matrix.itemSupports();
+        ProductIndex index = matrix.index();
+
+        return IntStream.range(0, supports.length)
+                .boxed()
+                .sorted((a, b) -> Integer.compare(supports[b], supports[a]))
+                .limit(topN)
+                .map(index::idOf)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+    }
 
-        return itemFrequencyMap.entrySet().stream()
-                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed())
+    /**
+     * Picks the strongest distinct consequents of the rules.
+     */
+    private Set<Long> topConsequents(List<AssociationRule> rules, int topN) {
+        return rules.stream()
+                .sorted(AssociationRules.strongestFirst())
+                .map(AssociationRule::consequent)
+                .distinct()
                 .limit(topN)
-                .map(Map.Entry::getKey)
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 }
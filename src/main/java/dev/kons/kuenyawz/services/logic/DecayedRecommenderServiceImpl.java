@@ -0,0 +1,267 @@
+package dev.kons.kuenyawz.services.logic;
+
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.product.ProductDto;
+import dev.kons.kuenyawz.entities.AprioriGeneration;
+import dev.kons.kuenyawz.events.PurchaseHistoryMembers;
+import dev.kons.kuenyawz.events.PurchaseStatusChangedEvent;
+import dev.kons.kuenyawz.exceptions.ResourceNotFoundException;
+import dev.kons.kuenyawz.services.entity.CartItemService;
+import dev.kons.kuenyawz.services.entity.ProductService;
+import dev.kons.kuenyawz.services.entity.PurchaseService;
+import dev.kons.kuenyawz.utils.AvailableProductPool;
+import dev.kons.kuenyawz.utils.idgenerator.SnowFlakeIdGenerator;
+import dev.kons.kuenyawz.utils.mining.DecayedCoOccurrence;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Recommender engine backed by a time-decayed co-occurrence model instead of Apriori rules. Recent
+ * purchases weigh more than old ones and there is no support or confidence threshold, so large catalogs
+ * still get recommendations. The model lives in memory only, it is built from the purchase history in
+ * the background once the application is ready or on {@link #generateApriori()}, and kept up to date by
+ * purchase status changes. Until the first build products get random recommendations and carts none.
+ * <br>
+ * <br>
+ * Selected with {@code RECOMMENDER_ENGINE=decayed}.
+ */
+@Service
+@ConditionalOnProperty(prefix = "application.recommender", name = "engine", havingValue = "decayed")
+@RequiredArgsConstructor
+@Slf4j
+public class DecayedRecommenderServiceImpl implements RecommenderService {
+
+	private static final int TOP_N = 3;
+	private static final int MAX_CART_RECOMMENDATIONS = 12;
+
+	private final ProductService productService;
+	private final PurchaseService purchaseService;
+	private final CartItemService cartItemService;
+	private final AvailableProductPool availableProductPool;
+	private final SnowFlakeIdGenerator idGenerator;
+	private final ApplicationProperties properties;
+
+	/// Loads the model and applies status changes in commit order, never on a request thread
+	private final ExecutorService modelExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "recommender-decayed-model");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/// Guards the model, it is read by requests and written by status changes
+	private final Object modelLock = new Object();
+	/// Decayed co-occurrence model of the purchase history, {@code null} until loaded from the database
+	private DecayedCoOccurrence model;
+	/// Purchases the model holds, {@code null} until loaded
+	private PurchaseHistoryMembers members;
+	/// Status changes applied while a rebuild reads the history, one log per running rebuild
+	private final List<List<PurchaseStatusChangedEvent>> rebuildLogs = new ArrayList<>();
+
+	@PreDestroy
+	void shutdown() {
+		modelExecutor.shutdownNow();
+	}
+
+	@Override
+	public List<ProductDto> getRecommendsOfProduct(Long productId, Boolean addRandom) {
+		if (!availableProductPool.contains(productId) && !productService.existsById(productId)) {
+			throw new ResourceNotFoundException("Product not found");
+		}
+
+		long[] similarIds;
+		synchronized (modelLock) {
+			similarIds = (model != null) ? model.recommend(productId, TOP_N * 2) : new long[0];
+		}
+
+		List<ProductDto> recommendations = new ArrayList<>(availableProducts(similarIds, TOP_N));
+		if (recommendations.size() < TOP_N) {
+			fillWithRandom(productId, recommendations);
+		}
+		return recommendations;
+	}
+
+	@Override
+	public List<ProductDto> getRecommendsOfCart(Long accountId, Integer limit) {
+		final int topN = (limit == null || limit < 1) ? TOP_N : Math.min(limit, MAX_CART_RECOMMENDATIONS);
+
+		long[] cart = cartItemService.getCartItemsOfAccount(accountId).stream()
+			.mapToLong(cartItem -> cartItem.getProduct().getProductId())
+			.toArray();
+		if (cart.length == 0) {
+			return List.of();
+		}
+
+		long[] similarIds;
+		synchronized (modelLock) {
+			similarIds = (model != null) ? model.recommend(cart, topN * 2) : new long[0];
+		}
+		return availableProducts(similarIds, topN);
+	}
+
+	/**
+	 * Rebuilds the model from the whole purchase history. Nothing is persisted, the returned marker only
+	 * describes the new model.
+	 */
+	@Override
+	public AprioriGeneration generateApriori() {
+		final long startTime = System.currentTimeMillis();
+
+		// Changes committed from here on may or may not be part of the read, they are replayed at the swap
+		final List<PurchaseStatusChangedEvent> missed = new ArrayList<>();
+		synchronized (modelLock) {
+			rebuildLogs.add(missed);
+		}
+		final DecayedCoOccurrence rebuilt;
+		try {
+			PurchaseHistoryMembers readMembers = new PurchaseHistoryMembers();
+			rebuilt = loadModel(readMembers);
+			synchronized (modelLock) {
+				model = rebuilt;
+				members = readMembers;
+				missed.forEach(this::applyToModel);
+			}
+		} finally {
+			synchronized (modelLock) {
+				rebuildLogs.remove(missed);
+			}
+		}
+
+		long duration = System.currentTimeMillis() - startTime;
+		log.info("Rebuilt the decayed recommender model from {} purchases, {} products and {} pairs in {} ms",
+			rebuilt.basketCount(), rebuilt.itemCount(), rebuilt.pairCount(), duration);
+		return AprioriGeneration.builder()
+			.generation(idGenerator.generateId())
+			.productCount(rebuilt.itemCount())
+			.durationMillis(duration)
+			.basketCount(rebuilt.basketCount())
+			.ruleCount(rebuilt.pairCount())
+			.modelBytes(rebuilt.estimatedBytes())
+			.build();
+	}
+
+	@Override
+	public void clearAprioriRecommendations() {
+		synchronized (modelLock) {
+			model = newModel();
+			members = new PurchaseHistoryMembers();
+		}
+	}
+
+	/**
+	 * Loads the model in the background as soon as the application is ready, status changes committed
+	 * meanwhile wait behind it on the model thread.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void loadOnStartup() {
+		modelExecutor.execute(() -> {
+			try {
+				PurchaseHistoryMembers readMembers = new PurchaseHistoryMembers();
+				DecayedCoOccurrence loaded = loadModel(readMembers);
+				synchronized (modelLock) {
+					// A rebuild installed a newer read meanwhile
+					if (model == null) {
+						model = loaded;
+						members = readMembers;
+					}
+				}
+				log.info("Loaded the decayed recommender model from {} purchases", loaded.basketCount());
+			} catch (Exception e) {
+				log.error("Failed to load the decayed recommender model, error: ", e);
+			}
+		});
+	}
+
+	/**
+	 * Adds a purchase entering the history with its own time, a purchase leaving it is removed with the
+	 * same weight it was added with. Handled once the change is committed, on the model thread.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onPurchaseStatusChanged(PurchaseStatusChangedEvent event) {
+		if (!event.isRecommendableAdded() && !event.isRecommendableRemoved()) {
+			return;
+		}
+
+		modelExecutor.execute(() -> {
+			// The recommendations are secondary, a failure here only leaves them stale until the next rebuild
+			try {
+				synchronized (modelLock) {
+					rebuildLogs.forEach(rebuildLog -> rebuildLog.add(event));
+					applyToModel(event);
+				}
+			} catch (Exception e) {
+				log.error("[P{}] Failed to update the decayed recommender model, error: ", event.purchaseId(), e);
+			}
+		});
+	}
+
+	/**
+	 * Applies a change the model does not hold yet, changes queued before the load are part of what it read.
+	 */
+	private void applyToModel(PurchaseStatusChangedEvent event) {
+		if (model == null || !members.accept(event)) {
+			return;
+		}
+		long purchasedAt = toMillis(event.purchasedAt());
+		if (event.isRecommendableAdded()) {
+			model.add(event.productIds(), purchasedAt);
+		} else {
+			model.remove(event.productIds(), purchasedAt);
+		}
+	}
+
+	private DecayedCoOccurrence loadModel(PurchaseHistoryMembers readMembers) {
+		DecayedCoOccurrence loaded = newModel();
+		purchaseService.forEachIdentifiedAprioriBasket((purchaseId, basket, purchasedAt) -> {
+			readMembers.add(purchaseId);
+			loaded.add(basket, toMillis(purchasedAt));
+		});
+		return loaded;
+	}
+
+	private DecayedCoOccurrence newModel() {
+		Duration halfLife = Duration.ofDays(Math.max(1, properties.recommender().getDecayHalfLifeDays()));
+		return new DecayedCoOccurrence(halfLife, System.currentTimeMillis());
+	}
+
+	private List<ProductDto> availableProducts(long[] productIds, int limit) {
+		return productService.getProducts(Arrays.stream(productIds).boxed().toList())
+			.stream()
+			.filter(ProductDto::isAvailable)
+			.limit(limit)
+			.toList();
+	}
+
+	private void fillWithRandom(Long productId, List<ProductDto> recommendations) {
+		Set<Long> chosenIds = new HashSet<>();
+		recommendations.forEach(productDto -> chosenIds.add(productDto.getProductId()));
+
+		long[] sampledIds = availableProductPool.sample(TOP_N + chosenIds.size(), productId);
+		List<Long> fillerIds = new ArrayList<>();
+		for (long sampledId : sampledIds) {
+			if (!chosenIds.contains(sampledId) && fillerIds.size() < TOP_N - recommendations.size()) {
+				fillerIds.add(sampledId);
+			}
+		}
+		recommendations.addAll(productService.getProducts(fillerIds));
+	}
+
+	private static long toMillis(LocalDateTime dateTime) {
+		return (dateTime == null)
+			? System.currentTimeMillis()
+			: dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+	}
+}
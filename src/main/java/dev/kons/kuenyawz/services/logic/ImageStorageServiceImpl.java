@@ -10,6 +10,7 @@ import dev.kons.kuenyawz.exceptions.ResourceNotFoundException;
 import dev.kons.kuenyawz.exceptions.ResourceUploadException;
 import dev.kons.kuenyawz.repositories.ProductImageRepository;
 import dev.kons.kuenyawz.repositories.ProductRepository;
+import dev.kons.kuenyawz.utils.CatalogSnapshot;
 import dev.kons.kuenyawz.utils.idgenerator.SnowFlakeIdGenerator;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
@@ -40,6 +41,7 @@ public class ImageStorageServiceImpl implements ImageStorageService {
 	private final ApplicationProperties properties;
 	private final SnowFlakeIdGenerator idGenerator;
 	private final ProductImageRepository productImageRepository;
+	private final CatalogSnapshot catalogSnapshot;
 
 	private final String ROOT_TO_UPLOAD = "/src/main/resources/uploads";
 	private String productImagesDir = "product-images";
@@ -114,6 +116,7 @@ public class ImageStorageServiceImpl implements ImageStorageService {
 		}
 
 		ImageResourceDTO imageResourceDTO = processImageStoring(product, imageUploadDto);
+		catalogSnapshot.invalidate(productId);
 		return imageResourceDTO;
 	}
 
@@ -136,6 +139,7 @@ public class ImageStorageServiceImpl implements ImageStorageService {
 			ImageResourceDTO imageResourceDTO = processImageStoring(product, file);
 			imageResourceDTOs.add(imageResourceDTO);
 		});
+		catalogSnapshot.invalidate(productId);
 		return imageResourceDTOs;
 	}
 
@@ -172,6 +176,7 @@ public class ImageStorageServiceImpl implements ImageStorageService {
 			Path requestedPath = Path.of(uploadLocation.toString(), productImage.getRelativePath()).normalize().toAbsolutePath();
 			Files.deleteIfExists(requestedPath);
 			productImageRepository.delete(productImage);
+			catalogSnapshot.invalidate(productId);
 		} catch (NumberFormatException | IOException e) {
 			throw new ResourceNotFoundException("Resource '" + productId + "/" + resourceUri + "' not found");
 		}
@@ -6,13 +6,16 @@ import dev.kons.kuenyawz.configurations.ApplicationProperties;
 import dev.kons.kuenyawz.dtos.midtrans.MidtransNotification;
 import dev.kons.kuenyawz.entities.Purchase;
 import dev.kons.kuenyawz.entities.Transaction;
+import dev.kons.kuenyawz.events.PurchaseStatusPublisher;
 import dev.kons.kuenyawz.exceptions.InvalidRequestBodyValue;
 import dev.kons.kuenyawz.repositories.PurchaseRepository;
 import dev.kons.kuenyawz.repositories.TransactionRepository;
 import dev.kons.kuenyawz.services.entity.TransactionService;
+import dev.kons.kuenyawz.utils.CacheTags;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 
@@ -30,9 +33,11 @@ public class MidtransWebhookServiceImpl implements MidtransWebhookService {
 	private final ObjectMapper mapper;
 	private final WhatsappApiService whatsappApiService;
 	private final ObjectMapper objectMapper;
+	private final CacheTags cacheTags;
+	private final CacheManager cacheManager;
+	private final PurchaseStatusPublisher purchaseStatusPublisher;
 
 	@Override
-	@CacheEvict(value = "purchasesCache", allEntries = true)
 	public void processNotification(MidtransNotification notification) {
 		printNotification(notification); // TODO: remove in production
 
@@ -83,15 +88,20 @@ public class MidtransWebhookServiceImpl implements MidtransWebhookService {
 					purchase.getPurchaseId(), properties.frontend().getBaseUrl()
 				);
 				whatsappApiService.send(properties.vendor().getPhone(), message, "62");
-				purchase.setStatus(Purchase.PurchaseStatus.CONFIRMING);
+				purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CONFIRMING);
 			}
 		} else {
 			transaction.setStatus(newStatus);
-			purchase.setStatus(Purchase.PurchaseStatus.CANCELLED);
+			purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CANCELLED);
 		}
 
 		transactionRepository.save(transaction);
 		purchaseRepository.save(purchase);
+		cacheTags.invalidatePurchases(transaction.getAccount().getAccountId());
+		Cache purchaseCache = cacheManager.getCache("purchaseCache");
+		if (purchaseCache != null) {
+			purchaseCache.evict(purchase.getPurchaseId());
+		}
 	}
 
 	@Override
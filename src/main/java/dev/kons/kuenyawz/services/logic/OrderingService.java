@@ -6,6 +6,7 @@ import dev.kons.kuenyawz.dtos.purchase.TransactionDto;
 import dev.kons.kuenyawz.entities.Purchase;
 import dev.kons.kuenyawz.services.entity.PurchaseService;
 import org.springframework.data.domain.Page;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Map;
 
@@ -91,6 +92,17 @@ public interface OrderingService {
 	 */
 	PurchaseDto findPurchase(Long purchaseId);
 
+	/**
+	 * Strong ETag of {@link #findPurchase(Long)} derived from the versions of the purchase and its
+	 * transactions, so an unchanged purchase can be answered with 304 without building its dto. Checks
+	 * the ownership like {@link #findPurchase(Long)} does.
+	 *
+	 * @param purchaseId {@link Long}
+	 * @return {@link String} quoted ETag
+	 */
+	@Transactional(readOnly = true)
+	String findPurchaseETag(Long purchaseId);
+
 	/**
 	 * Fetches the latest transaction of a purchase.
 	 *
@@ -11,6 +11,7 @@ import dev.kons.kuenyawz.entities.Account;
 import dev.kons.kuenyawz.entities.ClosedDate;
 import dev.kons.kuenyawz.entities.Purchase;
 import dev.kons.kuenyawz.entities.Transaction;
+import dev.kons.kuenyawz.events.PurchaseStatusPublisher;
 import dev.kons.kuenyawz.exceptions.IllegalOperationException;
 import dev.kons.kuenyawz.mapper.PurchaseMapper;
 import dev.kons.kuenyawz.repositories.PurchaseRepository;
@@ -20,12 +21,12 @@ import dev.kons.kuenyawz.services.entity.CartItemService;
 import dev.kons.kuenyawz.services.entity.ClosedDateService;
 import dev.kons.kuenyawz.services.entity.PurchaseService;
 import dev.kons.kuenyawz.services.entity.TransactionService;
+import dev.kons.kuenyawz.utils.CacheTags;
 import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specification;
@@ -52,9 +53,10 @@ public class OrderingServiceImpl implements OrderingService {
 	private final ClosedDateService closedDateService;
 	private final WhatsappApiService whatsappApiService;
 	private final CartItemService cartItemService;
+	private final PurchaseStatusPublisher purchaseStatusPublisher;
+	private final CacheTags cacheTags;
 
 	@Override
-	@CacheEvict(value = "purchasesCache", allEntries = true)
 	public PurchaseDto processOrder(PurchasePostDto purchasePostDto) {
 		// Initialize required entities
 		Account account = AuthService.getAuthenticatedAccount();
@@ -140,6 +142,7 @@ public class OrderingServiceImpl implements OrderingService {
 		));
 
 		cartItemService.deleteCartItemsOfAccount(account.getAccountId());
+		cacheTags.invalidatePurchases(account.getAccountId());
 
 		try {
 			final String message = String.format("Pesanan dengan kode pemesanan *%s* sudah dibuat. Harap menyelesaikan pembayaran anda untuk mengkonfirmasi jadwal: %n%n%s",
@@ -153,10 +156,7 @@ public class OrderingServiceImpl implements OrderingService {
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "purchaseCache", key = "#purchaseId"),
-		@CacheEvict(value = "purchasesCache", allEntries = true)
-	})
+	@CacheEvict(value = "purchaseCache", key = "#purchaseId")
 	public PurchaseDto cancelOrder(Long purchaseId) {
 		Purchase purchase = purchaseService.getById(purchaseId);
 
@@ -178,13 +178,14 @@ public class OrderingServiceImpl implements OrderingService {
 
 		transactionService.cancelAllOf(purchaseId);
 
-		purchase.setStatus(Purchase.PurchaseStatus.CANCELLED);
+		purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CANCELLED);
 		Purchase savedPurchase = purchaseRepository.save(purchase);
 
 		closedDateService.deleteBetween(
 			purchase.getEventDate().minusDays(2),
 			purchase.getEventDate()
 		);
+		invalidatePurchaseListings(purchaseId);
 
 		// Send notification if owner cancels it
 		if (AuthService.isAuthenticatedAdmin()) {
@@ -202,10 +203,7 @@ public class OrderingServiceImpl implements OrderingService {
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "purchaseCache", key = "#purchaseId"),
-		@CacheEvict(value = "purchasesCache", allEntries = true)
-	})
+	@CacheEvict(value = "purchaseCache", key = "#purchaseId")
 	public PurchaseDto confirmOrder(Long purchaseId) {
 		AuthService.validateIsAdmin();
 
@@ -231,8 +229,9 @@ public class OrderingServiceImpl implements OrderingService {
 				() -> new IllegalOperationException("Transaction for this purchase has not been paid yet")
 			);
 
-		purchase.setStatus(Purchase.PurchaseStatus.CONFIRMED);
+		purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.CONFIRMED);
 		Purchase savedPurchase = purchaseRepository.save(purchase);
+		invalidatePurchaseListings(purchaseId);
 
 		// Send notification
 		Account account = purchase.getTransactions().getLast().getAccount();
@@ -248,10 +247,7 @@ public class OrderingServiceImpl implements OrderingService {
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "purchaseCache", key = "#purchaseId"),
-		@CacheEvict(value = "purchasesCache", allEntries = true)
-	})
+	@CacheEvict(value = "purchaseCache", key = "#purchaseId")
 	public PurchaseDto refundOrder(Long purchaseId) {
 		AuthService.validateIsAdmin();
 
@@ -274,8 +270,9 @@ public class OrderingServiceImpl implements OrderingService {
 		transaction.setStatus(Transaction.TransactionStatus.REFUND);
 		transactionRepository.save(transaction);
 
-		purchase.setStatus(Purchase.PurchaseStatus.REFUNDED);
+		purchaseStatusPublisher.changeStatus(purchase, Purchase.PurchaseStatus.REFUNDED);
 		Purchase savedPurchase = purchaseRepository.save(purchase);
+		invalidatePurchaseListings(purchaseId);
 
 		// Send notification
 		sendRefundNotification(transaction.getAccount(), purchase);
@@ -284,26 +281,24 @@ public class OrderingServiceImpl implements OrderingService {
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "purchaseCache", key = "#purchaseId"),
-		@CacheEvict(value = "purchasesCache", allEntries = true)
-	})
+	@CacheEvict(value = "purchaseCache", key = "#purchaseId")
 	public PurchaseDto changeOrderStatus(Long purchaseId, String status) {
 		AuthService.validateIsAdmin();
 
 		var statusEnum = Purchase.PurchaseStatus.fromString(status);
-		return purchaseService.changeStatus(purchaseId, statusEnum);
+		PurchaseDto purchaseDto = purchaseService.changeStatus(purchaseId, statusEnum);
+		invalidatePurchaseListings(purchaseId);
+		return purchaseDto;
 	}
 
 	@Override
-	@Caching(evict = {
-		@CacheEvict(value = "purchaseCache", key = "#purchaseId"),
-		@CacheEvict(value = "purchasesCache", allEntries = true)
-	})
+	@CacheEvict(value = "purchaseCache", key = "#purchaseId")
 	public PurchaseDto upgradeOrderStatus(Long purchaseId) {
 		AuthService.validateIsAdmin();
 
-		return purchaseService.upgradeStatus(purchaseId);
+		PurchaseDto purchaseDto = purchaseService.upgradeStatus(purchaseId);
+		invalidatePurchaseListings(purchaseId);
+		return purchaseDto;
 	}
 
 	@Override
@@ -333,6 +328,16 @@ public class OrderingServiceImpl implements OrderingService {
 		return purchaseMapper.toDto(purchase);
 	}
 
+	@Override
+	public String findPurchaseETag(Long purchaseId) {
+		validateOwnershipOrAdmin(purchaseId);
+
+		PurchaseRepository.PurchaseVersion version = purchaseRepository.findVersionById(purchaseId)
+			.orElseThrow(() -> new EntityNotFoundException("Purchase not found"));
+		return "\"purchase-" + purchaseId + "-" + version.getVersion()
+			+ "-" + version.getTransactionCount() + "-" + version.getTransactionVersions() + "\"";
+	}
+
 	@Override
 	public TransactionDto findTransactionOfPurchase(Long purchaseId) {
 		validateOwnershipOrAdmin(purchaseId);
@@ -353,6 +358,14 @@ public class OrderingServiceImpl implements OrderingService {
 		}
 	}
 
+	/**
+	 * Evicts the cached purchase listings of the owners of a purchase and the admin listings, listings
+	 * of other accounts are kept.
+	 */
+	private void invalidatePurchaseListings(Long purchaseId) {
+		cacheTags.invalidatePurchases(transactionRepository.findAccountIdsByPurchaseId(purchaseId).toArray(Long[]::new));
+	}
+
 	private void validateRefundEligibility(Purchase purchase, Transaction transaction) {
 		if (purchase.getStatus() == Purchase.PurchaseStatus.REFUNDED) {
 			throw new IllegalOperationException("Purchase is already refunded");
@@ -0,0 +1,32 @@
+package dev.kons.kuenyawz.services.logic;
+
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto;
+
+/**
+ * Runs {@link RecommenderService#generateApriori()} in the background. At most one rebuild runs at a
+ * time, triggering while one is running returns the running job instead of starting another.
+ */
+public interface RecommenderJobService {
+
+	/**
+	 * Starts a rebuild unless one is already running, it never waits for the rebuild to finish.
+	 *
+	 * @param trigger {@link RecommenderJobDto.JobTrigger} what started the rebuild
+	 * @return {@link RecommenderJobDto} the started job, or the one already running
+	 */
+	RecommenderJobDto triggerRebuild(RecommenderJobDto.JobTrigger trigger);
+
+	/**
+	 * Get a recent rebuild job.
+	 *
+	 * @param jobId {@link Long} the job id
+	 * @return {@link RecommenderJobDto}
+	 */
+	RecommenderJobDto getJob(Long jobId);
+
+	/**
+	 * Rebuilds on the configured schedule, skipped when the last rebuild completed within the
+	 * configured minimum interval.
+	 */
+	void scheduledRebuild();
+}
@@ -0,0 +1,197 @@
+package dev.kons.kuenyawz.services.logic;
+
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto;
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto.JobStatus;
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto.JobTrigger;
+import dev.kons.kuenyawz.entities.AprioriGeneration;
+import dev.kons.kuenyawz.exceptions.ResourceNotFoundException;
+import dev.kons.kuenyawz.repositories.AprioriGenerationRepository;
+import dev.kons.kuenyawz.utils.idgenerator.SnowFlakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecommenderJobServiceImpl implements RecommenderJobService {
+
+	/// Finished jobs kept around to be looked up by id
+	private static final int RECENT_JOBS = 20;
+
+	private final RecommenderService recommenderService;
+	private final AprioriGenerationRepository aprioriGenerationRepository;
+	private final ApplicationProperties properties;
+	private final SnowFlakeIdGenerator idGenerator;
+	private final MeterRegistry meterRegistry;
+
+	/// Rebuilds run one at a time on their own thread, never on a request or scheduler thread
+	private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "recommender-rebuild");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/// The running job, cleared once it finishes, this is what keeps rebuilds single-flight
+	private final AtomicReference<RecommenderJobDto> running = new AtomicReference<>();
+	private final Map<Long, RecommenderJobDto> recentJobs = new LinkedHashMap<>(16, 0.75f, false) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Long, RecommenderJobDto> eldest) {
+			return size() > RECENT_JOBS;
+		}
+	};
+	private volatile LocalDateTime lastCompletedAt;
+
+	// Statistics of the last completed rebuild
+	private final AtomicLong basketCount = new AtomicLong();
+	private final AtomicLong ruleCount = new AtomicLong();
+	private final AtomicLong productCount = new AtomicLong();
+	private final AtomicLong modelBytes = new AtomicLong();
+
+	@PostConstruct
+	void registerMetrics() {
+		Gauge.builder("recommender.model.baskets", basketCount, AtomicLong::get)
+			.description("Purchases mined by the last rebuild")
+			.register(meterRegistry);
+		Gauge.builder("recommender.model.rules", ruleCount, AtomicLong::get)
+			.description("Association rules mined by the last rebuild")
+			.register(meterRegistry);
+		Gauge.builder("recommender.model.products", productCount, AtomicLong::get)
+			.description("Products with recommendations after the last rebuild")
+			.register(meterRegistry);
+		Gauge.builder("recommender.model.memory", modelBytes, AtomicLong::get)
+			.description("Estimated heap used by the purchase history of the last rebuild")
+			.baseUnit("bytes")
+			.register(meterRegistry);
+	}
+
+	@PreDestroy
+	void shutdown() {
+		executor.shutdownNow();
+	}
+
+	@Override
+	public RecommenderJobDto triggerRebuild(JobTrigger trigger) {
+		RecommenderJobDto job = RecommenderJobDto.builder()
+			.jobId(idGenerator.generateId())
+			.status(JobStatus.RUNNING)
+			.trigger(trigger)
+			.startedAt(LocalDateTime.now())
+			.build();
+
+		// Returns the job the swap failed on, so a trigger either starts its job or joins a remembered one
+		RecommenderJobDto current = running.compareAndExchange(null, job);
+		if (current != null) {
+			log.info("Recommender rebuild {} is already running, {} trigger joins it", current.getJobId(), trigger);
+			return current;
+		}
+
+		remember(job);
+		executor.execute(() -> run(job));
+		return job;
+	}
+
+	@Override
+	public RecommenderJobDto getJob(Long jobId) {
+		synchronized (recentJobs) {
+			RecommenderJobDto job = recentJobs.get(jobId);
+			if (job == null) {
+				throw new ResourceNotFoundException("Recommender job with ID '" + jobId + "' not found");
+			}
+			return job;
+		}
+	}
+
+	@Override
+	@Scheduled(
+		cron = "#{@applicationProperties.recommender().rebuildCron}",
+		zone = "#{@applicationProperties.timezone}"
+	)
+	public void scheduledRebuild() {
+		LocalDateTime last = lastCompletedAt();
+		Duration minInterval = Duration.ofMinutes(properties.recommender().getRebuildMinIntervalMinutes());
+		if (last != null && last.plus(minInterval).isAfter(LocalDateTime.now())) {
+			log.info("Skipping scheduled recommender rebuild, last rebuild completed at {}", last);
+			return;
+		}
+		triggerRebuild(JobTrigger.SCHEDULED);
+	}
+
+	private void run(RecommenderJobDto job) {
+		final long startTime = System.nanoTime();
+		RecommenderJobDto finished;
+		String outcome;
+		try {
+			AprioriGeneration generation = recommenderService.generateApriori();
+			lastCompletedAt = LocalDateTime.now();
+			finished = job.toBuilder()
+				.status(JobStatus.COMPLETED)
+				.generation(generation.getGeneration())
+				.basketCount(generation.getBasketCount())
+				.ruleCount(generation.getRuleCount())
+				.productCount(generation.getProductCount())
+				.build();
+			basketCount.set(generation.getBasketCount());
+			ruleCount.set(generation.getRuleCount());
+			productCount.set(generation.getProductCount());
+			modelBytes.set(generation.getModelBytes());
+			outcome = "success";
+		} catch (Exception e) {
+			log.error("Recommender rebuild {} failed, error: ", job.getJobId(), e);
+			finished = job.toBuilder()
+				.status(JobStatus.FAILED)
+				.error(e.getMessage())
+				.build();
+			outcome = "failure";
+		}
+
+		long elapsed = System.nanoTime() - startTime;
+		Timer.builder("recommender.rebuild.duration")
+			.description("Duration of recommender rebuilds")
+			.tag("trigger", job.getTrigger().name().toLowerCase())
+			.tag("outcome", outcome)
+			.register(meterRegistry)
+			.record(elapsed, TimeUnit.NANOSECONDS);
+
+		remember(finished.toBuilder()
+			.durationMillis(TimeUnit.NANOSECONDS.toMillis(elapsed))
+			.finishedAt(LocalDateTime.now())
+			.build());
+		running.set(null);
+	}
+
+	private void remember(RecommenderJobDto job) {
+		synchronized (recentJobs) {
+			recentJobs.put(job.getJobId(), job);
+		}
+	}
+
+	/**
+	 * Last completed rebuild, read from the latest generation after a restart.
+	 */
+	private LocalDateTime lastCompletedAt() {
+		if (lastCompletedAt == null) {
+			lastCompletedAt = aprioriGenerationRepository.findTopByOrderByGenerationDesc()
+				.map(AprioriGeneration::getCreatedAt)
+				.orElse(null);
+		}
+		return lastCompletedAt;
+	}
+}
@@ -1,6 +1,7 @@
 package dev.kons.kuenyawz.services.logic;
 
 import dev.kons.kuenyawz.dtos.product.ProductDto;
+import dev.kons.kuenyawz.entities.AprioriGeneration;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
@@ -16,9 +17,22 @@ public interface RecommenderService {
 	List<ProductDto> getRecommendsOfProduct(Long productId, Boolean addRandom);
 
 	/**
-	 * Trigger the Apriori algorithm to generate the frequent item sets.
+	 * Get products frequently bought together with the cart of an account. Every rule whose antecedent
+	 * is contained in the cart is considered and candidates are ranked by lift.
+	 *
+	 * @param accountId {@link Long} the account id
+	 * @param limit     {@link Integer} maximum number of products, defaults to 3
+	 * @return {@link List} of {@link ProductDto} recommended products, empty for an empty cart
+	 */
+	List<ProductDto> getRecommendsOfCart(Long accountId, Integer limit);
+
+	/**
+	 * Trigger the Apriori algorithm to generate the frequent item sets. The result is written as a new
+	 * generation, readers are flipped to it once it is complete and older generations are removed.
+	 *
+	 * @return {@link AprioriGeneration} marker of the activated generation
 	 */
-	void generateApriori();
+	AprioriGeneration generateApriori();
 
 	/**
 	 * Clear all the Apriori recommendations.
@@ -1,33 +1,123 @@
 package dev.kons.kuenyawz.services.logic;
 
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
 import dev.kons.kuenyawz.dtos.product.ProductDto;
 import dev.kons.kuenyawz.entities.Apriori;
-import dev.kons.kuenyawz.entities.Product;
+import dev.kons.kuenyawz.entities.AprioriGeneration;
 import dev.kons.kuenyawz.entities.Purchase;
+import dev.kons.kuenyawz.entities.PurchaseItem;
+import dev.kons.kuenyawz.events.PurchaseHistoryMembers;
+import dev.kons.kuenyawz.events.PurchaseStatusChangedEvent;
 import dev.kons.kuenyawz.exceptions.IllegalOperationException;
 import dev.kons.kuenyawz.exceptions.ResourceNotFoundException;
+import dev.kons.kuenyawz.repositories.AprioriGenerationRepository;
 import dev.kons.kuenyawz.repositories.AprioriRepository;
 import dev.kons.kuenyawz.repositories.ProductRepository;
-import dev.kons.kuenyawz.repositories.ProductSpec;
+import dev.kons.kuenyawz.services.entity.CartItemService;
 import dev.kons.kuenyawz.services.entity.ProductService;
 import dev.kons.kuenyawz.services.entity.PurchaseService;
+import dev.kons.kuenyawz.utils.AvailableProductPool;
+import dev.kons.kuenyawz.utils.idgenerator.SnowFlakeIdGenerator;
+import dev.kons.kuenyawz.utils.mining.AssociationRule;
+import dev.kons.kuenyawz.utils.mining.CartRuleIndex;
+import dev.kons.kuenyawz.utils.mining.CoOccurrenceCounts;
+import dev.kons.kuenyawz.utils.mining.ProductIndex;
+import dev.kons.kuenyawz.utils.mining.RecommendationModelFile;
+import dev.kons.kuenyawz.utils.mining.RecommendationSnapshot;
+import dev.kons.kuenyawz.utils.mining.TransactionMatrix;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.jpa.domain.Specification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 @Service
+// Any engine but the decayed one, an unknown engine then fails the startup on binding instead of on a missing bean
+@ConditionalOnExpression("'${application.recommender.engine:apriori}' != 'decayed'")
 @RequiredArgsConstructor
+@Slf4j
 public class RecommenderServiceImpl implements RecommenderService {
 
+	private static final int TOP_N = 3;
+	private static final long NO_GENERATION = 0L;
+	private static final int MAX_CART_RECOMMENDATIONS = 12;
+	private static final long ACTIVE_GENERATION_CHECK_MILLIS = 60_000L;
+	/// Changes within this delay of the first one are saved to the model file by a single write
+	private static final long MODEL_FILE_WRITE_DELAY_MILLIS = 5_000L;
+
 	private final ProductService productService;
 	private final ProductRepository productRepository;
 	private final AprioriService aprioriService;
 	private final PurchaseService purchaseService;
 	private final AprioriRepository aprioriRepository;
+	private final AprioriGenerationRepository aprioriGenerationRepository;
+	private final SnowFlakeIdGenerator idGenerator;
+	private final CartItemService cartItemService;
+	private final AvailableProductPool availableProductPool;
+	private final ApplicationProperties properties;
+
+	/// Recommendations served to readers, swapped only once a new generation is completely written
+	private final AtomicReference<RecommendationSnapshot> snapshot = new AtomicReference<>();
+
+	/// Rules of the served generation indexed by antecedent, mined in the background after a restart
+	private final AtomicReference<CartRuleIndex> cartRules = new AtomicReference<>();
+
+	/// Seeds and updates the incremental model one change at a time, in commit order, never on a request thread
+	private final ExecutorService modelExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "recommender-model");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/// Writes the model file away from the model and rebuild threads, never while holding the counts lock
+	private final ScheduledExecutorService modelFileExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "recommender-model-file");
+		thread.setDaemon(true);
+		return thread;
+	});
+	/// Set while a model file write is scheduled, later changes are picked up by that write
+	private final AtomicBoolean modelFileWritePending = new AtomicBoolean();
+
+	/// Guards the incremental model below, rebuilds replace it from their own thread
+	private final Object countsLock = new Object();
+	/// Item and pair counts of the purchase history, seeded from the database once the application is ready
+	private CoOccurrenceCounts counts;
+	/// Purchases the counts hold, {@code null} until seeded
+	private PurchaseHistoryMembers members;
+	/// Bumped whenever the counts are replaced, a seed only installs over the version it started from
+	private long modelVersion;
+	/// Status changes applied while a rebuild reads the history, one log per running rebuild
+	private final List<List<PurchaseStatusChangedEvent>> rebuildLogs = new ArrayList<>();
+	/// Last ranked recommendations of each product, without the random fillers
+	private final Map<Long, List<Long>> rankedOf = new HashMap<>();
+
+	@PreDestroy
+	void shutdown() {
+		modelExecutor.shutdownNow();
+		modelFileExecutor.shutdownNow();
+		// A write still waiting for its delay is done now, the next start would read a stale file otherwise
+		if (modelFileWritePending.get()) {
+			writeModelFile();
+		}
+	}
 
 	@Override
 	public List<ProductDto> getRecommendsOfProduct(Long productId, Boolean addRandom) {
@@ -35,112 +125,548 @@ public class RecommenderServiceImpl implements RecommenderService {
 	}
 
 	@Override
-	public void generateApriori() {
-		clearAprioriRecommendations();
+	public List<ProductDto> getRecommendsOfCart(Long accountId, Integer limit) {
+		final int topN = (limit == null || limit < 1) ? TOP_N : Math.min(limit, MAX_CART_RECOMMENDATIONS);
+
+		long[] cart = cartItemService.getCartItemsOfAccount(accountId).stream()
+			.mapToLong(cartItem -> cartItem.getProduct().getProductId())
+			.toArray();
+		if (cart.length == 0) {
+			return List.of();
+		}
+
+		// Ask for a few more to make up for unavailable products
+		long[] recommendedIds = cartRules().recommend(cart, topN * 2);
+		return productService.getProducts(Arrays.stream(recommendedIds).boxed().toList())
+			.stream()
+			.filter(ProductDto::isAvailable)
+			.limit(topN)
+			.toList();
+	}
+
+	@Override
+	public AprioriGeneration generateApriori() {
+		final long startTime = System.currentTimeMillis();
+
+		// Changes committed from here on may or may not be part of the read, they are replayed at the flip
+		final List<PurchaseStatusChangedEvent> missed = new ArrayList<>();
+		synchronized (countsLock) {
+			rebuildLogs.add(missed);
+		}
+		try {
+			return rebuild(startTime, missed);
+		} finally {
+			synchronized (countsLock) {
+				rebuildLogs.remove(missed);
+			}
+		}
+	}
 
-		Map<Long, Set<Long>> purchaseData = gatherPurchaseData();
-		var ruleSets = aprioriService.findAllFrequentSetOfItems(purchaseData);
+	private AprioriGeneration rebuild(long startTime, List<PurchaseStatusChangedEvent> missed) {
+		PurchaseHistoryMembers readMembers = new PurchaseHistoryMembers();
+		TransactionMatrix purchaseData = gatherPurchaseData(readMembers);
+		List<AssociationRule> rules = aprioriService.findAssociationRules(purchaseData);
+		var ruleSets = aprioriService.findAllFrequentSetOfItems(rules);
 
+		// The new generation is written next to the served one, readers keep using the old rows meanwhile
+		final long generation = idGenerator.generateId();
+		final long[] availableIds = findAvailableIds();
+		List<Apriori> aprioris = new ArrayList<>(ruleSets.size());
 		for (Map.Entry<Long, Set<Long>> entry : ruleSets.entrySet()) {
-			Long productId = entry.getKey();
-			Set<Long> recommendedIds = entry.getValue();
+			Apriori apriori = Apriori.builder()
+				.generation(generation)
+				.productId(entry.getKey())
+				.build();
+			fillRecommendations(apriori, entry.getValue(), availableIds);
+			aprioris.add(apriori);
+		}
+		aprioriRepository.insertAll(aprioris);
+
+		// Flip readers to the complete generation, together with the incremental model it was built from
+		final Optional<Long> previous = aprioriGenerationRepository.findTopByOrderByGenerationDesc()
+			.map(AprioriGeneration::getGeneration);
+		AprioriGeneration marker;
+		synchronized (countsLock) {
+			marker = aprioriGenerationRepository.save(AprioriGeneration.builder()
+				.generation(generation)
+				.productCount(aprioris.size())
+				.durationMillis(System.currentTimeMillis() - startTime)
+				.basketCount(purchaseData.transactionCount())
+				.ruleCount(rules.size())
+				.modelBytes(purchaseData.estimatedBytes())
+				.build());
+			snapshot.set(RecommendationSnapshot.of(generation, toRecommendations(aprioris)));
+			cartRules.set(CartRuleIndex.of(rules));
+			scheduleModelFileWrite();
+
+			counts = CoOccurrenceCounts.of(purchaseData);
+			members = readMembers;
+			modelVersion++;
+			rankedOf.clear();
+			ruleSets.forEach((productId, recommendedIds) -> rankedOf.put(productId, List.copyOf(recommendedIds)));
+
+			// Only the changes the read did not see are applied again, into the new generation
+			int replayed = 0;
+			for (PurchaseStatusChangedEvent event : missed) {
+				if (members.accept(event)) {
+					updateCounts(event.productIds(), event.isRecommendableAdded());
+					replayed++;
+				}
+			}
+			log.info("Replayed {} of {} purchase status changes committed during the rebuild", replayed, missed.size());
+		}
+
+		// Other instances may still serve the previous generation until they notice the flip, so it is
+		// kept for one more rebuild and only the generations before it are collected
+		final long oldestKept = previous.orElse(generation);
+		int collected = aprioriRepository.deleteAllBeforeGeneration(oldestKept);
+		aprioriGenerationRepository.deleteAllBefore(oldestKept);
+		log.info("Activated Apriori generation {} with {} products in {} ms, collected {} old rows",
+			generation, aprioris.size(), System.currentTimeMillis() - startTime, collected);
+		return marker;
+	}
+
+	/**
+	 * Keeps the recommendations fresh between full generations. A purchase entering the history adds its
+	 * basket to the counts, a purchase leaving it (refunded or cancelled after confirmation) removes it.
+	 * Only the products of the basket and their co-purchased products are re-ranked, unless the minimum
+	 * support count moved, and only rankings that actually changed are written.
+	 * <p>
+	 * Handled once the status change is committed, so a rolled back change never reaches the model, and
+	 * applied on the model thread, so the request that changed the status never waits for it.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onPurchaseStatusChanged(PurchaseStatusChangedEvent event) {
+		if (!event.isRecommendableAdded() && !event.isRecommendableRemoved()) {
+			return;
+		}
+		modelExecutor.execute(() -> applyStatusChange(event));
+	}
+
+	/**
+	 * Seeds the incremental model, and the cart rules when the model file had none, in the background as
+	 * soon as the application is ready. Status changes committed meanwhile wait behind it on the model thread.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void seedOnStartup() {
+		modelExecutor.execute(this::seedCounts);
+	}
+
+	/**
+	 * Picks up generations activated by other instances, so readers here do not keep being served a
+	 * generation whose rows are collected by the next rebuild.
+	 */
+	@Scheduled(fixedDelay = ACTIVE_GENERATION_CHECK_MILLIS, initialDelay = ACTIVE_GENERATION_CHECK_MILLIS)
+	public void checkActiveGeneration() {
+		modelExecutor.execute(() -> {
+			try {
+				synchronized (countsLock) {
+					activeSnapshot();
+				}
+			} catch (Exception e) {
+				log.warn("Failed to check the active Apriori generation, error: {}", e.getMessage());
+			}
+		});
+	}
+
+	private void applyStatusChange(PurchaseStatusChangedEvent event) {
+		// The recommendations are secondary, a failure here only leaves them stale until the next rebuild
+		try {
+			synchronized (countsLock) {
+				rebuildLogs.forEach(rebuildLog -> rebuildLog.add(event));
+				// Changes queued before the seed are part of what it read
+				if (members == null || !members.accept(event)) {
+					return;
+				}
+				updateCounts(event.productIds(), event.isRecommendableAdded());
+			}
+		} catch (Exception e) {
+			log.error("[P{}] Failed to update recommendations incrementally, error: ", event.purchaseId(), e);
+		}
+	}
+
+	private void updateCounts(long[] basket, boolean added) {
+		final int minSupportBefore = aprioriService.minSupportCount(counts.transactionCount());
+		Set<Long> candidates = coPurchasedProducts(basket);
+		if (added) {
+			counts.add(basket);
+		} else {
+			counts.remove(basket);
+		}
+		candidates.addAll(coPurchasedProducts(basket));
+
+		if (minSupportBefore != aprioriService.minSupportCount(counts.transactionCount())) {
+			for (long productId : counts.index().toIdArray()) {
+				candidates.add(productId);
+			}
+		}
+
+		final long generation = activeSnapshot().generation();
+		long[] availableIds = null;
+		Map<Long, long[]> changes = new HashMap<>();
+		int updated = 0;
+		for (Long productId : candidates) {
+			Set<Long> ranked = aprioriService.findFrequentSetItemWith(counts, productId, TOP_N);
+			if (List.copyOf(ranked).equals(rankedOf.getOrDefault(productId, List.of()))) {
+				continue;
+			}
+			rankedOf.put(productId, List.copyOf(ranked));
+			updated++;
+
+			// Nothing is served before the first generation, the next generation picks the counts up
+			if (generation != NO_GENERATION) {
+				if (availableIds == null) {
+					availableIds = findAvailableIds();
+				}
+				Apriori saved = saveRecommendations(generation, productId, ranked, availableIds);
+				if (saved != null) {
+					changes.put(productId, recommendedIdsOf(saved));
+				}
+			}
+		}
+		snapshot.set(snapshot().with(changes));
+		// Without cart rules in memory the file keeps the generation as mined, the rows hold the changes
+		if (!changes.isEmpty() && cartRules.get() != null) {
+			scheduleModelFileWrite();
+		}
+		log.info("Re-ranked {} of {} candidate products after a purchase was {}",
+			updated, candidates.size(), added ? "added" : "removed");
+	}
+
+	/**
+	 * Seeds the counts from the database, unless a rebuild replaced them meanwhile. The history is read
+	 * and ranked outside the lock, rebuilds are not held up by it. The same read mines the cart rules
+	 * when the served generation was not loaded with them.
+	 */
+	private void seedCounts() {
+		try {
+			final long startVersion;
+			synchronized (countsLock) {
+				startVersion = modelVersion;
+			}
+			snapshot();
+			PurchaseHistoryMembers readMembers = new PurchaseHistoryMembers();
+			TransactionMatrix purchaseData = gatherPurchaseData(readMembers);
+			if (cartRules.get() == null) {
+				cartRules.compareAndSet(null, CartRuleIndex.of(aprioriService.findAssociationRules(purchaseData)));
+			}
+			CoOccurrenceCounts seeded = CoOccurrenceCounts.of(purchaseData);
+			Map<Long, List<Long>> seededRanks = new HashMap<>();
+			for (long productId : seeded.index().toIdArray()) {
+				seededRanks.put(productId, List.copyOf(aprioriService.findFrequentSetItemWith(seeded, productId, TOP_N)));
+			}
+
+			synchronized (countsLock) {
+				// A rebuild replaced the counts meanwhile, with a newer read
+				if (modelVersion != startVersion) {
+					return;
+				}
+				counts = seeded;
+				members = readMembers;
+				modelVersion++;
+				rankedOf.clear();
+				rankedOf.putAll(seededRanks);
+			}
+			log.info("Seeded the incremental recommender model with {} purchases", readMembers.size());
+		} catch (Exception e) {
+			log.error("Failed to seed the incremental recommender model, error: ", e);
+		}
+	}
 
-			Apriori apriori = new Apriori();
-			apriori.setProductId(productId);
+	/**
+	 * Products of the basket and every product bought together with them.
+	 */
+	private Set<Long> coPurchasedProducts(long[] basket) {
+		Set<Long> productIds = new HashSet<>();
+		ProductIndex index = counts.index();
+		for (long productId : basket) {
+			int item = index.indexOf(productId);
+			if (item < 0) {
+				continue;
+			}
+			productIds.add(productId);
+			counts.neighbours(item).forEach(neighbour -> productIds.add(index.idOf(neighbour)));
+		}
+		return productIds;
+	}
 
-			Iterator<Long> iterator = recommendedIds.iterator();
-			apriori.setRecommended1(iterator.hasNext() ? iterator.next() : addOneRandom(productId, recommendedIds));
-			apriori.setRecommended2(iterator.hasNext() ? iterator.next() : addOneRandom(productId, recommendedIds));
-			apriori.setRecommended3(iterator.hasNext() ? iterator.next() : addOneRandom(productId, recommendedIds));
+	/**
+	 * Writes the new ranking of a product into the given generation.
+	 *
+	 * @return {@link Apriori} the written row, or {@code null} if the product is not available
+	 */
+	private Apriori saveRecommendations(long generation, Long productId, Set<Long> ranked, long[] availableIds) {
+		Optional<Apriori> existing = aprioriRepository.findByGenerationAndProductId(generation, productId);
+		if (existing.isEmpty()) {
+			if (Arrays.binarySearch(availableIds, productId) < 0) {
+				return null;
+			}
+			Apriori apriori = Apriori.builder().generation(generation).productId(productId).build();
+			fillRecommendations(apriori, ranked, availableIds);
+			aprioriRepository.insertAll(List.of(apriori));
+			return apriori;
+		}
 
+		Apriori apriori = existing.get();
+		fillRecommendations(apriori, ranked, availableIds);
+		return aprioriRepository.save(apriori);
+	}
 
-			aprioriRepository.save(apriori);
+	/**
+	 * Sets the three recommendations, slots without a rule are filled with distinct random products.
+	 */
+	private void fillRecommendations(Apriori apriori, Set<Long> recommendedIds, long[] availableIds) {
+		List<Long> picks = new ArrayList<>(recommendedIds);
+		if (picks.size() < TOP_N) {
+			picks.addAll(pickRandom(apriori.getProductId(), recommendedIds, availableIds, TOP_N - picks.size()));
 		}
+		apriori.setRecommended1(picks.size() > 0 ? picks.get(0) : null);
+		apriori.setRecommended2(picks.size() > 1 ? picks.get(1) : null);
+		apriori.setRecommended3(picks.size() > 2 ? picks.get(2) : null);
 	}
 
 	@Override
 	public void clearAprioriRecommendations() {
 		try {
-			aprioriRepository.deleteAll();
+			aprioriRepository.deleteAllInBatch();
+			aprioriGenerationRepository.deleteAllInBatch();
+			snapshot.set(RecommendationSnapshot.empty());
+			cartRules.set(CartRuleIndex.empty());
+			Optional<Path> modelFile = modelFile();
+			if (modelFile.isPresent()) {
+				Files.deleteIfExists(modelFile.get());
+			}
 		} catch (Exception e) {
 			throw new IllegalOperationException("Failed to delete Apriori recommendations");
 		}
 	}
 
-	private Map<Long, Set<Long>> gatherPurchaseData() {
-		List<Purchase> purchases = purchaseService.getAprioriNeeds();
-		return convertToAprioriSource(purchases);
+	/**
+	 * Gets the recommendations served to readers. After a restart the latest complete generation is
+	 * loaded once, from the model file when it holds that generation and from the database otherwise,
+	 * every later read stays in memory.
+	 */
+	private RecommendationSnapshot snapshot() {
+		RecommendationSnapshot current = snapshot.get();
+		if (current != null) {
+			return current;
+		}
+
+		Optional<Long> latest = aprioriGenerationRepository.findTopByOrderByGenerationDesc()
+			.map(AprioriGeneration::getGeneration);
+		Optional<RecommendationModelFile.Model> model = latest.flatMap(this::readModelFile);
+
+		RecommendationSnapshot loaded;
+		if (model.isPresent()) {
+			loaded = model.get().snapshot();
+			cartRules.compareAndSet(null, model.get().cartRules());
+		} else {
+			loaded = latest
+				.map(generation -> RecommendationSnapshot.of(
+					generation, toRecommendations(aprioriRepository.findAllByGeneration(generation))))
+				.orElseGet(RecommendationSnapshot::empty);
+		}
+		snapshot.compareAndSet(null, loaded);
+		return snapshot.get();
+	}
+
+	/**
+	 * Re-reads the active generation before writing to it. Another instance may have activated a newer
+	 * generation since this one loaded its snapshot, that generation is then loaded from the database so
+	 * the changes land in the rows readers are served from.
+	 */
+	private RecommendationSnapshot activeSnapshot() {
+		RecommendationSnapshot current = snapshot();
+		Optional<Long> latest = aprioriGenerationRepository.findTopByOrderByGenerationDesc()
+			.map(AprioriGeneration::getGeneration)
+			.filter(generation -> generation > current.generation());
+		if (latest.isEmpty()) {
+			return current;
+		}
+
+		log.info("Apriori generation {} was activated elsewhere, replacing generation {}", latest.get(), current.generation());
+		RecommendationSnapshot loaded = RecommendationSnapshot.of(
+			latest.get(), toRecommendations(aprioriRepository.findAllByGeneration(latest.get())));
+		snapshot.set(loaded);
+		return loaded;
 	}
 
-	public Map<Long, Set<Long>> convertToAprioriSource(List<Purchase> purchases) {
-		Map<Long, Set<Long>> purchaseIdAndProductIds = new HashMap<>();
+	/**
+	 * Sorted ids of the available products, looked up with a binary search.
+	 */
+	private long[] findAvailableIds() {
+		return productRepository.findAllAvailableIds().stream()
+			.mapToLong(Long::longValue)
+			.sorted()
+			.toArray();
+	}
 
-		// Create set of product ids for each purchase and put it to the map
-		for (Purchase purchase : purchases) {
-			Set<Long> productIds = purchase.getPurchaseItems().stream()
-				.map(purchaseItem -> purchaseItem.getVariant().getProduct().getProductId())
-				.collect(Collectors.toSet());
-			purchaseIdAndProductIds.put(purchase.getPurchaseId(), productIds);
+	/**
+	 * Reads the model file if it holds the given generation. A missing, stale or corrupted file is
+	 * ignored, the caller then loads the model from the database.
+	 */
+	private Optional<RecommendationModelFile.Model> readModelFile(long generation) {
+		Optional<Path> modelFile = modelFile().filter(Files::isRegularFile);
+		if (modelFile.isEmpty()) {
+			return Optional.empty();
 		}
 
-		return purchaseIdAndProductIds;
+		try {
+			RecommendationModelFile.Model model = RecommendationModelFile.read(modelFile.get());
+			if (model.generation() != generation) {
+				log.info("Ignoring recommender model file of generation {}, the latest generation is {}",
+					model.generation(), generation);
+				return Optional.empty();
+			}
+			log.info("Loaded Apriori generation {} with {} products and {} rules from {}",
+				generation, model.snapshot().size(), model.cartRules().ruleCount(), modelFile.get());
+			return Optional.of(model);
+		} catch (IOException e) {
+			log.warn("Failed to read the recommender model file, loading from the database, error: {}", e.getMessage());
+			return Optional.empty();
+		}
 	}
 
-	private List<ProductDto> newRecommender(Long productId) {
-		Optional<Apriori> result = aprioriRepository.findByProductId(productId);
-		if (result.isEmpty()) {
-			return oldRecommender(productId, true);
-		} else {
-			final var apriori = result.get();
-			List<ProductDto> recommendations = new ArrayList<>();
+	/**
+	 * Schedules saving the served model, unless a write is already waiting. Bursts of status changes
+	 * then cost a single write of the latest model instead of one write each.
+	 */
+	private void scheduleModelFileWrite() {
+		if (modelFile().isPresent() && modelFileWritePending.compareAndSet(false, true)) {
+			modelFileExecutor.schedule(this::writeModelFile, MODEL_FILE_WRITE_DELAY_MILLIS, TimeUnit.MILLISECONDS);
+		}
+	}
+
+	/**
+	 * Saves the served model for the next start. Snapshots and rule indexes are immutable, so the latest
+	 * ones are written without any lock. The file is only a cache of the database, so failing to write it
+	 * never fails anything else.
+	 */
+	private void writeModelFile() {
+		// Cleared before reading, a change made during the write schedules another one
+		modelFileWritePending.set(false);
+		RecommendationSnapshot servedSnapshot = snapshot.get();
+		CartRuleIndex servedRules = cartRules.get();
+		Optional<Path> modelFile = modelFile();
+		if (modelFile.isEmpty() || servedSnapshot == null || servedRules == null) {
+			return;
+		}
+
+		try {
+			RecommendationModelFile.write(modelFile.get(), servedSnapshot, servedRules);
+		} catch (IOException e) {
+			log.warn("Failed to write the recommender model file {}, error: {}", modelFile.get(), e.getMessage());
+		}
+	}
+
+	private Optional<Path> modelFile() {
+		String modelFile = properties.recommender().getModelFile();
+		return (modelFile == null || modelFile.isBlank())
+			? Optional.empty()
+			: Optional.of(Path.of(modelFile));
+	}
+
+	private static Map<Long, long[]> toRecommendations(List<Apriori> aprioris) {
+		Map<Long, long[]> recommendations = new HashMap<>(aprioris.size());
+		for (Apriori apriori : aprioris) {
+			recommendations.put(apriori.getProductId(), recommendedIdsOf(apriori));
+		}
+		return recommendations;
+	}
+
+	private static long[] recommendedIdsOf(Apriori apriori) {
+		return Stream.of(apriori.getRecommended1(), apriori.getRecommended2(), apriori.getRecommended3())
+			.filter(Objects::nonNull)
+			.mapToLong(Long::longValue)
+			.toArray();
+	}
+
+	/**
+	 * Reads the purchase history, noting every purchase read into the given members.
+	 */
+	private TransactionMatrix gatherPurchaseData(PurchaseHistoryMembers readMembers) {
+		TransactionMatrix.Builder builder = TransactionMatrix.builder();
+		purchaseService.forEachIdentifiedAprioriBasket((purchaseId, basket, purchasedAt) -> {
+			readMembers.add(purchaseId);
+			builder.addTransaction(basket);
+		});
+		return builder.build();
+	}
 
-			Optional.ofNullable(apriori.getRecommended1())
-				.map(productService::getProduct)
-				.filter(ProductDto::isAvailable)
-				.ifPresent(recommendations::add);
+	public TransactionMatrix convertToAprioriSource(List<Purchase> purchases) {
+		TransactionMatrix.Builder builder = TransactionMatrix.builder();
 
-			Optional.ofNullable(apriori.getRecommended2())
-				.map(productService::getProduct)
-				.filter(ProductDto::isAvailable)
-				.ifPresent(recommendations::add);
+		// Each purchase becomes a row, the matrix ignores repeated products of the same purchase
+		for (Purchase purchase : purchases) {
+			long[] productIds = new long[purchase.getPurchaseItems().size()];
+			int i = 0;
+			for (PurchaseItem purchaseItem : purchase.getPurchaseItems()) {
+				productIds[i++] = purchaseItem.getVariant().getProduct().getProductId();
+			}
+			builder.addTransaction(productIds);
+		}
 
-			Optional.ofNullable(apriori.getRecommended3())
-				.map(productService::getProduct)
-				.filter(ProductDto::isAvailable)
-				.ifPresent(recommendations::add);
+		return builder.build();
+	}
 
-			return recommendations.isEmpty()
-				? oldRecommender(productId, true)
-				: recommendations;
+	/**
+	 * Rules are read from the model file together with the snapshot after a restart, without a usable
+	 * file they are mined on the model thread at startup. Carts get no recommendations until then.
+	 */
+	private CartRuleIndex cartRules() {
+		CartRuleIndex current = cartRules.get();
+		return current != null ? current : CartRuleIndex.empty();
+	}
+
+	private List<ProductDto> newRecommender(Long productId) {
+		long[] recommendedIds = snapshot().recommendationsOf(productId);
+		if (recommendedIds.length == 0) {
+			return oldRecommender(productId, true);
 		}
+
+		List<ProductDto> recommendations = productService.getProducts(Arrays.stream(recommendedIds).boxed().toList())
+			.stream()
+			.filter(ProductDto::isAvailable)
+			.toList();
+
+		return recommendations.isEmpty()
+			? oldRecommender(productId, true)
+			: recommendations;
 	}
 
+	/**
+	 * Random products from the in-memory pool of available products, the database is only asked for
+	 * products that are not cached yet.
+	 */
 	private List<ProductDto> oldRecommender(Long productId, Boolean addRandom) {
-		if (!productService.existsById(productId)) {
+		if (!availableProductPool.contains(productId) && !productService.existsById(productId)) {
 			throw new ResourceNotFoundException("Product not found");
 		}
-		if (productRepository.count() < 4) {
+		if (availableProductPool.size() < 4) {
 			throw new IllegalOperationException("Not enough products to recommend");
 		}
 		addRandom = (addRandom != null && addRandom);
-		Specification<Product> spec = ProductSpec.withFilters(
-			null, null, true,
-			null, null, true, productId);
-		List<Product> products = productRepository.findAll(spec,
-			addRandom ? PageRequest.of(0, 3) : PageRequest.of(0, 1)
-		).toList();
 
-		return products.stream().map(productService::convertToDto).toList();
+		long[] sampledIds = availableProductPool.sample(addRandom ? TOP_N : 1, productId);
+		return productService.getProducts(Arrays.stream(sampledIds).boxed().toList());
 	}
 
-	private Long addOneRandom(Long productId, Set<Long> excludeSet) {
-		excludeSet.add(productId);
-
-		List<Long> allProductIds = productRepository.findAllAvailableIds();
-		List<Long> filteredProductIds = allProductIds.stream()
-				.filter(id -> !excludeSet.contains(id))
-				.collect(Collectors.toList());
+	/**
+	 * Picks up to {@code count} distinct random products, excluding the product itself and the given ids.
+	 */
+	private List<Long> pickRandom(Long productId, Set<Long> excludeSet, long[] availableIds, int count) {
+		List<Long> picks = new ArrayList<>(count);
+		if (availableIds.length == 0) {
+			return picks;
+		}
 
-		return filteredProductIds.get(new Random().nextInt(filteredProductIds.size()));
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		for (int attempt = 0; picks.size() < count && attempt < count * 16; attempt++) {
+			Long candidate = availableIds[random.nextInt(availableIds.length)];
+			if (!candidate.equals(productId) && !excludeSet.contains(candidate) && !picks.contains(candidate)) {
+				picks.add(candidate);
+			}
+		}
+		return picks;
 	}
 }
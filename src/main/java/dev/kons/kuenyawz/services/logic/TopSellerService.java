@@ -0,0 +1,22 @@
+package dev.kons.kuenyawz.services.logic;
+
+import dev.kons.kuenyawz.dtos.product.ProductDto;
+
+import java.util.List;
+
+/**
+ * Best selling products of the last days, counted in memory per day as purchases enter or leave the
+ * purchase history, so showing them never runs an aggregate query.
+ */
+public interface TopSellerService {
+
+	/**
+	 * Get the most purchased available products of a window.
+	 *
+	 * @param days     {@link Integer} window length, one of 7, 30 or 90 days, defaults to 7
+	 * @param category {@link String} only products of this category, may be null
+	 * @param limit    {@link Integer} maximum number of products, defaults to 8
+	 * @return {@link List} of {@link ProductDto}, most purchased first
+	 */
+	List<ProductDto> getTopSellers(Integer days, String category, Integer limit);
+}
@@ -0,0 +1,163 @@
+package dev.kons.kuenyawz.services.logic;
+
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.product.ProductDto;
+import dev.kons.kuenyawz.entities.Product;
+import dev.kons.kuenyawz.events.PurchaseHistoryMembers;
+import dev.kons.kuenyawz.events.PurchaseStatusChangedEvent;
+import dev.kons.kuenyawz.services.entity.ProductService;
+import dev.kons.kuenyawz.services.entity.PurchaseService;
+import dev.kons.kuenyawz.utils.ProductSearchIndex;
+import dev.kons.kuenyawz.utils.mining.SlidingWindowCounts;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.StringUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class TopSellerServiceImpl implements TopSellerService {
+
+	private static final int[] WINDOWS = {7, 30, 90};
+	private static final int DEFAULT_DAYS = 7;
+	private static final int DEFAULT_LIMIT = 8;
+	private static final int MAX_LIMIT = 24;
+
+	private final ProductService productService;
+	private final ProductSearchIndex productSearchIndex;
+	private final PurchaseService purchaseService;
+	private final ApplicationProperties properties;
+
+	/// Seeds the counts and applies status changes in commit order, never on a request thread
+	private final ExecutorService countsExecutor = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "top-sellers");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/// Guards the counts, they are read by requests and written by status changes
+	private final Object countsLock = new Object();
+	/// Daily purchase counts of each product, {@code null} until seeded from the database
+	private SlidingWindowCounts counts;
+	/// Purchases the counts hold, {@code null} until seeded
+	private PurchaseHistoryMembers members;
+
+	@PreDestroy
+	void shutdown() {
+		countsExecutor.shutdownNow();
+	}
+
+	@Override
+	public List<ProductDto> getTopSellers(Integer days, String category, Integer limit) {
+		final int window = (days == null) ? DEFAULT_DAYS : days;
+		if (Arrays.stream(WINDOWS).noneMatch(w -> w == window)) {
+			throw new IllegalArgumentException("Days must be one of " + Arrays.toString(WINDOWS));
+		}
+		final int topN = (limit == null || limit < 1) ? DEFAULT_LIMIT : Math.min(limit, MAX_LIMIT);
+		final Product.Category categoryEnum = StringUtils.hasText(category) ? Product.Category.fromString(category) : null;
+
+		// Only products that may be listed are ranked, so the top ones are exactly those to resolve
+		Set<Long> eligibleIds = productSearchIndex.productIds(categoryEnum, true);
+		long[] rankedIds;
+		synchronized (countsLock) {
+			if (counts == null) {
+				return List.of();
+			}
+			counts.advanceTo(today());
+			rankedIds = counts.top(window, topN, eligibleIds::contains);
+		}
+		if (rankedIds.length == 0) {
+			return List.of();
+		}
+
+		// A product changed since the index was read is left out rather than listed wrongly
+		return productService.getProducts(Arrays.stream(rankedIds).boxed().toList()).stream()
+			.filter(productDto -> productDto.isAvailable()
+				&& (categoryEnum == null || categoryEnum == productDto.getCategory()))
+			.toList();
+	}
+
+	/**
+	 * Seeds the counts in the background as soon as the application is ready. Status changes committed
+	 * meanwhile wait behind it, until then there are no top sellers.
+	 */
+	@EventListener(ApplicationReadyEvent.class)
+	public void seedOnStartup() {
+		countsExecutor.execute(() -> {
+			try {
+				PurchaseHistoryMembers readMembers = new PurchaseHistoryMembers();
+				SlidingWindowCounts seeded = new SlidingWindowCounts(today(), WINDOWS);
+				int purchases = purchaseService.forEachIdentifiedAprioriBasket((purchaseId, basket, purchasedAt) -> {
+					readMembers.add(purchaseId);
+					seeded.add(basket, dayOf(purchasedAt), 1);
+				});
+				synchronized (countsLock) {
+					counts = seeded;
+					members = readMembers;
+				}
+				log.info("Seeded the top sellers from {} purchases of {} products", purchases, seeded.itemCount());
+			} catch (Exception e) {
+				log.error("Failed to seed the top sellers, error: ", e);
+			}
+		});
+	}
+
+	/**
+	 * Counts a purchase on the day it was created once it enters the purchase history, and takes it
+	 * back out when it leaves it. Handled once the change is committed, changes the seed already read
+	 * are skipped.
+	 */
+	@TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+	public void onPurchaseStatusChanged(PurchaseStatusChangedEvent event) {
+		if (!event.isRecommendableAdded() && !event.isRecommendableRemoved()) {
+			return;
+		}
+
+		countsExecutor.execute(() -> {
+			// The top sellers are secondary, a failure here only leaves them stale until the next restart
+			try {
+				synchronized (countsLock) {
+					if (counts == null || !members.accept(event)) {
+						return;
+					}
+					counts.add(event.productIds(), dayOf(event.purchasedAt()), event.isRecommendableAdded() ? 1 : -1);
+				}
+			} catch (Exception e) {
+				log.error("[P{}] Failed to update the top sellers, error: ", event.purchaseId(), e);
+			}
+		});
+	}
+
+	private long today() {
+		return LocalDate.now(zone()).toEpochDay();
+	}
+
+	/**
+	 * Day of a purchase in the same zone as {@link #today()}. Creation times are stored in the zone of
+	 * the server, which may differ from the configured one.
+	 */
+	private long dayOf(LocalDateTime purchasedAt) {
+		return (purchasedAt == null)
+			? today()
+			: purchasedAt.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone()).toLocalDate().toEpochDay();
+	}
+
+	private ZoneId zone() {
+		return ZoneId.of(properties.getTimezone());
+	}
+}
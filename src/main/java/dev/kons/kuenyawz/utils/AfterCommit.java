@@ -0,0 +1,33 @@
+package dev.kons.kuenyawz.utils;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers in-memory side effects of a write until its transaction commits, so a rolled back write never
+ * reaches the caches and indexes, and a concurrent read never caches the rows it has not committed yet.
+ * Without a transaction the side effect runs right away.
+ */
+public final class AfterCommit {
+
+	private AfterCommit() {
+	}
+
+	/**
+	 * Runs the action once the current transaction commits, or right away outside of a transaction.
+	 *
+	 * @param action {@link Runnable} the side effect
+	 */
+	public static void run(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+}
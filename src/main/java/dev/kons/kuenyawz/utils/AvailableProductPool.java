@@ -0,0 +1,157 @@
+package dev.kons.kuenyawz.utils;
+
+import dev.kons.kuenyawz.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * In-memory pool of the ids of available, not deleted products, used to pick random products without
+ * asking the database to sort the product table by {@code random()}.
+ * <br>
+ * <br>
+ * The ids are kept as a sorted {@code long[]} that is replaced on every change (copy on write), so
+ * readers never lock. Changes come from the product service and are rare compared to reads. The pool is
+ * loaded from the database on first use.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AvailableProductPool {
+
+	private final ProductRepository productRepository;
+
+	/// Sorted available product ids, null until loaded
+	private final AtomicReference<long[]> ids = new AtomicReference<>();
+
+	/**
+	 * Picks up to {@code count} distinct random products.
+	 *
+	 * @param count     {@code int} number of products to pick
+	 * @param excludeId {@link Long} product that must not be picked, may be null
+	 * @return {@code long[]} picked product ids, fewer when the pool is too small
+	 */
+	public long[] sample(int count, Long excludeId) {
+		long[] pool = ids();
+		int excluded = (excludeId != null && Arrays.binarySearch(pool, excludeId) >= 0) ? 1 : 0;
+		int picks = Math.max(0, Math.min(count, pool.length - excluded));
+		long[] result = new long[picks];
+		if (picks == 0) {
+			return result;
+		}
+
+		// Partial Fisher-Yates over virtual positions, only the swapped positions are remembered
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long[] swapped = new long[picks * 2];
+		int[] swappedAt = new int[picks * 2];
+		int swaps = 0;
+		int size = pool.length;
+		int picked = 0;
+		while (picked < picks) {
+			int position = random.nextInt(size);
+			long candidate = valueAt(pool, swappedAt, swapped, swaps, position);
+
+			// Move the last position into the drawn one so it cannot be drawn again
+			size--;
+			swappedAt[swaps] = position;
+			swapped[swaps] = valueAt(pool, swappedAt, swapped, swaps, size);
+			swaps++;
+
+			if (excludeId == null || candidate != excludeId) {
+				result[picked++] = candidate;
+			}
+		}
+		return result;
+	}
+
+	public boolean contains(long productId) {
+		return Arrays.binarySearch(ids(), productId) >= 0;
+	}
+
+	public int size() {
+		return ids().length;
+	}
+
+	/**
+	 * Adds the product when it is available, removes it otherwise.
+	 */
+	public void update(long productId, boolean available) {
+		if (available) {
+			add(productId);
+		} else {
+			remove(productId);
+		}
+	}
+
+	public void add(long productId) {
+		ids.updateAndGet(current -> {
+			if (current == null) {
+				return null;
+			}
+			int position = Arrays.binarySearch(current, productId);
+			if (position >= 0) {
+				return current;
+			}
+			int insertAt = -position - 1;
+			long[] next = new long[current.length + 1];
+			System.arraycopy(current, 0, next, 0, insertAt);
+			next[insertAt] = productId;
+			System.arraycopy(current, insertAt, next, insertAt + 1, current.length - insertAt);
+			return next;
+		});
+	}
+
+	public void remove(long productId) {
+		ids.updateAndGet(current -> {
+			if (current == null) {
+				return null;
+			}
+			int position = Arrays.binarySearch(current, productId);
+			if (position < 0) {
+				return current;
+			}
+			long[] next = new long[current.length - 1];
+			System.arraycopy(current, 0, next, 0, position);
+			System.arraycopy(current, position + 1, next, position, current.length - position - 1);
+			return next;
+		});
+	}
+
+	/**
+	 * Drops the pool, it is loaded again from the database on the next use.
+	 */
+	public void invalidate() {
+		ids.set(null);
+	}
+
+	private long[] ids() {
+		long[] current = ids.get();
+		if (current != null) {
+			return current;
+		}
+
+		long[] loaded = productRepository.findAllAvailableIds().stream()
+			.mapToLong(Long::longValue)
+			.sorted()
+			.toArray();
+		log.info("Loaded {} available products into the sampling pool", loaded.length);
+		// Another reader may have loaded the pool meanwhile, keep that one
+		return ids.compareAndSet(null, loaded) ? loaded : ids();
+	}
+
+	/**
+	 * Value at a position of the pool after the swaps of the sampling so far, latest swap wins.
+	 */
+	private static long valueAt(long[] pool, int[] swappedAt, long[] swapped, int swaps, int position) {
+		for (int i = swaps - 1; i >= 0; i--) {
+			if (swappedAt[i] == position) {
+				return swapped[i];
+			}
+		}
+		return pool[position];
+	}
+}
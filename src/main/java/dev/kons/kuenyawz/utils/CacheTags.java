@@ -0,0 +1,184 @@
+package dev.kons.kuenyawz.utils;
+
+import dev.kons.kuenyawz.entities.Product;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Tag based invalidation of the listing caches, so a write only evicts the listings it can change
+ * instead of the whole cache.
+ * <br>
+ * <br>
+ * How does it work?
+ * <ol>
+ *     <li>Every cached listing has exactly one tag, the category it is filtered by for products and the
+ *     account it belongs to for purchases. Its key starts with {@link #key(String)}, which is the tag and
+ *     the current generation of the tag, e.g. {@code account:42@7_}.</li>
+ *     <li>A write calls {@link #invalidate(String, String...)} with the tags it affects. The generation of
+ *     each tag is bumped, so a listing computed concurrently with the write is stored under a key that is
+ *     never read again, and the entries of the tag are removed from the Caffeine cache right away.</li>
+ *     <li>Both are done again once the transaction commits, like {@link CatalogSnapshot#invalidate()}, since
+ *     a listing read between the first bump and the commit still sees the old rows.</li>
+ * </ol>
+ * Generations are striped over a fixed number of counters instead of one per tag, two tags sharing a
+ * counter only means one of them is invalidated needlessly. Use it from cache keys as
+ * {@code @cacheTags.accountKey(#accountId)}, or from structured keys implementing {@link Tagged}.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CacheTags {
+
+	public static final String PRODUCTS_CACHE = "productsCache";
+	public static final String PURCHASES_CACHE = "purchasesCache";
+
+	/// Tag of the listings that are not filtered, e.g. every category or every account
+	public static final String ALL = "ALL";
+
+	private static final int STRIPES = 1024;
+	private static final char GENERATION_SEPARATOR = '@';
+
+	private final CacheManager cacheManager;
+	private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+	/**
+	 * Cache key that is not a string, its {@link #tagKey()} is what {@link #key(String)} returned.
+	 */
+	public interface Tagged {
+		String tagKey();
+	}
+
+	/**
+	 * Tag of the product listings of a category, with the same leniency as the category filter: a blank
+	 * or unknown category does not filter and gets the {@link #ALL} tag.
+	 *
+	 * @param category {@link String} category of the listing
+	 * @return {@link String} the tag
+	 */
+	public static String categoryTag(String category) {
+		if (!StringUtils.hasText(category)) {
+			return "category:" + ALL;
+		}
+		try {
+			return categoryTag(Product.Category.valueOf(category.trim().toUpperCase()));
+		} catch (IllegalArgumentException e) {
+			return "category:" + ALL;
+		}
+	}
+
+	public static String categoryTag(Product.Category category) {
+		return "category:" + ((category != null) ? category.name() : ALL);
+	}
+
+	/**
+	 * Tag of the purchase listings of an account, a null account is the admin listing of every account.
+	 *
+	 * @param accountId {@link Long} owner of the listing
+	 * @return {@link String} the tag
+	 */
+	public static String accountTag(Long accountId) {
+		return "account:" + ((accountId != null) ? accountId : ALL);
+	}
+
+	/**
+	 * Key prefix of a listing with the given tag.
+	 *
+	 * @param tag {@link String} the tag
+	 * @return {@link String} the tag and its current generation
+	 */
+	public String key(String tag) {
+		return tag + GENERATION_SEPARATOR + generations.get(stripeOf(tag)) + "_";
+	}
+
+	public String categoryKey(String category) {
+		return key(categoryTag(category));
+	}
+
+	public String accountKey(Long accountId) {
+		return key(accountTag(accountId));
+	}
+
+	/**
+	 * Invalidates every listing of a cache with one of the tags, right away and again once the current
+	 * transaction commits.
+	 *
+	 * @param cacheName {@link String} name of the cache
+	 * @param tags      {@link String...} tags to invalidate
+	 */
+	public void invalidate(String cacheName, String... tags) {
+		evict(cacheName, tags);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			AfterCommit.run(() -> evict(cacheName, tags));
+		}
+	}
+
+	private void evict(String cacheName, String[] tags) {
+		for (String tag : tags) {
+			generations.incrementAndGet(stripeOf(tag));
+		}
+
+		Cache cache = cacheManager.getCache(cacheName);
+		if (cache != null && cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+			String[] prefixes = Arrays.stream(tags)
+				.map(tag -> tag + GENERATION_SEPARATOR)
+				.toArray(String[]::new);
+			nativeCache.asMap().keySet().removeIf(key -> switch (key) {
+				case String k -> startsWithAny(k, prefixes);
+				case Tagged tagged -> startsWithAny(tagged.tagKey(), prefixes);
+				default -> false;
+			});
+		}
+		log.debug("Invalidated {} tags {}", cacheName, Arrays.toString(tags));
+	}
+
+	/**
+	 * Invalidates the product listings that can contain products of the categories, which are the
+	 * listings of those categories and the unfiltered ones.
+	 *
+	 * @param categories {@link Product.Category...} categories of the changed products, nulls are ignored
+	 */
+	public void invalidateProducts(Product.Category... categories) {
+		String[] tags = Stream.concat(Arrays.stream(categories).filter(Objects::nonNull), Stream.of((Product.Category) null))
+			.map(CacheTags::categoryTag)
+			.distinct()
+			.toArray(String[]::new);
+		invalidate(PRODUCTS_CACHE, tags);
+	}
+
+	/**
+	 * Invalidates the purchase listings of the accounts and the admin listing of every account.
+	 *
+	 * @param accountIds {@link Long...} owners of the changed purchases, nulls are ignored
+	 */
+	public void invalidatePurchases(Long... accountIds) {
+		String[] tags = Stream.concat(Arrays.stream(accountIds).filter(Objects::nonNull), Stream.of((Long) null))
+			.map(CacheTags::accountTag)
+			.distinct()
+			.toArray(String[]::new);
+		invalidate(PURCHASES_CACHE, tags);
+	}
+
+	private static boolean startsWithAny(String key, String[] prefixes) {
+		for (String prefix : prefixes) {
+			if (key.startsWith(prefix)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int stripeOf(String tag) {
+		int hash = tag.hashCode();
+		return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+	}
+}
@@ -0,0 +1,43 @@
+package dev.kons.kuenyawz.utils;
+
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Loads the values of the refresh-ahead caches, the caches whose spec has a {@code refreshAfterWrite}.
+ * <br>
+ * <br>
+ * Such a cache loads a missing key once however many requests ask for it, and reloads an entry in the
+ * background once it is older than {@code refreshAfterWrite} while the old value keeps being served.
+ * Loads run outside of the request thread, so they must not depend on the authenticated account.
+ */
+public interface CacheValueLoader {
+
+	/**
+	 * @param cacheName {@link String} name of the cache
+	 * @return {@code boolean} whether this loader loads the values of the cache
+	 */
+	boolean loads(String cacheName);
+
+	/**
+	 * Loads the value of a key.
+	 *
+	 * @param cacheName {@link String} name of the cache
+	 * @param key       {@link Object} the key
+	 * @return {@link Object} the value, never null
+	 */
+	@Transactional(readOnly = true)
+	Object load(String cacheName, Object key);
+
+	/**
+	 * Loads the values of many keys at once, keys without a value are left out of the result.
+	 *
+	 * @param cacheName {@link String} name of the cache
+	 * @param keys      {@link Set} the keys
+	 * @return {@link Map} of the values by key
+	 */
+	@Transactional(readOnly = true)
+	Map<Object, Object> loadAll(String cacheName, Set<?> keys);
+}
@@ -0,0 +1,313 @@
+package dev.kons.kuenyawz.utils;
+
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.product.ProductDto;
+import dev.kons.kuenyawz.dtos.product.VariantDto;
+import dev.kons.kuenyawz.entities.Product;
+import dev.kons.kuenyawz.repositories.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static dev.kons.kuenyawz.repositories.ProductSpec.isNotDeleted;
+
+/**
+ * Immutable, fully converted copy of every product that is not deleted, so the public product reads
+ * are answered from memory instead of querying, hydrating and mapping products on every request.
+ * <br>
+ * <br>
+ * How does it work?
+ * <ol>
+ *     <li>The catalog is built on first use from the products given by the product service, sorted by
+ *     id with their variants and image urls, and published through an {@link AtomicReference}. Readers
+ *     never lock, and get their own copies of the products so they cannot change the catalog.</li>
+ *     <li>A write calls {@link #invalidate(Collection)} with the products it changed. Once the
+ *     transaction commits, they are marked as changed and the generation is bumped. The next read loads
+ *     only the changed products and swaps in a patched copy of the catalog (copy on write), one reader
+ *     patches while the others wait. Writes touching every product call {@link #invalidate()} instead,
+ *     which builds the whole catalog again.</li>
+ * </ol>
+ * Catalogs larger than {@link ApplicationProperties.Caches#getCatalogMaxProducts()} are not built, reads
+ * then fall back to the product caches.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSnapshot {
+
+	private final ProductRepository productRepository;
+	private final ApplicationProperties properties;
+
+	private final AtomicLong generation = new AtomicLong();
+	/// Latest built catalog, null until first used
+	private final AtomicReference<Catalog> catalog = new AtomicReference<>();
+	/// Products written since the latest catalog, loaded again by the next read
+	private final Set<Long> changedIds = ConcurrentHashMap.newKeySet();
+	private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+	private final Object buildLock = new Object();
+
+	/**
+	 * Current catalog, built on first use and patched with the products changed since the last one.
+	 *
+	 * @param products     {@link Supplier} of every product that is not deleted, converted to dtos
+	 * @param productsById {@link Function} loading the products of the ids that are not deleted, converted
+	 *                     to dtos by id
+	 * @return {@link Catalog} the catalog, null when there are too many products to hold in memory
+	 */
+	public Catalog current(Supplier<List<ProductDto>> products, Function<Collection<Long>, Map<Long, ProductDto>> productsById) {
+		Catalog current = catalog.get();
+		if (current != null && current.generation == generation.get()) {
+			return current.orNull();
+		}
+
+		synchronized (buildLock) {
+			// Another reader may have built the catalog meanwhile
+			long building = generation.get();
+			current = catalog.get();
+			if (current != null && current.generation == building) {
+				return current.orNull();
+			}
+
+			// Products changed from here on are marked again after this read, with a newer generation
+			List<Long> changed = new ArrayList<>(changedIds);
+			changedIds.removeAll(changed);
+			boolean rebuild = rebuildRequested.getAndSet(false) || current == null || current.products == null;
+			Catalog built;
+			if (rebuild) {
+				built = build(building, products);
+			} else if (changed.isEmpty()) {
+				built = current.withGeneration(building);
+			} else {
+				built = current.patched(building, changed, productsById.apply(changed));
+				log.debug("Patched {} products into the catalog snapshot", changed.size());
+			}
+			catalog.set(built);
+			return built.orNull();
+		}
+	}
+
+	private Catalog build(long building, Supplier<List<ProductDto>> products) {
+		long productCount = productRepository.count(isNotDeleted());
+		int maxProducts = properties.caches().getCatalogMaxProducts();
+		if (productCount > maxProducts) {
+			log.warn("Catalog of {} products exceeds {}, serving products through the caches", productCount, maxProducts);
+			return new Catalog(building, null);
+		}
+		Catalog built = Catalog.of(building, products.get());
+		log.info("Built catalog snapshot of {} products", built.size());
+		return built;
+	}
+
+	/**
+	 * Generation of the products, it changes on every write, so anything derived from the products can
+	 * be keyed by it to be invalidated together with the catalog.
+	 *
+	 * @return {@code long} the current generation
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * Marks products as changed, they are loaded again on the next read after the current transaction
+	 * commits. The generation also moves right away, for the responses keyed by it.
+	 *
+	 * @param productIds {@link Collection} of {@link Long} created, updated or deleted products
+	 */
+	public void invalidate(Collection<Long> productIds) {
+		List<Long> changed = List.copyOf(productIds);
+		generation.incrementAndGet();
+		AfterCommit.run(() -> {
+			changedIds.addAll(changed);
+			generation.incrementAndGet();
+		});
+	}
+
+	public void invalidate(Long productId) {
+		invalidate(List.of(productId));
+	}
+
+	/**
+	 * Marks the whole catalog as stale, for writes touching every product. It is built again on the next
+	 * read after the current transaction commits.
+	 */
+	public void invalidate() {
+		generation.incrementAndGet();
+		AfterCommit.run(() -> {
+			rebuildRequested.set(true);
+			generation.incrementAndGet();
+		});
+	}
+
+	/**
+	 * Products of one generation, in id order like the database listings. The products are copies that
+	 * are never handed out, every read returns copies of its own.
+	 */
+	public static final class Catalog {
+
+		private final long generation;
+		private final List<ProductDto> products;
+		private final Map<Long, ProductDto> byId;
+		private final Map<Product.Category, List<ProductDto>> byCategory;
+
+		private static Catalog of(long generation, List<ProductDto> products) {
+			return new Catalog(generation, products.stream().map(Catalog::copyOf).toList());
+		}
+
+		private Catalog(long generation, Collection<ProductDto> copies) {
+			this.generation = generation;
+			if (copies == null) {
+				this.products = null;
+				this.byId = null;
+				this.byCategory = null;
+				return;
+			}
+
+			List<ProductDto> sorted = new ArrayList<>(copies);
+			sorted.sort(Comparator.comparing(ProductDto::getProductId));
+			Map<Long, ProductDto> byId = new HashMap<>(sorted.size() * 2);
+			Map<Product.Category, List<ProductDto>> byCategory = new EnumMap<>(Product.Category.class);
+			for (ProductDto product : sorted) {
+				byId.put(product.getProductId(), product);
+				if (product.getCategory() != null) {
+					byCategory.computeIfAbsent(product.getCategory(), c -> new ArrayList<>()).add(product);
+				}
+			}
+			byCategory.replaceAll((category, categoryProducts) -> List.copyOf(categoryProducts));
+
+			this.products = List.copyOf(sorted);
+			this.byId = Collections.unmodifiableMap(byId);
+			this.byCategory = Collections.unmodifiableMap(byCategory);
+		}
+
+		private Catalog(Catalog catalog, long generation) {
+			this.generation = generation;
+			this.products = catalog.products;
+			this.byId = catalog.byId;
+			this.byCategory = catalog.byCategory;
+		}
+
+		private Catalog withGeneration(long generation) {
+			return new Catalog(this, generation);
+		}
+
+		/**
+		 * @param generation {@code long} generation of the patched catalog
+		 * @param changedIds {@link Collection} of {@link Long} products to replace or remove
+		 * @param loaded     {@link Map} of {@link ProductDto} the changed products that still exist, by id
+		 * @return {@link Catalog} a copy of this catalog with the changed products
+		 */
+		private Catalog patched(long generation, Collection<Long> changedIds, Map<Long, ProductDto> loaded) {
+			Map<Long, ProductDto> patched = new HashMap<>(byId);
+			changedIds.forEach(patched::remove);
+			loaded.forEach((productId, product) -> patched.put(productId, copyOf(product)));
+			return new Catalog(generation, patched.values());
+		}
+
+		public Optional<ProductDto> get(long productId) {
+			return Optional.ofNullable(byId.get(productId)).map(Catalog::copyOf);
+		}
+
+		/**
+		 * @param productIds {@link Collection} of {@link Long}
+		 * @return {@link List} of {@link ProductDto} in the requested order, products not found are left out
+		 */
+		public List<ProductDto> getAll(Collection<Long> productIds) {
+			return productIds.stream()
+				.filter(Objects::nonNull)
+				.map(byId::get)
+				.filter(Objects::nonNull)
+				.map(Catalog::copyOf)
+				.toList();
+		}
+
+		/**
+		 * @param category  {@link Product.Category} only products of this category, may be null
+		 * @param available {@link Boolean} only products of this availability, may be null
+		 * @param pageable  {@link Pageable} the page, products are always in id order
+		 * @return {@link Page} of {@link ProductDto}
+		 */
+		public Page<ProductDto> page(Product.Category category, Boolean available, Pageable pageable) {
+			List<ProductDto> matching = filter(category, available);
+			int from = (int) Math.min(pageable.getOffset(), matching.size());
+			int to = Math.min(from + pageable.getPageSize(), matching.size());
+			List<ProductDto> content = matching.subList(from, to).stream()
+				.map(Catalog::copyOf)
+				.toList();
+			return new PageImpl<>(content, pageable, matching.size());
+		}
+
+		/**
+		 * @param category      {@link Product.Category} only products of this category, may be null
+		 * @param available     {@link Boolean} only products of this availability, may be null
+		 * @param lastProductId {@link Long} only products after this id, null for the first page
+		 * @param limit         {@code int} number of products at most
+		 * @return {@link List} of {@link ProductDto} in id order
+		 */
+		public List<ProductDto> after(Product.Category category, Boolean available, Long lastProductId, int limit) {
+			return filter(category, available).stream()
+				.filter(product -> lastProductId == null || product.getProductId() > lastProductId)
+				.limit(limit)
+				.map(Catalog::copyOf)
+				.toList();
+		}
+
+		public int size() {
+			return products.size();
+		}
+
+		private List<ProductDto> filter(Product.Category category, Boolean available) {
+			List<ProductDto> candidates = (category != null)
+				? byCategory.getOrDefault(category, List.of())
+				: products;
+			if (available == null) {
+				return candidates;
+			}
+			return candidates.stream()
+				.filter(product -> product.isAvailable() == available)
+				.toList();
+		}
+
+		private Catalog orNull() {
+			return (products != null) ? this : null;
+		}
+
+		/**
+		 * Copy sharing nothing mutable with the product, its lists cannot be modified.
+		 */
+		private static ProductDto copyOf(ProductDto product) {
+			List<VariantDto> variants = (product.getVariants() != null)
+				? product.getVariants().stream()
+					.map(variant -> VariantDto.builder()
+						.variantId(variant.getVariantId())
+						.price(variant.getPrice())
+						.type(variant.getType())
+						.minQuantity(variant.getMinQuantity())
+						.maxQuantity(variant.getMaxQuantity())
+						.build())
+					.toList()
+				: null;
+			return ProductDto.builder()
+				.productId(product.getProductId())
+				.name(product.getName())
+				.tagline(product.getTagline())
+				.description(product.getDescription())
+				.category(product.getCategory())
+				.available(product.isAvailable())
+				.variants(variants)
+				.images((product.getImages() != null) ? List.copyOf(product.getImages()) : null)
+				.build();
+		}
+	}
+}
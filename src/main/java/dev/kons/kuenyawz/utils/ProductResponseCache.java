@@ -0,0 +1,96 @@
+package dev.kons.kuenyawz.utils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Caches product responses as the final UTF-8 JSON bytes with their strong ETag, so the hottest
+ * endpoints write the bytes as is instead of serializing the same product graph on every request.
+ * <br>
+ * <br>
+ * Keys start with the {@link CatalogSnapshot#generation()}, so every product, variant or image write
+ * invalidates the responses together with the catalog, and a response rendered while a write commits is
+ * stored under a key that is never read again. Since the responses carry an ETag, a request whose
+ * {@code If-None-Match} matches is answered with {@code 304 Not Modified} by Spring MVC.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductResponseCache {
+
+	public static final String PRODUCT_RESPONSE_CACHE = "productResponseCache";
+
+	private final CacheManager cacheManager;
+	private final CatalogSnapshot catalogSnapshot;
+	private final ObjectMapper objectMapper;
+
+	/**
+	 * Serialized response body.
+	 *
+	 * @param body {@code byte[]} UTF-8 JSON, must not be modified
+	 * @param eTag {@link String} quoted strong ETag of the body
+	 */
+	public record SerializedResponse(byte[] body, String eTag) {
+
+		public static SerializedResponse of(byte[] body) {
+			return new SerializedResponse(body, "\"" + DigestUtils.md5DigestAsHex(body) + "\"");
+		}
+	}
+
+	/**
+	 * Responds with the cached JSON of a key, rendering and caching it first when missing.
+	 *
+	 * @param value    {@link Supplier} of the response body
+	 * @param keyParts {@link Object...} what the body depends on, e.g. the endpoint and its parameters
+	 * @return {@link ResponseEntity} with the JSON bytes and their ETag
+	 */
+	public ResponseEntity<Object> respond(Supplier<?> value, Object... keyParts) {
+		List<Object> key = new ArrayList<>(keyParts.length + 1);
+		key.add(catalogSnapshot.generation());
+		key.addAll(Arrays.asList(keyParts));
+
+		SerializedResponse response = get(key, () -> serialize(value.get()));
+		return ResponseEntity.status(HttpStatus.OK)
+			.contentType(MediaType.APPLICATION_JSON)
+			.eTag(response.eTag())
+			.body(response.body());
+	}
+
+	private SerializedResponse get(List<Object> key, Supplier<SerializedResponse> loader) {
+		Cache cache = cacheManager.getCache(PRODUCT_RESPONSE_CACHE);
+		if (cache == null) {
+			return loader.get();
+		}
+		try {
+			return cache.get(key, loader::get);
+		} catch (Cache.ValueRetrievalException e) {
+			// e.g. a product that is not found, handled as if it was thrown by the controller
+			if (e.getCause() instanceof RuntimeException cause) {
+				throw cause;
+			}
+			throw e;
+		}
+	}
+
+	private SerializedResponse serialize(Object body) {
+		try {
+			return SerializedResponse.of(objectMapper.writeValueAsBytes(body));
+		} catch (JsonProcessingException e) {
+			throw new IllegalStateException("Failed to serialize product response", e);
+		}
+	}
+}
@@ -0,0 +1,208 @@
+package dev.kons.kuenyawz.utils;
+
+import dev.kons.kuenyawz.dtos.product.ProductSearchDocument;
+import dev.kons.kuenyawz.entities.Product;
+import dev.kons.kuenyawz.repositories.ProductRepository;
+import dev.kons.kuenyawz.utils.search.IndonesianAnalyzer;
+import dev.kons.kuenyawz.utils.search.SearchIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Keyword search over the name, tagline, category and description of every product that is not
+ * deleted, so searching never runs a {@code LIKE '%keyword%'} scan of the product table.
+ * <br>
+ * <br>
+ * The index is loaded from the database on first use and then kept up to date by the product service,
+ * one product at a time, once the change is committed. Searches share a read lock, changes take the
+ * write lock.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ProductSearchIndex {
+
+	private static final float NAME_WEIGHT = 4;
+	private static final float TAGLINE_WEIGHT = 2;
+	private static final float CATEGORY_WEIGHT = 2;
+	private static final float DESCRIPTION_WEIGHT = 1;
+
+	private final ProductRepository productRepository;
+
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	/// Inverted index of the products, null until loaded
+	private SearchIndex index;
+	/// Indexed products, used to filter by category and availability
+	private final Map<Long, ProductSearchDocument> documents = new HashMap<>();
+
+	/**
+	 * Searches the products, most relevant first.
+	 *
+	 * @param keyword   {@link String} the keywords
+	 * @param category  {@link Product.Category} only products of this category, may be null
+	 * @param available {@link Boolean} only products of this availability, may be null
+	 * @return {@link List} of matching product ids
+	 */
+	public List<Long> search(String keyword, Product.Category category, Boolean available) {
+		while (true) {
+			ensureLoaded();
+			lock.readLock().lock();
+			try {
+				// Invalidated right after loading, load again
+				if (index == null) {
+					continue;
+				}
+				long[] productIds = index.search(keyword, productId -> {
+					ProductSearchDocument document = documents.get(productId);
+					return (category == null || category == document.category())
+						&& (available == null || available.equals(Boolean.TRUE.equals(document.available())));
+				});
+				return Arrays.stream(productIds).boxed().toList();
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Ids of the products of a category and availability, e.g. to filter a ranking before its products
+	 * are resolved.
+	 *
+	 * @param category  {@link Product.Category} only products of this category, may be null
+	 * @param available {@link Boolean} only products of this availability, may be null
+	 * @return {@link Set} of matching product ids, a copy
+	 */
+	public Set<Long> productIds(Product.Category category, Boolean available) {
+		while (true) {
+			ensureLoaded();
+			lock.readLock().lock();
+			try {
+				// Invalidated right after loading, load again
+				if (index == null) {
+					continue;
+				}
+				Set<Long> productIds = new HashSet<>();
+				for (ProductSearchDocument document : documents.values()) {
+					if ((category == null || category == document.category())
+						&& (available == null || available.equals(Boolean.TRUE.equals(document.available())))) {
+						productIds.add(document.productId());
+					}
+				}
+				return productIds;
+			} finally {
+				lock.readLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * Checks if a keyword has any searchable term, a keyword made only of stop words or punctuation
+	 * matches nothing and should not filter at all.
+	 */
+	public static boolean isSearchable(String keyword) {
+		return !IndonesianAnalyzer.tokenize(keyword).isEmpty();
+	}
+
+	/**
+	 * Indexes a created or changed product once the change is committed, a deleted product is removed
+	 * instead. The document is taken right away, while the product is still attached.
+	 */
+	public void put(Product product) {
+		if (Boolean.TRUE.equals(product.getDeleted())) {
+			remove(product.getProductId());
+			return;
+		}
+
+		ProductSearchDocument document = ProductSearchDocument.of(product);
+		AfterCommit.run(() -> {
+			lock.writeLock().lock();
+			try {
+				if (index != null) {
+					index(document);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	/**
+	 * Removes a product once the change is committed.
+	 */
+	public void remove(long productId) {
+		AfterCommit.run(() -> {
+			lock.writeLock().lock();
+			try {
+				if (index != null) {
+					index.remove(productId);
+					documents.remove(productId);
+				}
+			} finally {
+				lock.writeLock().unlock();
+			}
+		});
+	}
+
+	/**
+	 * Drops the index, it is loaded again from the database on the next search. Dropped again once the
+	 * change is committed, an index loaded meanwhile would miss it.
+	 */
+	public void invalidate() {
+		clear();
+		AfterCommit.run(this::clear);
+	}
+
+	private void clear() {
+		lock.writeLock().lock();
+		try {
+			index = null;
+			documents.clear();
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void ensureLoaded() {
+		lock.readLock().lock();
+		try {
+			if (index != null) {
+				return;
+			}
+		} finally {
+			lock.readLock().unlock();
+		}
+
+		lock.writeLock().lock();
+		try {
+			// Another search may have loaded the index meanwhile
+			if (index != null) {
+				return;
+			}
+			index = new SearchIndex(NAME_WEIGHT, TAGLINE_WEIGHT, CATEGORY_WEIGHT, DESCRIPTION_WEIGHT);
+			productRepository.findAllSearchDocuments().forEach(this::index);
+			log.info("Loaded {} products into the search index", index.size());
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void index(ProductSearchDocument document) {
+		documents.put(document.productId(), document);
+		index.put(
+			document.productId(),
+			document.name(),
+			document.tagline(),
+			(document.category() != null) ? document.category().name() : null,
+			document.description()
+		);
+	}
+}
@@ -0,0 +1,41 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.Arrays;
+
+/**
+ * An association rule {@code antecedent -> consequent} over product ids. The consequent is a single
+ * product since the recommender always suggests one product at a time.
+ *
+ * @param antecedent   {@code long[]} sorted product ids of the left hand side
+ * @param consequent   {@code long} recommended product id
+ * @param supportCount {@code int} number of transactions containing antecedent and consequent
+ * @param support      {@code double} supportCount divided by the total transactions
+ * @param confidence   {@code double} support(antecedent + consequent) / support(antecedent)
+ * @param lift         {@code double} confidence / support(consequent)
+ */
+public record AssociationRule(
+	long[] antecedent,
+	long consequent,
+	int supportCount,
+	double support,
+	double confidence,
+	double lift
+) {
+
+	/**
+	 * Checks whether the antecedent is exactly one product.
+	 */
+	public boolean hasSingleAntecedent(long productId) {
+		return antecedent.length == 1 && antecedent[0] == productId;
+	}
+
+	@Override
+	public String toString() {
+		return "AssociationRule{" +
+			Arrays.toString(antecedent) + " -> " + consequent +
+			", support=" + support +
+			", confidence=" + confidence +
+			", lift=" + lift +
+			'}';
+	}
+}
@@ -0,0 +1,172 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Derives {@link AssociationRule}s from the output of {@link FPGrowth}. Every frequent itemset of size
+ * two or more produces one candidate rule per item, where that item becomes the consequent and the rest
+ * of the itemset becomes the antecedent. Antecedent and consequent supports are read from the
+ * {@link TransactionMatrix} as column intersections instead of being kept in a lookup table.
+ * <br>
+ * <br>
+ * The matrix is only read, so chunks of itemsets can be derived on a {@link ForkJoinPool}. Each chunk
+ * collects its own rules and chunks are concatenated in itemset order, giving the same list as the
+ * sequential run.
+ */
+public final class AssociationRules {
+
+	/// Chunks of itemsets at most this large are derived by a single task
+	private static final int SEQUENTIAL_THRESHOLD = 256;
+
+	private AssociationRules() {
+	}
+
+	/**
+	 * Derives all rules meeting the confidence threshold.
+	 *
+	 * @param itemsets      {@link List} of {@link FrequentItemset} mined from the matrix
+	 * @param matrix        {@link TransactionMatrix} the itemsets were mined from
+	 * @param minConfidence {@code double} minimum confidence of a rule
+	 * @return {@link List} of {@link AssociationRule}
+	 */
+	public static List<AssociationRule> derive(
+		List<FrequentItemset> itemsets,
+		TransactionMatrix matrix,
+		double minConfidence
+	) {
+		return derive(itemsets, matrix, minConfidence, null);
+	}
+
+	/**
+	 * Derives all rules meeting the confidence threshold, chunks of itemsets are derived in parallel.
+	 *
+	 * @param itemsets      {@link List} of {@link FrequentItemset} mined from the matrix
+	 * @param matrix        {@link TransactionMatrix} the itemsets were mined from
+	 * @param minConfidence {@code double} minimum confidence of a rule
+	 * @param pool          {@link ForkJoinPool} to derive on, or {@code null} to derive on the calling thread
+	 * @return {@link List} of {@link AssociationRule}
+	 */
+	public static List<AssociationRule> derive(
+		List<FrequentItemset> itemsets,
+		TransactionMatrix matrix,
+		double minConfidence,
+		ForkJoinPool pool
+	) {
+		if (pool == null || pool.getParallelism() < 2 || itemsets.size() <= SEQUENTIAL_THRESHOLD) {
+			return deriveRange(itemsets, 0, itemsets.size(), matrix, minConfidence);
+		}
+		return pool.invoke(new DeriveTask(itemsets, 0, itemsets.size(), matrix, minConfidence));
+	}
+
+	private static List<AssociationRule> deriveRange(
+		List<FrequentItemset> itemsets,
+		int from,
+		int to,
+		TransactionMatrix matrix,
+		double minConfidence
+	) {
+		final int transactionCount = matrix.transactionCount();
+		final ProductIndex index = matrix.index();
+
+		List<AssociationRule> rules = new ArrayList<>();
+		for (FrequentItemset itemset : itemsets.subList(from, to)) {
+			if (itemset.size() < 2) {
+				continue;
+			}
+
+			int[] items = itemset.items();
+			for (int skip = 0; skip < items.length; skip++) {
+				int consequent = items[skip];
+				int[] antecedent = without(items, skip);
+
+				int antecedentSupport = matrix.support(antecedent);
+				if (antecedentSupport == 0) {
+					continue;
+				}
+
+				double confidence = (double) itemset.support() / antecedentSupport;
+				if (confidence < minConfidence) {
+					continue;
+				}
+
+				double consequentSupport = (double) matrix.support(consequent) / transactionCount;
+				double lift = consequentSupport > 0 ? confidence / consequentSupport : 0;
+
+				long[] antecedentIds = new long[antecedent.length];
+				for (int i = 0; i < antecedent.length; i++) {
+					antecedentIds[i] = index.idOf(antecedent[i]);
+				}
+				Arrays.sort(antecedentIds);
+
+				rules.add(new AssociationRule(
+					antecedentIds,
+					index.idOf(consequent),
+					itemset.support(),
+					(double) itemset.support() / transactionCount,
+					confidence,
+					lift
+				));
+			}
+		}
+		return rules;
+	}
+
+	/**
+	 * Orders rules from the strongest to the weakest: confidence, then lift, then support.
+	 */
+	public static Comparator<AssociationRule> strongestFirst() {
+		return Comparator.comparingDouble(AssociationRule::confidence).reversed()
+			.thenComparing(Comparator.comparingDouble(AssociationRule::lift).reversed())
+			.thenComparing(Comparator.comparingInt(AssociationRule::supportCount).reversed())
+			.thenComparingLong(AssociationRule::consequent);
+	}
+
+	/**
+	 * Derives a range of itemsets, splitting it in halves while it is large. The first half is kept
+	 * first to preserve the sequential order of the rules.
+	 */
+	private static final class DeriveTask extends RecursiveTask<List<AssociationRule>> {
+		private final List<FrequentItemset> itemsets;
+		private final int from;
+		private final int to;
+		private final TransactionMatrix matrix;
+		private final double minConfidence;
+
+		private DeriveTask(List<FrequentItemset> itemsets, int from, int to, TransactionMatrix matrix, double minConfidence) {
+			this.itemsets = itemsets;
+			this.from = from;
+			this.to = to;
+			this.matrix = matrix;
+			this.minConfidence = minConfidence;
+		}
+
+		@Override
+		protected List<AssociationRule> compute() {
+			if (to - from <= SEQUENTIAL_THRESHOLD) {
+				return deriveRange(itemsets, from, to, matrix, minConfidence);
+			}
+
+			int middle = from + (to - from) / 2;
+			DeriveTask upper = new DeriveTask(itemsets, middle, to, matrix, minConfidence);
+			upper.fork();
+			List<AssociationRule> rules = new DeriveTask(itemsets, from, middle, matrix, minConfidence).compute();
+			rules.addAll(upper.join());
+			return rules;
+		}
+	}
+
+	private static int[] without(int[] items, int skip) {
+		int[] result = new int[items.length - 1];
+		for (int i = 0, j = 0; i < items.length; i++) {
+			if (i != skip) {
+				result[j++] = items[i];
+			}
+		}
+		return result;
+	}
+}
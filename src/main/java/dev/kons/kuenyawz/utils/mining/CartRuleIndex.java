@@ -0,0 +1,265 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable index of association rules by antecedent, used to recommend products for a whole cart.
+ * <br>
+ * <br>
+ * Antecedent products are mapped to dense indices and every antecedent is packed into a single
+ * {@code long} key, {@code (a << 32) | b} for a pair with {@code a < b} and {@code (a << 32) | a} for a
+ * single product. Keys are kept sorted with the consequents of each key flattened into parallel arrays,
+ * strongest first. A cart is answered by enumerating its singles and pairs and binary searching each of
+ * them, which is {@code O(cart^2 log rules)} and allocation free apart from the result.
+ * <br>
+ * <br>
+ * Antecedents of more than two products are not indexed, the miner never produces them.
+ */
+public final class CartRuleIndex {
+
+	private static final CartRuleIndex EMPTY = new CartRuleIndex(
+		new ProductIndex(), new long[0], new int[]{0}, new long[0], new double[0], new double[0]);
+
+	private final ProductIndex index;
+	private final long[] antecedentKeys;
+	private final int[] offsets;
+	private final long[] consequents;
+	private final double[] lifts;
+	private final double[] confidences;
+
+	private CartRuleIndex(
+		ProductIndex index,
+		long[] antecedentKeys,
+		int[] offsets,
+		long[] consequents,
+		double[] lifts,
+		double[] confidences
+	) {
+		this.index = index;
+		this.antecedentKeys = antecedentKeys;
+		this.offsets = offsets;
+		this.consequents = consequents;
+		this.lifts = lifts;
+		this.confidences = confidences;
+	}
+
+	public static CartRuleIndex empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Indexes the rules with one or two antecedent products.
+	 *
+	 * @param rules {@link List} of {@link AssociationRule}
+	 * @return {@link CartRuleIndex}
+	 */
+	public static CartRuleIndex of(List<AssociationRule> rules) {
+		ProductIndex index = new ProductIndex();
+		Map<Long, List<AssociationRule>> rulesOfKey = new HashMap<>();
+		for (AssociationRule rule : rules) {
+			long[] antecedent = rule.antecedent();
+			if (antecedent.length == 0 || antecedent.length > 2) {
+				continue;
+			}
+			int a = index.getOrAdd(antecedent[0]);
+			int b = (antecedent.length == 2) ? index.getOrAdd(antecedent[1]) : a;
+			rulesOfKey.computeIfAbsent(key(a, b), k -> new ArrayList<>()).add(rule);
+		}
+
+		long[] keys = new long[rulesOfKey.size()];
+		int k = 0;
+		for (Long key : rulesOfKey.keySet()) {
+			keys[k++] = key;
+		}
+		Arrays.sort(keys);
+
+		int[] offsets = new int[keys.length + 1];
+		long[] consequents = new long[rules.size()];
+		double[] lifts = new double[rules.size()];
+		double[] confidences = new double[rules.size()];
+		int position = 0;
+		for (k = 0; k < keys.length; k++) {
+			List<AssociationRule> sorted = new ArrayList<>(rulesOfKey.get(keys[k]));
+			sorted.sort(strongestFirst());
+			for (AssociationRule rule : sorted) {
+				consequents[position] = rule.consequent();
+				lifts[position] = rule.lift();
+				confidences[position] = rule.confidence();
+				position++;
+			}
+			offsets[k + 1] = position;
+		}
+
+		return new CartRuleIndex(
+			index,
+			keys,
+			offsets,
+			Arrays.copyOf(consequents, position),
+			Arrays.copyOf(lifts, position),
+			Arrays.copyOf(confidences, position)
+		);
+	}
+
+	/**
+	 * Number of indexed rules.
+	 */
+	public int ruleCount() {
+		return consequents.length;
+	}
+
+	/**
+	 * Recommends products for a cart from every rule whose antecedent is contained in the cart. Each
+	 * candidate is scored by its strongest rule, by lift and then confidence, products already in the
+	 * cart are never recommended.
+	 *
+	 * @param cart {@code long[]} product ids of the cart, duplicates are allowed
+	 * @param topN {@code int} maximum number of recommendations
+	 * @return {@code long[]} recommended product ids, strongest first
+	 */
+	public long[] recommend(long[] cart, int topN) {
+		long[] cartIds = cart.clone();
+		Arrays.sort(cartIds);
+
+		// Known antecedent products of the cart as sorted distinct indices
+		int[] items = new int[cartIds.length];
+		int size = 0;
+		for (int item : indicesOf(cartIds)) {
+			if (size == 0 || items[size - 1] != item) {
+				items[size++] = item;
+			}
+		}
+
+		// Best rule position of every candidate
+		Map<Long, Integer> best = new HashMap<>();
+		for (int i = 0; i < size; i++) {
+			for (int j = i; j < size; j++) {
+				int position = Arrays.binarySearch(antecedentKeys, key(items[i], items[j]));
+				if (position < 0) {
+					continue;
+				}
+				for (int r = offsets[position]; r < offsets[position + 1]; r++) {
+					if (Arrays.binarySearch(cartIds, consequents[r]) >= 0) {
+						continue;
+					}
+					best.merge(consequents[r], r, (current, candidate) -> isStronger(candidate, current) ? candidate : current);
+				}
+			}
+		}
+
+		return best.entrySet().stream()
+			.sorted((x, y) -> compare(y.getValue(), x.getValue(), y.getKey(), x.getKey()))
+			.limit(Math.max(0, topN))
+			.mapToLong(Map.Entry::getKey)
+			.toArray();
+	}
+
+	/**
+	 * Size of the binary form written by {@link #writeTo(ByteBuffer)}.
+	 */
+	int serializedBytes() {
+		return Integer.BYTES * 3
+			+ index.size() * Long.BYTES
+			+ antecedentKeys.length * Long.BYTES
+			+ offsets.length * Integer.BYTES
+			+ consequents.length * (Long.BYTES + Double.BYTES + Double.BYTES);
+	}
+
+	void writeTo(ByteBuffer buffer) {
+		long[] ids = index.toIdArray();
+		buffer.putInt(ids.length);
+		buffer.putInt(antecedentKeys.length);
+		buffer.putInt(consequents.length);
+		buffer.asLongBuffer().put(ids);
+		buffer.position(buffer.position() + ids.length * Long.BYTES);
+		buffer.asLongBuffer().put(antecedentKeys);
+		buffer.position(buffer.position() + antecedentKeys.length * Long.BYTES);
+		buffer.asIntBuffer().put(offsets);
+		buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+		buffer.asLongBuffer().put(consequents);
+		buffer.position(buffer.position() + consequents.length * Long.BYTES);
+		buffer.asDoubleBuffer().put(lifts);
+		buffer.position(buffer.position() + lifts.length * Double.BYTES);
+		buffer.asDoubleBuffer().put(confidences);
+		buffer.position(buffer.position() + confidences.length * Double.BYTES);
+	}
+
+	static CartRuleIndex readFrom(ByteBuffer buffer) {
+		long[] ids = new long[buffer.getInt()];
+		long[] antecedentKeys = new long[buffer.getInt()];
+		int ruleCount = buffer.getInt();
+		int[] offsets = new int[antecedentKeys.length + 1];
+		long[] consequents = new long[ruleCount];
+		double[] lifts = new double[ruleCount];
+		double[] confidences = new double[ruleCount];
+		buffer.asLongBuffer().get(ids);
+		buffer.position(buffer.position() + ids.length * Long.BYTES);
+		buffer.asLongBuffer().get(antecedentKeys);
+		buffer.position(buffer.position() + antecedentKeys.length * Long.BYTES);
+		buffer.asIntBuffer().get(offsets);
+		buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+		buffer.asLongBuffer().get(consequents);
+		buffer.position(buffer.position() + consequents.length * Long.BYTES);
+		buffer.asDoubleBuffer().get(lifts);
+		buffer.position(buffer.position() + lifts.length * Double.BYTES);
+		buffer.asDoubleBuffer().get(confidences);
+		buffer.position(buffer.position() + confidences.length * Double.BYTES);
+
+		// Re-adding the ids in index order gives every product its original index back
+		ProductIndex index = new ProductIndex(Math.max(1, ids.length));
+		for (long id : ids) {
+			index.getOrAdd(id);
+		}
+		return new CartRuleIndex(index, antecedentKeys, offsets, consequents, lifts, confidences);
+	}
+
+	private int[] indicesOf(long[] sortedIds) {
+		int[] indices = new int[sortedIds.length];
+		int size = 0;
+		for (long productId : sortedIds) {
+			int item = index.indexOf(productId);
+			if (item >= 0) {
+				indices[size++] = item;
+			}
+		}
+		indices = Arrays.copyOf(indices, size);
+		Arrays.sort(indices);
+		return indices;
+	}
+
+	private boolean isStronger(int rule, int other) {
+		return compare(rule, other, consequents[rule], consequents[other]) > 0;
+	}
+
+	/**
+	 * Compares two rules by lift then confidence, lower product ids win ties.
+	 */
+	private int compare(int rule, int other, long productId, long otherProductId) {
+		int byLift = Double.compare(lifts[rule], lifts[other]);
+		if (byLift != 0) {
+			return byLift;
+		}
+		int byConfidence = Double.compare(confidences[rule], confidences[other]);
+		if (byConfidence != 0) {
+			return byConfidence;
+		}
+		return Long.compare(otherProductId, productId);
+	}
+
+	private static Comparator<AssociationRule> strongestFirst() {
+		return Comparator.comparingDouble(AssociationRule::lift).reversed()
+			.thenComparing(Comparator.comparingDouble(AssociationRule::confidence).reversed())
+			.thenComparingLong(AssociationRule::consequent);
+	}
+
+	private static long key(int a, int b) {
+		return (a < b)
+			? ((long) a << 32) | b
+			: ((long) b << 32) | a;
+	}
+}
@@ -0,0 +1,212 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.Arrays;
+
+/**
+ * Mutable item and pair counts of the purchase history, the state needed to rank single antecedent
+ * rules ({@code A -> B}) without mining again. Baskets are added and removed online in
+ * {@code O(basket^2)}: every distinct pair of the basket bumps one counter keyed by its two item indices,
+ * and each item keeps its co-purchased items as a {@link CompressedBitSet} so a product can be re-ranked
+ * by visiting its neighbours only.
+ * <br>
+ * <br>
+ * This class is not thread-safe, callers are expected to guard it.
+ */
+public final class CoOccurrenceCounts {
+
+	private static final long EMPTY = -1L;
+
+	private final ProductIndex index = new ProductIndex();
+	private int[] itemCounts = new int[16];
+	private CompressedBitSet[] neighbours = new CompressedBitSet[16];
+	private int transactionCount;
+
+	private long[] pairKeys = emptyKeys(64);
+	private int[] pairValues = new int[64];
+	private int pairSize;
+
+	/**
+	 * Seeds the counts from a mined {@link TransactionMatrix}.
+	 */
+	public static CoOccurrenceCounts of(TransactionMatrix matrix) {
+		CoOccurrenceCounts counts = new CoOccurrenceCounts();
+		ProductIndex matrixIndex = matrix.index();
+		for (int[] row : matrix.toTransactions()) {
+			long[] basket = new long[row.length];
+			for (int i = 0; i < row.length; i++) {
+				basket[i] = matrixIndex.idOf(row[i]);
+			}
+			counts.add(basket);
+		}
+		return counts;
+	}
+
+	/**
+	 * Counts a basket in.
+	 *
+	 * @param productIds {@code long[]} products of the basket, duplicates are counted once
+	 * @return {@code int[]} distinct item indices of the basket
+	 */
+	public int[] add(long[] productIds) {
+		int[] items = distinctItems(productIds, true);
+		transactionCount++;
+		for (int i = 0; i < items.length; i++) {
+			itemCounts[items[i]]++;
+			for (int j = i + 1; j < items.length; j++) {
+				if (increment(items[i], items[j], 1) == 1) {
+					neighbours[items[i]].add(items[j]);
+					neighbours[items[j]].add(items[i]);
+				}
+			}
+		}
+		return items;
+	}
+
+	/**
+	 * Counts a basket out, products that were never counted are ignored.
+	 *
+	 * @param productIds {@code long[]} products of the basket, duplicates are counted once
+	 * @return {@code int[]} distinct item indices of the basket that were known
+	 */
+	public int[] remove(long[] productIds) {
+		int[] items = distinctItems(productIds, false);
+		transactionCount = Math.max(0, transactionCount - 1);
+		for (int i = 0; i < items.length; i++) {
+			itemCounts[items[i]] = Math.max(0, itemCounts[items[i]] - 1);
+			for (int j = i + 1; j < items.length; j++) {
+				if (increment(items[i], items[j], -1) == 0) {
+					neighbours[items[i]].remove(items[j]);
+					neighbours[items[j]].remove(items[i]);
+				}
+			}
+		}
+		return items;
+	}
+
+	public ProductIndex index() {
+		return index;
+	}
+
+	public int transactionCount() {
+		return transactionCount;
+	}
+
+	public int itemCount() {
+		return index.size();
+	}
+
+	/**
+	 * Support count of a single item.
+	 */
+	public int support(int item) {
+		return itemCounts[item];
+	}
+
+	/**
+	 * Support count of a pair of items.
+	 */
+	public int support(int a, int b) {
+		if (a == b) {
+			return itemCounts[a];
+		}
+		int slot = findSlot(pairKey(a, b));
+		return (pairKeys[slot] == EMPTY) ? 0 : pairValues[slot];
+	}
+
+	/**
+	 * Items bought together with the given item at least once.
+	 */
+	public CompressedBitSet neighbours(int item) {
+		return neighbours[item];
+	}
+
+	private int[] distinctItems(long[] productIds, boolean register) {
+		int[] items = new int[productIds.length];
+		int size = 0;
+		for (long productId : productIds) {
+			int item = register ? register(productId) : index.indexOf(productId);
+			if (item >= 0) {
+				items[size++] = item;
+			}
+		}
+		Arrays.sort(items, 0, size);
+
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || items[distinct - 1] != items[i]) {
+				items[distinct++] = items[i];
+			}
+		}
+		return Arrays.copyOf(items, distinct);
+	}
+
+	private int register(long productId) {
+		int item = index.getOrAdd(productId);
+		if (item == itemCounts.length) {
+			itemCounts = Arrays.copyOf(itemCounts, item * 2);
+			neighbours = Arrays.copyOf(neighbours, item * 2);
+		}
+		if (neighbours[item] == null) {
+			neighbours[item] = new CompressedBitSet();
+		}
+		return item;
+	}
+
+	/**
+	 * Adds the delta to a pair counter, never going below zero.
+	 *
+	 * @return {@code int} the new count
+	 */
+	private int increment(int a, int b, int delta) {
+		long key = pairKey(a, b);
+		int slot = findSlot(key);
+		if (pairKeys[slot] == EMPTY) {
+			if (delta <= 0) {
+				return -1;
+			}
+			pairKeys[slot] = key;
+			pairValues[slot] = delta;
+			if (++pairSize * 2 > pairKeys.length) {
+				rehash();
+			}
+			return delta;
+		}
+		pairValues[slot] = Math.max(0, pairValues[slot] + delta);
+		return pairValues[slot];
+	}
+
+	private int findSlot(long key) {
+		int mask = pairKeys.length - 1;
+		int slot = ProductIndex.mix(key) & mask;
+		while (pairKeys[slot] != EMPTY && pairKeys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		long[] oldKeys = pairKeys;
+		int[] oldValues = pairValues;
+		pairKeys = emptyKeys(oldKeys.length * 2);
+		pairValues = new int[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = findSlot(oldKeys[i]);
+				pairKeys[slot] = oldKeys[i];
+				pairValues[slot] = oldValues[i];
+			}
+		}
+	}
+
+	private static long pairKey(int a, int b) {
+		return (a < b)
+			? ((long) a << 32) | b
+			: ((long) b << 32) | a;
+	}
+
+	private static long[] emptyKeys(int capacity) {
+		long[] keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		return keys;
+	}
+}
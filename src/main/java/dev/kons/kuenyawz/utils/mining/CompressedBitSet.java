@@ -0,0 +1,371 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed bitset of non-negative {@code int} values, modelled after Roaring bitmaps.
+ * <br>
+ * <br>
+ * The value space is split into chunks of 2^16 values keyed by their high 16 bits. A sparse chunk
+ * stores the low 16 bits as a sorted {@code char[]}, a dense chunk (more than {@value #ARRAY_MAX}
+ * values) switches to a 1024 word bitmap. A chunk therefore never takes more than 8 KB, and an
+ * intersection only touches chunks present in both sets:
+ * <ul>
+ *     <li>bitmap & bitmap: word-wise AND plus {@link Long#bitCount(long)}</li>
+ *     <li>array & bitmap: one bit probe per array value</li>
+ *     <li>array & array: linear merge of two sorted arrays</li>
+ * </ul>
+ */
+public final class CompressedBitSet {
+
+	private static final int ARRAY_MAX = 4096;
+	private static final int BITMAP_WORDS = 1024;
+
+	private char[] keys = new char[4];
+	private Chunk[] chunks = new Chunk[4];
+	private int size;
+	private int cardinality;
+
+	/**
+	 * Adds a value to the set.
+	 *
+	 * @param value {@code int} non-negative value
+	 * @return {@code true} if the value was not present before
+	 */
+	public boolean add(int value) {
+		if (value < 0)
+			throw new IllegalArgumentException("Value must not be negative: " + value);
+		char key = (char) (value >>> 16);
+		int position = findChunk(key);
+		if (position < 0) {
+			position = -position - 1;
+			insertChunk(position, key, new Chunk());
+		}
+		boolean added = chunks[position].add((char) value);
+		if (added) {
+			cardinality++;
+		}
+		return added;
+	}
+
+	/**
+	 * Removes a value from the set.
+	 *
+	 * @param value {@code int} value to remove
+	 * @return {@code true} if the value was present
+	 */
+	public boolean remove(int value) {
+		if (value < 0) {
+			return false;
+		}
+		int position = findChunk((char) (value >>> 16));
+		if (position < 0 || !chunks[position].remove((char) value)) {
+			return false;
+		}
+		cardinality--;
+		if (chunks[position].cardinality == 0) {
+			removeChunk(position);
+		}
+		return true;
+	}
+
+	public boolean contains(int value) {
+		if (value < 0) {
+			return false;
+		}
+		int position = findChunk((char) (value >>> 16));
+		return position >= 0 && chunks[position].contains((char) value);
+	}
+
+	public int cardinality() {
+		return cardinality;
+	}
+
+	public boolean isEmpty() {
+		return cardinality == 0;
+	}
+
+	/**
+	 * Counts the values present in both sets without materializing the intersection.
+	 */
+	public static int andCardinality(CompressedBitSet a, CompressedBitSet b) {
+		int count = 0;
+		int i = 0, j = 0;
+		while (i < a.size && j < b.size) {
+			char keyA = a.keys[i], keyB = b.keys[j];
+			if (keyA == keyB) {
+				count += a.chunks[i++].andCardinality(b.chunks[j++]);
+			} else if (keyA < keyB) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Computes the intersection of two sets as a new set.
+	 */
+	public static CompressedBitSet and(CompressedBitSet a, CompressedBitSet b) {
+		CompressedBitSet result = new CompressedBitSet();
+		int i = 0, j = 0;
+		while (i < a.size && j < b.size) {
+			char keyA = a.keys[i], keyB = b.keys[j];
+			if (keyA == keyB) {
+				Chunk chunk = a.chunks[i++].and(b.chunks[j++]);
+				if (chunk.cardinality > 0) {
+					result.insertChunk(result.size, keyA, chunk);
+					result.cardinality += chunk.cardinality;
+				}
+			} else if (keyA < keyB) {
+				i++;
+			} else {
+				j++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Iterates every value in ascending order.
+	 */
+	public void forEach(IntConsumer consumer) {
+		for (int i = 0; i < size; i++) {
+			chunks[i].forEach(keys[i] << 16, consumer);
+		}
+	}
+
+	public int[] toArray() {
+		int[] values = new int[cardinality];
+		int[] position = {0};
+		forEach(value -> values[position[0]++] = value);
+		return values;
+	}
+
+	/**
+	 * Estimates the heap held by the chunk payloads, used for reporting.
+	 */
+	public long estimatedBytes() {
+		long bytes = keys.length * 2L + chunks.length * 8L;
+		for (int i = 0; i < size; i++) {
+			Chunk chunk = chunks[i];
+			bytes += (chunk.words != null) ? chunk.words.length * 8L : chunk.values.length * 2L;
+		}
+		return bytes;
+	}
+
+	private int findChunk(char key) {
+		// Values are usually appended in ascending order, check the last chunk first
+		if (size > 0 && keys[size - 1] == key) {
+			return size - 1;
+		}
+		return Arrays.binarySearch(keys, 0, size, key);
+	}
+
+	private void insertChunk(int position, char key, Chunk chunk) {
+		if (size == keys.length) {
+			keys = Arrays.copyOf(keys, size * 2);
+			chunks = Arrays.copyOf(chunks, size * 2);
+		}
+		System.arraycopy(keys, position, keys, position + 1, size - position);
+		System.arraycopy(chunks, position, chunks, position + 1, size - position);
+		keys[position] = key;
+		chunks[position] = chunk;
+		size++;
+	}
+
+	private void removeChunk(int position) {
+		System.arraycopy(keys, position + 1, keys, position, size - position - 1);
+		System.arraycopy(chunks, position + 1, chunks, position, size - position - 1);
+		chunks[--size] = null;
+	}
+
+	/**
+	 * Values sharing the same high 16 bits, stored either as a sorted array or as a bitmap.
+	 */
+	private static final class Chunk {
+		private char[] values = new char[4];
+		private long[] words;
+		private int cardinality;
+
+		private boolean add(char value) {
+			if (words != null) {
+				long before = words[value >>> 6];
+				words[value >>> 6] = before | (1L << value);
+				if (before == words[value >>> 6]) {
+					return false;
+				}
+				cardinality++;
+				return true;
+			}
+
+			int position;
+			if (cardinality == 0 || values[cardinality - 1] < value) {
+				position = cardinality;
+			} else {
+				position = Arrays.binarySearch(values, 0, cardinality, value);
+				if (position >= 0) {
+					return false;
+				}
+				position = -position - 1;
+			}
+			if (cardinality == ARRAY_MAX) {
+				toBitmap();
+				return add(value);
+			}
+			if (cardinality == values.length) {
+				values = Arrays.copyOf(values, Math.min(ARRAY_MAX, cardinality * 2));
+			}
+			System.arraycopy(values, position, values, position + 1, cardinality - position);
+			values[position] = value;
+			cardinality++;
+			return true;
+		}
+
+		private boolean remove(char value) {
+			if (words != null) {
+				long before = words[value >>> 6];
+				words[value >>> 6] = before & ~(1L << value);
+				if (before == words[value >>> 6]) {
+					return false;
+				}
+				cardinality--;
+				if (cardinality <= ARRAY_MAX / 2) {
+					toArray();
+				}
+				return true;
+			}
+
+			int position = Arrays.binarySearch(values, 0, cardinality, value);
+			if (position < 0) {
+				return false;
+			}
+			System.arraycopy(values, position + 1, values, position, cardinality - position - 1);
+			cardinality--;
+			return true;
+		}
+
+		private boolean contains(char value) {
+			if (words != null) {
+				return (words[value >>> 6] & (1L << value)) != 0;
+			}
+			return Arrays.binarySearch(values, 0, cardinality, value) >= 0;
+		}
+
+		private int andCardinality(Chunk other) {
+			if (words != null && other.words != null) {
+				int count = 0;
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					count += Long.bitCount(words[i] & other.words[i]);
+				}
+				return count;
+			}
+			if (words != null || other.words != null) {
+				Chunk array = (words == null) ? this : other;
+				Chunk bitmap = (words == null) ? other : this;
+				int count = 0;
+				for (int i = 0; i < array.cardinality; i++) {
+					if (bitmap.contains(array.values[i])) {
+						count++;
+					}
+				}
+				return count;
+			}
+
+			int count = 0;
+			int i = 0, j = 0;
+			while (i < cardinality && j < other.cardinality) {
+				char a = values[i], b = other.values[j];
+				if (a == b) {
+					count++;
+					i++;
+					j++;
+				} else if (a < b) {
+					i++;
+				} else {
+					j++;
+				}
+			}
+			return count;
+		}
+
+		private Chunk and(Chunk other) {
+			Chunk result = new Chunk();
+			if (words != null && other.words != null) {
+				long[] anded = new long[BITMAP_WORDS];
+				int count = 0;
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					anded[i] = words[i] & other.words[i];
+					count += Long.bitCount(anded[i]);
+				}
+				result.words = anded;
+				result.cardinality = count;
+				if (count <= ARRAY_MAX) {
+					result.toArray();
+				}
+				return result;
+			}
+
+			Chunk smaller = (cardinality <= other.cardinality) ? this : other;
+			Chunk larger = (smaller == this) ? other : this;
+			result.values = new char[Math.max(1, Math.min(smaller.cardinality, ARRAY_MAX))];
+			if (smaller.words == null) {
+				for (int i = 0; i < smaller.cardinality; i++) {
+					char value = smaller.values[i];
+					if (larger.contains(value)) {
+						result.values[result.cardinality++] = value;
+					}
+				}
+			} else {
+				// Both are bitmaps only when handled above, so larger is the array here
+				for (int i = 0; i < larger.cardinality; i++) {
+					char value = larger.values[i];
+					if (smaller.contains(value)) {
+						result.values[result.cardinality++] = value;
+					}
+				}
+			}
+			return result;
+		}
+
+		private void forEach(int high, IntConsumer consumer) {
+			if (words != null) {
+				for (int i = 0; i < BITMAP_WORDS; i++) {
+					long word = words[i];
+					while (word != 0) {
+						consumer.accept(high | (i << 6) | Long.numberOfTrailingZeros(word));
+						word &= word - 1;
+					}
+				}
+				return;
+			}
+			for (int i = 0; i < cardinality; i++) {
+				consumer.accept(high | values[i]);
+			}
+		}
+
+		private void toBitmap() {
+			words = new long[BITMAP_WORDS];
+			for (int i = 0; i < cardinality; i++) {
+				words[values[i] >>> 6] |= 1L << values[i];
+			}
+			values = null;
+		}
+
+		private void toArray() {
+			char[] array = new char[Math.max(4, cardinality)];
+			int position = 0;
+			for (int i = 0; i < BITMAP_WORDS; i++) {
+				long word = words[i];
+				while (word != 0) {
+					array[position++] = (char) ((i << 6) | Long.numberOfTrailingZeros(word));
+					word &= word - 1;
+				}
+			}
+			values = array;
+			words = null;
+		}
+	}
+}
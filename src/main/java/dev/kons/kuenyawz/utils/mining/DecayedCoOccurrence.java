@@ -0,0 +1,323 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Item to item co-occurrence model where every purchase loses half of its weight each half-life, so
+ * recent baskets dominate old ones. Unlike Apriori there is no support or confidence threshold, any
+ * pair bought together at least once can be recommended and candidates are ranked by the cosine
+ * similarity of their decayed weights: {@code w(A,B) / sqrt(w(A) * w(B))}.
+ * <br>
+ * <br>
+ * How does it work?
+ * <ol>
+ *     <li>Instead of decaying every stored weight as time passes, a basket bought at {@code t} is added
+ *     with the weight {@code 2^((t - reference) / halfLife)}. All weights share the same scale, so the
+ *     scale cancels out of the cosine and no decay pass is ever needed.</li>
+ *     <li>Pair weights live in an open-addressing map keyed by the two item indices packed into a
+ *     {@code long}, with a parallel exact count so a pair is known to be gone once its last basket is
+ *     removed. Adding or removing a basket is {@code O(basket^2)}.</li>
+ *     <li>When the newest weights grow too large the reference is moved forward and every weight is
+ *     rescaled once.</li>
+ * </ol>
+ * This class is not thread-safe, callers are expected to guard it.
+ */
+public final class DecayedCoOccurrence {
+
+	private static final long EMPTY = -1L;
+	/// Weights are rescaled before the scale of new baskets exceeds this
+	private static final double MAX_SCALE = 1e100;
+
+	private final double decayPerMilli;
+	private long referenceMillis;
+
+	private final ProductIndex index = new ProductIndex();
+	private double[] itemWeights = new double[16];
+	private int[] itemCounts = new int[16];
+	private CompressedBitSet[] neighbours = new CompressedBitSet[16];
+	private int basketCount;
+
+	private long[] pairKeys = emptyKeys(64);
+	private double[] pairWeights = new double[64];
+	private int[] pairCounts = new int[64];
+	private int pairSize;
+
+	/**
+	 * @param halfLife        {@link Duration} time after which a purchase counts half
+	 * @param referenceMillis {@code long} epoch millis where a purchase weighs exactly 1
+	 */
+	public DecayedCoOccurrence(Duration halfLife, long referenceMillis) {
+		if (halfLife.isZero() || halfLife.isNegative())
+			throw new IllegalArgumentException("Half-life must be positive");
+		this.decayPerMilli = Math.log(2) / halfLife.toMillis();
+		this.referenceMillis = referenceMillis;
+	}
+
+	/**
+	 * Counts a basket in.
+	 *
+	 * @param productIds        {@code long[]} products of the basket, duplicates are counted once
+	 * @param purchasedAtMillis {@code long} epoch millis of the purchase
+	 */
+	public void add(long[] productIds, long purchasedAtMillis) {
+		double weight = weightAt(purchasedAtMillis);
+		if (weight > MAX_SCALE) {
+			rebase(purchasedAtMillis);
+			weight = 1;
+		}
+
+		int[] items = distinctItems(productIds, true);
+		basketCount++;
+		for (int i = 0; i < items.length; i++) {
+			itemWeights[items[i]] += weight;
+			itemCounts[items[i]]++;
+			for (int j = i + 1; j < items.length; j++) {
+				if (increment(items[i], items[j], weight, 1) == 1) {
+					neighbours[items[i]].add(items[j]);
+					neighbours[items[j]].add(items[i]);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Counts a basket out with the weight it was added with, unknown products are ignored.
+	 *
+	 * @param productIds        {@code long[]} products of the basket, duplicates are counted once
+	 * @param purchasedAtMillis {@code long} epoch millis of the purchase, as it was added
+	 */
+	public void remove(long[] productIds, long purchasedAtMillis) {
+		double weight = weightAt(purchasedAtMillis);
+		int[] items = distinctItems(productIds, false);
+		basketCount = Math.max(0, basketCount - 1);
+		for (int i = 0; i < items.length; i++) {
+			int item = items[i];
+			itemCounts[item] = Math.max(0, itemCounts[item] - 1);
+			itemWeights[item] = (itemCounts[item] == 0) ? 0 : Math.max(0, itemWeights[item] - weight);
+			for (int j = i + 1; j < items.length; j++) {
+				if (increment(item, items[j], -weight, -1) == 0) {
+					neighbours[item].remove(items[j]);
+					neighbours[items[j]].remove(item);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Products most similar to a product, strongest first.
+	 *
+	 * @param productId {@code long} the product id
+	 * @param topN      {@code int} maximum number of products
+	 * @return {@code long[]} product ids, empty for an unknown product
+	 */
+	public long[] recommend(long productId, int topN) {
+		return recommend(new long[]{productId}, topN);
+	}
+
+	/**
+	 * Products most similar to a set of products, each candidate scores the sum of its similarities to
+	 * the given products. The given products themselves are never recommended.
+	 *
+	 * @param productIds {@code long[]} the product ids, e.g. a cart
+	 * @param topN       {@code int} maximum number of products
+	 * @return {@code long[]} product ids, strongest first
+	 */
+	public long[] recommend(long[] productIds, int topN) {
+		int[] sources = distinctItems(productIds, false);
+		if (sources.length == 0 || topN <= 0) {
+			return new long[0];
+		}
+
+		// Dense scores over the neighbours of the sources only
+		double[] scores = new double[index.size()];
+		int[] candidates = new int[index.size()];
+		int candidateCount = 0;
+		for (int source : sources) {
+			if (itemWeights[source] <= 0) {
+				continue;
+			}
+			for (int candidate : neighbours[source].toArray()) {
+				double similarity = similarity(source, candidate);
+				if (similarity <= 0 || Arrays.binarySearch(sources, candidate) >= 0) {
+					continue;
+				}
+				if (scores[candidate] == 0) {
+					candidates[candidateCount++] = candidate;
+				}
+				scores[candidate] += similarity;
+			}
+		}
+
+		// Rank by score, ties by product id to stay deterministic
+		Integer[] ranked = new Integer[candidateCount];
+		for (int i = 0; i < candidateCount; i++) {
+			ranked[i] = candidates[i];
+		}
+		Arrays.sort(ranked, (a, b) -> {
+			int byScore = Double.compare(scores[b], scores[a]);
+			return (byScore != 0) ? byScore : Long.compare(index.idOf(a), index.idOf(b));
+		});
+
+		long[] result = new long[Math.min(topN, candidateCount)];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = index.idOf(ranked[i]);
+		}
+		return result;
+	}
+
+	/**
+	 * Cosine similarity of two items over their decayed weights.
+	 */
+	public double similarity(int a, int b) {
+		int slot = findSlot(pairKey(a, b));
+		if (pairKeys[slot] == EMPTY || pairCounts[slot] == 0) {
+			return 0;
+		}
+		double norm = Math.sqrt(itemWeights[a] * itemWeights[b]);
+		return (norm > 0) ? pairWeights[slot] / norm : 0;
+	}
+
+	public ProductIndex index() {
+		return index;
+	}
+
+	public int basketCount() {
+		return basketCount;
+	}
+
+	public int itemCount() {
+		return index.size();
+	}
+
+	public int pairCount() {
+		return pairSize;
+	}
+
+	/**
+	 * Approximate heap used by the model.
+	 */
+	public long estimatedBytes() {
+		long bytes = index.size() * 28L + itemWeights.length * 12L + pairKeys.length * 20L;
+		for (int item = 0; item < index.size(); item++) {
+			bytes += neighbours[item].estimatedBytes();
+		}
+		return bytes;
+	}
+
+	private double weightAt(long millis) {
+		return Math.exp(decayPerMilli * (millis - referenceMillis));
+	}
+
+	/**
+	 * Moves the reference to a later time and rescales every weight to it.
+	 */
+	private void rebase(long millis) {
+		double factor = 1 / weightAt(millis);
+		referenceMillis = millis;
+		for (int item = 0; item < index.size(); item++) {
+			itemWeights[item] *= factor;
+		}
+		for (int slot = 0; slot < pairKeys.length; slot++) {
+			if (pairKeys[slot] != EMPTY) {
+				pairWeights[slot] *= factor;
+			}
+		}
+	}
+
+	private int[] distinctItems(long[] productIds, boolean register) {
+		int[] items = new int[productIds.length];
+		int size = 0;
+		for (long productId : productIds) {
+			int item = register ? register(productId) : index.indexOf(productId);
+			if (item >= 0) {
+				items[size++] = item;
+			}
+		}
+		Arrays.sort(items, 0, size);
+
+		int distinct = 0;
+		for (int i = 0; i < size; i++) {
+			if (distinct == 0 || items[distinct - 1] != items[i]) {
+				items[distinct++] = items[i];
+			}
+		}
+		return Arrays.copyOf(items, distinct);
+	}
+
+	private int register(long productId) {
+		int item = index.getOrAdd(productId);
+		if (item == itemWeights.length) {
+			itemWeights = Arrays.copyOf(itemWeights, item * 2);
+			itemCounts = Arrays.copyOf(itemCounts, item * 2);
+			neighbours = Arrays.copyOf(neighbours, item * 2);
+		}
+		if (neighbours[item] == null) {
+			neighbours[item] = new CompressedBitSet();
+		}
+		return item;
+	}
+
+	/**
+	 * Adds the deltas to a pair, the count never goes below zero and the weight is dropped with it.
+	 *
+	 * @return {@code int} the new count, {@code -1} when removing from a pair that was never counted
+	 */
+	private int increment(int a, int b, double weight, int count) {
+		long key = pairKey(a, b);
+		int slot = findSlot(key);
+		if (pairKeys[slot] == EMPTY) {
+			if (count <= 0) {
+				return -1;
+			}
+			pairKeys[slot] = key;
+			pairWeights[slot] = weight;
+			pairCounts[slot] = count;
+			if (++pairSize * 2 > pairKeys.length) {
+				rehash();
+			}
+			return count;
+		}
+		pairCounts[slot] = Math.max(0, pairCounts[slot] + count);
+		pairWeights[slot] = (pairCounts[slot] == 0) ? 0 : Math.max(0, pairWeights[slot] + weight);
+		return pairCounts[slot];
+	}
+
+	private int findSlot(long key) {
+		int mask = pairKeys.length - 1;
+		int slot = ProductIndex.mix(key) & mask;
+		while (pairKeys[slot] != EMPTY && pairKeys[slot] != key) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		long[] oldKeys = pairKeys;
+		double[] oldWeights = pairWeights;
+		int[] oldCounts = pairCounts;
+		pairKeys = emptyKeys(oldKeys.length * 2);
+		pairWeights = new double[oldKeys.length * 2];
+		pairCounts = new int[oldKeys.length * 2];
+		for (int i = 0; i < oldKeys.length; i++) {
+			if (oldKeys[i] != EMPTY) {
+				int slot = findSlot(oldKeys[i]);
+				pairKeys[slot] = oldKeys[i];
+				pairWeights[slot] = oldWeights[i];
+				pairCounts[slot] = oldCounts[i];
+			}
+		}
+	}
+
+	private static long pairKey(int a, int b) {
+		return (a < b)
+			? ((long) a << 32) | b
+			: ((long) b << 32) | a;
+	}
+
+	private static long[] emptyKeys(int capacity) {
+		long[] keys = new long[capacity];
+		Arrays.fill(keys, EMPTY);
+		return keys;
+	}
+}
@@ -0,0 +1,322 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Frequent itemset miner implementing the FP-Growth algorithm.
+ * <br>
+ * <br>
+ * How does it work?
+ * <ol>
+ *     <li>Items are counted once and every infrequent item is dropped.</li>
+ *     <li>Frequent items are ranked by descending frequency, every transaction is rewritten in that
+ *     order and inserted into a prefix tree (the FP-tree). Transactions sharing a prefix share nodes,
+ *     so the tree is usually much smaller than the history itself.</li>
+ *     <li>For every item, the paths leading to it (its conditional pattern base) are collected
+ *     through the header links and a smaller conditional tree is built from them. Mining recurses
+ *     into that tree until {@link #maxItemsetSize} is reached.</li>
+ * </ol>
+ * Items are dense {@code int} indices in {@code [0, itemCount)}, callers are responsible for mapping
+ * their own ids to indices. Each transaction is expected to contain distinct items.
+ * <br>
+ * <br>
+ * Once the FP-tree is built it is only read, so the items of the first level can be mined
+ * independently. Given a {@link ForkJoinPool}, ranges of items are mined as separate tasks into their
+ * own result lists, which are concatenated in the sequential order afterwards. The output is therefore
+ * identical to the single-threaded run.
+ */
+public class FPGrowth {
+
+	/// Ranges of first level items at most this large are mined by a single task
+	private static final int SEQUENTIAL_THRESHOLD = 4;
+
+	private final int minSupportCount;
+	private final int maxItemsetSize;
+
+	/**
+	 * @param minSupportCount {@code int} minimum absolute support for an itemset to be frequent
+	 * @param maxItemsetSize  {@code int} largest itemset size to be mined
+	 */
+	public FPGrowth(int minSupportCount, int maxItemsetSize) {
+		if (minSupportCount < 1)
+			throw new IllegalArgumentException("Minimum support count must be at least 1");
+		if (maxItemsetSize < 1)
+			throw new IllegalArgumentException("Maximum itemset size must be at least 1");
+		this.minSupportCount = minSupportCount;
+		this.maxItemsetSize = maxItemsetSize;
+	}
+
+	/**
+	 * Mines every frequent itemset of the transactions.
+	 *
+	 * @param transactions {@code int[][]} transactions of item indices
+	 * @param itemCount    {@code int} number of distinct item indices
+	 * @return {@link List} of {@link FrequentItemset}
+	 */
+	public List<FrequentItemset> mine(int[][] transactions, int itemCount) {
+		int[] counts = new int[itemCount];
+		int longest = 0;
+		for (int[] transaction : transactions) {
+			for (int item : transaction) {
+				counts[item]++;
+			}
+			longest = Math.max(longest, transaction.length);
+		}
+		return mine(transactions, counts, longest);
+	}
+
+	/**
+	 * Mines every frequent itemset of the transactions with precomputed item counts, this skips the
+	 * counting pass when the caller already knows the frequencies.
+	 *
+	 * @param transactions {@code int[][]} transactions of item indices
+	 * @param itemCounts   {@code int[]} support of every single item
+	 * @param longest      {@code int} size of the largest transaction
+	 * @return {@link List} of {@link FrequentItemset}
+	 */
+	public List<FrequentItemset> mine(int[][] transactions, int[] itemCounts, int longest) {
+		return mine(transactions, itemCounts, longest, null);
+	}
+
+	/**
+	 * Mines every frequent itemset of the transactions, the first level of items is mined in parallel.
+	 *
+	 * @param transactions {@code int[][]} transactions of item indices
+	 * @param itemCounts   {@code int[]} support of every single item
+	 * @param longest      {@code int} size of the largest transaction
+	 * @param pool         {@link ForkJoinPool} to mine on, or {@code null} to mine on the calling thread
+	 * @return {@link List} of {@link FrequentItemset}
+	 */
+	public List<FrequentItemset> mine(int[][] transactions, int[] itemCounts, int longest, ForkJoinPool pool) {
+		// Rank frequent items by descending count, ties are broken by item index to stay deterministic
+		int[] rankToItem = rankFrequentItems(itemCounts);
+		int[] itemToRank = new int[itemCounts.length];
+		Arrays.fill(itemToRank, -1);
+		for (int rank = 0; rank < rankToItem.length; rank++) {
+			itemToRank[rankToItem[rank]] = rank;
+		}
+
+		// Build the FP-tree in a single pass over the transactions
+		FPTree tree = new FPTree(rankToItem.length);
+		int[] path = new int[longest];
+		for (int[] transaction : transactions) {
+			int length = 0;
+			for (int item : transaction) {
+				int rank = itemToRank[item];
+				if (rank >= 0) {
+					path[length++] = rank;
+				}
+			}
+			if (length > 0) {
+				Arrays.sort(path, 0, length);
+				tree.insert(path, 0, length, 1);
+			}
+		}
+
+		if (pool == null || pool.getParallelism() < 2 || tree.size() <= SEQUENTIAL_THRESHOLD) {
+			List<FrequentItemset> result = new ArrayList<>();
+			mineTree(tree, new int[maxItemsetSize], 0, tree.size() - 1, 0, rankToItem, result);
+			return result;
+		}
+		return pool.invoke(new MineTask(tree, rankToItem, tree.size() - 1, 0));
+	}
+
+	private int[] rankFrequentItems(int[] itemCounts) {
+		// Pack (count, item) into a long so a single primitive sort gives the ranking
+		long[] keys = new long[itemCounts.length];
+		int size = 0;
+		for (int item = 0; item < itemCounts.length; item++) {
+			if (itemCounts[item] >= minSupportCount) {
+				keys[size++] = ((long) (Integer.MAX_VALUE - itemCounts[item]) << 32) | item;
+			}
+		}
+		Arrays.sort(keys, 0, size);
+
+		int[] rankToItem = new int[size];
+		for (int rank = 0; rank < size; rank++) {
+			rankToItem[rank] = (int) keys[rank];
+		}
+		return rankToItem;
+	}
+
+	private void mineTree(FPTree tree, int[] suffix, int depth, int[] rankToItem, List<FrequentItemset> result) {
+		mineTree(tree, suffix, depth, tree.size() - 1, 0, rankToItem, result);
+	}
+
+	/**
+	 * Mines the ranks from {@code highRank} down to {@code lowRank} (both inclusive) of the tree.
+	 */
+	private void mineTree(
+		FPTree tree, int[] suffix, int depth, int highRank, int lowRank, int[] rankToItem, List<FrequentItemset> result
+	) {
+		for (int rank = highRank; rank >= lowRank; rank--) {
+			int support = tree.counts[rank];
+			if (support < minSupportCount) {
+				continue;
+			}
+
+			suffix[depth] = rank;
+			result.add(toItemset(suffix, depth + 1, support, rankToItem));
+
+			if (depth + 1 < maxItemsetSize && rank > 0) {
+				FPTree conditional = buildConditionalTree(tree, rank);
+				if (conditional != null) {
+					mineTree(conditional, suffix, depth + 1, rankToItem, result);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Builds the conditional FP-tree of a rank from its prefix paths. Ancestors always have a lower
+	 * rank than their descendants, so the conditional tree only needs {@code rank} slots.
+	 */
+	private FPTree buildConditionalTree(FPTree tree, int rank) {
+		int[] counts = new int[rank];
+		for (Node node = tree.heads[rank]; node != null; node = node.link) {
+			for (Node ancestor = node.parent; ancestor.rank >= 0; ancestor = ancestor.parent) {
+				counts[ancestor.rank] += node.count;
+			}
+		}
+
+		boolean hasFrequent = false;
+		for (int count : counts) {
+			if (count >= minSupportCount) {
+				hasFrequent = true;
+				break;
+			}
+		}
+		if (!hasFrequent) {
+			return null;
+		}
+
+		FPTree conditional = new FPTree(rank);
+		int[] path = new int[rank];
+		for (Node node = tree.heads[rank]; node != null; node = node.link) {
+			// Walk upwards and fill the path from the end to keep ascending rank order
+			int start = rank;
+			for (Node ancestor = node.parent; ancestor.rank >= 0; ancestor = ancestor.parent) {
+				if (counts[ancestor.rank] >= minSupportCount) {
+					path[--start] = ancestor.rank;
+				}
+			}
+			if (start < rank) {
+				conditional.insert(path, start, rank, node.count);
+			}
+		}
+		return conditional;
+	}
+
+	private FrequentItemset toItemset(int[] ranks, int length, int support, int[] rankToItem) {
+		int[] items = new int[length];
+		for (int i = 0; i < length; i++) {
+			items[i] = rankToItem[ranks[i]];
+		}
+		Arrays.sort(items);
+		return new FrequentItemset(items, support);
+	}
+
+	/**
+	 * Mines a range of first level ranks, splitting it in halves while it is large. The higher half is
+	 * joined first to keep the sequential order of the results.
+	 */
+	private final class MineTask extends RecursiveTask<List<FrequentItemset>> {
+		private final FPTree tree;
+		private final int[] rankToItem;
+		private final int highRank;
+		private final int lowRank;
+
+		private MineTask(FPTree tree, int[] rankToItem, int highRank, int lowRank) {
+			this.tree = tree;
+			this.rankToItem = rankToItem;
+			this.highRank = highRank;
+			this.lowRank = lowRank;
+		}
+
+		@Override
+		protected List<FrequentItemset> compute() {
+			if (highRank - lowRank < SEQUENTIAL_THRESHOLD) {
+				List<FrequentItemset> result = new ArrayList<>();
+				mineTree(tree, new int[maxItemsetSize], 0, highRank, lowRank, rankToItem, result);
+				return result;
+			}
+
+			int middle = lowRank + (highRank - lowRank) / 2;
+			MineTask lower = new MineTask(tree, rankToItem, middle, lowRank);
+			lower.fork();
+			List<FrequentItemset> result = new MineTask(tree, rankToItem, highRank, middle + 1).compute();
+			result.addAll(lower.join());
+			return result;
+		}
+	}
+
+	/**
+	 * Prefix tree of ranked items. Every node is linked to the next node of the same rank so the
+	 * conditional pattern base of a rank can be walked without searching the tree.
+	 */
+	private static final class FPTree {
+		private final Node root = new Node(-1, null);
+		private final Node[] rootChildren;
+		private final Node[] heads;
+		private final int[] counts;
+
+		private FPTree(int size) {
+			this.rootChildren = new Node[size];
+			this.heads = new Node[size];
+			this.counts = new int[size];
+		}
+
+		private int size() {
+			return counts.length;
+		}
+
+		private void insert(int[] path, int from, int to, int weight) {
+			Node current = root;
+			for (int i = from; i < to; i++) {
+				int rank = path[i];
+				Node child = (current == root) ? rootChildren[rank] : current.findChild(rank);
+				if (child == null) {
+					child = new Node(rank, current);
+					if (current == root) {
+						rootChildren[rank] = child;
+					} else {
+						child.sibling = current.child;
+						current.child = child;
+					}
+					child.link = heads[rank];
+					heads[rank] = child;
+				}
+				child.count += weight;
+				counts[rank] += weight;
+				current = child;
+			}
+		}
+	}
+
+	private static final class Node {
+		private final int rank;
+		private final Node parent;
+		private int count;
+		private Node child;
+		private Node sibling;
+		private Node link;
+
+		private Node(int rank, Node parent) {
+			this.rank = rank;
+			this.parent = parent;
+		}
+
+		private Node findChild(int rank) {
+			for (Node node = child; node != null; node = node.sibling) {
+				if (node.rank == rank) {
+					return node;
+				}
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,15 @@
+package dev.kons.kuenyawz.utils.mining;
+
+/**
+ * A frequent itemset produced by {@link FPGrowth}. Items are dense item indices sorted ascending,
+ * support is the absolute number of transactions containing every item of the set.
+ *
+ * @param items   {@code int[]} sorted item indices
+ * @param support {@code int} absolute support count
+ */
+public record FrequentItemset(int[] items, int support) {
+
+	public int size() {
+		return items.length;
+	}
+}
@@ -0,0 +1,116 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.Arrays;
+
+/**
+ * Maps snowflake product ids to dense {@code int} indices in insertion order, backed by a primitive
+ * open-addressing table so lookups never box. Indices are what {@link FPGrowth} and
+ * {@link TransactionMatrix} work with, {@link #idOf(int)} maps them back.
+ */
+public final class ProductIndex {
+
+	private static final long EMPTY = Long.MIN_VALUE;
+
+	private long[] slots;
+	private int[] slotIndices;
+	private long[] ids;
+	private int size;
+
+	public ProductIndex() {
+		this(16);
+	}
+
+	public ProductIndex(int expectedSize) {
+		int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+		this.slots = new long[capacity];
+		this.slotIndices = new int[capacity];
+		this.ids = new long[Math.max(4, expectedSize)];
+		Arrays.fill(slots, EMPTY);
+	}
+
+	/**
+	 * Gets the index of a product id, assigning the next free index when it is new.
+	 */
+	public int getOrAdd(long productId) {
+		if (productId == EMPTY)
+			throw new IllegalArgumentException("Product id is reserved: " + productId);
+		int slot = findSlot(productId);
+		if (slots[slot] != EMPTY) {
+			return slotIndices[slot];
+		}
+
+		if (size == ids.length) {
+			ids = Arrays.copyOf(ids, size * 2);
+		}
+		ids[size] = productId;
+		slots[slot] = productId;
+		slotIndices[slot] = size;
+		size++;
+
+		if (size * 2 > slots.length) {
+			rehash();
+		}
+		return size - 1;
+	}
+
+	/**
+	 * Gets the index of a product id.
+	 *
+	 * @return {@code int} the index, or {@code -1} if the product is not indexed
+	 */
+	public int indexOf(long productId) {
+		int slot = findSlot(productId);
+		return (slots[slot] != EMPTY) ? slotIndices[slot] : -1;
+	}
+
+	public long idOf(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index out of range: " + index);
+		return ids[index];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Copies the product ids ordered by their index.
+	 */
+	public long[] toIdArray() {
+		return Arrays.copyOf(ids, size);
+	}
+
+	private int findSlot(long productId) {
+		int mask = slots.length - 1;
+		int slot = mix(productId) & mask;
+		while (slots[slot] != EMPTY && slots[slot] != productId) {
+			slot = (slot + 1) & mask;
+		}
+		return slot;
+	}
+
+	private void rehash() {
+		long[] oldSlots = slots;
+		int[] oldIndices = slotIndices;
+		slots = new long[oldSlots.length * 2];
+		slotIndices = new int[oldSlots.length * 2];
+		Arrays.fill(slots, EMPTY);
+		for (int i = 0; i < oldSlots.length; i++) {
+			if (oldSlots[i] != EMPTY) {
+				int slot = findSlot(oldSlots[i]);
+				slots[slot] = oldSlots[i];
+				slotIndices[slot] = oldIndices[i];
+			}
+		}
+	}
+
+	/**
+	 * Snowflake ids share most of their high bits, spread them before masking.
+	 */
+	static int mix(long value) {
+		value ^= (value >>> 33);
+		value *= 0xff51afd7ed558ccdL;
+		value ^= (value >>> 33);
+		return (int) value;
+	}
+}
@@ -0,0 +1,140 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Binary file holding a mined recommendation model, so a restarted node can serve recommendations
+ * without scanning the purchase history or the {@code Apriori} table.
+ * <br>
+ * <br>
+ * Layout, big endian:
+ * <ol>
+ *     <li>Header: magic {@code "KWZR"}, format version, generation, payload length and the CRC32 of
+ *     the payload.</li>
+ *     <li>Payload: the {@link RecommendationSnapshot} arrays followed by the {@link CartRuleIndex}
+ *     arrays, each as a length prefixed block of primitives.</li>
+ * </ol>
+ * The file is written next to the target and renamed over it, so readers see either the old or the new
+ * model, never a partial one. It is read through a read-only {@link MappedByteBuffer}, which lets every
+ * node on the host share the same page cache, and the arrays are copied out of the mapping once the
+ * checksum matches.
+ */
+public final class RecommendationModelFile {
+
+	private static final int MAGIC = 0x4B575A52;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = Integer.BYTES * 2 + Long.BYTES * 3;
+
+	private RecommendationModelFile() {
+	}
+
+	/**
+	 * A model read back from a file.
+	 *
+	 * @param snapshot  {@link RecommendationSnapshot} recommendations of each product
+	 * @param cartRules {@link CartRuleIndex} rules used for cart recommendations
+	 */
+	public record Model(RecommendationSnapshot snapshot, CartRuleIndex cartRules) {
+
+		public long generation() {
+			return snapshot.generation();
+		}
+	}
+
+	/**
+	 * Writes the model, replacing the file atomically.
+	 *
+	 * @param path      {@link Path} of the model file, parent directories are created
+	 * @param snapshot  {@link RecommendationSnapshot} recommendations of each product
+	 * @param cartRules {@link CartRuleIndex} rules used for cart recommendations
+	 * @throws IOException if the file cannot be written
+	 */
+	public static void write(Path path, RecommendationSnapshot snapshot, CartRuleIndex cartRules) throws IOException {
+		ByteBuffer payload = ByteBuffer.allocate(snapshot.serializedBytes() + cartRules.serializedBytes());
+		snapshot.writeTo(payload);
+		cartRules.writeTo(payload);
+		payload.flip();
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+		header.putInt(MAGIC)
+			.putInt(VERSION)
+			.putLong(snapshot.generation())
+			.putLong(payload.remaining())
+			.putLong(checksum(payload.duplicate()))
+			.flip();
+
+		Path target = path.toAbsolutePath();
+		Files.createDirectories(target.getParent());
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		try {
+			try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+				while (header.hasRemaining() || payload.hasRemaining()) {
+					channel.write(new ByteBuffer[]{header, payload});
+				}
+				channel.force(true);
+			}
+			Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temporary);
+		}
+	}
+
+	/**
+	 * Reads a model written by {@link #write(Path, RecommendationSnapshot, CartRuleIndex)}.
+	 *
+	 * @param path {@link Path} of the model file
+	 * @return {@link Model} the model
+	 * @throws IOException if the file cannot be read, is of another version or is corrupted
+	 */
+	public static Model read(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+			if (size < HEADER_BYTES) {
+				throw new IOException("Model file is truncated: " + path);
+			}
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+			if (buffer.getInt() != MAGIC) {
+				throw new IOException("Not a recommendation model file: " + path);
+			}
+			int version = buffer.getInt();
+			if (version != VERSION) {
+				throw new IOException("Unsupported model file version " + version + ": " + path);
+			}
+			long generation = buffer.getLong();
+			long payloadBytes = buffer.getLong();
+			long expectedChecksum = buffer.getLong();
+			if (payloadBytes != size - HEADER_BYTES) {
+				throw new IOException("Model file is truncated: " + path);
+			}
+			if (checksum(buffer.duplicate()) != expectedChecksum) {
+				throw new IOException("Model file checksum mismatch: " + path);
+			}
+
+			try {
+				RecommendationSnapshot snapshot = RecommendationSnapshot.readFrom(buffer);
+				CartRuleIndex cartRules = CartRuleIndex.readFrom(buffer);
+				if (snapshot.generation() != generation || buffer.hasRemaining()) {
+					throw new IOException("Model file is inconsistent: " + path);
+				}
+				return new Model(snapshot, cartRules);
+			} catch (RuntimeException e) {
+				throw new IOException("Model file is corrupted: " + path, e);
+			}
+		}
+	}
+
+	private static long checksum(ByteBuffer payload) {
+		CRC32 crc = new CRC32();
+		crc.update(payload);
+		return crc.getValue();
+	}
+}
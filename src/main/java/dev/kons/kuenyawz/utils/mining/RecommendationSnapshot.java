@@ -0,0 +1,139 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Immutable view of the recommendations of one model generation: product id to its ordered recommended
+ * product ids. Keys are kept sorted in a {@code long[]} and the recommendations are flattened into a
+ * single {@code long[]} addressed by offsets, so a lookup is a binary search without boxing and the
+ * snapshot can be shared by any number of readers without locking. Updates create a new snapshot.
+ */
+public final class RecommendationSnapshot {
+
+	private static final RecommendationSnapshot EMPTY =
+		new RecommendationSnapshot(0L, new long[0], new int[]{0}, new long[0]);
+
+	private final long generation;
+	private final long[] productIds;
+	private final int[] offsets;
+	private final long[] recommendedIds;
+
+	private RecommendationSnapshot(long generation, long[] productIds, int[] offsets, long[] recommendedIds) {
+		this.generation = generation;
+		this.productIds = productIds;
+		this.offsets = offsets;
+		this.recommendedIds = recommendedIds;
+	}
+
+	public static RecommendationSnapshot empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Builds a snapshot from the recommendations of every product.
+	 *
+	 * @param generation      {@code long} model generation the recommendations belong to
+	 * @param recommendations {@link Map} of product id to its ordered recommended product ids
+	 * @return {@link RecommendationSnapshot}
+	 */
+	public static RecommendationSnapshot of(long generation, Map<Long, long[]> recommendations) {
+		long[] keys = new long[recommendations.size()];
+		int i = 0;
+		for (Long productId : recommendations.keySet()) {
+			keys[i++] = productId;
+		}
+		Arrays.sort(keys);
+
+		int[] offsets = new int[keys.length + 1];
+		for (int k = 0; k < keys.length; k++) {
+			offsets[k + 1] = offsets[k] + recommendations.get(keys[k]).length;
+		}
+
+		long[] values = new long[offsets[keys.length]];
+		for (int k = 0; k < keys.length; k++) {
+			long[] recommended = recommendations.get(keys[k]);
+			System.arraycopy(recommended, 0, values, offsets[k], recommended.length);
+		}
+		return new RecommendationSnapshot(generation, keys, offsets, values);
+	}
+
+	public long generation() {
+		return generation;
+	}
+
+	public int size() {
+		return productIds.length;
+	}
+
+	/**
+	 * Gets the recommendations of a product.
+	 *
+	 * @param productId {@code long} the product id
+	 * @return {@code long[]} recommended product ids in order, empty if the product has none
+	 */
+	public long[] recommendationsOf(long productId) {
+		int position = Arrays.binarySearch(productIds, productId);
+		if (position < 0) {
+			return new long[0];
+		}
+		return Arrays.copyOfRange(recommendedIds, offsets[position], offsets[position + 1]);
+	}
+
+	/**
+	 * Creates a copy with the recommendations of some products replaced or added.
+	 *
+	 * @param changes {@link Map} of product id to its new ordered recommended product ids
+	 * @return {@link RecommendationSnapshot} of the same generation
+	 */
+	public RecommendationSnapshot with(Map<Long, long[]> changes) {
+		if (changes.isEmpty()) {
+			return this;
+		}
+
+		Map<Long, long[]> merged = new HashMap<>(productIds.length + changes.size());
+		for (int k = 0; k < productIds.length; k++) {
+			merged.put(productIds[k], Arrays.copyOfRange(recommendedIds, offsets[k], offsets[k + 1]));
+		}
+		merged.putAll(changes);
+		return of(generation, merged);
+	}
+
+	/**
+	 * Size of the binary form written by {@link #writeTo(ByteBuffer)}.
+	 */
+	int serializedBytes() {
+		return Long.BYTES + Integer.BYTES + Integer.BYTES
+			+ productIds.length * Long.BYTES
+			+ offsets.length * Integer.BYTES
+			+ recommendedIds.length * Long.BYTES;
+	}
+
+	void writeTo(ByteBuffer buffer) {
+		buffer.putLong(generation);
+		buffer.putInt(productIds.length);
+		buffer.putInt(recommendedIds.length);
+		buffer.asLongBuffer().put(productIds);
+		buffer.position(buffer.position() + productIds.length * Long.BYTES);
+		buffer.asIntBuffer().put(offsets);
+		buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+		buffer.asLongBuffer().put(recommendedIds);
+		buffer.position(buffer.position() + recommendedIds.length * Long.BYTES);
+	}
+
+	static RecommendationSnapshot readFrom(ByteBuffer buffer) {
+		long generation = buffer.getLong();
+		long[] productIds = new long[buffer.getInt()];
+		long[] recommendedIds = new long[buffer.getInt()];
+		int[] offsets = new int[productIds.length + 1];
+		buffer.asLongBuffer().get(productIds);
+		buffer.position(buffer.position() + productIds.length * Long.BYTES);
+		buffer.asIntBuffer().get(offsets);
+		buffer.position(buffer.position() + offsets.length * Integer.BYTES);
+		buffer.asLongBuffer().get(recommendedIds);
+		buffer.position(buffer.position() + recommendedIds.length * Long.BYTES);
+		return new RecommendationSnapshot(generation, productIds, offsets, recommendedIds);
+	}
+}
@@ -0,0 +1,274 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * Per product purchase counts over a few sliding windows of days, e.g. the last 7, 30 and 90 days.
+ * <br>
+ * <br>
+ * How does it work?
+ * <ol>
+ *     <li>Every product keeps one counter per day in a ring buffer as long as the largest window, the
+ *     slot of a day is {@code day % ringDays} and the day each slot currently holds is remembered.</li>
+ *     <li>Each window also keeps a running total per product, so reading a window is a single array
+ *     lookup and ranking a window is one pass over the products into a heap of the {@code topN}
+ *     best, {@code O(products * log(topN))}.</li>
+ *     <li>When the clock moves to a new day, the day leaving each window is subtracted from its totals
+ *     and the oldest slot is cleared for reuse. This costs {@code O(products * windows)} once a day.</li>
+ * </ol>
+ * Counts of days that already left the largest window are ignored, so a late removal never makes a
+ * total negative. This class is not thread-safe, callers are expected to guard it.
+ */
+public final class SlidingWindowCounts {
+
+	private static final long NO_DAY = Long.MIN_VALUE;
+
+	private final int[] windows;
+	private final int ringDays;
+	private final long[] dayOfSlot;
+	private long today;
+
+	private final ProductIndex index = new ProductIndex();
+	/// Daily counts of each product, {@code [item][slot]}
+	private int[][] daily = new int[16][];
+	/// Running totals of each window, {@code [window][item]}
+	private int[][] totals;
+
+	/**
+	 * @param today   {@code long} epoch day the counts start at
+	 * @param windows {@code int...} window lengths in days, e.g. {@code 7, 30, 90}
+	 */
+	public SlidingWindowCounts(long today, int... windows) {
+		if (windows.length == 0)
+			throw new IllegalArgumentException("At least one window is required");
+		this.windows = windows.clone();
+		Arrays.sort(this.windows);
+		if (this.windows[0] < 1)
+			throw new IllegalArgumentException("Windows must be at least one day long");
+
+		this.ringDays = this.windows[this.windows.length - 1];
+		this.dayOfSlot = new long[ringDays];
+		Arrays.fill(dayOfSlot, NO_DAY);
+		this.today = today;
+		this.totals = new int[this.windows.length][16];
+	}
+
+	/**
+	 * Counts a purchase in or out, products of the purchase are counted once.
+	 *
+	 * @param productIds {@code long[]} products of the purchase, duplicates are counted once
+	 * @param day        {@code long} epoch day of the purchase
+	 * @param delta      {@code int} {@code 1} to count the purchase in, {@code -1} to count it out
+	 */
+	public void add(long[] productIds, long day, int delta) {
+		if (day > today) {
+			advanceTo(day);
+		}
+		if (day <= today - ringDays) {
+			return;
+		}
+
+		int slot = slotOf(day);
+		dayOfSlot[slot] = day;
+
+		long[] distinct = Arrays.stream(productIds).distinct().toArray();
+		for (long productId : distinct) {
+			int item = (delta > 0) ? register(productId) : index.indexOf(productId);
+			if (item < 0) {
+				continue;
+			}
+
+			// Never count below zero, a removal may arrive for a purchase that was never counted
+			int applied = Math.max(delta, -daily[item][slot]);
+			daily[item][slot] += applied;
+			for (int w = 0; w < windows.length; w++) {
+				if (day > today - windows[w]) {
+					totals[w][item] += applied;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Moves the clock forward, days leaving a window stop counting in it. Moving backward is ignored.
+	 *
+	 * @param day {@code long} the new current epoch day
+	 */
+	public void advanceTo(long day) {
+		if (day <= today) {
+			return;
+		}
+
+		// After a whole ring nothing survives, skip the days in between
+		long from = Math.max(today + 1, day - ringDays);
+		if (from > today + 1) {
+			clear();
+		}
+		for (long next = from; next <= day; next++) {
+			for (int w = 0; w < windows.length; w++) {
+				long leaving = next - windows[w];
+				int slot = slotOf(leaving);
+				if (dayOfSlot[slot] != leaving) {
+					continue;
+				}
+				for (int item = 0; item < index.size(); item++) {
+					totals[w][item] -= daily[item][slot];
+				}
+			}
+
+			// The slot of the new day last held the day that just left the largest window
+			int slot = slotOf(next);
+			dayOfSlot[slot] = NO_DAY;
+			for (int item = 0; item < index.size(); item++) {
+				daily[item][slot] = 0;
+			}
+		}
+		today = day;
+	}
+
+	/**
+	 * Purchases of a product within a window.
+	 *
+	 * @param productId {@code long} the product id
+	 * @param window    {@code int} one of the window lengths
+	 * @return {@code int} the count, {@code 0} for an unknown product
+	 */
+	public int count(long productId, int window) {
+		int item = index.indexOf(productId);
+		return (item < 0) ? 0 : totals[windowIndexOf(window)][item];
+	}
+
+	/**
+	 * Products with the most purchases within a window, ties by lower product id.
+	 *
+	 * @param window {@code int} one of the window lengths
+	 * @param topN   {@code int} maximum number of products
+	 * @param filter {@link LongPredicate} products that may be ranked, tested before they take a place
+	 * @return {@code long[]} product ids, most purchased first, only products with purchases
+	 */
+	public long[] top(int window, int topN, LongPredicate filter) {
+		int[] windowTotals = totals[windowIndexOf(window)];
+		if (topN < 1) {
+			return new long[0];
+		}
+
+		// Min-heap of the best items so far, the root is the one the next better candidate replaces
+		int[] heap = new int[Math.min(topN, index.size())];
+		int size = 0;
+		for (int item = 0; item < index.size(); item++) {
+			if (windowTotals[item] <= 0 || !filter.test(index.idOf(item))) {
+				continue;
+			}
+			if (size < heap.length) {
+				heap[size] = item;
+				siftUp(heap, size++, windowTotals);
+			} else if (ranksBefore(item, heap[0], windowTotals)) {
+				heap[0] = item;
+				siftDown(heap, size, windowTotals);
+			}
+		}
+
+		// Taking the root off each time leaves the items in reverse, fill from the back
+		long[] ranked = new long[size];
+		while (size > 0) {
+			ranked[size - 1] = index.idOf(heap[0]);
+			heap[0] = heap[--size];
+			siftDown(heap, size, windowTotals);
+		}
+		return ranked;
+	}
+
+	/**
+	 * Window lengths in days, shortest first.
+	 */
+	public int[] windows() {
+		return windows.clone();
+	}
+
+	public long today() {
+		return today;
+	}
+
+	public int itemCount() {
+		return index.size();
+	}
+
+	private void clear() {
+		Arrays.fill(dayOfSlot, NO_DAY);
+		for (int item = 0; item < index.size(); item++) {
+			Arrays.fill(daily[item], 0);
+		}
+		for (int[] windowTotals : totals) {
+			Arrays.fill(windowTotals, 0);
+		}
+	}
+
+	private int register(long productId) {
+		int item = index.getOrAdd(productId);
+		if (item == daily.length) {
+			daily = Arrays.copyOf(daily, item * 2);
+			for (int w = 0; w < totals.length; w++) {
+				totals[w] = Arrays.copyOf(totals[w], item * 2);
+			}
+		}
+		if (daily[item] == null) {
+			daily[item] = new int[ringDays];
+		}
+		return item;
+	}
+
+	/**
+	 * Checks if an item ranks before another, by more purchases and then by lower product id.
+	 */
+	private boolean ranksBefore(int item, int other, int[] windowTotals) {
+		return (windowTotals[item] != windowTotals[other])
+			? windowTotals[item] > windowTotals[other]
+			: index.idOf(item) < index.idOf(other);
+	}
+
+	private void siftUp(int[] heap, int i, int[] windowTotals) {
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (!ranksBefore(heap[parent], heap[i], windowTotals)) {
+				return;
+			}
+			swap(heap, parent, i);
+			i = parent;
+		}
+	}
+
+	private void siftDown(int[] heap, int size, int[] windowTotals) {
+		int i = 0;
+		while (true) {
+			int worst = i;
+			for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+				if (ranksBefore(heap[worst], heap[child], windowTotals)) {
+					worst = child;
+				}
+			}
+			if (worst == i) {
+				return;
+			}
+			swap(heap, i, worst);
+			i = worst;
+		}
+	}
+
+	private static void swap(int[] heap, int i, int j) {
+		int item = heap[i];
+		heap[i] = heap[j];
+		heap[j] = item;
+	}
+
+	private int windowIndexOf(int window) {
+		int w = Arrays.binarySearch(windows, window);
+		if (w < 0)
+			throw new IllegalArgumentException("Unknown window of " + window + " days, expected one of " + Arrays.toString(windows));
+		return w;
+	}
+
+	private int slotOf(long day) {
+		return (int) Math.floorMod(day, (long) ringDays);
+	}
+}
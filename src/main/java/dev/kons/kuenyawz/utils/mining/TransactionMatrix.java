@@ -0,0 +1,180 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Column-oriented purchase history used as the recommender training data. Every product is mapped to
+ * a dense index by a {@link ProductIndex}, and each product keeps the rows (purchases) it appears in
+ * as a {@link CompressedBitSet}. The support of any itemset is then the cardinality of the AND of its
+ * columns, without copying baskets or boxing ids.
+ */
+public final class TransactionMatrix {
+
+	private final ProductIndex index;
+	private final CompressedBitSet[] columns;
+	private final int transactionCount;
+
+	private TransactionMatrix(ProductIndex index, CompressedBitSet[] columns, int transactionCount) {
+		this.index = index;
+		this.columns = columns;
+		this.transactionCount = transactionCount;
+	}
+
+	public static Builder builder() {
+		return new Builder();
+	}
+
+	/**
+	 * Builds a matrix from the legacy {@code purchaseId -> productIds} representation.
+	 */
+	public static TransactionMatrix of(Map<Long, Set<Long>> orders) {
+		Builder builder = builder();
+		for (Set<Long> productIds : orders.values()) {
+			builder.addTransaction(productIds);
+		}
+		return builder.build();
+	}
+
+	public ProductIndex index() {
+		return index;
+	}
+
+	public int transactionCount() {
+		return transactionCount;
+	}
+
+	public int itemCount() {
+		return columns.length;
+	}
+
+	public CompressedBitSet column(int item) {
+		return columns[item];
+	}
+
+	/**
+	 * Support count of a single item.
+	 */
+	public int support(int item) {
+		return columns[item].cardinality();
+	}
+
+	/**
+	 * Support count of a pair of items.
+	 */
+	public int support(int a, int b) {
+		return CompressedBitSet.andCardinality(columns[a], columns[b]);
+	}
+
+	/**
+	 * Support count of an itemset of any size.
+	 */
+	public int support(int[] items) {
+		return switch (items.length) {
+			case 0 -> transactionCount;
+			case 1 -> support(items[0]);
+			case 2 -> support(items[0], items[1]);
+			default -> {
+				CompressedBitSet intersection = CompressedBitSet.and(columns[items[0]], columns[items[1]]);
+				for (int i = 2; i < items.length - 1 && !intersection.isEmpty(); i++) {
+					intersection = CompressedBitSet.and(intersection, columns[items[i]]);
+				}
+				yield CompressedBitSet.andCardinality(intersection, columns[items[items.length - 1]]);
+			}
+		};
+	}
+
+	/**
+	 * Support count of every item, ordered by item index.
+	 */
+	public int[] itemSupports() {
+		int[] supports = new int[columns.length];
+		for (int item = 0; item < columns.length; item++) {
+			supports[item] = columns[item].cardinality();
+		}
+		return supports;
+	}
+
+	/**
+	 * Rebuilds the row-major view, every row lists its item indices in ascending order. Used by
+	 * {@link FPGrowth} which inserts whole transactions into its tree.
+	 */
+	public int[][] toTransactions() {
+		int[] lengths = new int[transactionCount];
+		for (CompressedBitSet column : columns) {
+			column.forEach(row -> lengths[row]++);
+		}
+
+		int[][] rows = new int[transactionCount][];
+		for (int row = 0; row < transactionCount; row++) {
+			rows[row] = new int[lengths[row]];
+		}
+
+		Arrays.fill(lengths, 0);
+		for (int item = 0; item < columns.length; item++) {
+			final int current = item;
+			columns[item].forEach(row -> rows[row][lengths[row]++] = current);
+		}
+		return rows;
+	}
+
+	/**
+	 * Estimates the heap held by the columns, used for reporting.
+	 */
+	public long estimatedBytes() {
+		long bytes = index.size() * 28L;
+		for (CompressedBitSet column : columns) {
+			bytes += column.estimatedBytes();
+		}
+		return bytes;
+	}
+
+	public static final class Builder {
+		private final ProductIndex index = new ProductIndex();
+		private CompressedBitSet[] columns = new CompressedBitSet[16];
+		private int rows;
+
+		private Builder() {
+		}
+
+		/**
+		 * Appends a transaction, duplicated product ids are counted once.
+		 */
+		public Builder addTransaction(Collection<Long> productIds) {
+			for (Long productId : productIds) {
+				set(rows, productId);
+			}
+			rows++;
+			return this;
+		}
+
+		/**
+		 * Appends a transaction, duplicated product ids are counted once.
+		 */
+		public Builder addTransaction(long... productIds) {
+			for (long productId : productIds) {
+				set(rows, productId);
+			}
+			rows++;
+			return this;
+		}
+
+		public TransactionMatrix build() {
+			CompressedBitSet[] built = Arrays.copyOf(columns, index.size());
+			return new TransactionMatrix(index, built, rows);
+		}
+
+		private void set(int row, long productId) {
+			int item = index.getOrAdd(productId);
+			if (item == columns.length) {
+				columns = Arrays.copyOf(columns, columns.length * 2);
+			}
+			if (columns[item] == null) {
+				columns[item] = new CompressedBitSet();
+			}
+			columns[item].add(row);
+		}
+	}
+}
@@ -0,0 +1,124 @@
+package dev.kons.kuenyawz.utils.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns product text and search queries into lowercase terms, with light handling of Indonesian.
+ * <br>
+ * <br>
+ * How does it work?
+ * <ol>
+ *     <li>Text is lowercased, accents are stripped and it is split on anything that is not a letter, a
+ *     digit or a hyphen between letters.</li>
+ *     <li>Reduplicated words are reduced to their base, {@code kue-kue} becomes {@code kue} and
+ *     {@code sayur-mayur} becomes {@code sayur}.</li>
+ *     <li>Common function words such as {@code dan}, {@code yang} and {@code dengan} are dropped.</li>
+ *     <li>{@link #stem(String)} strips the usual particles, possessives, suffixes and prefixes, so
+ *     {@code manisnya} and {@code manisan} both match {@code manis}. Stems shorter than three letters
+ *     are rejected, short food names are kept as they are.</li>
+ * </ol>
+ */
+public final class IndonesianAnalyzer {
+
+	private static final int MIN_STEM_LENGTH = 3;
+
+	private static final Set<String> STOP_WORDS = Set.of(
+		"dan", "yang", "dengan", "di", "ke", "dari", "untuk", "ini", "itu", "atau", "pada", "dalam",
+		"juga", "akan", "ada", "adalah", "oleh", "sebagai", "para", "serta", "tanpa", "per", "nya",
+		"the", "and", "of", "with", "a", "an", "for", "in"
+	);
+
+	private static final String[] PARTICLES = {"lah", "kah", "tah", "pun"};
+	private static final String[] POSSESSIVES = {"nya", "ku", "mu"};
+	private static final String[] SUFFIXES = {"kan", "an", "i"};
+	private static final String[] PREFIXES = {"meng", "meny", "mem", "men", "me", "peng", "peny", "pem", "pen", "pe",
+		"ber", "be", "per", "ter", "di", "ke", "se"};
+
+	private IndonesianAnalyzer() {
+	}
+
+	/**
+	 * Splits text into normalized tokens, without stemming.
+	 *
+	 * @param text {@link String} text to split, may be null
+	 * @return {@link List} of lowercase tokens in text order, stop words removed
+	 */
+	public static List<String> tokenize(String text) {
+		List<String> tokens = new ArrayList<>();
+		if (text == null || text.isBlank()) {
+			return tokens;
+		}
+
+		String normalized = Normalizer.normalize(text, Normalizer.Form.NFD)
+			.replaceAll("\\p{M}+", "")
+			.toLowerCase(Locale.ROOT);
+		for (String word : normalized.split("[^\\p{L}\\p{N}-]+")) {
+			String token = dereduplicate(word.replaceAll("^-+|-+$", ""));
+			for (String part : token.split("-")) {
+				if (!part.isEmpty() && !STOP_WORDS.contains(part)) {
+					tokens.add(part);
+				}
+			}
+		}
+		return tokens;
+	}
+
+	/**
+	 * Reduces a token to its root by stripping one particle, one possessive, one suffix and up to two
+	 * prefixes, in that order. Each step is skipped when it would leave fewer than three letters.
+	 *
+	 * @param token {@link String} a token from {@link #tokenize(String)}
+	 * @return {@link String} the stem, the token itself when nothing could be stripped
+	 */
+	public static String stem(String token) {
+		String stem = stripSuffix(token, PARTICLES);
+		stem = stripSuffix(stem, POSSESSIVES);
+		stem = stripSuffix(stem, SUFFIXES);
+		for (int i = 0; i < 2; i++) {
+			String stripped = stripPrefix(stem);
+			if (stripped.equals(stem)) {
+				break;
+			}
+			stem = stripped;
+		}
+		return stem;
+	}
+
+	/**
+	 * {@code kue-kue} and {@code sayur-mayur} keep their first half, other hyphenated words are kept.
+	 */
+	private static String dereduplicate(String word) {
+		int hyphen = word.indexOf('-');
+		if (hyphen <= 0 || hyphen != word.lastIndexOf('-')) {
+			return word;
+		}
+		String first = word.substring(0, hyphen);
+		String second = word.substring(hyphen + 1);
+		boolean repeated = first.equals(second);
+		boolean rhyming = first.length() > 2 && second.length() > 2
+			&& first.substring(1).equals(second.substring(1));
+		return (repeated || rhyming) ? first : word;
+	}
+
+	private static String stripSuffix(String token, String[] suffixes) {
+		for (String suffix : suffixes) {
+			if (token.endsWith(suffix) && token.length() - suffix.length() >= MIN_STEM_LENGTH) {
+				return token.substring(0, token.length() - suffix.length());
+			}
+		}
+		return token;
+	}
+
+	private static String stripPrefix(String token) {
+		for (String prefix : PREFIXES) {
+			if (token.startsWith(prefix) && token.length() - prefix.length() >= MIN_STEM_LENGTH) {
+				return token.substring(prefix.length());
+			}
+		}
+		return token;
+	}
+}
@@ -0,0 +1,218 @@
+package dev.kons.kuenyawz.utils.search;
+
+import java.util.*;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory inverted index over a few weighted text fields of each document, answering keyword
+ * queries with relevance ranked document ids.
+ * <br>
+ * <br>
+ * How does it work?
+ * <ol>
+ *     <li>Every field is split by {@link IndonesianAnalyzer} and each token is indexed four ways: the
+ *     token itself, its stem, its prefixes (for search as you type) and its trigrams (for typos).</li>
+ *     <li>A posting keeps the weight of the strongest field the term occurs in, so a match in the name
+ *     outranks a match in the description. Rare terms weigh more than common ones (idf).</li>
+ *     <li>Every query token must match a document, exactly, by stem, as a prefix or by enough shared
+ *     trigrams. A token scores its best kind of match and the document scores the sum of its tokens.</li>
+ * </ol>
+ * Documents are replaced or removed one at a time, their terms are remembered to update the postings.
+ * This class is not thread-safe, callers are expected to guard it.
+ */
+public final class SearchIndex {
+
+	private static final int MIN_PREFIX_LENGTH = 2;
+	private static final int MIN_FUZZY_LENGTH = 5;
+	/// Share of the query trigrams a fuzzy match must have, one typo breaks at most three of them
+	private static final double FUZZY_MIN_SHARE = 0.5;
+
+	private static final float STEM_FACTOR = 0.8f;
+	private static final float PREFIX_FACTOR = 0.6f;
+	private static final float FUZZY_FACTOR = 0.3f;
+
+	private static final String TOKEN = "t:";
+	private static final String STEM = "s:";
+	private static final String PREFIX = "p:";
+	private static final String TRIGRAM = "g:";
+
+	private final float[] fieldWeights;
+	private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+	private final Map<Long, Set<String>> termsOf = new HashMap<>();
+
+	/**
+	 * @param fieldWeights {@code float...} weight of each field, in the order fields are given to
+	 *                     {@link #put(long, String...)}
+	 */
+	public SearchIndex(float... fieldWeights) {
+		this.fieldWeights = fieldWeights.clone();
+	}
+
+	/**
+	 * Indexes a document, replacing the previous version with the same id.
+	 *
+	 * @param id     {@code long} id of the document
+	 * @param fields {@link String...} text of each field, null fields are skipped
+	 */
+	public void put(long id, String... fields) {
+		remove(id);
+
+		Map<String, Float> weights = new HashMap<>();
+		for (int f = 0; f < fields.length && f < fieldWeights.length; f++) {
+			float weight = fieldWeights[f];
+			for (String token : IndonesianAnalyzer.tokenize(fields[f])) {
+				weights.merge(TOKEN + token, weight, Math::max);
+				String stem = IndonesianAnalyzer.stem(token);
+				if (!stem.equals(token)) {
+					weights.merge(STEM + stem, weight * STEM_FACTOR, Math::max);
+				}
+				for (int length = MIN_PREFIX_LENGTH; length < token.length(); length++) {
+					weights.merge(PREFIX + token.substring(0, length), weight * PREFIX_FACTOR, Math::max);
+				}
+				for (String trigram : trigramsOf(token)) {
+					weights.merge(TRIGRAM + trigram, weight * FUZZY_FACTOR, Math::max);
+				}
+			}
+		}
+
+		weights.forEach((term, weight) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(id, weight));
+		termsOf.put(id, weights.keySet());
+	}
+
+	/**
+	 * Removes a document, unknown ids are ignored.
+	 *
+	 * @param id {@code long} id of the document
+	 */
+	public void remove(long id) {
+		Set<String> terms = termsOf.remove(id);
+		if (terms == null) {
+			return;
+		}
+		for (String term : terms) {
+			Map<Long, Float> posting = postings.get(term);
+			posting.remove(id);
+			if (posting.isEmpty()) {
+				postings.remove(term);
+			}
+		}
+	}
+
+	/**
+	 * Finds the documents matching every token of a query, most relevant first, ties by lower id.
+	 *
+	 * @param query  {@link String} the keywords
+	 * @param filter {@link LongPredicate} documents that may be returned
+	 * @return {@code long[]} ids of the matching documents, empty when the query has no tokens
+	 */
+	public long[] search(String query, LongPredicate filter) {
+		List<String> tokens = IndonesianAnalyzer.tokenize(query);
+		if (tokens.isEmpty()) {
+			return new long[0];
+		}
+
+		Map<Long, Double> scores = null;
+		for (String token : new LinkedHashSet<>(tokens)) {
+			Map<Long, Double> tokenScores = scoreToken(token);
+			if (scores == null) {
+				scores = tokenScores;
+				scores.keySet().removeIf(id -> !filter.test(id));
+			} else {
+				scores.keySet().retainAll(tokenScores.keySet());
+				scores.replaceAll((id, score) -> score + tokenScores.get(id));
+			}
+			if (scores.isEmpty()) {
+				return new long[0];
+			}
+		}
+
+		Map<Long, Double> ranked = scores;
+		return ranked.keySet().stream()
+			.sorted((a, b) -> {
+				int byScore = Double.compare(ranked.get(b), ranked.get(a));
+				return (byScore != 0) ? byScore : Long.compare(a, b);
+			})
+			.mapToLong(Long::longValue)
+			.toArray();
+	}
+
+	/**
+	 * Number of indexed documents.
+	 */
+	public int size() {
+		return termsOf.size();
+	}
+
+	/**
+	 * Best score of every document matching one query token.
+	 */
+	private Map<Long, Double> scoreToken(String token) {
+		Map<Long, Double> scores = new HashMap<>();
+		String stem = IndonesianAnalyzer.stem(token);
+		addScores(scores, TOKEN + token);
+		addScores(scores, STEM + stem);
+		if (!stem.equals(token)) {
+			addScores(scores, TOKEN + stem);
+		}
+		if (token.length() >= MIN_PREFIX_LENGTH) {
+			addScores(scores, PREFIX + token);
+		}
+		if (token.length() >= MIN_FUZZY_LENGTH) {
+			addFuzzyScores(scores, token);
+		}
+		return scores;
+	}
+
+	private void addScores(Map<Long, Double> scores, String term) {
+		Map<Long, Float> posting = postings.get(term);
+		if (posting == null) {
+			return;
+		}
+		double idf = idf(posting.size());
+		posting.forEach((id, weight) -> scores.merge(id, weight * idf, Math::max));
+	}
+
+	/**
+	 * Documents sharing at least half of the trigrams of the token, scored by the share of trigrams
+	 * they have.
+	 */
+	private void addFuzzyScores(Map<Long, Double> scores, String token) {
+		Set<String> trigrams = trigramsOf(token);
+		Map<Long, Integer> hits = new HashMap<>();
+		Map<Long, Double> best = new HashMap<>();
+		for (String trigram : trigrams) {
+			Map<Long, Float> posting = postings.get(TRIGRAM + trigram);
+			if (posting == null) {
+				continue;
+			}
+			double idf = idf(posting.size());
+			posting.forEach((id, weight) -> {
+				hits.merge(id, 1, Integer::sum);
+				best.merge(id, weight * idf, Math::max);
+			});
+		}
+
+		int required = Math.max(2, (int) Math.ceil(trigrams.size() * FUZZY_MIN_SHARE));
+		hits.forEach((id, count) -> {
+			if (count >= required) {
+				scores.merge(id, best.get(id) * count / trigrams.size(), Math::max);
+			}
+		});
+	}
+
+	private double idf(int documentFrequency) {
+		return Math.log(1 + (double) Math.max(1, termsOf.size()) / documentFrequency);
+	}
+
+	/**
+	 * Trigrams of the token padded with a boundary mark, so the start and end of a word count too.
+	 */
+	private static Set<String> trigramsOf(String token) {
+		String padded = "_" + token + "_";
+		Set<String> trigrams = new LinkedHashSet<>();
+		for (int i = 0; i + 3 <= padded.length(); i++) {
+			trigrams.add(padded.substring(i, i + 3));
+		}
+		return trigrams;
+	}
+}
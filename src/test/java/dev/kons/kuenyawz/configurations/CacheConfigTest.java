@@ -0,0 +1,149 @@
+package dev.kons.kuenyawz.configurations;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import dev.kons.kuenyawz.dtos.CursorPage;
+import dev.kons.kuenyawz.utils.CacheValueLoader;
+import dev.kons.kuenyawz.utils.ProductResponseCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheConfigTest {
+
+	@Mock
+	private ApplicationProperties properties;
+
+	@Mock
+	private ObjectProvider<CacheValueLoader> loaders;
+
+	@Test
+	void caffeineOf_InvalidSpec_ShouldThrowException() {
+		// Act & Assert
+		assertThatThrownBy(() -> CacheConfig.caffeineOf("products", "maximumSize=lots"))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("products")
+			.hasCauseInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> CacheConfig.caffeineOf("products", "unknownOption=1"))
+			.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> CacheConfig.caffeineOf("products", "maximumSize=10,maximumSize=20"))
+			.isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	void caffeineOf_WithMaximumWeight_ShouldWeighEntriesByTheirRows() {
+		// Arrange
+		Cache<Object, Object> cache = CacheConfig.caffeineOf("products", "maximumWeight=100").build();
+
+		// Act
+		cache.put("page", new PageImpl<>(List.of(1, 2, 3), PageRequest.of(0, 3), 9));
+		cache.put("list", List.of(1, 2));
+		cache.put("single", "product");
+		cache.cleanUp();
+
+		// Assert
+		assertThat(cache.policy().eviction().orElseThrow().weightedSize()).hasValue(6);
+	}
+
+	@Test
+	void caffeineOf_WithMaximumSize_ShouldCountEntries() {
+		// Arrange
+		Cache<Object, Object> cache = CacheConfig.caffeineOf("products", "maximumSize=100").build();
+
+		// Act
+		cache.put("list", List.of(1, 2, 3));
+
+		// Assert
+		assertThat(cache.policy().eviction().orElseThrow().weightedSize()).isEmpty();
+		assertThat(cache.estimatedSize()).isEqualTo(1);
+	}
+
+	@Test
+	void weightOf_ShouldBeTheRowsOrBytesOfTheValue() {
+		// Act & Assert
+		assertThat(CacheConfig.weightOf(new SliceImpl<>(List.of(1, 2, 3), PageRequest.of(0, 5), true))).isEqualTo(3);
+		assertThat(CacheConfig.weightOf(new PageImpl<>(List.of(1, 2), PageRequest.of(0, 2), 40))).isEqualTo(2);
+		assertThat(CacheConfig.weightOf(new CursorPage<>(List.of(1, 2, 3, 4), 4, "AAXb3rdDIAA"))).isEqualTo(4);
+		assertThat(CacheConfig.weightOf(ProductResponseCache.SerializedResponse.of(new byte[512]))).isEqualTo(512);
+		assertThat(CacheConfig.weightOf(List.of(1, 2))).isEqualTo(2);
+		assertThat(CacheConfig.weightOf(Map.of(1, "a", 2, "b", 3, "c"))).isEqualTo(3);
+	}
+
+	@Test
+	void weightOf_EmptyOrSingleValue_ShouldBeAtLeastOne() {
+		// Act & Assert
+		assertThat(CacheConfig.weightOf(new SliceImpl<>(List.of()))).isEqualTo(1);
+		assertThat(CacheConfig.weightOf(new CursorPage<>(List.of(), 10, null))).isEqualTo(1);
+		assertThat(CacheConfig.weightOf(ProductResponseCache.SerializedResponse.of(new byte[0]))).isEqualTo(1);
+		assertThat(CacheConfig.weightOf("product")).isEqualTo(1);
+		assertThat(CacheConfig.weightOf(null)).isEqualTo(1);
+	}
+
+	@Test
+	void hasOption_ShouldMatchWholeOptionNamesWithOrWithoutValue() {
+		// Act & Assert
+		assertThat(CacheConfig.hasOption("maximumWeight=5000,expireAfterWrite=3m,recordStats", "maximumWeight")).isTrue();
+		assertThat(CacheConfig.hasOption("maximumWeight=5000, recordStats", "recordStats")).isTrue();
+		assertThat(CacheConfig.hasOption("maximumSize=300,expireAfterWrite=3m", "refreshAfterWrite")).isFalse();
+		assertThat(CacheConfig.hasOption("maximumSize=300", "maximum")).isFalse();
+		assertThat(CacheConfig.hasOption("", "recordStats")).isFalse();
+	}
+
+	@Test
+	void cacheManager_DefaultSpecThatRefreshes_ShouldThrowException() {
+		// Arrange
+		ApplicationProperties.Caches caches = new ApplicationProperties.Caches();
+		caches.setDefaultSpec("maximumSize=300,refreshAfterWrite=1m");
+		when(properties.caches()).thenReturn(caches);
+
+		// Act & Assert
+		assertThatThrownBy(() -> new CacheConfig(properties).cacheManager(loaders))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("refreshAfterWrite");
+	}
+
+	@Test
+	void cacheManager_InvalidCacheSpec_ShouldThrowException() {
+		// Arrange
+		ApplicationProperties.Caches caches = new ApplicationProperties.Caches();
+		caches.getSpecs().put("products", "maximumWeight=-");
+		when(properties.caches()).thenReturn(caches);
+
+		// Act & Assert
+		assertThatThrownBy(() -> new CacheConfig(properties).cacheManager(loaders))
+			.isInstanceOf(IllegalStateException.class)
+			.hasMessageContaining("'products'");
+	}
+
+	@Test
+	void cacheManager_ShouldBuildEachCacheFromItsOwnSpec() {
+		// Arrange
+		ApplicationProperties.Caches caches = new ApplicationProperties.Caches();
+		caches.getSpecs().put("products", "maximumWeight=100");
+		when(properties.caches()).thenReturn(caches);
+
+		// Act
+		CacheManager cacheManager = new CacheConfig(properties).cacheManager(loaders);
+		org.springframework.cache.Cache products = cacheManager.getCache("products");
+		products.put("list", List.of(1, 2, 3));
+
+		// Assert
+		Cache<?, ?> nativeCache = (Cache<?, ?>) products.getNativeCache();
+		nativeCache.cleanUp();
+		assertThat(nativeCache.policy().eviction().orElseThrow().weightedSize()).hasValue(3);
+		assertThat(cacheManager.getCache("other")).isNotNull();
+	}
+}
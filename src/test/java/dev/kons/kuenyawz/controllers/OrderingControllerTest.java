@@ -0,0 +1,89 @@
+package dev.kons.kuenyawz.controllers;
+
+import dev.kons.kuenyawz.advice.CustomExceptionsHandler;
+import dev.kons.kuenyawz.dtos.purchase.PurchaseDto;
+import dev.kons.kuenyawz.exceptions.IllegalOperationException;
+import dev.kons.kuenyawz.services.entity.PurchaseService;
+import dev.kons.kuenyawz.services.logic.OrderingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class OrderingControllerTest {
+
+	private static final String ETAG = "\"purchase-10-3-2-5\"";
+
+	@Mock
+	private OrderingService orderingService;
+
+	@Mock
+	private PurchaseService purchaseService;
+
+	@InjectMocks
+	private OrderingController orderingController;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.standaloneSetup(orderingController)
+			.setControllerAdvice(new CustomExceptionsHandler())
+			.build();
+	}
+
+	@Test
+	void getOrder_WithMatchingETag_ShouldReturnNotModifiedWithoutLoadingThePurchase() throws Exception {
+		// Arrange
+		when(orderingService.findPurchaseETag(10L)).thenReturn(ETAG);
+
+		// Act & Assert
+		mockMvc.perform(get("/orders/10").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+			.andExpect(content().string(""));
+		verify(orderingService, never()).findPurchase(any());
+	}
+
+	@Test
+	void getOrder_WithStaleETag_ShouldReturnThePurchaseAndItsETag() throws Exception {
+		// Arrange
+		when(orderingService.findPurchaseETag(10L)).thenReturn(ETAG);
+		when(orderingService.findPurchase(10L)).thenReturn(PurchaseDto.builder().purchaseId(10L).build());
+
+		// Act & Assert
+		mockMvc.perform(get("/orders/10").header(HttpHeaders.IF_NONE_MATCH, "\"purchase-10-2-2-5\""))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+			.andExpect(jsonPath("$.purchaseId").value(10L));
+	}
+
+	@Test
+	void getOrder_OfAnotherAccount_ShouldBeForbiddenWhateverTheETag() throws Exception {
+		// Arrange
+		when(orderingService.findPurchaseETag(10L))
+			.thenThrow(new IllegalOperationException("You are not authorized to view this transaction"));
+
+		// Act & Assert
+		mockMvc.perform(get("/orders/10").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+			.andExpect(status().isForbidden())
+			.andExpect(header().doesNotExist(HttpHeaders.ETAG));
+		verify(orderingService, never()).findPurchase(any());
+	}
+}
@@ -1,6 +1,8 @@
 package dev.kons.kuenyawz.controllers;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.kons.kuenyawz.dtos.product.ProductBatchAvailabilityDto;
+import dev.kons.kuenyawz.dtos.product.ProductDto;
 import dev.kons.kuenyawz.dtos.product.ProductPostDto;
 import dev.kons.kuenyawz.dtos.product.VariantPostDto;
 import dev.kons.kuenyawz.repositories.ProductRepository;
@@ -10,6 +12,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
@@ -19,10 +22,14 @@ import org.springframework.web.context.WebApplicationContext;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -100,7 +107,141 @@ class ProductControllerIT {
 		assertThat(result.getResponse().getContentAsString()).contains("Test Product1");
 	}
 
-	void insertNewProduct(@NotNull String name) {
+	@Test
+	void testGetProductWithMatchingETag() throws Exception {
+		// Arrange
+		long productId = insertNewProduct("Test Product1").getProductId();
+		MvcResult first = mockMvc.perform(get("/api/products/" + productId))
+			.andExpect(status().isOk())
+			.andExpect(header().exists(HttpHeaders.ETAG))
+			.andReturn();
+		String eTag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+		// Act & Assert
+		mockMvc.perform(get("/api/products/" + productId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+			.andExpect(status().isNotModified());
+		// New products are unavailable, so the patch changes the response
+		productService.patchAvailability(productId, true);
+		mockMvc.perform(get("/api/products/" + productId).header(HttpHeaders.IF_NONE_MATCH, eTag))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.available").value(true));
+	}
+
+	@Test
+	void testGetProductsBatch() throws Exception {
+		// Arrange
+		long firstId = insertNewProduct("Test Product1").getProductId();
+		long secondId = insertNewProduct("Test Product2").getProductId();
+
+		// Act & Assert
+		mockMvc.perform(get("/api/products/batch").param("ids", secondId + ",404," + firstId))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.products.length()").value(3))
+			.andExpect(jsonPath("$.products[0].product.name").value("Test Product2"))
+			.andExpect(jsonPath("$.products[1].productId").value(404))
+			.andExpect(jsonPath("$.products[1].found").value(false))
+			.andExpect(jsonPath("$.products[2].product.name").value("Test Product1"));
+	}
+
+	@Test
+	void testGetProductsBatchWithDuplicateIds() throws Exception {
+		// Arrange
+		long productId = insertNewProduct("Test Product1").getProductId();
+
+		// Act & Assert
+		mockMvc.perform(get("/api/products/batch").param("ids", productId + "," + productId))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.products.length()").value(2))
+			.andExpect(jsonPath("$.products[0].found").value(true))
+			.andExpect(jsonPath("$.products[1].found").value(true))
+			.andExpect(jsonPath("$.products[1].product.name").value("Test Product1"));
+	}
+
+	@Test
+	void testGetProductsBatchWithUnknownAndDeletedIds() throws Exception {
+		// Arrange
+		long deletedId = insertNewProduct("Test Product1").getProductId();
+		productService.softDeleteProduct(deletedId);
+
+		// Act & Assert
+		mockMvc.perform(get("/api/products/batch").param("ids", deletedId + ",404"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.products.length()").value(2))
+			.andExpect(jsonPath("$.products[0].productId").value(deletedId))
+			.andExpect(jsonPath("$.products[0].found").value(false))
+			.andExpect(jsonPath("$.products[0].product").isEmpty())
+			.andExpect(jsonPath("$.products[1].found").value(false));
+	}
+
+	@Test
+	void testGetProductsBatchWithMoreThan100Ids() throws Exception {
+		// Arrange
+		String hundredIds = LongStream.rangeClosed(1, 100).mapToObj(String::valueOf).collect(Collectors.joining(","));
+
+		// Act & Assert
+		mockMvc.perform(get("/api/products/batch").param("ids", hundredIds))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.products.length()").value(100));
+		mockMvc.perform(get("/api/products/batch").param("ids", hundredIds + ",101"))
+			.andExpect(status().isBadRequest());
+	}
+
+	@Test
+	void testPatchProductsAvailability() throws Exception {
+		// Arrange
+		long firstId = insertNewProduct("Test Product1").getProductId();
+		long secondId = insertNewProduct("Test Product2").getProductId();
+		ProductBatchAvailabilityDto request = new ProductBatchAvailabilityDto(List.of(secondId, firstId), true);
+
+		// Act & Assert
+		mockMvc.perform(patch("/api/products/availability")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request)))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.length()").value(2))
+			.andExpect(jsonPath("$[0].productId").value(firstId))
+			.andExpect(jsonPath("$[0].available").value(true))
+			.andExpect(jsonPath("$[1].available").value(true));
+		mockMvc.perform(get("/api/products/" + secondId))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.available").value(true));
+	}
+
+	@Test
+	void testPatchProductsAvailabilityWithUnknownId() throws Exception {
+		// Arrange
+		long productId = insertNewProduct("Test Product1").getProductId();
+		ProductBatchAvailabilityDto request = new ProductBatchAvailabilityDto(List.of(productId, 404L), true);
+
+		// Act & Assert, either every product is patched or none is
+		mockMvc.perform(patch("/api/products/availability")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(request)))
+			.andExpect(status().isNotFound());
+		assertThat(productRepository.findById(productId).orElseThrow().getAvailable()).isFalse();
+		mockMvc.perform(get("/api/products/" + productId))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$.available").value(false));
+	}
+
+	@Test
+	void testPatchProductsAvailabilityWithMoreThan1000Ids() throws Exception {
+		// Arrange
+		List<Long> thousandIds = LongStream.rangeClosed(1, 1000).boxed().toList();
+		List<Long> tooManyIds = LongStream.rangeClosed(1, 1001).boxed().toList();
+
+		// Act & Assert, 1000 unknown ids pass validation and are not found
+		mockMvc.perform(patch("/api/products/availability")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new ProductBatchAvailabilityDto(thousandIds, true))))
+			.andExpect(status().isNotFound());
+		mockMvc.perform(patch("/api/products/availability")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content(objectMapper.writeValueAsString(new ProductBatchAvailabilityDto(tooManyIds, true))))
+			.andExpect(status().isBadRequest());
+	}
+
+	ProductDto insertNewProduct(@NotNull String name) {
 		ProductPostDto productPostDto = ProductPostDto.builder()
 			.name(name)
 			.tagline("Test Tagline")
@@ -120,6 +261,6 @@ class ProductControllerIT {
 		);
 		productPostDto.setVariants(variantPostDtos);
 
-		productService.createProduct(productPostDto);
+		return productService.createProduct(productPostDto);
 	}
 }
\ No newline at end of file
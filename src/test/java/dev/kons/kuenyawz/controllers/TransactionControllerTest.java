@@ -0,0 +1,59 @@
+package dev.kons.kuenyawz.controllers;
+
+import dev.kons.kuenyawz.dtos.purchase.TransactionDto;
+import dev.kons.kuenyawz.services.entity.TransactionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionControllerTest {
+
+	private static final String ETAG = "\"transaction-20-4\"";
+
+	@Mock
+	private TransactionService transactionService;
+
+	@InjectMocks
+	private TransactionController transactionController;
+
+	private MockMvc mockMvc;
+
+	@BeforeEach
+	void setUp() {
+		mockMvc = MockMvcBuilders.standaloneSetup(transactionController).build();
+		when(transactionService.fetchTransaction(20L)).thenReturn(TransactionDto.builder().transactionId(20L).build());
+		when(transactionService.findETag(20L)).thenReturn(ETAG);
+	}
+
+	@Test
+	void fetchTransactionStatus_WithMatchingETag_ShouldReturnNotModified() throws Exception {
+		// Act & Assert
+		mockMvc.perform(get("/transactions/20").header(HttpHeaders.IF_NONE_MATCH, ETAG))
+			.andExpect(status().isNotModified())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+			.andExpect(content().string(""));
+	}
+
+	@Test
+	void fetchTransactionStatus_WithStaleETag_ShouldReturnTheTransactionAndItsETag() throws Exception {
+		// Act & Assert
+		mockMvc.perform(get("/transactions/20").header(HttpHeaders.IF_NONE_MATCH, "\"transaction-20-3\""))
+			.andExpect(status().isOk())
+			.andExpect(header().string(HttpHeaders.ETAG, ETAG))
+			.andExpect(jsonPath("$.transactionId").value(20L));
+	}
+}
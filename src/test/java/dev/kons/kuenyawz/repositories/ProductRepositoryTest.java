@@ -2,13 +2,17 @@ package dev.kons.kuenyawz.repositories;
 
 import dev.kons.kuenyawz.boostrappers.DatabaseBootstrapper;
 import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.product.ProductDto;
 import dev.kons.kuenyawz.entities.Product;
 import dev.kons.kuenyawz.entities.Variant;
 import dev.kons.kuenyawz.services.entity.AccountService;
 import dev.kons.kuenyawz.services.logic.ProductCsvServiceImpl;
 import dev.kons.kuenyawz.services.entity.ProductService;
 import dev.kons.kuenyawz.utils.idgenerator.SnowFlakeIdGenerator;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -16,11 +20,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.Page;
 
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -44,6 +51,9 @@ public class ProductRepositoryTest {
 	@Autowired
 	ApplicationProperties applicationProperties;
 
+	@Autowired
+	EntityManagerFactory entityManagerFactory;
+
 	@BeforeEach
 	void setUp() {
 		productCsvImportService = new ProductCsvServiceImpl(productService);
@@ -75,6 +85,85 @@ public class ProductRepositoryTest {
 		assertThat(productList.size()).isEqualTo(20);
 	}
 
+	@Test
+	void testProductPageStatementCountIsConstant() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		int catalogMaxProducts = applicationProperties.caches().getCatalogMaxProducts();
+		Page<ProductDto> smallPage;
+		Page<ProductDto> largePage;
+		long smallPageStatements;
+		long largePageStatements;
+		try {
+			// Pages are read from the database instead of the catalog snapshot, the uncached listing
+			// settles the catalog after the import so its product count is not measured
+			applicationProperties.caches().setCatalogMaxProducts(0);
+			productService.getAllProductsPaginated(null, null, null, null, null);
+			statistics.setStatisticsEnabled(true);
+
+			// Small page
+			statistics.clear();
+			smallPage = productService.getAllProductsPaginated(null, null, null, 1, 5);
+			smallPageStatements = statistics.getPrepareStatementCount();
+
+			// Large page, every product with its variants and images
+			statistics.clear();
+			largePage = productService.getAllProductsPaginated(null, null, null, 1, 45);
+			largePageStatements = statistics.getPrepareStatementCount();
+		} finally {
+			statistics.setStatisticsEnabled(false);
+			applicationProperties.caches().setCatalogMaxProducts(catalogMaxProducts);
+		}
+
+		// Assertions
+		assertThat(smallPage.getContent()).hasSize(5);
+		assertThat(largePage.getContent()).hasSize(45);
+		assertThat(largePageStatements).isEqualTo(smallPageStatements);
+	}
+
+	@Test
+	void testPatchAvailabilityStatementCountIsConstant() {
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.setStatisticsEnabled(true);
+		List<Long> productIds = productRepository.findAll().stream()
+			.map(Product::getProductId)
+			.toList();
+
+		// Few products
+		statistics.clear();
+		List<ProductDto> fewProducts = productService.patchAvailability(productIds.subList(0, 5), false);
+		long fewProductsStatements = statistics.getPrepareStatementCount();
+
+		// Every product
+		statistics.clear();
+		List<ProductDto> allProducts = productService.patchAvailability(productIds, false);
+		long allProductsStatements = statistics.getPrepareStatementCount();
+		statistics.setStatisticsEnabled(false);
+
+		// Assertions
+		assertThat(fewProducts).hasSize(5);
+		assertThat(allProducts).hasSize(45).noneMatch(ProductDto::isAvailable);
+		assertThat(allProductsStatements).isEqualTo(fewProductsStatements);
+		assertThat(productRepository.findAllAvailableIds()).isEmpty();
+	}
+
+	@Test
+	void testSoftDeleteAllProducts() {
+		Map<Long, Long> versions = productRepository.findAll().stream()
+			.collect(Collectors.toMap(Product::getProductId, Product::getVersion));
+
+		productService.softDeleteAllProducts();
+		List<Product> products = productRepository.findAll();
+
+		// Assertions, rows are kept and bumped like an entity update
+		assertThat(products).hasSize(45).allSatisfy(product -> {
+			assertThat(product.getDeleted()).isTrue();
+			assertThat(product.getAvailable()).isFalse();
+			assertThat(product.getVersion()).isEqualTo(versions.get(product.getProductId()) + 1);
+		});
+		assertThat(productRepository.findAllAvailableIds()).isEmpty();
+		assertThat(productService.getAllProductsPaginated(null, null, null, 1, 45).getTotalElements()).isZero();
+	}
+
 	@Test
 	@Disabled
 	void testSaveProduct() {
@@ -0,0 +1,146 @@
+package dev.kons.kuenyawz.services;
+
+import dev.kons.kuenyawz.repositories.ProductRepository;
+import dev.kons.kuenyawz.services.logic.AprioriServiceImpl;
+import dev.kons.kuenyawz.utils.mining.AssociationRule;
+import dev.kons.kuenyawz.utils.mining.CoOccurrenceCounts;
+import dev.kons.kuenyawz.utils.mining.TransactionMatrix;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class AprioriServiceImplTest {
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@InjectMocks
+	private AprioriServiceImpl aprioriService;
+
+	private Map<Long, Set<Long>> orders;
+
+	@BeforeEach
+	void setUp() {
+		// 1 and 2 are always bought together, 3 follows 1 most of the time, 4 is bought alone
+		orders = new HashMap<>();
+		long purchaseId = 100L;
+		for (int i = 0; i < 6; i++) {
+			orders.put(purchaseId++, Set.of(1L, 2L, 3L));
+		}
+		for (int i = 0; i < 2; i++) {
+			orders.put(purchaseId++, Set.of(1L, 2L));
+		}
+		for (int i = 0; i < 2; i++) {
+			orders.put(purchaseId++, Set.of(4L));
+		}
+	}
+
+	@Test
+	void findAssociationRules_ShouldComputeSupportConfidenceAndLift() {
+		// Act
+		List<AssociationRule> rules = aprioriService.findAssociationRules(orders);
+
+		// Assert
+		AssociationRule oneToTwo = rules.stream()
+			.filter(rule -> rule.hasSingleAntecedent(1L) && rule.consequent() == 2L)
+			.findFirst()
+			.orElseThrow();
+		assertThat(oneToTwo.supportCount()).isEqualTo(8);
+		assertThat(oneToTwo.support()).isEqualTo(0.8);
+		assertThat(oneToTwo.confidence()).isEqualTo(1.0);
+		assertThat(oneToTwo.lift()).isEqualTo(1.25);
+
+		AssociationRule pairToThree = rules.stream()
+			.filter(rule -> Arrays.equals(rule.antecedent(), new long[]{1L, 2L}) && rule.consequent() == 3L)
+			.findFirst()
+			.orElseThrow();
+		assertThat(pairToThree.confidence()).isEqualTo(0.75);
+
+		assertThat(rules).noneMatch(rule -> rule.consequent() == 4L || rule.hasSingleAntecedent(4L));
+	}
+
+	@Test
+	void findAllFrequentSetOfItems_ShouldRankConsequentsOfEveryAvailableProduct() {
+		// Arrange
+		when(productRepository.findAllAvailableIds()).thenReturn(List.of(1L, 2L, 3L, 4L));
+
+		// Act
+		Map<Long, Set<Long>> result = aprioriService.findAllFrequentSetOfItems(orders);
+
+		// Assert
+		assertThat(result).containsOnlyKeys(1L, 2L, 3L, 4L);
+		assertThat(result.get(1L)).containsExactly(2L, 3L);
+		assertThat(result.get(3L)).containsExactly(1L, 2L);
+		assertThat(result.get(4L)).isEmpty();
+	}
+
+	@Test
+	void findFrequentSetItemWith_FromCounts_ShouldMatchMinedRanking() {
+		// Arrange
+		when(productRepository.findAllAvailableIds()).thenReturn(List.of(1L, 2L, 3L, 4L));
+		CoOccurrenceCounts counts = CoOccurrenceCounts.of(TransactionMatrix.of(orders));
+		counts.add(new long[]{3L, 4L});
+		counts.remove(new long[]{3L, 4L});
+
+		// Act
+		Map<Long, Set<Long>> mined = aprioriService.findAllFrequentSetOfItems(orders);
+
+		// Assert
+		for (Long productId : List.of(1L, 2L, 3L, 4L)) {
+			assertThat(aprioriService.findFrequentSetItemWith(counts, productId, 3))
+				.containsExactlyElementsOf(mined.get(productId));
+		}
+	}
+
+	@Test
+	void findAssociationRules_OnMiningPool_ShouldMatchSequentialRun() {
+		// Arrange
+		Random random = new Random(42);
+		Map<Long, Set<Long>> history = new HashMap<>();
+		for (long purchaseId = 0; purchaseId < 2_000; purchaseId++) {
+			// Products of a group are bought together, with random products on top
+			long group = random.nextInt(8) * 5L;
+			Set<Long> basket = new HashSet<>(List.of(group, group + 1));
+			if (random.nextDouble() < 0.8) {
+				basket.add(group + 2);
+			}
+			int noise = random.nextInt(4);
+			for (int i = 0; i < noise; i++) {
+				basket.add((long) random.nextInt(40));
+			}
+			history.put(purchaseId, basket);
+		}
+		ForkJoinPool pool = new ForkJoinPool(4);
+
+		try {
+			// Act
+			List<AssociationRule> sequential = aprioriService.findAssociationRules(history);
+			List<AssociationRule> parallel = new AprioriServiceImpl(productRepository, pool)
+				.findAssociationRules(history);
+
+			// Assert
+			assertThat(sequential).isNotEmpty();
+			assertThat(parallel)
+				.usingRecursiveFieldByFieldElementComparator()
+				.containsExactlyElementsOf(sequential);
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	void findAssociationRules_WithNoOrders_ShouldReturnEmpty() {
+		// Act & Assert
+		assertThat(aprioriService.findAssociationRules(Map.of())).isEmpty();
+	}
+}
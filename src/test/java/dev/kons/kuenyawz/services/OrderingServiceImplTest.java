@@ -0,0 +1,105 @@
+package dev.kons.kuenyawz.services;
+
+import dev.kons.kuenyawz.entities.Account;
+import dev.kons.kuenyawz.exceptions.IllegalOperationException;
+import dev.kons.kuenyawz.mapper.PurchaseMapper;
+import dev.kons.kuenyawz.repositories.PurchaseRepository;
+import dev.kons.kuenyawz.services.entity.PurchaseService;
+import dev.kons.kuenyawz.services.entity.TransactionService;
+import dev.kons.kuenyawz.services.logic.OrderingServiceImpl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class OrderingServiceImplTest {
+
+	@Mock
+	private PurchaseService purchaseService;
+
+	@Mock
+	private TransactionService transactionService;
+
+	@Mock
+	private PurchaseRepository purchaseRepository;
+
+	@Mock
+	private PurchaseMapper purchaseMapper;
+
+	@InjectMocks
+	private OrderingServiceImpl orderingService;
+
+	@AfterEach
+	void tearDown() {
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	void findPurchaseETag_OfTheOwner_ShouldBeDerivedFromTheVersions() {
+		// Arrange
+		authenticate(2L, Account.Privilege.USER);
+		when(transactionService.isOwner(10L, 2L)).thenReturn(true);
+		PurchaseRepository.PurchaseVersion version = mock(PurchaseRepository.PurchaseVersion.class);
+		when(version.getVersion()).thenReturn(3L);
+		when(version.getTransactionCount()).thenReturn(2L);
+		when(version.getTransactionVersions()).thenReturn(5L);
+		when(purchaseRepository.findVersionById(10L)).thenReturn(Optional.of(version));
+
+		// Act
+		String eTag = orderingService.findPurchaseETag(10L);
+
+		// Assert
+		assertThat(eTag).isEqualTo("\"purchase-10-3-2-5\"");
+		verifyNoInteractions(purchaseService, purchaseMapper);
+	}
+
+	@Test
+	void findPurchaseETag_OfAnotherAccount_ShouldBeRejectedBeforeReadingTheVersions() {
+		// Arrange
+		authenticate(2L, Account.Privilege.USER);
+		when(transactionService.isOwner(10L, 2L)).thenReturn(false);
+
+		// Act & Assert
+		assertThatThrownBy(() -> orderingService.findPurchaseETag(10L))
+			.isInstanceOf(IllegalOperationException.class);
+		verifyNoInteractions(purchaseRepository);
+	}
+
+	@Test
+	void findPurchaseETag_OfAnAdmin_ShouldNotNeedToOwnThePurchase() {
+		// Arrange
+		authenticate(1L, Account.Privilege.ADMIN);
+		when(transactionService.isOwner(10L, 1L)).thenReturn(false);
+		PurchaseRepository.PurchaseVersion version = mock(PurchaseRepository.PurchaseVersion.class);
+		when(version.getVersion()).thenReturn(0L);
+		when(version.getTransactionCount()).thenReturn(1L);
+		when(version.getTransactionVersions()).thenReturn(0L);
+		when(purchaseRepository.findVersionById(10L)).thenReturn(Optional.of(version));
+
+		// Act
+		String eTag = orderingService.findPurchaseETag(10L);
+
+		// Assert
+		assertThat(eTag).isEqualTo("\"purchase-10-0-1-0\"");
+	}
+
+	private static void authenticate(long accountId, Account.Privilege privilege) {
+		Account account = Account.builder()
+			.accountId(accountId)
+			.privilege(privilege)
+			.build();
+		SecurityContextHolder.getContext().setAuthentication(
+			new UsernamePasswordAuthenticationToken(account, null, account.getAuthorities()));
+	}
+}
@@ -1,5 +1,8 @@
 package dev.kons.kuenyawz.services;
 
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.configurations.CacheConfig;
+import dev.kons.kuenyawz.dtos.CursorPage;
 import dev.kons.kuenyawz.dtos.product.*;
 import dev.kons.kuenyawz.dtos.product.*;
 import dev.kons.kuenyawz.entities.Product;
@@ -11,6 +14,11 @@ import dev.kons.kuenyawz.mapper.VariantMapper;
 import dev.kons.kuenyawz.repositories.ProductRepository;
 import dev.kons.kuenyawz.services.entity.ProductServiceImpl;
 import dev.kons.kuenyawz.services.logic.ImageStorageService;
+import dev.kons.kuenyawz.utils.AvailableProductPool;
+import dev.kons.kuenyawz.utils.CacheValueLoader;
+import dev.kons.kuenyawz.utils.CacheTags;
+import dev.kons.kuenyawz.utils.CatalogSnapshot;
+import dev.kons.kuenyawz.utils.ProductSearchIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Disabled;
 import org.junit.jupiter.api.Test;
@@ -19,15 +27,27 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -43,6 +63,21 @@ public class ProductServiceImplTest {
 	@Mock
 	private ImageStorageService imageStorageService;
 
+	@Mock
+	private AvailableProductPool availableProductPool;
+
+	@Mock
+	private ProductSearchIndex productSearchIndex;
+
+	@Mock
+	private CacheManager cacheManager;
+
+	@Mock
+	private CacheTags cacheTags;
+
+	@Mock
+	private CatalogSnapshot catalogSnapshot;
+
 	@Spy
 	private ProductMapper productMapper;
 
@@ -168,6 +203,74 @@ public class ProductServiceImplTest {
 		verify(productRepository).findAll(any(Specification.class), eq(pageRequest));
 	}
 
+	@Test
+	void getAllProductsPaginated_WithKeyword_ShouldPageSearchIndexResults() {
+		// Arrange
+		Product otherProduct = Product.builder()
+			.productId(3L)
+			.name("Other Product")
+			.category(Product.Category.CAKE)
+			.build();
+		when(productSearchIndex.search("test", null, null)).thenReturn(List.of(3L, 1L, 2L));
+		when(productRepository.findAll(any(Specification.class))).thenReturn(List.of(product, otherProduct));
+		when(productMapper.fromEntity(any(Product.class))).thenAnswer(invocation -> ProductDto.builder()
+			.productId(invocation.<Product>getArgument(0).getProductId())
+			.build());
+
+		// Act
+		Page<ProductDto> result = productService.getAllProductsPaginated(null, "test", null, 1, 2);
+
+		// Assert
+		assertThat(result.getContent()).extracting(ProductDto::getProductId).containsExactly(3L, 1L);
+		assertThat(result.getTotalElements()).isEqualTo(3);
+		verify(productRepository, never()).findAll(any(Specification.class), any(Pageable.class));
+	}
+
+	@Test
+	void getAllProductsPaginated_WithOnlyStopWords_ShouldListProductsUnfiltered() {
+		// Arrange
+		PageRequest pageRequest = PageRequest.of(0, 5, Sort.by(Sort.Order.asc("productId")));
+		when(productRepository.findAll(any(Specification.class), eq(pageRequest)))
+			.thenReturn(new PageImpl<>(List.of(product), pageRequest, 1));
+		when(productMapper.fromEntity(product)).thenReturn(productDto);
+
+		// Act
+		Page<ProductDto> result = productService.getAllProductsPaginated(null, "dan yang", null, 1, 5);
+
+		// Assert
+		assertThat(result.getContent()).hasSize(1);
+		verify(productSearchIndex, never()).search(any(), any(), any());
+	}
+
+	@Test
+	void getAllProductsByCursor_WithKeyword_ShouldSeekPastCursorInIdOrder() {
+		// Arrange
+		List<Product> pageProducts = List.of(
+			Product.builder().productId(2L).name("Second").category(Product.Category.CAKE).build(),
+			Product.builder().productId(3L).name("Third").category(Product.Category.CAKE).build()
+		);
+		when(productSearchIndex.search("test", null, null)).thenReturn(List.of(5L, 1L, 3L, 2L));
+		when(productRepository.findAll(any(Specification.class))).thenReturn(pageProducts);
+		when(productMapper.fromEntity(any(Product.class))).thenAnswer(invocation -> ProductDto.builder()
+			.productId(invocation.<Product>getArgument(0).getProductId())
+			.build());
+
+		// Act
+		CursorPage<ProductDto> result = productService.getAllProductsByCursor(null, "test", null, CursorPage.encodeCursor(1L), 2);
+
+		// Assert
+		assertThat(result.content()).extracting(ProductDto::getProductId).containsExactly(2L, 3L);
+		assertThat(result.hasNext()).isTrue();
+		assertThat(CursorPage.decodeCursor(result.nextCursor())).isEqualTo(3L);
+	}
+
+	@Test
+	void getAllProductsByCursor_WithInvalidCursor_ShouldThrowException() {
+		// Act & Assert
+		assertThatThrownBy(() -> productService.getAllProductsByCursor(null, null, null, "not-a-cursor", 10))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+
 	@Test
 	void createProduct_WithValidData_ShouldReturnProductDto() {
 		// Arrange
@@ -181,6 +284,7 @@ public class ProductServiceImplTest {
 		assertThat(result).isEqualTo(productDto);
 		verify(productRepository).save(any(Product.class));
 		verify(productMapper).fromEntity(product);
+		verify(cacheTags).invalidateProducts(product.getCategory());
 	}
 
 	@Test
@@ -229,6 +333,100 @@ public class ProductServiceImplTest {
 		verify(productMapper).fromEntity(product);
 	}
 
+	@Test
+	void getProduct_WithCatalogSnapshot_ShouldNotQueryRepository() {
+		// Arrange
+		ApplicationProperties properties = mock(ApplicationProperties.class);
+		when(properties.caches()).thenReturn(new ApplicationProperties.Caches());
+		productDto.setProductId(1L);
+		CatalogSnapshot.Catalog catalog = new CatalogSnapshot(productRepository, properties)
+			.current(() -> List.of(productDto), productIds -> Map.of());
+		when(catalogSnapshot.current(any(), any())).thenReturn(catalog);
+
+		// Act
+		ProductDto result = productService.getProduct(1L);
+
+		// Assert
+		assertThat(result).isEqualTo(productDto).isNotSameAs(productDto);
+		assertThatThrownBy(() -> productService.getProduct(2L))
+			.isInstanceOf(ResourceNotFoundException.class);
+		verify(productRepository, never()).findOne(any(Specification.class));
+	}
+
+	@Test
+	void getProductBatch_ShouldHaveAnEntryPerRequestedIdInTheRequestedOrder() {
+		// Arrange, product 4 is deleted so it is not in the database read
+		when(imageStorageService.getImageUrls(any())).thenReturn(Collections.emptyList());
+		Product other = Product.builder().productId(2L).name("Other Product").category(Product.Category.PIE).build();
+		when(productRepository.findAll(any(Specification.class))).thenReturn(List.of(product, other));
+		when(productMapper.fromEntity(any(Product.class))).thenAnswer(invocation -> {
+			Product source = invocation.getArgument(0);
+			return ProductDto.builder().productId(source.getProductId()).name(source.getName()).build();
+		});
+
+		// Act
+		ProductBatchDto batch = productService.getProductBatch(Arrays.asList(2L, 404L, 1L, 2L, null, 4L));
+
+		// Assert
+		assertThat(batch.products()).extracting(ProductBatchDto.Entry::productId)
+			.containsExactly(2L, 404L, 1L, 2L, null, 4L);
+		assertThat(batch.products()).extracting(ProductBatchDto.Entry::found)
+			.containsExactly(true, false, true, true, false, false);
+		assertThat(batch.products().get(3).product().getName()).isEqualTo("Other Product");
+		assertThat(batch.products().get(1).product()).isNull();
+		verify(productMapper, times(2)).fromEntity(any(Product.class));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	void getProduct_ConcurrentMissesOnALoadingCache_ShouldLoadTheProductOnce() throws Exception {
+		// Arrange, the product cache refreshes ahead and loads through this service
+		ApplicationProperties properties = mock(ApplicationProperties.class);
+		ApplicationProperties.Caches caches = new ApplicationProperties.Caches();
+		caches.getSpecs().put("productCache", "maximumSize=100,refreshAfterWrite=1m");
+		when(properties.caches()).thenReturn(caches);
+		ObjectProvider<CacheValueLoader> loaders = mock(ObjectProvider.class);
+		when(loaders.orderedStream()).thenAnswer(invocation -> Stream.of(productService));
+		Cache productCache = new CacheConfig(properties).cacheManager(loaders).getCache("productCache");
+		when(cacheManager.getCache("productCache")).thenReturn(productCache);
+
+		CountDownLatch loading = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		when(productRepository.findOne(any(Specification.class))).thenAnswer(invocation -> {
+			loading.countDown();
+			release.await(5, TimeUnit.SECONDS);
+			return Optional.of(product);
+		});
+		productDto.setProductId(1L);
+		when(productMapper.fromEntity(product)).thenReturn(productDto);
+
+		int threads = 8;
+		ExecutorService readers = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		List<Future<ProductDto>> reads = new ArrayList<>();
+		for (int thread = 0; thread < threads; thread++) {
+			reads.add(readers.submit(() -> {
+				start.await();
+				return productService.getProduct(1L);
+			}));
+		}
+
+		// Act, every read misses while the first load is still running
+		start.countDown();
+		assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+		Thread.sleep(100);
+		release.countDown();
+		List<ProductDto> results = new ArrayList<>();
+		for (Future<ProductDto> read : reads) {
+			results.add(read.get(5, TimeUnit.SECONDS));
+		}
+		readers.shutdown();
+
+		// Assert
+		assertThat(results).hasSize(threads).allSatisfy(result -> assertThat(result.getProductId()).isEqualTo(1L));
+		verify(productRepository, times(1)).findOne(any(Specification.class));
+	}
+
 	@Test
 	@Disabled
 	void getProduct_WithNonExistingId_ShouldThrowResourceNotFoundException() {
@@ -372,6 +570,21 @@ public class ProductServiceImplTest {
 			.hasMessage("Product with ID '1' not found");
 	}
 
+	@Test
+	void patchAvailability_ToUnavailable_ShouldRemoveProductFromSamplingPool() {
+		// Arrange
+		product.setAvailable(true);
+		when(productRepository.findById(1L)).thenReturn(Optional.of(product));
+		when(productRepository.save(product)).thenReturn(product);
+
+		// Act
+		productService.patchAvailability(1L, false);
+
+		// Assert
+		assertThat(product.getAvailable()).isFalse();
+		verify(availableProductPool).update(1L, false);
+	}
+
 	@Test
 	@Disabled
 	void patchProduct_WithExistingId_ShouldReturnUpdatedProductDto() {
@@ -0,0 +1,152 @@
+package dev.kons.kuenyawz.services;
+
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto;
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto.JobStatus;
+import dev.kons.kuenyawz.dtos.recommender.RecommenderJobDto.JobTrigger;
+import dev.kons.kuenyawz.entities.AprioriGeneration;
+import dev.kons.kuenyawz.repositories.AprioriGenerationRepository;
+import dev.kons.kuenyawz.services.logic.RecommenderJobServiceImpl;
+import dev.kons.kuenyawz.services.logic.RecommenderService;
+import dev.kons.kuenyawz.utils.idgenerator.SnowFlakeIdGenerator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RecommenderJobServiceImplTest {
+
+	@Mock
+	private RecommenderService recommenderService;
+
+	@Mock
+	private AprioriGenerationRepository aprioriGenerationRepository;
+
+	@Mock
+	private ApplicationProperties properties;
+
+	@Mock
+	private SnowFlakeIdGenerator idGenerator;
+
+	@Spy
+	private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@InjectMocks
+	private RecommenderJobServiceImpl recommenderJobService;
+
+	@Test
+	void triggerRebuild_WhileRunning_ShouldReturnRunningJob() throws Exception {
+		// Arrange
+		AtomicLong ids = new AtomicLong(1);
+		when(idGenerator.generateId()).thenAnswer(invocation -> ids.getAndIncrement());
+		CountDownLatch release = new CountDownLatch(1);
+		when(recommenderService.generateApriori()).thenAnswer(invocation -> {
+			release.await(5, TimeUnit.SECONDS);
+			return AprioriGeneration.builder()
+				.generation(99L)
+				.productCount(4)
+				.durationMillis(10L)
+				.basketCount(10)
+				.ruleCount(6)
+				.modelBytes(512L)
+				.build();
+		});
+
+		// Act
+		RecommenderJobDto first = recommenderJobService.triggerRebuild(JobTrigger.MANUAL);
+		RecommenderJobDto second = recommenderJobService.triggerRebuild(JobTrigger.SCHEDULED);
+		release.countDown();
+		RecommenderJobDto finished = awaitFinished(first.getJobId());
+
+		// Assert
+		assertThat(second.getJobId()).isEqualTo(first.getJobId());
+		assertThat(finished.getStatus()).isEqualTo(JobStatus.COMPLETED);
+		assertThat(finished.getGeneration()).isEqualTo(99L);
+		assertThat(finished.getRuleCount()).isEqualTo(6);
+		assertThat(meterRegistry.get("recommender.rebuild.duration").timer().count()).isEqualTo(1);
+		verify(recommenderService, times(1)).generateApriori();
+	}
+
+	@Test
+	void triggerRebuild_WhenMiningFails_ShouldMarkJobFailed() throws Exception {
+		// Arrange
+		when(idGenerator.generateId()).thenReturn(1L);
+		when(recommenderService.generateApriori()).thenThrow(new IllegalStateException("Database is down"));
+
+		// Act
+		RecommenderJobDto job = recommenderJobService.triggerRebuild(JobTrigger.MANUAL);
+		RecommenderJobDto finished = awaitFinished(job.getJobId());
+
+		// Assert
+		assertThat(finished.getStatus()).isEqualTo(JobStatus.FAILED);
+		assertThat(finished.getError()).isEqualTo("Database is down");
+	}
+
+	@Test
+	void triggerRebuild_RacingJobsThatFinishAtOnce_ShouldOnlyReturnJobsThatRun() throws Exception {
+		// Arrange, a trigger whose swap fails on a job finishing meanwhile must start its own job
+		AtomicLong ids = new AtomicLong(1);
+		when(idGenerator.generateId()).thenAnswer(invocation -> ids.getAndIncrement());
+		when(recommenderService.generateApriori()).thenReturn(AprioriGeneration.builder()
+			.generation(100L)
+			.durationMillis(0L)
+			.build());
+		int threads = 8;
+		int triggersPerThread = 2000;
+		Set<Long> returnedIds = ConcurrentHashMap.newKeySet();
+		ExecutorService triggers = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+
+		// Act
+		List<Future<?>> futures = new ArrayList<>();
+		for (int thread = 0; thread < threads; thread++) {
+			futures.add(triggers.submit(() -> {
+				start.await();
+				for (int trigger = 0; trigger < triggersPerThread; trigger++) {
+					returnedIds.add(recommenderJobService.triggerRebuild(JobTrigger.MANUAL).getJobId());
+				}
+				return null;
+			}));
+		}
+		start.countDown();
+		for (Future<?> future : futures) {
+			future.get(30, TimeUnit.SECONDS);
+		}
+		triggers.shutdown();
+		long lastId = returnedIds.stream().mapToLong(Long::longValue).max().orElseThrow();
+		awaitFinished(lastId);
+
+		// Assert, every returned job is a rebuild that ran
+		verify(recommenderService, times(returnedIds.size())).generateApriori();
+	}
+
+	private RecommenderJobDto awaitFinished(Long jobId) throws InterruptedException {
+		for (int attempt = 0; attempt < 500; attempt++) {
+			RecommenderJobDto job = recommenderJobService.getJob(jobId);
+			if (!job.isRunning()) {
+				return job;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("Job " + jobId + " did not finish");
+	}
+}
@@ -0,0 +1,169 @@
+package dev.kons.kuenyawz.services;
+
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.product.ProductDto;
+import dev.kons.kuenyawz.entities.Product;
+import dev.kons.kuenyawz.services.entity.ProductService;
+import dev.kons.kuenyawz.services.entity.PurchaseService;
+import dev.kons.kuenyawz.services.logic.TopSellerServiceImpl;
+import dev.kons.kuenyawz.utils.ProductSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TopSellerServiceImplTest {
+
+	@Mock
+	private ProductService productService;
+
+	@Mock
+	private ProductSearchIndex productSearchIndex;
+
+	@Mock
+	private PurchaseService purchaseService;
+
+	@Spy
+	private ApplicationProperties properties = new ApplicationProperties();
+
+	@InjectMocks
+	private TopSellerServiceImpl topSellerService;
+
+	/// Products as the product service resolves them, by id
+	private final Map<Long, ProductDto> products = new HashMap<>();
+
+	@BeforeEach
+	void setUp() {
+		save(product(1L, Product.Category.CAKE, true));
+		save(product(2L, Product.Category.PIE, true));
+		save(product(3L, Product.Category.CAKE, false));
+		save(product(4L, Product.Category.CAKE, true));
+		save(product(5L, Product.Category.CAKE, true));
+		lenient().when(productService.getProducts(any())).thenAnswer(invocation -> {
+			Collection<Long> productIds = invocation.getArgument(0);
+			return productIds.stream().filter(products::containsKey).map(products::get).toList();
+		});
+	}
+
+	@Test
+	void getTopSellers_ShouldRankOnlyAvailableProductsOfTheCategory() throws Exception {
+		// Arrange
+		seed();
+		when(productSearchIndex.productIds(Product.Category.CAKE, true)).thenReturn(Set.of(1L, 4L, 5L));
+
+		// Act
+		List<ProductDto> topSellers = topSellerService.getTopSellers(7, "cake", 2);
+
+		// Assert, the unavailable best seller and the pie take no place, only the listed ones are resolved
+		assertThat(topSellers).extracting(ProductDto::getProductId).containsExactly(1L, 4L);
+		verify(productService, times(1)).getProducts(List.of(1L, 4L));
+	}
+
+	@Test
+	void getTopSellers_ShouldCountEachWindowAndDefaultTheLimit() throws Exception {
+		// Arrange
+		seed();
+		when(productSearchIndex.productIds(null, true)).thenReturn(Set.of(1L, 2L, 4L, 5L));
+
+		// Act
+		List<ProductDto> lastWeek = topSellerService.getTopSellers(null, null, null);
+		List<ProductDto> lastMonth = topSellerService.getTopSellers(30, null, 0);
+
+		// Assert
+		assertThat(lastWeek).extracting(ProductDto::getProductId).containsExactly(2L, 1L, 4L);
+		assertThat(lastMonth).extracting(ProductDto::getProductId).containsExactly(2L, 1L, 5L, 4L);
+	}
+
+	@Test
+	void getTopSellers_ProductChangedSinceTheIndexWasRead_ShouldLeaveItOut() throws Exception {
+		// Arrange
+		seed();
+		when(productSearchIndex.productIds(Product.Category.CAKE, true)).thenReturn(Set.of(1L, 4L, 5L));
+		save(product(4L, Product.Category.CAKE, false));
+
+		// Act
+		List<ProductDto> topSellers = topSellerService.getTopSellers(30, "cake", 3);
+
+		// Assert
+		assertThat(topSellers).extracting(ProductDto::getProductId).containsExactly(1L, 5L);
+	}
+
+	@Test
+	void getTopSellers_BeforeSeeding_ShouldBeEmpty() {
+		// Act
+		List<ProductDto> topSellers = topSellerService.getTopSellers(7, null, 8);
+
+		// Assert
+		assertThat(topSellers).isEmpty();
+		verifyNoInteractions(productService);
+	}
+
+	@Test
+	void getTopSellers_UnknownWindow_ShouldThrowException() {
+		// Act & Assert
+		assertThatThrownBy(() -> topSellerService.getTopSellers(14, null, 8))
+			.isInstanceOf(IllegalArgumentException.class);
+		verifyNoInteractions(productSearchIndex, productService);
+	}
+
+	/**
+	 * Seeds the counts with purchases of this week and one of the last month, and waits for the seed.
+	 * Product 3 sells best but is unavailable.
+	 */
+	private void seed() throws InterruptedException {
+		LocalDateTime now = LocalDateTime.now();
+		List<long[]> baskets = List.of(
+			new long[]{1L, 2L, 3L},
+			new long[]{1L, 2L, 3L},
+			new long[]{1L, 2L, 3L, 4L},
+			new long[]{2L, 3L},
+			new long[]{3L}
+		);
+		when(purchaseService.forEachIdentifiedAprioriBasket(any())).thenAnswer(invocation -> {
+			PurchaseService.AprioriBasketConsumer consumer = invocation.getArgument(0);
+			long purchaseId = 1;
+			for (long[] basket : baskets) {
+				consumer.accept(purchaseId++, basket, now);
+			}
+			consumer.accept(purchaseId++, new long[]{5L}, now.minusDays(20));
+			consumer.accept(purchaseId, new long[]{5L}, now.minusDays(20));
+			return baskets.size() + 2;
+		});
+		lenient().when(productSearchIndex.productIds(null, true)).thenReturn(Set.of(1L, 2L, 4L, 5L));
+
+		topSellerService.seedOnStartup();
+		for (int attempt = 0; attempt < 500; attempt++) {
+			if (!topSellerService.getTopSellers(90, null, 24).isEmpty()) {
+				clearInvocations(productService);
+				return;
+			}
+			Thread.sleep(10);
+		}
+		throw new AssertionError("The top sellers were not seeded");
+	}
+
+	private void save(ProductDto product) {
+		products.put(product.getProductId(), product);
+	}
+
+	private static ProductDto product(long productId, Product.Category category, boolean available) {
+		return ProductDto.builder()
+			.productId(productId)
+			.name("Product " + productId)
+			.category(category)
+			.available(available)
+			.build();
+	}
+}
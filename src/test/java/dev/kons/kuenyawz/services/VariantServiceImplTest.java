@@ -11,6 +11,7 @@ import dev.kons.kuenyawz.mapper.VariantMapper;
 import dev.kons.kuenyawz.repositories.ProductRepository;
 import dev.kons.kuenyawz.repositories.VariantRepository;
 import dev.kons.kuenyawz.services.entity.VariantServiceImpl;
+import dev.kons.kuenyawz.utils.CatalogSnapshot;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -41,6 +42,9 @@ class VariantServiceImplTest {
 	@Mock
 	private VariantMapper variantMapper;
 
+	@Mock
+	private CatalogSnapshot catalogSnapshot;
+
 	@InjectMocks
 	private VariantServiceImpl variantService;
 
@@ -0,0 +1,134 @@
+package dev.kons.kuenyawz.utils;
+
+import dev.kons.kuenyawz.entities.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheTagsTest {
+
+	private CaffeineCacheManager cacheManager;
+	private CacheTags cacheTags;
+
+	record TaggedKey(String tagKey, int page) implements CacheTags.Tagged {
+	}
+
+	@BeforeEach
+	void setUp() {
+		cacheManager = new CaffeineCacheManager(CacheTags.PRODUCTS_CACHE, CacheTags.PURCHASES_CACHE);
+		cacheTags = new CacheTags(cacheManager);
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void key_ShouldBeTheTagAndItsGeneration() {
+		// Act & Assert
+		assertThat(cacheTags.accountKey(42L)).isEqualTo("account:42@0_");
+		assertThat(cacheTags.accountKey(null)).isEqualTo("account:ALL@0_");
+		assertThat(cacheTags.categoryKey("cake")).isEqualTo("category:CAKE@0_");
+		assertThat(cacheTags.categoryKey("unknown")).isEqualTo("category:ALL@0_");
+		assertThat(cacheTags.categoryKey(" ")).isEqualTo("category:ALL@0_");
+	}
+
+	@Test
+	void invalidate_ShouldMoveTheTagToANewGeneration() {
+		// Act
+		cacheTags.invalidate(CacheTags.PURCHASES_CACHE, CacheTags.accountTag(42L));
+
+		// Assert
+		assertThat(cacheTags.accountKey(42L)).isEqualTo("account:42@1_");
+	}
+
+	@Test
+	void invalidate_ManyMoreTagsThanStripes_ShouldShareTheCounters() {
+		// Arrange
+		List<String> tags = new ArrayList<>();
+		for (long accountId = 0; accountId < 4096; accountId++) {
+			tags.add(CacheTags.accountTag(accountId));
+		}
+
+		// Act
+		tags.forEach(tag -> cacheTags.invalidate(CacheTags.PURCHASES_CACHE, tag));
+
+		// Assert, every tag moved and some moved again with a tag sharing its counter
+		List<Long> generations = tags.stream()
+			.map(tag -> cacheTags.key(tag))
+			.map(key -> Long.parseLong(key.substring(key.indexOf('@') + 1, key.length() - 1)))
+			.toList();
+		assertThat(generations).allMatch(generation -> generation >= 1);
+		assertThat(generations).anyMatch(generation -> generation >= 2);
+	}
+
+	@Test
+	void invalidate_ShouldRemoveOnlyTheEntriesOfTheTags() {
+		// Arrange
+		Cache cache = cacheManager.getCache(CacheTags.PURCHASES_CACHE);
+		cache.put(cacheTags.accountKey(1L) + 7, "first");
+		cache.put(cacheTags.accountKey(12L) + 7, "prefix of another account");
+		cache.put(new TaggedKey(cacheTags.accountKey(1L), 0), "tagged");
+		cache.put(new TaggedKey(cacheTags.accountKey(2L), 0), "other tagged");
+		cache.put(42L, "not tagged");
+
+		// Act
+		cacheTags.invalidate(CacheTags.PURCHASES_CACHE, CacheTags.accountTag(1L));
+
+		// Assert
+		assertThat(cache.get("account:1@0_7")).isNull();
+		assertThat(cache.get(new TaggedKey("account:1@0_", 0))).isNull();
+		assertThat(cache.get("account:12@0_7")).isNotNull();
+		assertThat(cache.get(new TaggedKey("account:2@0_", 0))).isNotNull();
+		assertThat(cache.get(42L)).isNotNull();
+	}
+
+	@Test
+	void invalidateProducts_ShouldAlsoInvalidateTheUnfilteredListings() {
+		// Arrange
+		Cache cache = cacheManager.getCache(CacheTags.PRODUCTS_CACHE);
+		cache.put(cacheTags.categoryKey("cake"), "cakes");
+		cache.put(cacheTags.categoryKey((String) null), "every product");
+		cache.put(cacheTags.categoryKey("pastry"), "pastries");
+
+		// Act
+		cacheTags.invalidateProducts(Product.Category.CAKE, null);
+
+		// Assert
+		assertThat(cacheTags.categoryKey("cake")).isEqualTo("category:CAKE@1_");
+		assertThat(cacheTags.categoryKey((String) null)).isEqualTo("category:ALL@1_");
+		assertThat(cache.get("category:CAKE@0_")).isNull();
+		assertThat(cache.get("category:ALL@0_")).isNull();
+		assertThat(cache.get("category:PASTRY@0_")).isNotNull();
+	}
+
+	@Test
+	void invalidate_InATransaction_ShouldInvalidateAgainAfterCommit() {
+		// Arrange
+		TransactionSynchronizationManager.initSynchronization();
+		Cache cache = cacheManager.getCache(CacheTags.PURCHASES_CACHE);
+
+		// Act, a concurrent read caches the rows it saw before the commit under the new generation
+		cacheTags.invalidate(CacheTags.PURCHASES_CACHE, CacheTags.accountTag(1L));
+		String readBeforeCommit = cacheTags.accountKey(1L);
+		cache.put(readBeforeCommit, "stale");
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+		// Assert
+		assertThat(readBeforeCommit).isEqualTo("account:1@1_");
+		assertThat(cache.get(readBeforeCommit)).isNull();
+		assertThat(cacheTags.accountKey(1L)).isEqualTo("account:1@2_");
+	}
+}
@@ -0,0 +1,267 @@
+package dev.kons.kuenyawz.utils;
+
+import dev.kons.kuenyawz.configurations.ApplicationProperties;
+import dev.kons.kuenyawz.dtos.product.ProductDto;
+import dev.kons.kuenyawz.dtos.product.VariantDto;
+import dev.kons.kuenyawz.entities.Product;
+import dev.kons.kuenyawz.repositories.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CatalogSnapshotTest {
+
+	@Mock
+	private ProductRepository productRepository;
+
+	@Mock
+	private ApplicationProperties properties;
+
+	private CatalogSnapshot catalogSnapshot;
+
+	/// Products in the database, by id
+	private final Map<Long, ProductDto> database = new TreeMap<>();
+	private int fullLoads;
+	private final List<Collection<Long>> loadedIds = new ArrayList<>();
+
+	private final Supplier<List<ProductDto>> products = () -> {
+		fullLoads++;
+		return new ArrayList<>(database.values());
+	};
+	private final Function<Collection<Long>, Map<Long, ProductDto>> productsById = productIds -> {
+		loadedIds.add(List.copyOf(productIds));
+		Map<Long, ProductDto> found = new HashMap<>();
+		productIds.stream()
+			.filter(database::containsKey)
+			.forEach(productId -> found.put(productId, database.get(productId)));
+		return found;
+	};
+
+	@BeforeEach
+	void setUp() {
+		catalogSnapshot = new CatalogSnapshot(productRepository, properties);
+		lenient().when(properties.caches()).thenReturn(new ApplicationProperties.Caches());
+		lenient().when(productRepository.count(any(Specification.class))).thenAnswer(invocation -> (long) database.size());
+
+		save(product(5L, Product.Category.CAKE, true));
+		save(product(1L, Product.Category.PASTRY, true));
+		save(product(3L, Product.Category.CAKE, false));
+		save(product(2L, Product.Category.CAKE, true));
+		save(product(4L, Product.Category.PIE, true));
+	}
+
+	@AfterEach
+	void tearDown() {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+	}
+
+	@Test
+	void page_ShouldPageEveryProductInIdOrder() {
+		// Act
+		CatalogSnapshot.Catalog catalog = current();
+		Page<ProductDto> first = catalog.page(null, null, PageRequest.of(0, 2));
+		Page<ProductDto> last = catalog.page(null, null, PageRequest.of(2, 2));
+		Page<ProductDto> beyond = catalog.page(null, null, PageRequest.of(5, 2));
+
+		// Assert
+		assertThat(first.getContent()).extracting(ProductDto::getProductId).containsExactly(1L, 2L);
+		assertThat(first.getTotalElements()).isEqualTo(5);
+		assertThat(first.getTotalPages()).isEqualTo(3);
+		assertThat(last.getContent()).extracting(ProductDto::getProductId).containsExactly(5L);
+		assertThat(beyond.getContent()).isEmpty();
+		assertThat(beyond.getTotalElements()).isEqualTo(5);
+	}
+
+	@Test
+	void page_ShouldFilterByCategoryAndAvailability() {
+		// Act
+		CatalogSnapshot.Catalog catalog = current();
+		Page<ProductDto> cakes = catalog.page(Product.Category.CAKE, null, PageRequest.of(0, 10));
+		Page<ProductDto> availableCakes = catalog.page(Product.Category.CAKE, true, PageRequest.of(0, 10));
+		Page<ProductDto> unavailable = catalog.page(null, false, PageRequest.of(0, 10));
+		Page<ProductDto> pastas = catalog.page(Product.Category.PASTA, null, PageRequest.of(0, 10));
+
+		// Assert
+		assertThat(cakes.getContent()).extracting(ProductDto::getProductId).containsExactly(2L, 3L, 5L);
+		assertThat(availableCakes.getContent()).extracting(ProductDto::getProductId).containsExactly(2L, 5L);
+		assertThat(availableCakes.getTotalElements()).isEqualTo(2);
+		assertThat(unavailable.getContent()).extracting(ProductDto::getProductId).containsExactly(3L);
+		assertThat(pastas.getContent()).isEmpty();
+	}
+
+	@Test
+	void after_ShouldSeekPastTheCursorWithinTheFilters() {
+		// Act
+		CatalogSnapshot.Catalog catalog = current();
+
+		// Assert
+		assertThat(catalog.after(null, null, null, 2)).extracting(ProductDto::getProductId).containsExactly(1L, 2L);
+		assertThat(catalog.after(null, null, 2L, 2)).extracting(ProductDto::getProductId).containsExactly(3L, 4L);
+		assertThat(catalog.after(null, null, 5L, 2)).isEmpty();
+		assertThat(catalog.after(Product.Category.CAKE, null, 2L, 10)).extracting(ProductDto::getProductId).containsExactly(3L, 5L);
+		assertThat(catalog.after(Product.Category.CAKE, true, 2L, 10)).extracting(ProductDto::getProductId).containsExactly(5L);
+	}
+
+	@Test
+	void getAll_ShouldKeepTheRequestedOrderAndLeaveOutUnknownIds() {
+		// Act
+		CatalogSnapshot.Catalog catalog = current();
+
+		// Assert
+		assertThat(catalog.getAll(Arrays.asList(4L, 9L, null, 1L))).extracting(ProductDto::getProductId).containsExactly(4L, 1L);
+		assertThat(catalog.get(9L)).isEmpty();
+	}
+
+	@Test
+	void reads_ShouldReturnCopiesThatCannotChangeTheCatalog() {
+		// Arrange
+		ProductDto source = product(6L, Product.Category.CAKE, true);
+		database.put(6L, source);
+		CatalogSnapshot.Catalog catalog = current();
+
+		// Act
+		source.setName("Changed at the source");
+		ProductDto read = catalog.get(6L).orElseThrow();
+		read.setName("Changed by a reader");
+
+		// Assert
+		assertThat(catalog.get(6L).orElseThrow().getName()).isEqualTo("Product 6");
+		assertThat(catalog.get(6L).orElseThrow()).isNotSameAs(read);
+		assertThatThrownBy(() -> read.getVariants().clear()).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> read.getImages().add("other.jpg")).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void invalidate_Products_ShouldPatchOnlyThoseProducts() {
+		// Arrange
+		current();
+		save(product(2L, Product.Category.PIE, false));
+		database.remove(3L);
+		save(product(6L, Product.Category.CAKE, true));
+
+		// Act
+		catalogSnapshot.invalidate(List.of(2L, 3L, 6L));
+		CatalogSnapshot.Catalog catalog = current();
+
+		// Assert
+		assertThat(fullLoads).isEqualTo(1);
+		assertThat(loadedIds).singleElement().satisfies(ids -> assertThat(ids).containsExactlyInAnyOrder(2L, 3L, 6L));
+		assertThat(catalog.page(null, null, PageRequest.of(0, 10)).getContent())
+			.extracting(ProductDto::getProductId).containsExactly(1L, 2L, 4L, 5L, 6L);
+		assertThat(catalog.page(Product.Category.CAKE, null, PageRequest.of(0, 10)).getContent())
+			.extracting(ProductDto::getProductId).containsExactly(5L, 6L);
+		assertThat(catalog.page(Product.Category.PIE, false, PageRequest.of(0, 10)).getContent())
+			.extracting(ProductDto::getProductId).containsExactly(2L);
+	}
+
+	@Test
+	void invalidate_InATransaction_ShouldPatchOnlyAfterCommit() {
+		// Arrange
+		current();
+		long generation = catalogSnapshot.generation();
+		TransactionSynchronizationManager.initSynchronization();
+
+		// Act, the write is not committed yet
+		save(product(1L, Product.Category.PASTRY, false));
+		catalogSnapshot.invalidate(1L);
+		CatalogSnapshot.Catalog beforeCommit = current();
+
+		// Assert
+		assertThat(catalogSnapshot.generation()).isGreaterThan(generation);
+		assertThat(loadedIds).isEmpty();
+		assertThat(beforeCommit.get(1L).orElseThrow().isAvailable()).isTrue();
+
+		// Act
+		TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+		CatalogSnapshot.Catalog afterCommit = current();
+
+		// Assert
+		assertThat(loadedIds).containsExactly(List.of(1L));
+		assertThat(afterCommit.get(1L).orElseThrow().isAvailable()).isFalse();
+		assertThat(fullLoads).isEqualTo(1);
+	}
+
+	@Test
+	void invalidate_Everything_ShouldBuildTheCatalogAgain() {
+		// Arrange
+		current();
+		database.clear();
+
+		// Act
+		catalogSnapshot.invalidate();
+		CatalogSnapshot.Catalog catalog = current();
+
+		// Assert
+		assertThat(fullLoads).isEqualTo(2);
+		assertThat(loadedIds).isEmpty();
+		assertThat(catalog.size()).isZero();
+	}
+
+	@Test
+	void current_WithoutWrites_ShouldReuseTheCatalog() {
+		// Act
+		CatalogSnapshot.Catalog first = current();
+		CatalogSnapshot.Catalog second = current();
+
+		// Assert
+		assertThat(second).isSameAs(first);
+		assertThat(fullLoads).isEqualTo(1);
+	}
+
+	@Test
+	void current_WithMoreProductsThanTheMaximum_ShouldReturnNull() {
+		// Arrange
+		ApplicationProperties.Caches caches = new ApplicationProperties.Caches();
+		caches.setCatalogMaxProducts(4);
+		when(properties.caches()).thenReturn(caches);
+
+		// Act & Assert
+		assertThat(current()).isNull();
+		assertThat(fullLoads).isZero();
+	}
+
+	private CatalogSnapshot.Catalog current() {
+		return catalogSnapshot.current(products, productsById);
+	}
+
+	private void save(ProductDto product) {
+		database.put(product.getProductId(), product);
+	}
+
+	private static ProductDto product(long productId, Product.Category category, boolean available) {
+		return ProductDto.builder()
+			.productId(productId)
+			.name("Product " + productId)
+			.category(category)
+			.available(available)
+			.variants(new ArrayList<>(List.of(VariantDto.builder()
+				.variantId(productId * 10)
+				.price(new BigDecimal("10000.00"))
+				.type("regular")
+				.build())))
+			.images(new ArrayList<>(List.of(productId + ".jpg")))
+			.build();
+	}
+}
@@ -0,0 +1,107 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CartRuleIndexTest {
+
+	@Test
+	void recommend_ShouldUseRulesOfSinglesAndPairsInTheCart() {
+		// Arrange
+		CartRuleIndex index = CartRuleIndex.of(List.of(
+			rule(new long[]{1L}, 10L, 0.5, 2.0),
+			rule(new long[]{2L}, 20L, 0.5, 1.5),
+			rule(new long[]{1L, 2L}, 30L, 0.9, 3.0),
+			rule(new long[]{1L, 3L}, 40L, 0.9, 5.0)
+		));
+
+		// Act
+		long[] recommended = index.recommend(new long[]{2L, 1L}, 10);
+
+		// Assert, the {1, 3} rule does not apply without product 3 in the cart
+		assertThat(recommended).containsExactly(30L, 10L, 20L);
+	}
+
+	@Test
+	void recommend_ShouldRankByLiftThenConfidenceThenLowerId() {
+		// Arrange
+		CartRuleIndex index = CartRuleIndex.of(List.of(
+			rule(new long[]{1L}, 12L, 0.4, 2.0),
+			rule(new long[]{1L}, 11L, 0.8, 2.0),
+			rule(new long[]{1L}, 14L, 0.8, 2.0),
+			rule(new long[]{1L}, 13L, 0.8, 2.0),
+			rule(new long[]{1L}, 15L, 0.1, 4.0)
+		));
+
+		// Act
+		long[] recommended = index.recommend(new long[]{1L}, 10);
+
+		// Assert
+		assertThat(recommended).containsExactly(15L, 11L, 13L, 14L, 12L);
+	}
+
+	@Test
+	void recommend_WithCandidateOfSeveralRules_ShouldScoreItByItsStrongestRule() {
+		// Arrange
+		CartRuleIndex index = CartRuleIndex.of(List.of(
+			rule(new long[]{1L}, 10L, 0.2, 1.1),
+			rule(new long[]{2L}, 20L, 0.5, 2.0),
+			rule(new long[]{1L, 2L}, 10L, 0.9, 3.0)
+		));
+
+		// Act
+		long[] recommended = index.recommend(new long[]{1L, 2L}, 10);
+
+		// Assert
+		assertThat(recommended).containsExactly(10L, 20L);
+	}
+
+	@Test
+	void recommend_ShouldSkipProductsAlreadyInTheCartAndRespectTopN() {
+		// Arrange
+		CartRuleIndex index = CartRuleIndex.of(List.of(
+			rule(new long[]{1L}, 2L, 0.9, 9.0),
+			rule(new long[]{1L}, 3L, 0.8, 8.0),
+			rule(new long[]{1L}, 4L, 0.7, 7.0),
+			rule(new long[]{1L}, 5L, 0.6, 6.0)
+		));
+
+		// Act
+		long[] recommended = index.recommend(new long[]{1L, 2L, 1L}, 2);
+
+		// Assert
+		assertThat(recommended).containsExactly(3L, 4L);
+	}
+
+	@Test
+	void recommend_WithUnknownProductsOrEmptyIndex_ShouldReturnNothing() {
+		// Arrange
+		CartRuleIndex index = CartRuleIndex.of(List.of(rule(new long[]{1L}, 2L, 0.9, 9.0)));
+
+		// Act & Assert
+		assertThat(index.recommend(new long[]{7L, 8L}, 5)).isEmpty();
+		assertThat(index.recommend(new long[0], 5)).isEmpty();
+		assertThat(CartRuleIndex.empty().recommend(new long[]{1L}, 5)).isEmpty();
+		assertThat(CartRuleIndex.empty().ruleCount()).isZero();
+	}
+
+	@Test
+	void of_ShouldSkipAntecedentsOfMoreThanTwoProducts() {
+		// Arrange & Act
+		CartRuleIndex index = CartRuleIndex.of(List.of(
+			rule(new long[]{1L, 2L, 3L}, 4L, 0.9, 9.0),
+			rule(new long[]{1L}, 5L, 0.5, 1.5)
+		));
+
+		// Assert
+		assertThat(index.ruleCount()).isEqualTo(1);
+		assertThat(index.recommend(new long[]{1L, 2L, 3L}, 5)).containsExactly(5L);
+	}
+
+	private static AssociationRule rule(long[] antecedent, long consequent, double confidence, double lift) {
+		return new AssociationRule(antecedent, consequent, 1, 0.1, confidence, lift);
+	}
+}
@@ -0,0 +1,137 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CompressedBitSetTest {
+
+	@Test
+	void emptySet_ShouldHaveNoValues() {
+		// Arrange
+		CompressedBitSet empty = new CompressedBitSet();
+		CompressedBitSet other = of(1, 2, 70_000);
+
+		// Act & Assert
+		assertThat(empty.isEmpty()).isTrue();
+		assertThat(empty.cardinality()).isZero();
+		assertThat(empty.contains(0)).isFalse();
+		assertThat(empty.remove(0)).isFalse();
+		assertThat(empty.toArray()).isEmpty();
+		assertThat(CompressedBitSet.andCardinality(empty, other)).isZero();
+		assertThat(CompressedBitSet.and(other, empty).isEmpty()).isTrue();
+	}
+
+	@Test
+	void addAndRemove_ShouldReportWhetherTheSetChanged() {
+		// Arrange
+		CompressedBitSet set = new CompressedBitSet();
+
+		// Act & Assert
+		assertThat(set.add(5)).isTrue();
+		assertThat(set.add(5)).isFalse();
+		assertThat(set.contains(5)).isTrue();
+		assertThat(set.contains(6)).isFalse();
+		assertThat(set.remove(6)).isFalse();
+		assertThat(set.remove(5)).isTrue();
+		assertThat(set.remove(5)).isFalse();
+		assertThat(set.isEmpty()).isTrue();
+	}
+
+	@Test
+	void add_WithNegativeValue_ShouldThrow() {
+		// Arrange
+		CompressedBitSet set = new CompressedBitSet();
+
+		// Act & Assert
+		assertThatThrownBy(() -> set.add(-1)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(set.contains(-1)).isFalse();
+		assertThat(set.remove(-1)).isFalse();
+	}
+
+	@Test
+	void toArray_WithValuesAtChunkBoundaries_ShouldIterateInAscendingOrder() {
+		// Arrange
+		CompressedBitSet set = of(Integer.MAX_VALUE, 65_536, 0, 65_535, 131_071, 1);
+
+		// Act
+		int[] values = set.toArray();
+
+		// Assert
+		assertThat(values).containsExactly(0, 1, 65_535, 65_536, 131_071, Integer.MAX_VALUE);
+		assertThat(set.cardinality()).isEqualTo(6);
+		assertThat(set.contains(Integer.MAX_VALUE)).isTrue();
+		assertThat(set.contains(65_537)).isFalse();
+	}
+
+	@Test
+	void addAndRemove_AcrossTheDenseThreshold_ShouldKeepEveryValue() {
+		// Arrange
+		CompressedBitSet set = new CompressedBitSet();
+		BitSet expected = new BitSet();
+
+		// Act, the chunk switches to a bitmap past 4096 values and back to an array below 2048
+		for (int value = 0; value < 10_000; value += 2) {
+			set.add(value);
+			expected.set(value);
+		}
+		int denseCardinality = set.cardinality();
+		for (int value = 0; value < 7_000; value += 2) {
+			set.remove(value);
+			expected.clear(value);
+		}
+
+		// Assert
+		assertThat(denseCardinality).isEqualTo(5_000);
+		assertThat(set.cardinality()).isEqualTo(expected.cardinality());
+		assertThat(set.toArray()).containsExactly(expected.stream().toArray());
+		assertThat(set.add(7_000)).isFalse();
+		assertThat(set.add(7_001)).isTrue();
+	}
+
+	@Test
+	void and_ShouldMatchBitSetIntersection_ForEveryChunkKind() {
+		// Arrange, sparse (array) and dense (bitmap) chunks in both sets, some chunks only in one set
+		Random random = new Random(7);
+		BitSet[] expected = {new BitSet(), new BitSet()};
+		CompressedBitSet[] sets = {new CompressedBitSet(), new CompressedBitSet()};
+		for (int s = 0; s < 2; s++) {
+			for (int chunk = 0; chunk < 6; chunk++) {
+				if (chunk == 5 && s == 1) {
+					continue;
+				}
+				boolean dense = (chunk + s) % 2 == 0;
+				int count = dense ? 20_000 : 300;
+				for (int i = 0; i < count; i++) {
+					int value = (chunk << 16) | random.nextInt(65_536);
+					sets[s].add(value);
+					expected[s].set(value);
+				}
+			}
+		}
+		BitSet intersection = (BitSet) expected[0].clone();
+		intersection.and(expected[1]);
+
+		// Act
+		int cardinality = CompressedBitSet.andCardinality(sets[0], sets[1]);
+		CompressedBitSet and = CompressedBitSet.and(sets[0], sets[1]);
+
+		// Assert
+		assertThat(sets[0].cardinality()).isEqualTo(expected[0].cardinality());
+		assertThat(cardinality).isEqualTo(intersection.cardinality());
+		assertThat(and.cardinality()).isEqualTo(intersection.cardinality());
+		assertThat(and.toArray()).containsExactly(intersection.stream().toArray());
+	}
+
+	private static CompressedBitSet of(int... values) {
+		CompressedBitSet set = new CompressedBitSet();
+		for (int value : values) {
+			set.add(value);
+		}
+		return set;
+	}
+}
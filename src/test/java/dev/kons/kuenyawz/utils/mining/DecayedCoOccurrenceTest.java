@@ -0,0 +1,111 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+class DecayedCoOccurrenceTest {
+
+	private static final Duration HALF_LIFE = Duration.ofDays(10);
+	private static final long REFERENCE = 1_700_000_000_000L;
+
+	@Test
+	void similarity_ShouldBeCosineOfDecayedWeights() {
+		// Arrange, the second basket is one half-life newer and weighs twice as much
+		DecayedCoOccurrence model = new DecayedCoOccurrence(HALF_LIFE, REFERENCE);
+		model.add(new long[]{1L, 2L}, REFERENCE);
+		model.add(new long[]{1L, 3L}, REFERENCE + HALF_LIFE.toMillis());
+		ProductIndex index = model.index();
+
+		// Act
+		double withOld = model.similarity(index.indexOf(1L), index.indexOf(2L));
+		double withNew = model.similarity(index.indexOf(1L), index.indexOf(3L));
+
+		// Assert, w(1) = 1 + 2, w(2) = 1, w(3) = 2
+		assertThat(withOld).isCloseTo(1 / Math.sqrt(3), within(1e-9));
+		assertThat(withNew).isCloseTo(2 / Math.sqrt(6), within(1e-9));
+		assertThat(model.recommend(1L, 5)).containsExactly(3L, 2L);
+	}
+
+	@Test
+	void add_OlderBasket_ShouldLoseHalfItsWeightEachHalfLife() {
+		// Arrange
+		DecayedCoOccurrence model = new DecayedCoOccurrence(HALF_LIFE, REFERENCE);
+		model.add(new long[]{1L, 2L}, REFERENCE);
+		model.add(new long[]{1L, 3L}, REFERENCE - 2 * HALF_LIFE.toMillis());
+		ProductIndex index = model.index();
+
+		// Act
+		double withQuarter = model.similarity(index.indexOf(1L), index.indexOf(3L));
+
+		// Assert, w(1) = 1 + 0.25, w(3) = 0.25
+		assertThat(withQuarter).isCloseTo(0.25 / Math.sqrt(1.25 * 0.25), within(1e-9));
+	}
+
+	@Test
+	void remove_ShouldSubtractTheWeightTheBasketWasAddedWith() {
+		// Arrange
+		DecayedCoOccurrence model = new DecayedCoOccurrence(HALF_LIFE, REFERENCE);
+		model.add(new long[]{1L, 2L}, REFERENCE);
+		model.add(new long[]{1L, 2L, 2L, 3L}, REFERENCE + HALF_LIFE.toMillis());
+		ProductIndex index = model.index();
+
+		// Act
+		model.remove(new long[]{1L, 2L, 3L}, REFERENCE + HALF_LIFE.toMillis());
+
+		// Assert
+		assertThat(model.basketCount()).isEqualTo(1);
+		assertThat(model.similarity(index.indexOf(1L), index.indexOf(2L))).isCloseTo(1, within(1e-9));
+		assertThat(model.similarity(index.indexOf(1L), index.indexOf(3L))).isZero();
+		assertThat(model.recommend(1L, 5)).containsExactly(2L);
+	}
+
+	@Test
+	void add_FarBeyondTheReference_ShouldRebaseInsteadOfOverflowing() {
+		// Arrange, with a one millisecond half-life a basket 2000 ms later would weigh 2^2000
+		DecayedCoOccurrence model = new DecayedCoOccurrence(Duration.ofMillis(1), 0L);
+		model.add(new long[]{1L, 2L}, 0L);
+
+		// Act
+		model.add(new long[]{1L, 3L}, 2000L);
+		model.add(new long[]{1L, 2L}, 2000L);
+		ProductIndex index = model.index();
+
+		// Assert, the first basket is negligible next to the rebased ones
+		assertThat(model.similarity(index.indexOf(1L), index.indexOf(2L))).isCloseTo(1 / Math.sqrt(2), within(1e-9));
+		assertThat(model.similarity(index.indexOf(1L), index.indexOf(3L))).isCloseTo(1 / Math.sqrt(2), within(1e-9));
+
+		// Removing with the original time still takes out exactly the added weight
+		model.remove(new long[]{1L, 3L}, 2000L);
+		assertThat(model.similarity(index.indexOf(1L), index.indexOf(3L))).isZero();
+		assertThat(model.similarity(index.indexOf(1L), index.indexOf(2L))).isCloseTo(1, within(1e-9));
+	}
+
+	@Test
+	void recommend_ForCart_ShouldSumSimilaritiesAndExcludeTheCart() {
+		// Arrange
+		DecayedCoOccurrence model = new DecayedCoOccurrence(HALF_LIFE, REFERENCE);
+		model.add(new long[]{1L, 4L}, REFERENCE);
+		model.add(new long[]{2L, 4L}, REFERENCE);
+		model.add(new long[]{1L, 5L}, REFERENCE);
+		model.add(new long[]{1L, 2L}, REFERENCE);
+
+		// Act
+		long[] recommended = model.recommend(new long[]{1L, 2L}, 5);
+
+		// Assert, 4 is similar to both products of the cart, 5 only to one
+		assertThat(recommended).containsExactly(4L, 5L);
+		assertThat(model.recommend(new long[]{9L}, 5)).isEmpty();
+	}
+
+	@Test
+	void constructor_WithNonPositiveHalfLife_ShouldThrow() {
+		// Act & Assert
+		assertThatThrownBy(() -> new DecayedCoOccurrence(Duration.ZERO, REFERENCE))
+			.isInstanceOf(IllegalArgumentException.class);
+	}
+}
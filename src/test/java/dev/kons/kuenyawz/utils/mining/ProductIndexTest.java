@@ -0,0 +1,70 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProductIndexTest {
+
+	@Test
+	void getOrAdd_ShouldAssignDenseIndicesInInsertionOrder() {
+		// Arrange
+		ProductIndex index = new ProductIndex();
+
+		// Act
+		int first = index.getOrAdd(900L);
+		int second = index.getOrAdd(100L);
+		int again = index.getOrAdd(900L);
+
+		// Assert
+		assertThat(first).isZero();
+		assertThat(second).isEqualTo(1);
+		assertThat(again).isZero();
+		assertThat(index.size()).isEqualTo(2);
+		assertThat(index.toIdArray()).containsExactly(900L, 100L);
+	}
+
+	@Test
+	void indexOf_WithUnknownProduct_ShouldReturnMinusOne() {
+		// Arrange
+		ProductIndex index = new ProductIndex();
+		index.getOrAdd(1L);
+
+		// Act & Assert
+		assertThat(index.indexOf(2L)).isEqualTo(-1);
+		assertThat(new ProductIndex().indexOf(1L)).isEqualTo(-1);
+	}
+
+	@Test
+	void getOrAdd_BeyondInitialCapacity_ShouldKeepEveryMapping() {
+		// Arrange, snowflake like ids that share their high bits
+		ProductIndex index = new ProductIndex(2);
+		long base = 1_300_000_000_000_000_000L;
+
+		// Act
+		for (int i = 0; i < 10_000; i++) {
+			index.getOrAdd(base + ((long) i << 12));
+		}
+
+		// Assert
+		assertThat(index.size()).isEqualTo(10_000);
+		for (int i = 0; i < 10_000; i++) {
+			long productId = base + ((long) i << 12);
+			assertThat(index.indexOf(productId)).isEqualTo(i);
+			assertThat(index.idOf(i)).isEqualTo(productId);
+		}
+	}
+
+	@Test
+	void idOfAndGetOrAdd_WithInvalidArguments_ShouldThrow() {
+		// Arrange
+		ProductIndex index = new ProductIndex();
+		index.getOrAdd(1L);
+
+		// Act & Assert
+		assertThatThrownBy(() -> index.idOf(1)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> index.idOf(-1)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> index.getOrAdd(Long.MIN_VALUE)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
@@ -0,0 +1,136 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RecommendationModelFileTest {
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void write_ThenRead_ShouldRoundTripTheModel() throws IOException {
+		// Arrange
+		Path path = directory.resolve("nested/model.bin");
+		RecommendationSnapshot snapshot = RecommendationSnapshot.of(42L, Map.of(
+			1L, new long[]{2L, 3L, 4L},
+			2L, new long[]{1L},
+			5L, new long[0]
+		));
+		CartRuleIndex cartRules = CartRuleIndex.of(List.of(
+			new AssociationRule(new long[]{1L}, 2L, 3, 0.3, 0.6, 1.5),
+			new AssociationRule(new long[]{1L, 3L}, 4L, 2, 0.2, 0.9, 2.5)
+		));
+
+		// Act
+		RecommendationModelFile.write(path, snapshot, cartRules);
+		RecommendationModelFile.Model model = RecommendationModelFile.read(path);
+
+		// Assert
+		assertThat(model.generation()).isEqualTo(42L);
+		assertThat(model.snapshot().size()).isEqualTo(snapshot.size());
+		for (long productId : new long[]{1L, 2L, 5L, 9L}) {
+			assertThat(model.snapshot().recommendationsOf(productId)).containsExactly(snapshot.recommendationsOf(productId));
+		}
+		assertThat(model.cartRules().ruleCount()).isEqualTo(2);
+		assertThat(model.cartRules().recommend(new long[]{1L, 3L}, 5)).containsExactly(4L, 2L);
+	}
+
+	@Test
+	void write_OverAnExistingFile_ShouldReplaceIt() throws IOException {
+		// Arrange
+		Path path = directory.resolve("model.bin");
+		RecommendationModelFile.write(path, RecommendationSnapshot.of(1L, Map.of(1L, new long[]{2L})), CartRuleIndex.empty());
+
+		// Act
+		RecommendationModelFile.write(path, RecommendationSnapshot.of(2L, Map.of(1L, new long[]{3L})), CartRuleIndex.empty());
+
+		// Assert
+		RecommendationModelFile.Model model = RecommendationModelFile.read(path);
+		assertThat(model.generation()).isEqualTo(2L);
+		assertThat(model.snapshot().recommendationsOf(1L)).containsExactly(3L);
+		try (var files = Files.list(directory)) {
+			assertThat(files).containsExactly(path);
+		}
+	}
+
+	@Test
+	void read_TruncatedFile_ShouldThrow() throws IOException {
+		// Arrange
+		Path path = writeSample();
+		byte[] bytes = Files.readAllBytes(path);
+		Path truncatedPayload = directory.resolve("payload.bin");
+		Files.write(truncatedPayload, Arrays.copyOf(bytes, bytes.length - 8));
+		Path truncatedHeader = directory.resolve("header.bin");
+		Files.write(truncatedHeader, Arrays.copyOf(bytes, 10));
+
+		// Act & Assert
+		assertThatThrownBy(() -> RecommendationModelFile.read(truncatedPayload))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("truncated");
+		assertThatThrownBy(() -> RecommendationModelFile.read(truncatedHeader))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("truncated");
+	}
+
+	@Test
+	void read_WrongMagic_ShouldThrow() throws IOException {
+		// Arrange
+		Path path = writeSample();
+		byte[] bytes = Files.readAllBytes(path);
+		ByteBuffer.wrap(bytes).putInt(0, 0x12345678);
+		Files.write(path, bytes);
+
+		// Act & Assert
+		assertThatThrownBy(() -> RecommendationModelFile.read(path))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("Not a recommendation model file");
+	}
+
+	@Test
+	void read_WrongVersion_ShouldThrow() throws IOException {
+		// Arrange
+		Path path = writeSample();
+		byte[] bytes = Files.readAllBytes(path);
+		ByteBuffer.wrap(bytes).putInt(Integer.BYTES, 99);
+		Files.write(path, bytes);
+
+		// Act & Assert
+		assertThatThrownBy(() -> RecommendationModelFile.read(path))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("Unsupported model file version 99");
+	}
+
+	@Test
+	void read_CorruptedPayload_ShouldFailTheChecksum() throws IOException {
+		// Arrange
+		Path path = writeSample();
+		byte[] bytes = Files.readAllBytes(path);
+		bytes[bytes.length - 1] ^= 0x01;
+		Files.write(path, bytes);
+
+		// Act & Assert
+		assertThatThrownBy(() -> RecommendationModelFile.read(path))
+			.isInstanceOf(IOException.class)
+			.hasMessageContaining("checksum");
+	}
+
+	private Path writeSample() throws IOException {
+		Path path = directory.resolve("model.bin");
+		RecommendationModelFile.write(path,
+			RecommendationSnapshot.of(7L, Map.of(1L, new long[]{2L, 3L})),
+			CartRuleIndex.of(List.of(new AssociationRule(new long[]{1L}, 2L, 1, 0.5, 0.5, 1.0))));
+		return path;
+	}
+}
@@ -0,0 +1,176 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.LongPredicate;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SlidingWindowCountsTest {
+
+	private static final long TODAY = 20_000L;
+
+	@Test
+	void add_ShouldCountEachProductOncePerPurchaseInEveryWindowItFalls() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7, 30);
+
+		// Act
+		counts.add(new long[]{1L, 1L, 2L}, TODAY, 1);
+		counts.add(new long[]{1L}, TODAY - 10, 1);
+
+		// Assert
+		assertThat(counts.count(1L, 7)).isEqualTo(1);
+		assertThat(counts.count(1L, 30)).isEqualTo(2);
+		assertThat(counts.count(2L, 7)).isEqualTo(1);
+		assertThat(counts.count(3L, 7)).isZero();
+	}
+
+	@Test
+	void advanceTo_ShouldDropDaysLeavingEachWindow() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7, 30);
+		counts.add(new long[]{1L}, TODAY, 1);
+		counts.add(new long[]{1L}, TODAY - 6, 1);
+
+		// Act, the older purchase is 7 days old, out of the 7 day window
+		counts.advanceTo(TODAY + 1);
+
+		// Assert
+		assertThat(counts.today()).isEqualTo(TODAY + 1);
+		assertThat(counts.count(1L, 7)).isEqualTo(1);
+		assertThat(counts.count(1L, 30)).isEqualTo(2);
+
+		// Act, both purchases leave every window
+		counts.advanceTo(TODAY + 30);
+
+		// Assert
+		assertThat(counts.count(1L, 7)).isZero();
+		assertThat(counts.count(1L, 30)).isZero();
+		assertThat(counts.top(30, 10, productId -> true)).isEmpty();
+	}
+
+	@Test
+	void advanceTo_OverMoreThanAWholeRing_ShouldClearEverything() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7, 30);
+		counts.add(new long[]{1L, 2L}, TODAY, 1);
+
+		// Act
+		counts.advanceTo(TODAY + 365);
+		counts.add(new long[]{2L}, TODAY + 365, 1);
+
+		// Assert
+		assertThat(counts.count(1L, 30)).isZero();
+		assertThat(counts.count(2L, 30)).isEqualTo(1);
+		assertThat(counts.count(2L, 7)).isEqualTo(1);
+	}
+
+	@Test
+	void advanceTo_Backward_ShouldBeIgnored() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7);
+		counts.add(new long[]{1L}, TODAY, 1);
+
+		// Act
+		counts.advanceTo(TODAY - 3);
+
+		// Assert
+		assertThat(counts.today()).isEqualTo(TODAY);
+		assertThat(counts.count(1L, 7)).isEqualTo(1);
+	}
+
+	@Test
+	void add_OnALaterDay_ShouldRollTheClockOver() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7);
+		counts.add(new long[]{1L}, TODAY - 6, 1);
+
+		// Act
+		counts.add(new long[]{2L}, TODAY + 1, 1);
+
+		// Assert
+		assertThat(counts.today()).isEqualTo(TODAY + 1);
+		assertThat(counts.count(1L, 7)).isZero();
+		assertThat(counts.count(2L, 7)).isEqualTo(1);
+	}
+
+	@Test
+	void add_RemovalOfExpiredOrUncountedPurchase_ShouldNeverGoNegative() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7, 30);
+		counts.add(new long[]{1L}, TODAY - 40, 1);
+		counts.add(new long[]{2L}, TODAY, 1);
+
+		// Act
+		counts.add(new long[]{1L}, TODAY - 40, -1);
+		counts.add(new long[]{2L}, TODAY, -1);
+		counts.add(new long[]{2L}, TODAY, -1);
+		counts.add(new long[]{3L}, TODAY, -1);
+
+		// Assert
+		assertThat(counts.count(1L, 30)).isZero();
+		assertThat(counts.count(2L, 7)).isZero();
+		assertThat(counts.count(3L, 7)).isZero();
+		assertThat(counts.itemCount()).isEqualTo(1);
+	}
+
+	@Test
+	void top_ShouldRankByCountThenLowerIdAndRespectTheLimitAndFilter() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7, 30);
+		counts.add(new long[]{30L, 20L}, TODAY, 1);
+		counts.add(new long[]{30L, 10L}, TODAY, 1);
+		counts.add(new long[]{40L}, TODAY - 20, 1);
+		counts.add(new long[]{40L}, TODAY - 20, 1);
+		counts.add(new long[]{40L}, TODAY - 20, 1);
+
+		// Act & Assert
+		assertThat(counts.top(7, 10, productId -> true)).containsExactly(30L, 10L, 20L);
+		assertThat(counts.top(7, 2, productId -> true)).containsExactly(30L, 10L);
+		assertThat(counts.top(7, 10, productId -> productId != 30L)).containsExactly(10L, 20L);
+		assertThat(counts.top(30, 10, productId -> true)).containsExactly(40L, 30L, 10L, 20L);
+		assertThat(counts.top(30, 0, productId -> true)).isEmpty();
+	}
+
+	@Test
+	void top_ShouldMatchAFullSortOfTheFilteredProducts() {
+		// Arrange, many ties and more products than places
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 7);
+		Random random = new Random(42);
+		for (int purchase = 0; purchase < 2000; purchase++) {
+			counts.add(new long[]{random.nextInt(300), random.nextInt(300)}, TODAY - random.nextInt(7), 1);
+		}
+		LongPredicate filter = productId -> productId % 3 != 0;
+
+		// Act
+		long[] top = counts.top(7, 25, filter);
+
+		// Assert
+		long[] expected = LongStream.range(0, 300)
+			.filter(productId -> filter.test(productId) && counts.count(productId, 7) > 0)
+			.boxed()
+			.sorted(Comparator.comparingInt((Long productId) -> counts.count(productId, 7)).reversed()
+				.thenComparing(Comparator.naturalOrder()))
+			.limit(25)
+			.mapToLong(Long::longValue)
+			.toArray();
+		assertThat(top).containsExactly(expected);
+	}
+
+	@Test
+	void windows_ShouldBeSortedAndValidated() {
+		// Arrange
+		SlidingWindowCounts counts = new SlidingWindowCounts(TODAY, 90, 7, 30);
+
+		// Act & Assert
+		assertThat(counts.windows()).containsExactly(7, 30, 90);
+		assertThatThrownBy(() -> counts.top(14, 10, productId -> true)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new SlidingWindowCounts(TODAY)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new SlidingWindowCounts(TODAY, 0, 7)).isInstanceOf(IllegalArgumentException.class);
+	}
+}
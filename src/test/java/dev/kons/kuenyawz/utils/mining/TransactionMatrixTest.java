@@ -0,0 +1,73 @@
+package dev.kons.kuenyawz.utils.mining;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TransactionMatrixTest {
+
+	@Test
+	void builder_ShouldIndexProductsAndCountSupports() {
+		// Arrange
+		TransactionMatrix matrix = TransactionMatrix.builder()
+			.addTransaction(10L, 20L, 30L)
+			.addTransaction(List.of(10L, 20L))
+			.addTransaction(10L, 10L)
+			.addTransaction()
+			.build();
+		int a = matrix.index().indexOf(10L);
+		int b = matrix.index().indexOf(20L);
+		int c = matrix.index().indexOf(30L);
+
+		// Act & Assert
+		assertThat(matrix.transactionCount()).isEqualTo(4);
+		assertThat(matrix.itemCount()).isEqualTo(3);
+		assertThat(matrix.itemSupports()).containsExactly(3, 2, 1);
+		assertThat(matrix.support(a)).isEqualTo(3);
+		assertThat(matrix.support(a, b)).isEqualTo(2);
+		assertThat(matrix.support(new int[]{a, b, c})).isEqualTo(1);
+		assertThat(matrix.support(new int[0])).isEqualTo(4);
+		assertThat(matrix.column(a).toArray()).containsExactly(0, 1, 2);
+	}
+
+	@Test
+	void of_ShouldMatchTheBasketsOfTheOrders() {
+		// Arrange
+		Map<Long, Set<Long>> orders = Map.of(
+			1L, Set.of(1L, 2L),
+			2L, Set.of(2L, 3L),
+			3L, Set.of(1L, 2L, 3L)
+		);
+
+		// Act
+		TransactionMatrix matrix = TransactionMatrix.of(orders);
+		int[][] rows = matrix.toTransactions();
+
+		// Assert
+		assertThat(rows.length).isEqualTo(3);
+		long[] ids = matrix.index().toIdArray();
+		assertThat(Arrays.stream(rows)
+			.map(row -> Arrays.stream(row).mapToObj(item -> ids[item]).collect(Collectors.toSet()))
+			.toList())
+			.containsExactlyInAnyOrderElementsOf(orders.values());
+		assertThat(matrix.support(new int[]{0, 1, 2})).isEqualTo(1);
+	}
+
+	@Test
+	void build_WithoutTransactions_ShouldBeEmpty() {
+		// Act
+		TransactionMatrix matrix = TransactionMatrix.builder().build();
+
+		// Assert
+		assertThat(matrix.transactionCount()).isZero();
+		assertThat(matrix.itemCount()).isZero();
+		assertThat(matrix.itemSupports()).isEmpty();
+		assertThat(matrix.toTransactions()).isEmpty();
+	}
+}
@@ -0,0 +1,55 @@
+package dev.kons.kuenyawz.utils.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IndonesianAnalyzerTest {
+
+	@Test
+	void tokenize_ShouldLowercaseStripAccentsAndDropStopWords() {
+		// Act & Assert
+		assertThat(IndonesianAnalyzer.tokenize("Kue Manis dan Gurih, untuk Crème Brûlée!"))
+			.containsExactly("kue", "manis", "gurih", "creme", "brulee");
+	}
+
+	@Test
+	void tokenize_ReduplicatedWords_ShouldKeepTheBase() {
+		// Act & Assert
+		assertThat(IndonesianAnalyzer.tokenize("kue-kue")).containsExactly("kue");
+		assertThat(IndonesianAnalyzer.tokenize("Sayur-Mayur segar")).containsExactly("sayur", "segar");
+	}
+
+	@Test
+	void tokenize_OtherHyphenatedWords_ShouldBeSplit() {
+		// Act & Assert
+		assertThat(IndonesianAnalyzer.tokenize("kue-lapis -legit-")).containsExactly("kue", "lapis", "legit");
+	}
+
+	@Test
+	void tokenize_BlankOrOnlyStopWords_ShouldReturnNoTokens() {
+		// Act & Assert
+		assertThat(IndonesianAnalyzer.tokenize(null)).isEmpty();
+		assertThat(IndonesianAnalyzer.tokenize("   ")).isEmpty();
+		assertThat(IndonesianAnalyzer.tokenize("dan yang dengan ...")).isEmpty();
+	}
+
+	@Test
+	void stem_ShouldStripParticlesPossessivesSuffixesAndPrefixes() {
+		// Act & Assert
+		assertThat(IndonesianAnalyzer.stem("manisnya")).isEqualTo("manis");
+		assertThat(IndonesianAnalyzer.stem("manisan")).isEqualTo("manis");
+		assertThat(IndonesianAnalyzer.stem("enaklah")).isEqualTo("enak");
+		assertThat(IndonesianAnalyzer.stem("kuemu")).isEqualTo("kue");
+		assertThat(IndonesianAnalyzer.stem("makanan")).isEqualTo("makan");
+		assertThat(IndonesianAnalyzer.stem("bermain")).isEqualTo("main");
+	}
+
+	@Test
+	void stem_ShouldNeverLeaveFewerThanThreeLetters() {
+		// Act & Assert
+		assertThat(IndonesianAnalyzer.stem("kue")).isEqualTo("kue");
+		assertThat(IndonesianAnalyzer.stem("dia")).isEqualTo("dia");
+		assertThat(IndonesianAnalyzer.stem("dian")).isEqualTo("dian");
+	}
+}
@@ -0,0 +1,104 @@
+package dev.kons.kuenyawz.utils.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SearchIndexTest {
+
+	private static final long LAPIS = 1L;
+	private static final long ROTI = 2L;
+	private static final long MANISAN = 3L;
+	private static final long BOLU = 4L;
+
+	private final SearchIndex index = new SearchIndex(4, 1);
+
+	SearchIndexTest() {
+		index.put(LAPIS, "Kue Lapis", "Lapis legit berlapis");
+		index.put(ROTI, "Roti Tawar", "Lebih enak dengan kue");
+		index.put(MANISAN, "Manisan Mangga", null);
+		index.put(BOLU, "Bolu Pandan", "Lembut dan harum");
+	}
+
+	@Test
+	void search_ShouldRankNameMatchesAboveDescriptionMatches() {
+		// Act & Assert
+		assertThat(index.search("kue", id -> true)).containsExactly(LAPIS, ROTI);
+	}
+
+	@Test
+	void search_ShouldRequireEveryQueryToken() {
+		// Act & Assert
+		assertThat(index.search("kue tawar", id -> true)).containsExactly(ROTI);
+		assertThat(index.search("kue mangga", id -> true)).isEmpty();
+	}
+
+	@Test
+	void search_ShouldMatchPrefixesForSearchAsYouType() {
+		// Act & Assert
+		assertThat(index.search("lap", id -> true)).containsExactly(LAPIS);
+		assertThat(index.search("Pand", id -> true)).containsExactly(BOLU);
+	}
+
+	@Test
+	void search_ShouldMatchStemsAndReduplication() {
+		// Act & Assert
+		assertThat(index.search("manisnya", id -> true)).containsExactly(MANISAN);
+		assertThat(index.search("kue-kue", id -> true)).containsExactly(LAPIS, ROTI);
+	}
+
+	@Test
+	void search_ShouldMatchTyposByTrigrams() {
+		// Act & Assert
+		assertThat(index.search("pandam", id -> true)).containsExactly(BOLU);
+		assertThat(index.search("lappis", id -> true)).containsExactly(LAPIS);
+	}
+
+	@Test
+	void search_ExactMatch_ShouldOutrankFuzzyMatch() {
+		// Arrange
+		index.put(5L, "Pandam", null);
+
+		// Act & Assert
+		assertThat(index.search("pandam", id -> true)).containsExactly(5L, BOLU);
+	}
+
+	@Test
+	void search_EqualScores_ShouldBeOrderedByLowerId() {
+		// Arrange
+		SearchIndex ties = new SearchIndex(1);
+		ties.put(9L, "Nastar");
+		ties.put(3L, "Nastar");
+		ties.put(6L, "Nastar");
+
+		// Act & Assert
+		assertThat(ties.search("nastar", id -> true)).containsExactly(3L, 6L, 9L);
+	}
+
+	@Test
+	void search_ShouldApplyTheFilter() {
+		// Act & Assert
+		assertThat(index.search("kue", id -> id != LAPIS)).containsExactly(ROTI);
+	}
+
+	@Test
+	void search_WithoutSearchableTokens_ShouldReturnNothing() {
+		// Act & Assert
+		assertThat(index.search("dan yang", id -> true)).isEmpty();
+		assertThat(index.search("", id -> true)).isEmpty();
+	}
+
+	@Test
+	void putAndRemove_ShouldReplaceAndDropDocuments() {
+		// Act
+		index.put(ROTI, "Roti Sobek", null);
+		index.remove(LAPIS);
+		index.remove(99L);
+
+		// Assert
+		assertThat(index.size()).isEqualTo(3);
+		assertThat(index.search("tawar", id -> true)).isEmpty();
+		assertThat(index.search("sobek", id -> true)).containsExactly(ROTI);
+		assertThat(index.search("lapis", id -> true)).isEmpty();
+	}
+}